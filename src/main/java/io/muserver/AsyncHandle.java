@@ -20,6 +20,16 @@ public interface AsyncHandle {
      */
     void setReadListener(RequestBodyListener readListener);
 
+    /**
+     * <p>Sets a listener that will be notified of each part of a <code>multipart/form-data</code> request body as it
+     * is received.</p>
+     * <p>This cannot be used along with {@link #setReadListener(RequestBodyListener)} or the blocking request
+     * reading methods.</p>
+     * @param listener The listener.
+     * @throws jakarta.ws.rs.ClientErrorException If the request body is not <code>multipart/form-data</code>
+     */
+    void setFormPartListener(FormPartListener listener);
+
     /**
      * Call this to indicate that the response is complete.
      */
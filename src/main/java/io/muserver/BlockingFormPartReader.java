@@ -0,0 +1,282 @@
+package io.muserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.multipart.FileUpload;
+import io.netty.handler.codec.http.multipart.MixedFileUpload;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.MediaType;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads multipart parts from the blocking request body stream. A single buffer is refilled from the stream as the
+ * parser consumes it, so memory use is fixed no matter how large the parts are.
+ */
+class BlockingFormPartReader implements FormPartReader {
+    private static final Logger log = LoggerFactory.getLogger(BlockingFormPartReader.class);
+    private static final int READ_SIZE = 16 * 1024;
+
+    private final InputStream body;
+    private final MultipartParser parser;
+    private final MultipartConfig config;
+    private final Charset charset;
+    private final ByteBuf buffer;
+    private final List<FileUpload> uploads = new ArrayList<>();
+    private @Nullable Part current;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * @param body The request body, or null if the request has no body
+     * @param parser A parser for the request's boundary
+     * @param config The multipart config of the server
+     * @param charset The charset of the request
+     */
+    BlockingFormPartReader(@Nullable InputStream body, MultipartParser parser, MultipartConfig config, Charset charset) {
+        this.body = body == null ? new ByteArrayInputStream(new byte[0]) : body;
+        this.finished = body == null;
+        this.parser = parser;
+        this.config = config;
+        this.charset = charset;
+        int capacity = parser.maxLeftover() + READ_SIZE;
+        this.buffer = Unpooled.buffer(capacity, capacity);
+    }
+
+    @Override
+    public @Nullable StreamingFormPart next() throws IOException {
+        if (closed) {
+            throw new IOException("The form part reader is closed");
+        }
+        Part previous = current;
+        if (previous != null) {
+            previous.skipRemaining();
+            current = null;
+        }
+        while (!finished) {
+            MultipartParser.Event event = parser.next(buffer);
+            if (event == MultipartParser.Event.NEED_MORE) {
+                fill();
+            } else if (event == MultipartParser.Event.PART_START) {
+                Part part = new Part(parser.part());
+                current = part;
+                return part;
+            } else if (event == MultipartParser.Event.END) {
+                finished = true;
+                body.close();
+            } else {
+                throw new IllegalStateException("Unexpected " + event + " between parts");
+            }
+        }
+        return null;
+    }
+
+    private void fill() throws IOException {
+        buffer.discardReadBytes();
+        if (buffer.writeBytes(body, buffer.writableBytes()) < 0) {
+            throw new ClientErrorException(RequestBodyReader.closingResponse(400, "The multipart body ended before its closing boundary"));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            current = null;
+            if (!finished) {
+                finished = true;
+                body.close();
+            }
+        }
+    }
+
+    /**
+     * Deletes the temporary files of any parts read with {@link StreamingFormPart#toUploadedFile()}
+     */
+    void cleanup() {
+        for (FileUpload upload : uploads) {
+            try {
+                upload.release();
+            } catch (Exception e) {
+                log.info("Error while deleting uploaded file " + upload, e);
+            }
+        }
+        uploads.clear();
+    }
+
+    private class Part implements StreamingFormPart {
+        private final MuFormPart part;
+        private @Nullable ByteBuf pending;
+        private boolean ended;
+        private boolean streamClosed;
+
+        private final InputStream stream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                ByteBuf data = streamClosed ? null : nextData();
+                return data == null ? -1 : data.readUnsignedByte();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (off < 0 || len < 0 || len > b.length - off) {
+                    throw new IndexOutOfBoundsException();
+                } else if (len == 0) {
+                    return 0;
+                }
+                ByteBuf data = streamClosed ? null : nextData();
+                if (data == null) {
+                    return -1;
+                }
+                int actual = Math.min(len, data.readableBytes());
+                data.readBytes(b, off, actual);
+                return actual;
+            }
+
+            @Override
+            public int available() {
+                ByteBuf data = pending;
+                return data == null || streamClosed ? 0 : data.readableBytes();
+            }
+
+            @Override
+            public void close() {
+                // the rest of the part is skipped when the next part is read
+                streamClosed = true;
+            }
+        };
+
+        Part(MuFormPart part) {
+            this.part = part;
+        }
+
+        /**
+         * @return A buffer with some unread data, or null if the part has ended
+         */
+        private @Nullable ByteBuf nextData() throws IOException {
+            while (!ended) {
+                ByteBuf data = pending;
+                if (data != null && data.isReadable()) {
+                    return data;
+                }
+                if (current != this) {
+                    throw new IOException("The part " + part.name() + " can no longer be read as the next part has been requested");
+                }
+                MultipartParser.Event event = parser.next(buffer);
+                if (event == MultipartParser.Event.DATA) {
+                    pending = parser.data();
+                } else if (event == MultipartParser.Event.PART_END) {
+                    ended = true;
+                    pending = null;
+                } else if (event == MultipartParser.Event.NEED_MORE) {
+                    fill();
+                } else {
+                    throw new IllegalStateException("Unexpected " + event + " in a part");
+                }
+            }
+            return null;
+        }
+
+        void skipRemaining() throws IOException {
+            ByteBuf data;
+            while ((data = nextData()) != null) {
+                data.skipBytes(data.readableBytes());
+            }
+        }
+
+        @Override
+        public String name() {
+            return part.name();
+        }
+
+        @Override
+        public @Nullable String filename() {
+            return part.filename();
+        }
+
+        @Override
+        public Headers headers() {
+            return part.headers();
+        }
+
+        @Override
+        public InputStream inputStream() {
+            return stream;
+        }
+
+        @Override
+        public String value() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            transferTo(out);
+            return new String(out.toByteArray(), partCharset());
+        }
+
+        private Charset partCharset() {
+            try {
+                MediaType type = contentType();
+                String name = type == null ? null : type.getParameters().get("charset");
+                return name == null ? charset : Charset.forName(name);
+            } catch (Exception e) {
+                return charset;
+            }
+        }
+
+        @Override
+        public long transferTo(Path destination) throws IOException {
+            Mutils.notNull("destination", destination);
+            try (OutputStream out = Files.newOutputStream(destination)) {
+                return transferTo(out);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(destination);
+                throw e;
+            }
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            Mutils.notNull("out", out);
+            long total = 0;
+            ByteBuf data;
+            while ((data = nextData()) != null) {
+                int length = data.readableBytes();
+                data.readBytes(out, length);
+                total += length;
+            }
+            return total;
+        }
+
+        @Override
+        public UploadedFile toUploadedFile() throws IOException {
+            MediaType type = contentType();
+            String filename = part.filename();
+            MixedFileUpload upload = new MixedFileUpload(part.name(), filename == null ? "" : filename,
+                type == null ? ContentTypes.APPLICATION_OCTET_STREAM.toString() : MediaTypeParser.toString(type),
+                "binary", partCharset(), 0, config.memoryThreshold, config.tempDirectoryName(), true);
+            uploads.add(upload);
+            ByteBuf data;
+            while ((data = nextData()) != null) {
+                upload.addContent(Unpooled.copiedBuffer(data), false);
+                data.skipBytes(data.readableBytes());
+            }
+            upload.addContent(Unpooled.EMPTY_BUFFER, true);
+            return new MuUploadedFile(upload);
+        }
+
+        @Override
+        public String toString() {
+            return part.toString();
+        }
+    }
+}
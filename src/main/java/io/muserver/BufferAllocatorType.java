@@ -0,0 +1,29 @@
+package io.muserver;
+
+/**
+ * The type of buffer allocator used for reading and writing socket data, set with
+ * {@link SocketConfigBuilder#withAllocator(BufferAllocatorType)}
+ */
+public enum BufferAllocatorType {
+
+    /**
+     * Uses Netty's default allocator, which can be changed with the <code>io.netty.allocator.type</code> system property.
+     */
+    DEFAULT,
+
+    /**
+     * A pooled allocator, which reuses buffers from thread-local arenas to reduce garbage collection.
+     */
+    POOLED,
+
+    /**
+     * An unpooled allocator, where each buffer is newly allocated and released when no longer used.
+     */
+    UNPOOLED,
+
+    /**
+     * Netty's adaptive allocator, which sizes its pooled chunks based on the sizes of buffers actually requested.
+     * <p>This is the default allocator in Netty 4.2 and is considered experimental in Netty 4.1.</p>
+     */
+    ADAPTIVE
+}
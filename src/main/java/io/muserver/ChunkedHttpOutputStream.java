@@ -24,7 +24,8 @@ class ChunkedHttpOutputStream extends OutputStream {
         if (isClosed) {
             throw new IOException("Cannot write to closed output stream");
         }
-        response.exchange().block(() -> response.writeAndFlush(Unpooled.wrappedBuffer(b, off, len)));
+        // copied as the write completes after this returns, by which time the caller may have reused the array
+        response.writeFromHandlerThread(Unpooled.copiedBuffer(b, off, len));
     }
 
     @Override
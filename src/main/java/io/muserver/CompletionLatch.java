@@ -0,0 +1,106 @@
+package io.muserver;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A one-shot latch that a blocking handler thread waits on until another thread (normally the event loop) completes
+ * it, optionally with an error.
+ * <p>Waiting is done with a {@link ReentrantLock} condition rather than an object monitor or a Netty promise, so
+ * a virtual thread that waits is unmounted from its carrier thread rather than pinning it.</p>
+ */
+class CompletionLatch {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition completedCondition = lock.newCondition();
+    private boolean completed;
+    private @Nullable Throwable error;
+
+    /**
+     * Completes the latch and wakes any waiting threads. Only the first call has an effect.
+     * @param error The error to complete with, or <code>null</code> for success
+     * @return <code>true</code> if this call completed the latch
+     */
+    boolean complete(@Nullable Throwable error) {
+        lock.lock();
+        try {
+            if (completed) {
+                return false;
+            }
+            this.completed = true;
+            this.error = error;
+            completedCondition.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if {@link #complete(Throwable)} has been called
+     */
+    boolean isCompleted() {
+        lock.lock();
+        try {
+            return completed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The error the latch was completed with, or <code>null</code> if it completed successfully or is not
+     * yet complete
+     */
+    @Nullable Throwable error() {
+        lock.lock();
+        try {
+            return error;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the latch is completed
+     * @return The error the latch was completed with, or <code>null</code> if it completed successfully
+     * @throws InterruptedException If the current thread is interrupted while waiting
+     */
+    @Nullable Throwable await() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!completed) {
+                completedCondition.await();
+            }
+            return error;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the latch is completed, or the timeout elapses
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return <code>true</code> if the latch was completed, or <code>false</code> if the timeout elapsed first
+     * @throws InterruptedException If the current thread is interrupted while waiting
+     */
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!completed) {
+                if (remaining <= 0L) {
+                    return false;
+                }
+                remaining = completedCondition.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
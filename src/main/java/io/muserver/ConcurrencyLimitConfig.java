@@ -0,0 +1,45 @@
+package io.muserver;
+
+/**
+ * Settings for the adaptive limit on the number of requests handled concurrently
+ * @see ConcurrencyLimitConfigBuilder
+ */
+public class ConcurrencyLimitConfig {
+
+    final int initialLimit;
+    final int minLimit;
+    final int maxLimit;
+    final double latencyTolerance;
+    final double smoothing;
+
+    ConcurrencyLimitConfig(int initialLimit, int minLimit, int maxLimit, double latencyTolerance, double smoothing) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.smoothing = smoothing;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimitConfig{" +
+            "initialLimit=" + initialLimit +
+            ", minLimit=" + minLimit +
+            ", maxLimit=" + maxLimit +
+            ", latencyTolerance=" + latencyTolerance +
+            ", smoothing=" + smoothing +
+            '}';
+    }
+
+    /**
+     * @return A new concurrency limit config builder based on the current settings
+     */
+    public ConcurrencyLimitConfigBuilder toBuilder() {
+        return new ConcurrencyLimitConfigBuilder()
+            .withInitialLimit(initialLimit)
+            .withMinLimit(minLimit)
+            .withMaxLimit(maxLimit)
+            .withLatencyTolerance(latencyTolerance)
+            .withSmoothing(smoothing);
+    }
+}
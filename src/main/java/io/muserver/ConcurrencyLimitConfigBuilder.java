@@ -0,0 +1,151 @@
+package io.muserver;
+
+/**
+ * <p>Configuration builder for an adaptive limit on the number of requests being handled concurrently, which is
+ * passed to {@link MuServerBuilder#withConcurrencyLimit(ConcurrencyLimitConfigBuilder)}</p>
+ * <p>The server measures how long each request takes to handle and uses a gradient algorithm to adjust the limit:
+ * while latencies stay near their long-term average the limit grows, and when they rise beyond the tolerance the
+ * limit shrinks. When the limit is reached, new requests are rejected with a <code>503</code> on the IO thread
+ * without being given to the handler executor, so that requests that are accepted continue to be handled with
+ * low latency.</p>
+ */
+public class ConcurrencyLimitConfigBuilder {
+
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 400;
+    private double latencyTolerance = 1.5;
+    private double smoothing = 0.2;
+
+    /**
+     * Sets the limit used before any latencies have been measured.
+     * @param initialLimit The initial number of concurrent requests allowed. The default is 20.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is less than 1
+     */
+    public ConcurrencyLimitConfigBuilder withInitialLimit(int initialLimit) {
+        this.initialLimit = requirePositive("initialLimit", initialLimit);
+        return this;
+    }
+
+    /**
+     * Sets the lowest value the limit can be reduced to.
+     * @param minLimit The minimum number of concurrent requests allowed. The default is 1.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is less than 1
+     */
+    public ConcurrencyLimitConfigBuilder withMinLimit(int minLimit) {
+        this.minLimit = requirePositive("minLimit", minLimit);
+        return this;
+    }
+
+    /**
+     * <p>Sets the highest value the limit can be increased to.</p>
+     * <p>The default handler executor rejects requests when 400 are being handled, so there is little benefit in
+     * setting a higher value unless a different executor is specified with
+     * {@link MuServerBuilder#withHandlerExecutor(java.util.concurrent.ExecutorService)} or
+     * {@link MuServerBuilder#withVirtualThreads(boolean)} is used.</p>
+     * @param maxLimit The maximum number of concurrent requests allowed. The default is 400.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is less than 1
+     */
+    public ConcurrencyLimitConfigBuilder withMaxLimit(int maxLimit) {
+        this.maxLimit = requirePositive("maxLimit", maxLimit);
+        return this;
+    }
+
+    /**
+     * Sets how much higher than the long-term average a request's latency can be before the limit is reduced.
+     * @param latencyTolerance A multiple of the average latency, for example <code>1.5</code> to allow requests to
+     *                         take 50% longer than average before reducing the limit. The default is <code>1.5</code>.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is less than 1
+     */
+    public ConcurrencyLimitConfigBuilder withLatencyTolerance(double latencyTolerance) {
+        if (!(latencyTolerance >= 1.0)) {
+            throw new IllegalArgumentException("latencyTolerance must be at least 1 but was " + latencyTolerance);
+        }
+        this.latencyTolerance = latencyTolerance;
+        return this;
+    }
+
+    /**
+     * Sets how quickly the limit moves towards each newly calculated value.
+     * @param smoothing A value greater than 0 and up to 1, where 1 means the limit changes to each new value
+     *                  immediately and lower values change the limit more gradually. The default is <code>0.2</code>.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is not greater than 0 and up to 1
+     */
+    public ConcurrencyLimitConfigBuilder withSmoothing(double smoothing) {
+        if (!(smoothing > 0.0 && smoothing <= 1.0)) {
+            throw new IllegalArgumentException("smoothing must be greater than 0 and up to 1 but was " + smoothing);
+        }
+        this.smoothing = smoothing;
+        return this;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int initialLimit() {
+        return initialLimit;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int minLimit() {
+        return minLimit;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int maxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public double latencyTolerance() {
+        return latencyTolerance;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public double smoothing() {
+        return smoothing;
+    }
+
+    /**
+     * Creates the concurrency limit settings object
+     * @return A new ConcurrencyLimitConfig object
+     * @throws IllegalArgumentException if the minimum, initial and maximum limits are not in order
+     */
+    public ConcurrencyLimitConfig build() {
+        if (minLimit > maxLimit) {
+            throw new IllegalArgumentException("minLimit (" + minLimit + ") cannot be greater than maxLimit (" + maxLimit + ")");
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit (" + initialLimit + ") must be between minLimit (" + minLimit + ") and maxLimit (" + maxLimit + ")");
+        }
+        return new ConcurrencyLimitConfig(initialLimit, minLimit, maxLimit, latencyTolerance, smoothing);
+    }
+
+    /**
+     * Creates a new concurrency limit config builder with default values
+     * @return A new builder
+     */
+    public static ConcurrencyLimitConfigBuilder concurrencyLimitConfig() {
+        return new ConcurrencyLimitConfigBuilder();
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be at least 1 but was " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,122 @@
+package io.muserver;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adaptive limit on the number of requests being handled at once.
+ * <p>Each successfully completed request contributes a latency sample. The limit is scaled by the ratio of the
+ * long-term average latency (multiplied by the tolerance) to the latest sample, capped between 0.5 and 1, plus a
+ * small allowance for growth, and then smoothed. So while latency stays close to its average the limit grows
+ * slowly, and when latency rises because requests are queueing for some resource the limit shrinks.</p>
+ * <p>Samples taken while fewer than half of the allowed requests are in progress are not used to change the
+ * limit, as they say nothing about how the server behaves near the limit.</p>
+ */
+class ConcurrencyLimiter {
+
+    /**
+     * Thrown on the IO thread for every shed request, so it is shared and has no stack trace
+     */
+    static final RejectedExecutionException LIMIT_EXCEEDED = new LimitExceededException();
+
+    private static final int LONG_TERM_WINDOW = 600;
+
+    private final ConcurrencyLimitConfig config;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longTermLatency;
+
+    ConcurrencyLimiter(ConcurrencyLimitConfig config) {
+        this.config = config;
+        this.limit = config.initialLimit;
+        this.estimatedLimit = config.initialLimit;
+    }
+
+    /**
+     * @return <code>true</code> if the request can be handled, in which case {@link #release(long, boolean)} must be
+     * called when it finishes; or <code>false</code> if it should be rejected
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Called when a request that was acquired has finished
+     * @param startNanos The value of {@link System#nanoTime()} when the request was acquired
+     * @param sample <code>true</code> to use the request latency to update the limit, which should only be done
+     *               for requests that completed successfully
+     */
+    void release(long startNanos, boolean sample) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (sample) {
+            onSample(System.nanoTime() - startNanos, inFlightBefore);
+        }
+    }
+
+    void onSample(long latencyNanos, int inFlightBefore) {
+        double latency = Math.max(1, latencyNanos);
+        updateLock.lock();
+        try {
+            if (longTermLatency == 0) {
+                longTermLatency = latency;
+            } else {
+                longTermLatency += (latency - longTermLatency) / LONG_TERM_WINDOW;
+                if (longTermLatency / latency > 2) {
+                    // latency is now much lower than the average, e.g. after a spike, so let the average recover quickly
+                    longTermLatency *= 0.95;
+                }
+            }
+            if (inFlightBefore < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, config.latencyTolerance * longTermLatency / latency));
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * (1 - config.smoothing) + newLimit * config.smoothing;
+            estimatedLimit = Math.max(config.minLimit, Math.min(config.maxLimit, newLimit));
+            limit = (int) estimatedLimit;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * @return The current number of requests allowed at once
+     */
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * @return The number of requests currently in progress
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter{limit=" + limit + ", inFlight=" + inFlight.get() + '}';
+    }
+
+    static class LimitExceededException extends RejectedExecutionException {
+        private LimitExceededException() {
+            super("The concurrency limit has been reached");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
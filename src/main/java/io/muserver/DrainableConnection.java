@@ -0,0 +1,16 @@
+package io.muserver;
+
+import io.netty.util.concurrent.Future;
+
+/**
+ * A connection that can be asked to close once the requests in progress on it have completed
+ */
+interface DrainableConnection extends HttpConnection {
+
+    /**
+     * Starts draining the connection, as described in {@link HttpConnection#drain()}. This may be called from any thread.
+     * @return A future that completes when the connection closes, or straight away if draining will not close it
+     * (for example because it is being used for a websocket)
+     */
+    Future<Void> startDraining();
+}
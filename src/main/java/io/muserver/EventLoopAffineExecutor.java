@@ -0,0 +1,153 @@
+package io.muserver;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A handler executor made up of one thread pool per worker event loop.
+ * <p>Requests are handed to the executor from the event loop of their connection, so each task is run on the pool
+ * belonging to the calling event loop. This means a connection's requests are normally handled by the same small
+ * set of threads, which also hand their writes back to that same event loop.</p>
+ * <p>The maximum thread count applies to all the pools together rather than being divided between them: when the
+ * pool of an event loop has no idle thread, the task runs on a shared overflow pool instead, and tasks are only
+ * rejected once the maximum number of tasks are running across all the pools.</p>
+ */
+class EventLoopAffineExecutor extends AbstractExecutorService {
+
+    private final ThreadPoolExecutor[] pools;
+    private final ThreadPoolExecutor overflow;
+    private final FastThreadLocal<ThreadPoolExecutor> loopPool = new FastThreadLocal<>();
+    private final AtomicInteger nextPool = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final int maxThreads;
+
+    /**
+     * Creates a pool for each event loop in the group, sharing the core thread count between them
+     * @param workerGroup The event loops that read requests
+     * @param coreThreads The total number of threads to keep alive across all the pools
+     * @param maxThreads The maximum number of tasks that can run at the same time across all the pools
+     */
+    EventLoopAffineExecutor(EventLoopGroup workerGroup, int coreThreads, int maxThreads) {
+        List<EventExecutor> loops = new ArrayList<>();
+        for (EventExecutor eventLoop : workerGroup) {
+            loops.add(eventLoop);
+        }
+        int count = loops.size();
+        this.maxThreads = maxThreads;
+        this.pools = new ThreadPoolExecutor[count];
+        int corePerLoop = Math.max(1, (coreThreads + count - 1) / count);
+        int maxPerLoop = Math.max(corePerLoop, (maxThreads + count - 1) / count);
+        for (int i = 0; i < count; i++) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(corePerLoop, maxPerLoop, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new DefaultThreadFactory("muhandler-" + i));
+            pools[i] = pool;
+            // runs before any channel is registered with the event loop, so before any request is dispatched from it
+            loops.get(i).execute(() -> loopPool.set(pool));
+        }
+        this.overflow = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            new DefaultThreadFactory("muhandler-overflow"));
+    }
+
+    /**
+     * @return The pool for the current event loop, or if not called from a worker event loop then the next pool
+     * in turn
+     */
+    private ThreadPoolExecutor poolForCurrentThread() {
+        ThreadPoolExecutor pool = loopPool.getIfExists();
+        return pool != null ? pool : pools[Math.floorMod(nextPool.getAndIncrement(), pools.length)];
+    }
+
+    /**
+     * @return <code>true</code> if fewer than the maximum number of tasks are running, so a new task would not be
+     * rejected
+     */
+    boolean hasIdleThread() {
+        return running.get() < maxThreads;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (running.incrementAndGet() > maxThreads) {
+            running.decrementAndGet();
+            throw new RejectedExecutionException("All " + maxThreads + " handler threads are busy");
+        }
+        Runnable task = () -> {
+            try {
+                command.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+        try {
+            try {
+                poolForCurrentThread().execute(task);
+            } catch (RejectedExecutionException e) {
+                overflow.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            running.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (ThreadPoolExecutor pool : pools) {
+            pool.shutdown();
+        }
+        overflow.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> notRun = new ArrayList<>();
+        for (ThreadPoolExecutor pool : pools) {
+            notRun.addAll(pool.shutdownNow());
+        }
+        notRun.addAll(overflow.shutdownNow());
+        return notRun;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        for (ThreadPoolExecutor pool : pools) {
+            if (!pool.isShutdown()) {
+                return false;
+            }
+        }
+        return overflow.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (ThreadPoolExecutor pool : pools) {
+            if (!pool.isTerminated()) {
+                return false;
+            }
+        }
+        return overflow.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor pool : pools) {
+            if (!pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return overflow.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "EventLoopAffineExecutor{pools=" + pools.length + '}';
+    }
+}
@@ -0,0 +1,75 @@
+package io.muserver;
+
+import jakarta.ws.rs.core.MediaType;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The headers of a single part of a <code>multipart/form-data</code> request body, which is either a form field or
+ * an uploaded file.
+ * @see MuRequest#formPartReader()
+ * @see AsyncHandle#setFormPartListener(FormPartListener)
+ */
+public interface FormPart {
+
+    /**
+     * @return The name of the form field, from the part's <code>content-disposition</code> header
+     */
+    String name();
+
+    /**
+     * @return The filename given by the client if this part is a file, or <code>null</code> if it is a form field.
+     * Note that this may include a path, and that it is sent by the client so cannot be trusted.
+     */
+    @Nullable String filename();
+
+    /**
+     * @return <code>true</code> if this part has a filename, meaning it is an uploaded file
+     */
+    default boolean isFile() {
+        return filename() != null;
+    }
+
+    /**
+     * @return The content type of the part, or <code>null</code> if none was given
+     */
+    default @Nullable MediaType contentType() {
+        return headers().contentType();
+    }
+
+    /**
+     * @return All the headers of this part
+     */
+    Headers headers();
+}
+
+class MuFormPart implements FormPart {
+    private final String name;
+    private final @Nullable String filename;
+    private final Headers headers;
+
+    MuFormPart(String name, @Nullable String filename, Headers headers) {
+        this.name = name;
+        this.filename = filename;
+        this.headers = headers;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public @Nullable String filename() {
+        return filename;
+    }
+
+    @Override
+    public Headers headers() {
+        return headers;
+    }
+
+    @Override
+    public String toString() {
+        return "FormPart{name='" + name + "', filename='" + filename + "'}";
+    }
+}
@@ -0,0 +1,81 @@
+package io.muserver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Callbacks for reading the parts of a <code>multipart/form-data</code> request body asynchronously, as each part
+ * is received.</p>
+ * <p>Example usage, where files are written to disk as they arrive:</p>
+ * <pre><code>
+ * AsyncHandle handle = request.handleAsync();
+ * handle.setFormPartListener(new FormPartListener() {
+ *     private AsynchronousFileChannel file;
+ *     private long position;
+ *
+ *     public void onPartStart(FormPart part) throws IOException {
+ *         file = AsynchronousFileChannel.open(uploadDir.resolve(part.name()), CREATE, WRITE);
+ *         position = 0;
+ *     }
+ *
+ *     public void onPartData(FormPart part, ByteBuffer buffer, DoneCallback doneCallback) {
+ *         // write the whole buffer, then call doneCallback.onComplete(null) or with the error
+ *     }
+ *
+ *     public void onPartEnd(FormPart part) throws IOException {
+ *         file.close();
+ *     }
+ *
+ *     public void onComplete() {
+ *         handle.complete();
+ *     }
+ *
+ *     public void onError(Throwable t) {
+ *         handle.complete(t);
+ *     }
+ * });
+ * </code></pre>
+ * <p>NOTE: these methods run on a socket thread so should not block. The next part or piece of data is not read
+ * until the done callback for the current data is called.</p>
+ * @see AsyncHandle#setFormPartListener(FormPartListener)
+ */
+public interface FormPartListener {
+
+    /**
+     * Called when the headers of a part have been received.
+     * @param part The part
+     * @throws Exception Any thrown exceptions will cause the {@link #onError(Throwable)} method to be called with the
+     *                   thrown exception as a parameter.
+     */
+    void onPartStart(FormPart part) throws Exception;
+
+    /**
+     * Called when some of the body of a part is received.
+     * @param part The part that the data belongs to
+     * @param buffer A buffer holding some of the part body
+     * @param doneCallback This must be called when the buffer is no longer needed
+     * @throws Exception Any thrown exceptions will cause the {@link #onError(Throwable)} method to be called with the
+     *                   thrown exception as a parameter.
+     */
+    void onPartData(FormPart part, ByteBuffer buffer, DoneCallback doneCallback) throws Exception;
+
+    /**
+     * Called when the whole body of a part has been received.
+     * @param part The part
+     * @throws Exception Any thrown exceptions will cause the {@link #onError(Throwable)} method to be called with the
+     *                   thrown exception as a parameter.
+     */
+    void onPartEnd(FormPart part) throws Exception;
+
+    /**
+     * Called when the request body is fully received.
+     */
+    void onComplete();
+
+    /**
+     * Called if there is an error reading the body. If the body was invalid or a limit was exceeded then the
+     * request is completed with an error response.
+     *
+     * @param t The error.
+     */
+    void onError(Throwable t);
+}
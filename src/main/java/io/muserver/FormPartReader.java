@@ -0,0 +1,43 @@
+package io.muserver;
+
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * <p>Reads the parts of a <code>multipart/form-data</code> request body one at a time, as they are received, so
+ * that large uploads can be validated, streamed to their destination or rejected without being stored first.</p>
+ * <p>Example usage:</p>
+ * <pre><code>
+ * try (FormPartReader reader = request.formPartReader()) {
+ *     StreamingFormPart part;
+ *     while ((part = reader.next()) != null) {
+ *         if (part.isFile()) {
+ *             part.transferTo(uploadDir.resolve(UUID.randomUUID().toString()));
+ *         } else {
+ *             fields.put(part.name(), part.value());
+ *         }
+ *     }
+ * }
+ * </code></pre>
+ * @see MuRequest#formPartReader()
+ */
+public interface FormPartReader extends Closeable {
+
+    /**
+     * Waits for the next part of the body. Any unread data in the previous part is skipped.
+     * @return The next part, or <code>null</code> if there are no more parts
+     * @throws IOException If the body could not be read
+     * @throws jakarta.ws.rs.ClientErrorException If the body is not valid multipart data or a limit set with
+     * {@link MuServerBuilder#withMultipartConfig(MultipartConfigBuilder)} is exceeded
+     */
+    @Nullable StreamingFormPart next() throws IOException;
+
+    /**
+     * Closes the request body. Any parts that have not been read are discarded.
+     * @throws IOException If the body could not be closed
+     */
+    @Override
+    void close() throws IOException;
+}
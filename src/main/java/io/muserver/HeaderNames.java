@@ -73,6 +73,10 @@ public final class HeaderNames {
      * {@code "allow"}
      */
     public static final CharSequence ALLOW = HttpHeaderNames.ALLOW;
+    /**
+     * {@code "alt-svc"}
+     */
+    public static final CharSequence ALT_SVC = AsciiString.cached("alt-svc");
     /**
      * {@code "authorization"}
      */
@@ -209,6 +213,10 @@ public final class HeaderNames {
      * {@code "pragma"}
      */
     public static final CharSequence PRAGMA = HttpHeaderNames.PRAGMA;
+    /**
+     * {@code "priority"}
+     */
+    public static final CharSequence PRIORITY = AsciiString.cached("priority");
     /**
      * {@code "proxy-authenticate"}
      */
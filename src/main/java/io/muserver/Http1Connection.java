@@ -2,34 +2,44 @@ package io.muserver;
 
 import org.jspecify.annotations.Nullable;
 
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.net.ssl.SSLSession;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
 import java.net.URI;
+import java.nio.channels.ClosedChannelException;
 import java.security.cert.Certificate;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Collections;
-import java.util.Date;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static io.netty.buffer.Unpooled.copiedBuffer;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
-class Http1Connection extends SimpleChannelInboundHandler<Object> implements HttpConnection {
+class Http1Connection extends SimpleChannelInboundHandler<Object> implements DrainableConnection {
     private static final Logger log = LoggerFactory.getLogger(Http1Connection.class);
+    private static final InetSocketAddress LOCAL_PEER = localPeer();
 
     private final NettyHandlerAdapter nettyHandlerAdapter;
     private final MuStatsImpl serverStats;
@@ -39,13 +49,49 @@ class Http1Connection extends SimpleChannelInboundHandler<Object> implements Htt
     private final Instant startTime = Instant.now();
     private @Nullable ChannelHandlerContext nettyCtx;
     private @Nullable InetSocketAddress remoteAddress;
+    /**
+     * The exchange whose response is being sent. With pipelining, this is the earliest exchange in progress.
+     */
     private @Nullable Exchange currentExchange;
+    private final int pipeliningDepth;
+    /**
+     * Exchanges for pipelined requests received after the current exchange's request, in the order they were
+     * received. Their responses are held until they become the current exchange.
+     */
+    private final ArrayDeque<HttpExchange> pipelined = new ArrayDeque<>();
+    /**
+     * Pipelined exchanges that ended before becoming the current exchange
+     */
+    private final Set<HttpExchange> endedWhilePipelined = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * Exchanges for requests without bodies whose end-of-request message was read before the handler claimed the
+     * (empty) body, so that the next pipelined request could be read
+     */
+    private final Set<HttpExchange> bodylessRequestsRead = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * A request without a body whose end-of-request message has been asked for but not yet received
+     */
+    private @Nullable HttpExchange awaitingEndOfRequest;
+    /**
+     * Work that must wait until all exchanges in progress have finished, such as rejecting a pipelined request
+     */
+    private @Nullable Runnable whenIdle;
+    private boolean readingNextRequest = false;
+    private final RttEstimator rtt = new RttEstimator();
+    private @Nullable ScheduledFuture<?> rttSampler;
+    private @Nullable ScheduledFuture<?> lifetimeTimer;
+    private long requestsReceived;
+    /**
+     * Set when the connection should close after the requests already received have been handled
+     */
+    private boolean draining = false;
 
     Http1Connection(NettyHandlerAdapter nettyHandlerAdapter, MuServerImpl server, String proto) {
         this.nettyHandlerAdapter = nettyHandlerAdapter;
         this.serverStats = server.stats;
         this.server = server;
         this.proto = proto;
+        this.pipeliningDepth = server.settings().http1PipeliningDepth;
     }
 
     static SSLSession getSslSession(ChannelHandlerContext ctx) {
@@ -53,24 +99,87 @@ class Http1Connection extends SimpleChannelInboundHandler<Object> implements Htt
         return ssl.engine().getSession();
     }
 
+    /**
+     * Gets the remote address of a channel. Connections over unix domain sockets have no IP address, so these are
+     * reported as coming from 127.0.0.1 with port 0.
+     */
+    static InetSocketAddress remoteAddress(Channel channel) {
+        SocketAddress address = channel.remoteAddress();
+        if (address instanceof InetSocketAddress) {
+            return (InetSocketAddress) address;
+        }
+        return LOCAL_PEER;
+    }
+
+    private static InetSocketAddress localPeer() {
+        try {
+            // created without a hostname so that getHostString() returns the IP address, like TCP connections do
+            return new InetSocketAddress(InetAddress.getByAddress(new byte[]{127, 0, 0, 1}), 0);
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.nettyCtx = ctx;
-        remoteAddress = (InetSocketAddress) ctx.channel().remoteAddress();
+        remoteAddress = remoteAddress(ctx.channel());
         serverStats.onConnectionOpened();
         connectionStats.onConnectionOpened();
         super.handlerAdded(ctx);
         server.onConnectionStarted(this);
-        ctx.channel().read();
+        startRttSampling(ctx);
+        long lifetime = server.settings().connectionLifetimeMillis();
+        if (lifetime > 0) {
+            lifetimeTimer = ctx.executor().schedule(() -> drain(ctx), lifetime, TimeUnit.MILLISECONDS);
+        }
+        readNextRequest(ctx);
+    }
+
+    private void startRttSampling(ChannelHandlerContext ctx) {
+        long interval = server.settings().rttMeasurementIntervalMillis;
+        if (interval > 0 && NettyTransport.readTcpRtt(ctx.channel(), rtt)) {
+            serverStats.onRttMeasured(rtt);
+            rttSampler = ctx.executor().scheduleAtFixedRate(() -> {
+                if (NettyTransport.readTcpRtt(ctx.channel(), rtt)) {
+                    serverStats.onRttMeasured(rtt);
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopTimers() {
+        ScheduledFuture<?> sampler = this.rttSampler;
+        if (sampler != null) {
+            this.rttSampler = null;
+            sampler.cancel(false);
+        }
+        ScheduledFuture<?> lifetimeTimer = this.lifetimeTimer;
+        if (lifetimeTimer != null) {
+            this.lifetimeTimer = null;
+            lifetimeTimer.cancel(false);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        // this connection is removed when upgraded to HTTP2, which then has its own timers
+        stopTimers();
+        super.handlerRemoved(ctx);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        stopTimers();
         serverStats.onConnectionClosed();
         server.onConnectionEnded(this);
         if (currentExchange != null) {
             currentExchange.onConnectionEnded(ctx);
         }
+        for (HttpExchange exchange : pipelined) {
+            exchange.onConnectionEnded(ctx);
+            ((Http1Response) exchange.response).discardHeldWrites(new ClosedChannelException());
+        }
         super.channelInactive(ctx);
     }
 
@@ -86,36 +195,49 @@ class Http1Connection extends SimpleChannelInboundHandler<Object> implements Htt
 
     private void onChannelRead(ChannelHandlerContext ctx, Object msg) {
        if (msg instanceof HttpRequest) {
+            readingNextRequest = false;
+            HttpRequest nettyRequest = (HttpRequest) msg;
+            boolean pipelinedRequest = currentExchange != null;
+            if (pipelinedRequest && (nettyRequest.headers().contains(HttpHeaderNames.UPGRADE) || HttpUtil.is100ContinueExpected(nettyRequest))) {
+                // An upgrade takes over the connection, so can only happen once the earlier requests are finished.
+                // A 100 Continue is written as soon as the request is accepted, so it would land in the middle of
+                // the earlier responses.
+                whenIdle = () -> onChannelRead(ctx, msg);
+                return;
+            }
+            if (!pipelinedRequest && !isHttps() && server.http2Config().enabled
+                && Http2CleartextUpgrade.upgradeIfRequested(ctx, nettyRequest, this, server, nettyHandlerAdapter, proto)) {
+                return;
+            }
+            long maxRequests = server.settings().maxRequestsPerConnection;
+            if (maxRequests > 0 && ++requestsReceived >= maxRequests) {
+                draining = true;
+            }
             try {
-                this.currentExchange = HttpExchange.create(server, proto, ctx, this, (HttpRequest) msg,
+                HttpExchange httpExchange = HttpExchange.create(server, proto, ctx, this, nettyRequest,
                     nettyHandlerAdapter, connectionStats,
                     (exchange, newState) -> {
                         if (newState == RequestState.RECEIVING_BODY) {
-                            ctx.channel().read();
+                            onBodyClaimed(ctx, exchange);
                         }
                     },
                     (exchange, newState) -> {
                         if (newState.endState()) {
                             nettyHandlerAdapter.onResponseComplete(exchange, serverStats, connectionStats);
-                            ctx.channel().eventLoop().execute(() -> {
-                                if (exchange.state() != HttpExchangeState.UPGRADED) {
-                                    // Completion must belong to the exact exchange currently owning this connection.
-                                    @SuppressWarnings("ReferenceEquality")
-                                    boolean isCurrentExchange = this.currentExchange == exchange;
-                                    if (!isCurrentExchange) {
-                                        throw new IllegalStateException("Expected current exchange to be " + exchange + " but was " + this.currentExchange);
-                                    }
-                                    this.currentExchange = null;
-                                    exchange.request.cleanup();
-                                    if (exchange.state() == HttpExchangeState.ERRORED) {
-                                        ctx.channel().close();
-                                    } else {
-                                        ctx.channel().read(); // should it actually read after request complete?
-                                    }
-                                }
-                            });
+                            ctx.channel().eventLoop().execute(() -> onExchangeEnded(ctx, exchange));
                         }
-                    });
+                    }, pipelinedRequest, draining);
+                if (pipelinedRequest) {
+                    pipelined.add(httpExchange);
+                } else {
+                    this.currentExchange = httpExchange;
+                }
+                if (pipeliningDepth > 1 && !httpExchange.request.headers().hasBody()) {
+                    // Read the end of this request now rather than when the handler claims the empty body, so
+                    // that the next pipelined request can be read while this one is being handled.
+                    awaitingEndOfRequest = httpExchange;
+                    ctx.channel().read();
+                }
 
             } catch (InvalidHttpRequestException ihr) {
                 if (ihr.code == 429 || ihr.code == 503) {
@@ -130,29 +252,211 @@ class Http1Connection extends SimpleChannelInboundHandler<Object> implements Htt
                 String uri = rejectedReq.uri();
                 String message = String.valueOf(ihr.getMessage());
                 nettyHandlerAdapter.onRequestRejected(new RejectedRequestImpl(ihr.code, message, method, uri, this));
-                sendSimpleResponse(ctx, message, ihr.code);
-                ctx.channel().read();
+                Runnable reject = () -> {
+                    sendSimpleResponse(ctx, message, ihr.code);
+                    readNextRequest(ctx);
+                };
+                if (pipelinedRequest) {
+                    whenIdle = reject;
+                } else {
+                    reject.run();
+                }
             } catch (RedirectException e) {
-                sendRedirect(ctx, e.location);
+                if (pipelinedRequest) {
+                    whenIdle = () -> sendRedirect(ctx, e.location);
+                } else {
+                    sendRedirect(ctx, e.location);
+                }
             }
-        } else if (currentExchange != null) {
-            Exchange exchange = currentExchange;
-            exchange.onMessage(ctx, msg, error -> {
-                if (error == null) {
-                    if (!(msg instanceof LastHttpContent)) {
-                        ctx.channel().read();
+        } else {
+            Exchange exchange = readingExchange();
+            if (exchange == null) {
+                log.debug("Got a chunk of message for an unknown request. This can happen when a request is rejected based on headers, and then the rejected body arrives.");
+                ctx.channel().read();
+                return;
+            }
+            if (msg instanceof LastHttpContent) {
+                @SuppressWarnings("ReferenceEquality")
+                boolean wasAwaited = exchange == awaitingEndOfRequest;
+                if (wasAwaited) {
+                    awaitingEndOfRequest = null;
+                    HttpExchange httpExchange = (HttpExchange) exchange;
+                    if (httpExchange.request.requestState() == RequestState.HEADERS_RECEIVED) {
+                        // the handler has not asked for the body yet, so it is given this when it does
+                        bodylessRequestsRead.add(httpExchange);
+                        readNextRequestIfAllowed(ctx);
+                        return;
                     }
-                } else {
-                    ctx.fireUserEventTriggered(new MuExceptionFiredEvent(exchange, -1, error));
+                }
+            }
+            onRequestContent(ctx, exchange, msg);
+        }
+    }
+
+    private void onRequestContent(ChannelHandlerContext ctx, Exchange exchange, Object msg) throws UnexpectedMessageException {
+        exchange.onMessage(ctx, msg, error -> {
+            if (error == null) {
+                if (!(msg instanceof LastHttpContent)) {
+                    ctx.channel().read();
+                } else if (pipeliningDepth > 1) {
+                    ctx.executor().execute(() -> readNextRequestIfAllowed(ctx));
+                }
+            } else {
+                ctx.fireUserEventTriggered(new MuExceptionFiredEvent(exchange, -1, error));
+            }
+        });
+    }
+
+    /**
+     * Called when the handler starts reading the request body, or it is discarded after the response completes
+     */
+    private void onBodyClaimed(ChannelHandlerContext ctx, HttpExchange exchange) {
+        if (bodylessRequestsRead.remove(exchange)) {
+            ctx.executor().execute(() -> {
+                try {
+                    onRequestContent(ctx, exchange, LastHttpContent.EMPTY_LAST_CONTENT);
+                } catch (Exception e) {
+                    log.warn("Unhandled internal error. Closing connection.", e);
+                    ctx.channel().close();
                 }
             });
         } else {
-            log.debug("Got a chunk of message for an unknown request. This can happen when a request is rejected based on headers, and then the rejected body arrives.");
+            @SuppressWarnings("ReferenceEquality")
+            boolean alreadyReading = exchange == awaitingEndOfRequest;
+            if (!alreadyReading) {
+                ctx.channel().read();
+            }
+        }
+    }
+
+    private void onExchangeEnded(ChannelHandlerContext ctx, HttpExchange exchange) {
+        if (exchange.state() == HttpExchangeState.UPGRADED) {
+            return;
+        }
+        if (pipelined.contains(exchange)) {
+            // this is finished with once the responses before it have been sent
+            endedWhilePipelined.add(exchange);
+            return;
+        }
+        // Completion must belong to the exact exchange currently owning this connection.
+        @SuppressWarnings("ReferenceEquality")
+        boolean isCurrentExchange = this.currentExchange == exchange;
+        if (!isCurrentExchange) {
+            throw new IllegalStateException("Expected current exchange to be " + exchange + " but was " + this.currentExchange);
+        }
+        this.currentExchange = null;
+        bodylessRequestsRead.remove(exchange);
+        exchange.request.cleanup();
+        if (exchange.state() == HttpExchangeState.ERRORED) {
+            ctx.channel().close();
+            return;
+        }
+        HttpExchange next = pipelined.poll();
+        if (next != null) {
+            this.currentExchange = next;
+            ((Http1Response) next.response).releaseHeldWrites();
+            if (endedWhilePipelined.remove(next)) {
+                onExchangeEnded(ctx, next);
+            } else {
+                readNextRequestIfAllowed(ctx);
+            }
+        } else {
+            Runnable whenIdle = this.whenIdle;
+            if (whenIdle != null) {
+                this.whenIdle = null;
+                whenIdle.run();
+            } else {
+                readNextRequest(ctx);
+            }
+        }
+    }
+
+    /**
+     * @return The exchange whose request is currently being read
+     */
+    private @Nullable Exchange readingExchange() {
+        HttpExchange last = pipelined.peekLast();
+        return last != null ? last : currentExchange;
+    }
+
+    private void readNextRequest(ChannelHandlerContext ctx) {
+        if (draining) {
+            // closed after anything already written, such as a rejection response, has been sent
+            ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+        if (!readingNextRequest) {
+            readingNextRequest = true;
             ctx.channel().read();
         }
     }
 
-    private static ChannelFuture sendSimpleResponse(ChannelHandlerContext ctx, String message, int code) {
+    /**
+     * Reads the next pipelined request if the latest request has been fully received and the pipelining depth
+     * has not been reached
+     */
+    private void readNextRequestIfAllowed(ChannelHandlerContext ctx) {
+        if (readingNextRequest || whenIdle != null || draining) {
+            return;
+        }
+        int inProgress = (currentExchange == null ? 0 : 1) + pipelined.size();
+        if (inProgress == 0 || inProgress >= pipeliningDepth) {
+            return;
+        }
+        Exchange latest = readingExchange();
+        if (!(latest instanceof HttpExchange)) {
+            return;
+        }
+        HttpExchange latestExchange = (HttpExchange) latest;
+        boolean fullyReceived = latestExchange.request.requestState() == RequestState.COMPLETE || bodylessRequestsRead.contains(latestExchange);
+        HttpRequest latestRequest = latestExchange.request.nettyRequest();
+        if (fullyReceived && HttpUtil.isKeepAlive(latestRequest) && !latestRequest.headers().contains(HttpHeaderNames.UPGRADE)) {
+            readNextRequest(ctx);
+        }
+    }
+
+    @Override
+    public void drain() {
+        startDraining();
+    }
+
+    @Override
+    public Future<Void> startDraining() {
+        ChannelHandlerContext ctx = context();
+        Promise<Void> closed = ctx.executor().newPromise();
+        ctx.executor().execute(() -> {
+            if (drain(ctx)) {
+                // completed in a later task so that listeners of the last response's writes have run
+                ctx.channel().closeFuture().addListener(f -> ctx.executor().execute(() -> closed.trySuccess(null)));
+            } else {
+                closed.trySuccess(null);
+            }
+        });
+        return closed;
+    }
+
+    /**
+     * Stops reading requests, and closes the connection now if no request is in progress or otherwise after the
+     * latest response. Must be called on the event loop.
+     * @return <code>false</code> if the connection is used by a websocket, which is not drained
+     */
+    private boolean drain(ChannelHandlerContext ctx) {
+        if (currentExchange instanceof MuWebSocketSessionImpl) {
+            return false;
+        }
+        if (!draining) {
+            draining = true;
+            Exchange latest = readingExchange();
+            if (latest == null) {
+                ctx.channel().close();
+            } else if (latest instanceof HttpExchange) {
+                ((Http1Response) ((HttpExchange) latest).response).closeConnectionAfterResponse();
+            }
+        }
+        return true;
+    }
+
+    static ChannelFuture sendSimpleResponse(ChannelHandlerContext ctx, String message, int code) {
         byte[] bytes = message.getBytes(UTF_8);
         FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(code), copiedBuffer(bytes));
         response.headers().set(HeaderNames.DATE, Mutils.toHttpDate(new Date()));
@@ -160,7 +464,7 @@ class Http1Connection extends SimpleChannelInboundHandler<Object> implements Htt
         response.headers().set(HeaderNames.CONTENT_LENGTH, bytes.length);
         return ctx.writeAndFlush(response);
     }
-    private static ChannelFuture sendRedirect(ChannelHandlerContext ctx, URI location) {
+    static ChannelFuture sendRedirect(ChannelHandlerContext ctx, URI location) {
         FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(302));
         response.headers().set(HeaderNames.DATE, Mutils.toHttpDate(new Date()));
         response.headers().set(HeaderNames.LOCATION, location.toString());
@@ -204,7 +508,13 @@ class Http1Connection extends SimpleChannelInboundHandler<Object> implements Htt
             }
         } else if (evt instanceof MuExceptionFiredEvent) {
             MuExceptionFiredEvent mefe = (MuExceptionFiredEvent) evt;
-            exceptionCaught(ctx, mefe.error);
+            if (mefe.exchange instanceof HttpExchange && pipelined.contains(mefe.exchange)) {
+                // The error response is held until the responses before it are sent. If the exchange errored,
+                // the connection is closed after that.
+                mefe.exchange.onException(ctx, mefe.error);
+            } else {
+                exceptionCaught(ctx, mefe.error);
+            }
         }
         super.userEventTriggered(ctx, evt);
     }
@@ -269,9 +579,19 @@ class Http1Connection extends SimpleChannelInboundHandler<Object> implements Htt
     @Override
     public Set<MuRequest> activeRequests() {
         Exchange currentExchange = this.currentExchange;
-        return currentExchange instanceof HttpExchange
-            ? Collections.singleton(((HttpExchange) currentExchange).request)
-            : Collections.emptySet();
+        if (pipelined.isEmpty()) {
+            return currentExchange instanceof HttpExchange
+                ? Collections.singleton(((HttpExchange) currentExchange).request)
+                : Collections.emptySet();
+        }
+        Set<MuRequest> requests = new LinkedHashSet<>();
+        if (currentExchange instanceof HttpExchange) {
+            requests.add(((HttpExchange) currentExchange).request);
+        }
+        for (HttpExchange exchange : pipelined) {
+            requests.add(exchange.request);
+        }
+        return requests;
     }
 
     @Override
@@ -302,6 +622,21 @@ class Http1Connection extends SimpleChannelInboundHandler<Object> implements Htt
         return Optional.ofNullable(context().channel().attr(MuSniHandler.SNI_HOSTNAME).get());
     }
 
+    @Override
+    public int queuedRequests() {
+        return 0;
+    }
+
+    @Override
+    public Optional<Duration> smoothedRtt() {
+        return rtt.smoothed();
+    }
+
+    @Override
+    public Optional<Duration> rttVariance() {
+        return rtt.variance();
+    }
+
     private ChannelHandlerContext context() {
         return requireNonNull(nettyCtx, "Channel handler has not been added");
     }
@@ -14,6 +14,7 @@ import static io.netty.util.internal.ObjectUtil.checkNotNull;
 class Http1Headers implements Headers {
 
     private final HttpHeaders entries;
+    private @Nullable ParsedHeaderCache parsed;
 
     Http1Headers() {
         this(new DefaultHttpHeaders());
@@ -23,6 +24,14 @@ class Http1Headers implements Headers {
         this.entries = entries;
     }
 
+    private ParsedHeaderCache parsed() {
+        ParsedHeaderCache p = parsed;
+        if (p == null) {
+            p = parsed = new ParsedHeaderCache();
+        }
+        return p;
+    }
+
     @Override
     public @Nullable String get(String name) {
         return entries.get(name);
@@ -145,24 +154,28 @@ class Http1Headers implements Headers {
 
     @Override
     public Headers add(String name, Object value) {
+        parsed = null;
         entries.add(name, value);
         return this;
     }
 
     @Override
     public Headers add(CharSequence name, Object value) {
+        parsed = null;
         entries.add(name, value);
         return this;
     }
 
     @Override
     public Headers add(String name, Iterable<?> values) {
+        parsed = null;
         entries.add(name, values);
         return this;
     }
 
     @Override
     public Headers add(CharSequence name, Iterable<?> values) {
+        parsed = null;
         entries.add(name, values);
         return this;
     }
@@ -177,30 +190,35 @@ class Http1Headers implements Headers {
 
     @Override
     public Headers addInt(CharSequence name, int value) {
+        parsed = null;
         entries.addInt(name, value);
         return this;
     }
 
     @Override
     public Headers set(String name, Object value) {
+        parsed = null;
         entries.set(name, value);
         return this;
     }
 
     @Override
     public Headers set(CharSequence name, Object value) {
+        parsed = null;
         entries.set(name, value);
         return this;
     }
 
     @Override
     public Headers set(String name, Iterable<?> values) {
+        parsed = null;
         entries.set(name, values);
         return this;
     }
 
     @Override
     public Headers set(CharSequence name, Iterable<?> values) {
+        parsed = null;
         entries.set(name, values);
         return this;
     }
@@ -226,24 +244,28 @@ class Http1Headers implements Headers {
 
     @Override
     public Headers setInt(CharSequence name, int value) {
+        parsed = null;
         entries.setInt(name, value);
         return this;
     }
 
     @Override
     public Headers remove(String name) {
+        parsed = null;
         entries.remove(name);
         return this;
     }
 
     @Override
     public Headers remove(CharSequence name) {
+        parsed = null;
         entries.remove(name);
         return this;
     }
 
     @Override
     public Headers clear() {
+        parsed = null;
         entries.clear();
         return this;
     }
@@ -290,37 +312,37 @@ class Http1Headers implements Headers {
 
     @Override
     public List<ParameterizedHeaderWithValue> accept() {
-        return Headtils.getParameterizedHeaderWithValues(this, HeaderNames.ACCEPT);
+        return parsed().accept(this);
     }
 
     @Override
     public List<ParameterizedHeaderWithValue> acceptCharset() {
-        return Headtils.getParameterizedHeaderWithValues(this, HeaderNames.ACCEPT_CHARSET);
+        return parsed().acceptCharset(this);
     }
 
     @Override
     public List<ParameterizedHeaderWithValue> acceptEncoding() {
-        return Headtils.getParameterizedHeaderWithValues(this, HeaderNames.ACCEPT_ENCODING);
+        return parsed().acceptEncoding(this);
     }
 
     @Override
     public List<ForwardedHeader> forwarded() {
-        return Headtils.getForwardedHeaders(this);
+        return parsed().forwarded(this);
     }
 
     @Override
     public List<ParameterizedHeaderWithValue> acceptLanguage() {
-        return Headtils.getParameterizedHeaderWithValues(this, HeaderNames.ACCEPT_LANGUAGE);
+        return parsed().acceptLanguage(this);
     }
 
     @Override
     public ParameterizedHeader cacheControl() {
-        return ParameterizedHeader.fromString(get(HeaderNames.CACHE_CONTROL));
+        return parsed().cacheControl(this);
     }
 
     @Override
     public @Nullable MediaType contentType() {
-        return Headtils.getMediaType(this);
+        return parsed().contentType(this);
     }
 
 
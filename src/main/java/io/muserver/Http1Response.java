@@ -1,11 +1,15 @@
 package io.muserver;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import org.jspecify.annotations.Nullable;
 
+import java.util.ArrayDeque;
 import java.util.Map;
 
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
@@ -14,11 +18,69 @@ class Http1Response extends NettyResponseAdaptor {
 
     final ChannelHandlerContext ctx;
     private final Http1Headers headers;
-
-    Http1Response(ChannelHandlerContext ctx, NettyRequestAdapter request, Http1Headers headers) {
+    /**
+     * Messages written while the responses to earlier pipelined requests are still being sent, or null if messages
+     * are written to the channel straight away
+     */
+    private @Nullable ArrayDeque<HeldWrite> heldWrites;
+    /**
+     * If true then a <code>Connection: close</code> header is added so the connection closes after this response
+     */
+    private volatile boolean closeConnection;
+
+    Http1Response(ChannelHandlerContext ctx, NettyRequestAdapter request, Http1Headers headers, boolean holdWrites, boolean closeConnection) {
         super(request, headers);
         this.ctx = ctx;
         this.headers = headers;
+        this.heldWrites = holdWrites ? new ArrayDeque<>() : null;
+        this.closeConnection = closeConnection;
+    }
+
+    /**
+     * Closes the connection after this response, which only has an effect if the response has not started yet
+     */
+    void closeConnectionAfterResponse() {
+        this.closeConnection = true;
+    }
+
+    /**
+     * Writes any held messages to the channel, after which messages are written straight away. Called when the
+     * responses to all earlier requests on the connection have been sent.
+     */
+    void releaseHeldWrites() {
+        assert ctx.executor().inEventLoop() : "Not in event loop";
+        ArrayDeque<HeldWrite> held = this.heldWrites;
+        if (held != null) {
+            this.heldWrites = null;
+            for (HeldWrite write : held) {
+                ctx.write(write.msg, write.promise);
+            }
+            ctx.flush();
+        }
+    }
+
+    /**
+     * Releases any held messages without writing them, for when the connection has closed
+     */
+    void discardHeldWrites(Throwable cause) {
+        ArrayDeque<HeldWrite> held = this.heldWrites;
+        if (held != null) {
+            this.heldWrites = null;
+            for (HeldWrite write : held) {
+                ReferenceCountUtil.release(write.msg);
+                write.promise.tryFailure(cause);
+            }
+        }
+    }
+
+    private ChannelFuture write(Object msg, boolean flush) {
+        ArrayDeque<HeldWrite> held = this.heldWrites;
+        if (held != null) {
+            ChannelPromise promise = ctx.newPromise();
+            held.add(new HeldWrite(msg, promise));
+            return promise;
+        }
+        return flush ? ctx.writeAndFlush(msg) : ctx.write(msg);
     }
 
     @Override
@@ -29,7 +91,20 @@ class Http1Response extends NettyResponseAdaptor {
             headers.set(HeaderNames.TRANSFER_ENCODING, HeaderValues.CHUNKED);
         }
         writeHeaders(response);
-        return ctx.write(response);
+        return write(response, false);
+    }
+
+    @Override
+    protected void writeEarlyHints(Headers hints) {
+        if (request.nettyRequest().protocolVersion().equals(HttpVersion.HTTP_1_0)) {
+            return;
+        }
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.EARLY_HINTS, Unpooled.EMPTY_BUFFER, false);
+        HttpHeaders rh = response.headers();
+        for (Map.Entry<String, String> header : hints) {
+            rh.add(header.getKey(), header.getValue());
+        }
+        write(response, true);
     }
 
     @Override
@@ -44,13 +119,16 @@ class Http1Response extends NettyResponseAdaptor {
         for (Map.Entry<String, String> header : this.headers) {
             rh.add(header.getKey(), header.getValue());
         }
+        if (closeConnection) {
+            rh.set(HeaderNames.CONNECTION, HeaderValues.CLOSE);
+        }
     }
 
 
     @Override
     ChannelFuture writeAndFlushToChannel(boolean isLast, ByteBuf content) {
         HttpContent msg = isLast ? new DefaultLastHttpContent(content) : new DefaultHttpContent(content);
-        return ctx.writeAndFlush(msg);
+        return write(msg, true);
     }
 
     @Override
@@ -73,7 +151,7 @@ class Http1Response extends NettyResponseAdaptor {
             new EmptyHttpResponse(httpStatus())
             : new DefaultFullHttpResponse(HTTP_1_1, httpStatus(), body, false);
         writeHeaders(resp);
-        return ctx.writeAndFlush(resp);
+        return write(resp, true);
     }
 
     @Override
@@ -85,12 +163,12 @@ class Http1Response extends NettyResponseAdaptor {
         if (addContentLengthHeader) {
             msg.headers().set(HeaderNames.CONTENT_LENGTH, HeaderValues.ZERO);
         }
-        return ctx.writeAndFlush(msg);
+        return write(msg, true);
     }
 
     @Override
     protected ChannelFuture writeLastContentMarker() {
-        return ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        return write(LastHttpContent.EMPTY_LAST_CONTENT, true);
     }
 
     @Override
@@ -100,4 +178,14 @@ class Http1Response extends NettyResponseAdaptor {
             ", status=" + status +
             "}";
     }
+
+    private static class HeldWrite {
+        private final Object msg;
+        private final ChannelPromise promise;
+
+        private HeldWrite(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
 }
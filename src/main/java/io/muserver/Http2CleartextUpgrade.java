@@ -0,0 +1,107 @@
+package io.muserver;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Upgrades a cleartext HTTP1 connection to HTTP2 when the client sends an <code>Upgrade: h2c</code> request
+ * (RFC 7540 section 3.2).
+ * <p>The upgrade request itself is handled as stream 1 of the HTTP2 connection. Only requests without a body are
+ * upgraded; for other requests the upgrade is ignored and the request is handled over HTTP1, as the spec allows.</p>
+ */
+class Http2CleartextUpgrade {
+
+    private static final String[] HTTP1_HANDLERS = {"preread", "flowControl", "keepalive", "compressor", "encoder", "muhandler"};
+
+    /**
+     * Tries to upgrade the connection
+     * @param ctx The context of the HTTP1 connection handler
+     * @param request The request that may be asking to upgrade
+     * @param http1Connection The HTTP1 connection, which is removed from the pipeline if upgraded
+     * @return <code>true</code> if the connection was upgraded and the request handed to the HTTP2 connection, or
+     * <code>false</code> if the request did not ask for, or could not use, an upgrade
+     */
+    static boolean upgradeIfRequested(ChannelHandlerContext ctx, HttpRequest request, Http1Connection http1Connection,
+                                      MuServerImpl server, NettyHandlerAdapter nettyHandlerAdapter, String proto) {
+        HttpHeaders headers = request.headers();
+        if (!headers.containsValue(HttpHeaderNames.UPGRADE, Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, true)
+            || !headers.containsValue(HttpHeaderNames.CONNECTION, HttpHeaderValues.UPGRADE, true)
+            || !headers.containsValue(HttpHeaderNames.CONNECTION, Http2CodecUtil.HTTP_UPGRADE_SETTINGS_HEADER, true)
+            || !headers.contains(HttpHeaderNames.HOST)
+            || HttpUtil.getContentLength(request, 0L) != 0L || HttpUtil.isTransferEncodingChunked(request)) {
+            return false;
+        }
+        List<String> settingsHeaders = headers.getAll(Http2CodecUtil.HTTP_UPGRADE_SETTINGS_HEADER);
+        Http2Settings settings = settingsHeaders.size() == 1 ? decodeSettings(settingsHeaders.get(0)) : null;
+        if (settings == null) {
+            return false;
+        }
+        headers.set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), proto); // needed to convert origin-form targets
+        io.netty.handler.codec.http2.Http2Headers http2Headers = HttpConversionUtil.toHttp2Headers(request, false);
+
+        DefaultFullHttpResponse switching = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.SWITCHING_PROTOCOLS, Unpooled.EMPTY_BUFFER);
+        switching.headers()
+            .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.UPGRADE)
+            .set(HttpHeaderNames.UPGRADE, Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME);
+        ctx.writeAndFlush(switching);
+
+        // The HTTP1 handlers are removed, leaving the back pressure handler in the same place it is for prior
+        // knowledge connections. The decoder goes last so that any bytes it has buffered are passed to HTTP2.
+        ChannelPipeline p = ctx.pipeline();
+        for (String name : HTTP1_HANDLERS) {
+            if (p.get(name) != null) {
+                p.remove(name);
+            }
+        }
+        server.stats.onConnectionUpgraded();
+        server.onConnectionEnded(http1Connection);
+        Http2Connection http2Connection = new Http2ConnectionBuilder(server, nettyHandlerAdapter, proto).build();
+        p.addLast(http2Connection);
+        p.remove("decoder");
+        p.channel().config().setAutoRead(true);
+
+        ChannelHandlerContext http2Ctx = p.context(http2Connection);
+        try {
+            http2Connection.onHttpServerUpgrade(settings);
+            http2Connection.onHeadersRead(http2Ctx, Http2CodecUtil.HTTP_UPGRADE_STREAM_ID, http2Headers, 0, true);
+        } catch (Http2Exception e) {
+            http2Connection.exceptionCaught(http2Ctx, e);
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the base64url encoded SETTINGS frame payload sent in the <code>HTTP2-Settings</code> header
+     * @return The settings, or null if the value is not valid
+     */
+    private static @Nullable Http2Settings decodeSettings(String headerValue) {
+        try {
+            ByteBuffer payload = ByteBuffer.wrap(Base64.getUrlDecoder().decode(headerValue.trim()));
+            if (payload.remaining() % 6 != 0) {
+                return null;
+            }
+            Http2Settings settings = new Http2Settings();
+            while (payload.hasRemaining()) {
+                char id = payload.getChar();
+                long value = payload.getInt() & 0xFFFFFFFFL;
+                settings.put(id, Long.valueOf(value));
+            }
+            return settings;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
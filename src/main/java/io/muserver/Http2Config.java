@@ -8,10 +8,46 @@ public class Http2Config {
 
     final boolean enabled;
     final int maxConcurrentStreams;
+    final int initialStreamWindowSize;
+    final int initialConnectionWindowSize;
+    final int maxFrameSize;
+    final int headerTableSize;
+    final int maxAutoTunedWindowSize;
+    final Http2StreamScheduling streamScheduling;
+    final int schedulingQuantum;
+    final int maxResetStreams;
+    final int resetStreamWindowSeconds;
+    final int maxControlFrames;
+    final int controlFrameWindowSeconds;
+    final int maxConsecutiveEmptyDataFrames;
+    final int maxSmallContinuationFrames;
+    final int maxQueuedControlFrames;
+    final boolean deferredDispatch;
+    final int maxConcurrentHandlers;
 
-    Http2Config(boolean enabled, int maxConcurrentStreams) {
+    Http2Config(boolean enabled, int maxConcurrentStreams, int initialStreamWindowSize, int initialConnectionWindowSize,
+                int maxFrameSize, int headerTableSize, int maxAutoTunedWindowSize, Http2StreamScheduling streamScheduling,
+                int schedulingQuantum, int maxResetStreams, int resetStreamWindowSeconds, int maxControlFrames,
+                int controlFrameWindowSeconds, int maxConsecutiveEmptyDataFrames, int maxSmallContinuationFrames,
+                int maxQueuedControlFrames, boolean deferredDispatch, int maxConcurrentHandlers) {
         this.enabled = enabled;
         this.maxConcurrentStreams = maxConcurrentStreams;
+        this.initialStreamWindowSize = initialStreamWindowSize;
+        this.initialConnectionWindowSize = initialConnectionWindowSize;
+        this.maxFrameSize = maxFrameSize;
+        this.headerTableSize = headerTableSize;
+        this.maxAutoTunedWindowSize = maxAutoTunedWindowSize;
+        this.streamScheduling = streamScheduling;
+        this.schedulingQuantum = schedulingQuantum;
+        this.maxResetStreams = maxResetStreams;
+        this.resetStreamWindowSeconds = resetStreamWindowSeconds;
+        this.maxControlFrames = maxControlFrames;
+        this.controlFrameWindowSeconds = controlFrameWindowSeconds;
+        this.maxConsecutiveEmptyDataFrames = maxConsecutiveEmptyDataFrames;
+        this.maxSmallContinuationFrames = maxSmallContinuationFrames;
+        this.maxQueuedControlFrames = maxQueuedControlFrames;
+        this.deferredDispatch = deferredDispatch;
+        this.maxConcurrentHandlers = maxConcurrentHandlers;
     }
 
     @Override
@@ -19,6 +55,22 @@ public class Http2Config {
         return "Http2Config{" +
             "enabled=" + enabled +
             ", maxConcurrentStreams=" + maxConcurrentStreams +
+            ", initialStreamWindowSize=" + initialStreamWindowSize +
+            ", initialConnectionWindowSize=" + initialConnectionWindowSize +
+            ", maxFrameSize=" + maxFrameSize +
+            ", headerTableSize=" + headerTableSize +
+            ", maxAutoTunedWindowSize=" + maxAutoTunedWindowSize +
+            ", streamScheduling=" + streamScheduling +
+            ", schedulingQuantum=" + schedulingQuantum +
+            ", maxResetStreams=" + maxResetStreams +
+            ", resetStreamWindowSeconds=" + resetStreamWindowSeconds +
+            ", maxControlFrames=" + maxControlFrames +
+            ", controlFrameWindowSeconds=" + controlFrameWindowSeconds +
+            ", maxConsecutiveEmptyDataFrames=" + maxConsecutiveEmptyDataFrames +
+            ", maxSmallContinuationFrames=" + maxSmallContinuationFrames +
+            ", maxQueuedControlFrames=" + maxQueuedControlFrames +
+            ", deferredDispatch=" + deferredDispatch +
+            ", maxConcurrentHandlers=" + maxConcurrentHandlers +
             '}';
     }
 
@@ -28,6 +80,20 @@ public class Http2Config {
     public Http2ConfigBuilder toBuilder() {
         return new Http2ConfigBuilder()
             .enabled(enabled)
-            .withMaxConcurrentStreams(maxConcurrentStreams);
+            .withMaxConcurrentStreams(maxConcurrentStreams)
+            .withInitialStreamWindowSize(initialStreamWindowSize)
+            .withInitialConnectionWindowSize(initialConnectionWindowSize)
+            .withMaxFrameSize(maxFrameSize)
+            .withHeaderTableSize(headerTableSize)
+            .withWindowAutoTuning(maxAutoTunedWindowSize)
+            .withStreamScheduling(streamScheduling)
+            .withSchedulingQuantum(schedulingQuantum)
+            .withResetStreamLimit(maxResetStreams, resetStreamWindowSeconds)
+            .withControlFrameLimit(maxControlFrames, controlFrameWindowSeconds)
+            .withMaxConsecutiveEmptyDataFrames(maxConsecutiveEmptyDataFrames)
+            .withMaxContinuationFrames(maxSmallContinuationFrames)
+            .withMaxQueuedControlFrames(maxQueuedControlFrames)
+            .withDeferredDispatch(deferredDispatch)
+            .withMaxConcurrentHandlers(maxConcurrentHandlers);
     }
 }
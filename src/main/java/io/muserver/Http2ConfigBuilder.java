@@ -1,5 +1,7 @@
 package io.muserver;
 
+import io.netty.handler.codec.http2.Http2CodecUtil;
+
 /**
  * Configuration builder for enabling HTTP2 by passing the config to {@link MuServerBuilder#withHttp2Config(Http2ConfigBuilder)}
  */
@@ -7,9 +9,28 @@ public class Http2ConfigBuilder {
 
     private boolean enabled = false;
     private int maxConcurrentStreams = 200;
+    private int initialStreamWindowSize = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+    private int initialConnectionWindowSize = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+    private int maxFrameSize = Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+    private int headerTableSize = (int) Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+    private int maxAutoTunedWindowSize = 0;
+    private Http2StreamScheduling streamScheduling = Http2StreamScheduling.WEIGHTED_FAIR;
+    private int schedulingQuantum = 1024;
+    private int maxResetStreams = 200;
+    private int resetStreamWindowSeconds = 30;
+    private int maxControlFrames = 1000;
+    private int controlFrameWindowSeconds = 10;
+    private int maxConsecutiveEmptyDataFrames = 2;
+    private int maxSmallContinuationFrames = 16;
+    private int maxQueuedControlFrames = Http2CodecUtil.DEFAULT_MAX_QUEUED_CONTROL_FRAMES;
+    private boolean deferredDispatch = false;
+    private int maxConcurrentHandlers = 0;
 
     /**
      * Specifies whether to enable HTTP2 or not.
+     * <p>When enabled, HTTPS connections negotiate HTTP2 using ALPN. Plaintext HTTP connections may use cleartext
+     * HTTP2 (h2c), either by starting with the HTTP2 connection preface (known as prior knowledge) or by sending an
+     * HTTP1 request with an <code>Upgrade: h2c</code> header.</p>
      * @param enabled <code>true</code> to enable; <code>false</code> to disable.
      * @return This builder
      */
@@ -62,12 +83,397 @@ public class Http2ConfigBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of requests from a single HTTP2 connection that are given to the handlers at the
+     * same time.
+     * <p>Streams opened beyond this number are queued on their connection, in the order they were received, until
+     * one of the connection's requests completes. This stops a single client that opens many streams from taking
+     * every handler thread, while still allowing it to open up to {@link #withMaxConcurrentStreams(int)} streams so
+     * that its requests are multiplexed as normal. The number of queued requests on a connection is available
+     * from {@link HttpConnection#queuedRequests()}.</p>
+     *
+     * @param maxConcurrentHandlers The maximum number of requests handled at once per connection, or <code>0</code>
+     *                              (the default) for no limit other than the maximum concurrent streams
+     * @return this builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public Http2ConfigBuilder withMaxConcurrentHandlers(int maxConcurrentHandlers) {
+        if (maxConcurrentHandlers < 0) {
+            throw new IllegalArgumentException("Maximum concurrent handlers must be non-negative.");
+        }
+        this.maxConcurrentHandlers = maxConcurrentHandlers;
+        return this;
+    }
+
+    /**
+     * @return The maximum number of requests handled at once per connection, or 0 if there is no limit
+     */
+    public int maxConcurrentHandlers() {
+        return maxConcurrentHandlers;
+    }
+
+    /**
+     * Sets the flow control window of each stream, which is how many bytes of a request body a client may send
+     * before the server has read them.
+     * <p>The default is 65535, the HTTP2 default. Along with the round trip time, this limits the upload speed of
+     * a single request: for example a 64KB window over a 100ms round trip allows at most about 640KB per second.
+     * A larger window allows faster uploads from distant clients at the cost of more memory per stream when
+     * handlers read request bodies slowly.</p>
+     *
+     * @param initialStreamWindowSize The window size in bytes, between 1 and 2147483647
+     * @return this builder
+     * @throws IllegalArgumentException if the size is out of range
+     */
+    public Http2ConfigBuilder withInitialStreamWindowSize(int initialStreamWindowSize) {
+        if (initialStreamWindowSize < 1) {
+            throw new IllegalArgumentException("The stream window size must be between 1 and " + Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE);
+        }
+        this.initialStreamWindowSize = initialStreamWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the flow control window of each connection, which is how many bytes of request bodies a client may send
+     * across all the streams of a connection before the server has read them.
+     * <p>The default is 65535, the HTTP2 default. The window cannot be smaller than this, as HTTP2 only allows it
+     * to be increased.</p>
+     *
+     * @param initialConnectionWindowSize The window size in bytes, between 65535 and 2147483647
+     * @return this builder
+     * @throws IllegalArgumentException if the size is out of range
+     */
+    public Http2ConfigBuilder withInitialConnectionWindowSize(int initialConnectionWindowSize) {
+        if (initialConnectionWindowSize < Http2CodecUtil.DEFAULT_WINDOW_SIZE) {
+            throw new IllegalArgumentException("The connection window size must be between " + Http2CodecUtil.DEFAULT_WINDOW_SIZE
+                + " and " + Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE);
+        }
+        this.initialConnectionWindowSize = initialConnectionWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the largest frame payload that clients may send.
+     * <p>The default is 16384, the HTTP2 default. Larger frames mean fewer frames to process for large uploads.</p>
+     *
+     * @param maxFrameSize The size in bytes, between 16384 and 16777215
+     * @return this builder
+     * @throws IllegalArgumentException if the size is out of range
+     */
+    public Http2ConfigBuilder withMaxFrameSize(int maxFrameSize) {
+        if (!Http2CodecUtil.isMaxFrameSizeValid(maxFrameSize)) {
+            throw new IllegalArgumentException("The max frame size must be between " + Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND
+                + " and " + Http2CodecUtil.MAX_FRAME_SIZE_UPPER_BOUND);
+        }
+        this.maxFrameSize = maxFrameSize;
+        return this;
+    }
+
+    /**
+     * Sets the size of the HPACK dynamic table that clients may use to compress request headers.
+     * <p>The default is 4096, the HTTP2 default. A larger table lets clients that send many different header
+     * values compress them better, at the cost of more memory per connection. A value of 0 disables the dynamic
+     * table.</p>
+     *
+     * @param headerTableSize The size in bytes, which cannot be negative
+     * @return this builder
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public Http2ConfigBuilder withHeaderTableSize(int headerTableSize) {
+        if (headerTableSize < 0) {
+            throw new IllegalArgumentException("The header table size cannot be negative");
+        }
+        this.headerTableSize = headerTableSize;
+        return this;
+    }
+
+    /**
+     * Enables automatic tuning of the flow control windows based on the measured bandwidth-delay product.
+     * <p>When enabled, the server sends a PING when request body data starts arriving on a connection and counts
+     * the bytes received until the PING is acknowledged, which is how much data the client sends in one round trip.
+     * If that fills most of the current window, the window is limiting the client, so the connection window and the
+     * window of each stream are grown to twice the measured amount. This repeats while data arrives, so the windows
+     * quickly grow to suit each connection's bandwidth and latency, up to the given maximum.</p>
+     * <p>The windows never shrink below the initial sizes set with {@link #withInitialStreamWindowSize(int)} and
+     * {@link #withInitialConnectionWindowSize(int)}.</p>
+     *
+     * @param maxWindowSize The largest size in bytes the windows may grow to, or <code>0</code> to disable auto-tuning
+     *                      (the default). A value such as 16777216 (16MB) is reasonable.
+     * @return this builder
+     * @throws IllegalArgumentException if the size is not 0 and less than 65535
+     */
+    public Http2ConfigBuilder withWindowAutoTuning(int maxWindowSize) {
+        if (maxWindowSize != 0 && maxWindowSize < Http2CodecUtil.DEFAULT_WINDOW_SIZE) {
+            throw new IllegalArgumentException("The maximum auto-tuned window size must be 0 or at least " + Http2CodecUtil.DEFAULT_WINDOW_SIZE);
+        }
+        this.maxAutoTunedWindowSize = maxWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets how response data from concurrent streams on a connection is interleaved.
+     * <p>The default, {@link Http2StreamScheduling#WEIGHTED_FAIR}, shares the connection based on stream weights.
+     * Use {@link Http2StreamScheduling#URGENCY} so that small, urgent responses are not held up by large downloads on
+     * the same connection.</p>
+     *
+     * @param streamScheduling The scheduling to use
+     * @return this builder
+     */
+    public Http2ConfigBuilder withStreamScheduling(Http2StreamScheduling streamScheduling) {
+        Mutils.notNull("streamScheduling", streamScheduling);
+        this.streamScheduling = streamScheduling;
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of bytes a stream is given to send at a time when streams share the connection.
+     * <p>Smaller values interleave streams more finely, at the cost of more, smaller frames.</p>
+     *
+     * @param schedulingQuantum The quantum in bytes. The default is 1024.
+     * @return this builder
+     * @throws IllegalArgumentException if the value is less than 1
+     */
+    public Http2ConfigBuilder withSchedulingQuantum(int schedulingQuantum) {
+        if (schedulingQuantum < 1) {
+            throw new IllegalArgumentException("The scheduling quantum must be at least 1");
+        }
+        this.schedulingQuantum = schedulingQuantum;
+        return this;
+    }
+
+    /**
+     * Limits how many streams a client may reset in a period of time, after which the connection is closed with a
+     * GOAWAY with the <code>ENHANCE_YOUR_CALM</code> error code.
+     * <p>Each stream a client opens may start a request handler, so a client that opens streams and immediately
+     * resets them (known as a rapid reset attack) can make the server do a lot of work at little cost to itself.
+     * The default is 200 resets every 30 seconds.</p>
+     *
+     * @param maxResetStreams The number of RST_STREAM frames allowed in each window, or <code>0</code> for no limit
+     * @param windowSeconds The length of the window in seconds
+     * @return this builder
+     * @throws IllegalArgumentException if either value is negative, or the window is 0 when there is a limit
+     */
+    public Http2ConfigBuilder withResetStreamLimit(int maxResetStreams, int windowSeconds) {
+        checkBudget("reset stream", maxResetStreams, windowSeconds);
+        this.maxResetStreams = maxResetStreams;
+        this.resetStreamWindowSeconds = windowSeconds;
+        return this;
+    }
+
+    /**
+     * Limits how many SETTINGS and PING frames a client may send in a period of time, after which the connection is
+     * closed with a GOAWAY with the <code>ENHANCE_YOUR_CALM</code> error code.
+     * <p>The server must acknowledge each of these frames, so a flood of them uses CPU and bandwidth while no
+     * requests are being made. Acknowledgements of the server's own PINGs and SETTINGS are not counted. The default
+     * is 1000 frames every 10 seconds.</p>
+     *
+     * @param maxControlFrames The number of SETTINGS and PING frames allowed in each window, or <code>0</code>
+     *                         for no limit
+     * @param windowSeconds The length of the window in seconds
+     * @return this builder
+     * @throws IllegalArgumentException if either value is negative, or the window is 0 when there is a limit
+     */
+    public Http2ConfigBuilder withControlFrameLimit(int maxControlFrames, int windowSeconds) {
+        checkBudget("control frame", maxControlFrames, windowSeconds);
+        this.maxControlFrames = maxControlFrames;
+        this.controlFrameWindowSeconds = windowSeconds;
+        return this;
+    }
+
+    private static void checkBudget(String name, int max, int windowSeconds) {
+        if (max < 0 || windowSeconds < 0) {
+            throw new IllegalArgumentException("The " + name + " limit and window cannot be negative");
+        }
+        if (max > 0 && windowSeconds == 0) {
+            throw new IllegalArgumentException("The " + name + " window must be at least 1 second");
+        }
+    }
+
+    /**
+     * Sets the number of empty DATA frames that may be received in a row before the connection is closed.
+     * <p>Empty DATA frames that do not end a stream serve no purpose, so a flood of them is only a way to use up CPU.
+     * The default is 2.</p>
+     *
+     * @param maxConsecutiveEmptyDataFrames The number of frames, or <code>0</code> for no limit
+     * @return this builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public Http2ConfigBuilder withMaxConsecutiveEmptyDataFrames(int maxConsecutiveEmptyDataFrames) {
+        if (maxConsecutiveEmptyDataFrames < 0) {
+            throw new IllegalArgumentException("The maximum consecutive empty DATA frames cannot be negative");
+        }
+        this.maxConsecutiveEmptyDataFrames = maxConsecutiveEmptyDataFrames;
+        return this;
+    }
+
+    /**
+     * Sets the number of small CONTINUATION frames (less than 8KB each) that a single header block may be split
+     * into before the connection is closed.
+     * <p>Headers are buffered until the header block is complete, so sending them a few bytes at a time is a way to
+     * hold memory and CPU without ever making a request. The default is 16.</p>
+     *
+     * @param maxSmallContinuationFrames The number of frames, or <code>0</code> for no limit
+     * @return this builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public Http2ConfigBuilder withMaxContinuationFrames(int maxSmallContinuationFrames) {
+        if (maxSmallContinuationFrames < 0) {
+            throw new IllegalArgumentException("The maximum CONTINUATION frames cannot be negative");
+        }
+        this.maxSmallContinuationFrames = maxSmallContinuationFrames;
+        return this;
+    }
+
+    /**
+     * Sets the number of control frames, such as PING and SETTINGS acknowledgements and stream resets, that may be
+     * waiting to be written to a client before the connection is closed.
+     * <p>This protects against clients that send frames needing a reply but do not read the replies. The default
+     * is 10000.</p>
+     *
+     * @param maxQueuedControlFrames The number of frames, or <code>0</code> for no limit
+     * @return this builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public Http2ConfigBuilder withMaxQueuedControlFrames(int maxQueuedControlFrames) {
+        if (maxQueuedControlFrames < 0) {
+            throw new IllegalArgumentException("The maximum queued control frames cannot be negative");
+        }
+        this.maxQueuedControlFrames = maxQueuedControlFrames;
+        return this;
+    }
+
+    /**
+     * Specifies whether to wait until the handler executor has a free thread before dispatching a request.
+     * <p>By default a request object is created and given to the handler executor as soon as the headers of a
+     * stream are received. When deferred, streams wait on their connection until all the frames received together
+     * have been processed, so that streams reset straight away cost nothing more than their headers, and are then
+     * only dispatched while the handler executor has an idle thread. Streams that cannot be dispatched within the
+     * request read timeout are rejected with a <code>503</code>.</p>
+     * <p>Checking for idle threads is only possible with the default executor or a {@link java.util.concurrent.ThreadPoolExecutor};
+     * other executors are assumed to always have capacity.</p>
+     *
+     * @param deferredDispatch <code>true</code> to defer dispatching requests; the default is <code>false</code>
+     * @return this builder
+     */
+    public Http2ConfigBuilder withDeferredDispatch(boolean deferredDispatch) {
+        this.deferredDispatch = deferredDispatch;
+        return this;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int initialStreamWindowSize() {
+        return initialStreamWindowSize;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int initialConnectionWindowSize() {
+        return initialConnectionWindowSize;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int maxFrameSize() {
+        return maxFrameSize;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int headerTableSize() {
+        return headerTableSize;
+    }
+
+    /**
+     * @return The maximum size of auto-tuned windows, or 0 if auto-tuning is disabled
+     */
+    public int windowAutoTuning() {
+        return maxAutoTunedWindowSize;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public Http2StreamScheduling streamScheduling() {
+        return streamScheduling;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int schedulingQuantum() {
+        return schedulingQuantum;
+    }
+
+    /**
+     * @return The number of stream resets allowed per window, or 0 if there is no limit
+     */
+    public int maxResetStreams() {
+        return maxResetStreams;
+    }
+
+    /**
+     * @return The length in seconds of the window that stream resets are counted over
+     */
+    public int resetStreamWindowSeconds() {
+        return resetStreamWindowSeconds;
+    }
+
+    /**
+     * @return The number of SETTINGS and PING frames allowed per window, or 0 if there is no limit
+     */
+    public int maxControlFrames() {
+        return maxControlFrames;
+    }
+
+    /**
+     * @return The length in seconds of the window that SETTINGS and PING frames are counted over
+     */
+    public int controlFrameWindowSeconds() {
+        return controlFrameWindowSeconds;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int maxConsecutiveEmptyDataFrames() {
+        return maxConsecutiveEmptyDataFrames;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int maxContinuationFrames() {
+        return maxSmallContinuationFrames;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int maxQueuedControlFrames() {
+        return maxQueuedControlFrames;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public boolean deferredDispatch() {
+        return deferredDispatch;
+    }
+
     /**
      * Creates the HTTP2 settings object
      * @return A new Http2Config object
      */
     public Http2Config build() {
-        return new Http2Config(enabled, maxConcurrentStreams);
+        return new Http2Config(enabled, maxConcurrentStreams, initialStreamWindowSize, initialConnectionWindowSize,
+            maxFrameSize, headerTableSize, maxAutoTunedWindowSize, streamScheduling, schedulingQuantum,
+            maxResetStreams, resetStreamWindowSeconds, maxControlFrames, controlFrameWindowSeconds,
+            maxConsecutiveEmptyDataFrames, maxSmallContinuationFrames, maxQueuedControlFrames, deferredDispatch,
+            maxConcurrentHandlers);
     }
 
     /**
@@ -7,68 +7,158 @@ import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http2.*;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.security.cert.Certificate;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.jspecify.annotations.Nullable;
 
 import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
 import static io.netty.buffer.Unpooled.copiedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Holds back the DATA frames of each stream until the request body reader asks for them, so that a slow reader
+ * stops the flow control window being updated rather than data being buffered without limit.
+ * <p>This is on the path of every DATA frame, so the per-stream state is kept in a primitive keyed map and each
+ * stream's pending frames in a small ring buffer, and frames are passed on directly when the next one is asked for
+ * from the event loop. After a stream's state has been created, the connection does not allocate objects per frame,
+ * as each frame is given to the stream's exchange with a callback that is kept for the life of the stream.</p>
+ */
 abstract class Http2ConnectionFlowControl extends Http2ConnectionHandler implements Http2FrameListener {
 
-    private static class DataReadData {
-        private final ByteBuf data;
-        private final int padding;
-        private final boolean endOfStream;
+    /**
+     * The frames received on a stream that have not been passed on yet
+     */
+    private static final class StreamBuffer {
+        private @Nullable ByteBuf[] data = new ByteBuf[4];
+        private int[] padding = new int[4];
+        private boolean[] endOfStream = new boolean[4];
+        private int head;
+        private int size;
+        private boolean wantsToRead;
+        private boolean delivering;
+
+        private void add(ByteBuf frameData, int framePadding, boolean frameEndOfStream) {
+            if (size == data.length) {
+                grow();
+            }
+            int index = (head + size) & (data.length - 1);
+            data[index] = frameData;
+            padding[index] = framePadding;
+            endOfStream[index] = frameEndOfStream;
+            size++;
+        }
 
-        private DataReadData(ByteBuf data, int padding, boolean endOfStream) {
-            this.data = data;
-            this.padding = padding;
-            this.endOfStream = endOfStream;
+        private void grow() {
+            int newCapacity = data.length << 1;
+            @Nullable ByteBuf[] newData = new ByteBuf[newCapacity];
+            int[] newPadding = new int[newCapacity];
+            boolean[] newEndOfStream = new boolean[newCapacity];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) & (data.length - 1);
+                newData[i] = data[index];
+                newPadding[i] = padding[index];
+                newEndOfStream[i] = endOfStream[index];
+            }
+            data = newData;
+            padding = newPadding;
+            endOfStream = newEndOfStream;
+            head = 0;
+        }
+
+        private void removeFirst() {
+            data[head] = null;
+            head = (head + 1) & (data.length - 1);
+            size--;
+        }
+
+        private void releaseAll() {
+            while (size > 0) {
+                requireNonNull(data[head]).release();
+                removeFirst();
+            }
         }
     }
 
-    private final Map<Integer, Queue<DataReadData>> buffer = new HashMap<>();
-    private final Map<Integer, Boolean> wantsToRead = new HashMap<>();
+    private final IntObjectHashMap<StreamBuffer> streams = new IntObjectHashMap<>();
 
     protected Http2ConnectionFlowControl(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder, Http2Settings initialSettings) {
         super(decoder, encoder, initialSettings);
     }
 
+    /**
+     * Passes the next DATA frame of the stream to {@link #onDataRead0(ChannelHandlerContext, int, ByteBuf, int, boolean)},
+     * either now or as soon as it arrives.
+     */
     protected void read(ChannelHandlerContext ctx, int streamId) {
         if (!ctx.executor().inEventLoop()) {
             ctx.executor().execute(() -> read(ctx, streamId));
             return;
         }
-        wantsToRead.put(streamId, true);
-        ctx.executor().submit(() -> sendItMaybe(ctx, streamId));
-    }
-
-    private void sendItMaybe(ChannelHandlerContext ctx, int streamId) {
-        if (ctx.channel().isActive()) {
-            Boolean wantsIt = wantsToRead.get(streamId);
-            if (wantsIt != null && wantsIt) {
-                Queue<DataReadData> queue = buffer.get(streamId);
-                if (queue != null) {
-                    DataReadData msg = queue.poll();
-                    if (msg != null) {
-                        wantsToRead.put(streamId, false);
-                        onDataRead0(ctx, streamId, msg.data, msg.padding, msg.endOfStream);
-                        msg.data.release();
-                    }
+        StreamBuffer stream = streams.get(streamId);
+        if (stream == null) {
+            if (!isReceivingData(streamId)) {
+                // the read was deferred and the stream has since been cleaned up
+                return;
+            }
+            stream = streamBuffer(streamId);
+        }
+        stream.wantsToRead = true;
+        deliver(ctx, streamId, stream);
+    }
+
+    /**
+     * @return <code>true</code> if DATA frames for the stream are still wanted, so a buffer may be created for it
+     */
+    protected abstract boolean isReceivingData(int streamId);
+
+    private StreamBuffer streamBuffer(int streamId) {
+        StreamBuffer stream = streams.get(streamId);
+        if (stream == null) {
+            stream = new StreamBuffer();
+            streams.put(streamId, stream);
+        }
+        return stream;
+    }
+
+    private void deliver(ChannelHandlerContext ctx, int streamId, StreamBuffer stream) {
+        // A reader that consumes a frame straight away asks for the next one from within onDataRead0, so this loops
+        // rather than recursing once per frame.
+        if (stream.delivering || !ctx.channel().isActive()) {
+            return;
+        }
+        stream.delivering = true;
+        try {
+            while (stream.wantsToRead && stream.size > 0) {
+                int index = stream.head;
+                ByteBuf data = requireNonNull(stream.data[index]);
+                int padding = stream.padding[index];
+                boolean endOfStream = stream.endOfStream[index];
+                stream.removeFirst();
+                stream.wantsToRead = false;
+                try {
+                    onDataRead0(ctx, streamId, data, padding, endOfStream);
+                } finally {
+                    data.release();
                 }
             }
+        } finally {
+            stream.delivering = false;
         }
     }
 
@@ -76,40 +166,29 @@ abstract class Http2ConnectionFlowControl extends Http2ConnectionHandler impleme
 
     @Override
     public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream) {
-        Queue<DataReadData> buf = buffer.computeIfAbsent(streamId, integer -> new LinkedList<>());
-        buf.add(new DataReadData(data.retain(), padding, endOfStream));
-        sendItMaybe(ctx, streamId);
+        StreamBuffer stream = streamBuffer(streamId);
+        stream.add(data.retain(), padding, endOfStream);
+        deliver(ctx, streamId, stream);
         return 0;
     }
 
     protected void cleanup() {
-        if (!wantsToRead.isEmpty()) {
-            wantsToRead.clear();
-        }
-        if (buffer.size() > 0) {
-            for (Queue<DataReadData> value : buffer.values()) {
-                for (DataReadData dataReadData : value) {
-                    dataReadData.data.release();
-                }
+        if (!streams.isEmpty()) {
+            for (StreamBuffer stream : streams.values()) {
+                stream.releaseAll();
             }
-            buffer.clear();
+            streams.clear();
         }
     }
 
     protected void cleanStream(int streamId) {
-        wantsToRead.remove(streamId);
         cleanBuffer(streamId);
     }
 
     protected void cleanBuffer(int streamId) {
-        Queue<DataReadData> removed = buffer.remove(streamId);
+        StreamBuffer removed = streams.remove(streamId);
         if (removed != null) {
-            if (!removed.isEmpty()) {
-                for (DataReadData dat : removed) {
-                    dat.data.release();
-                }
-                removed.clear();
-            }
+            removed.releaseAll();
         }
     }
 
@@ -126,37 +205,201 @@ abstract class Http2ConnectionFlowControl extends Http2ConnectionHandler impleme
     }
 }
 
-final class Http2Connection extends Http2ConnectionFlowControl implements HttpConnection {
+final class Http2Connection extends Http2ConnectionFlowControl implements DrainableConnection {
     private static final Logger log = LoggerFactory.getLogger(Http2Connection.class);
+    private static final byte PRIORITY_UPDATE_FRAME_TYPE = 0x10;
+    /**
+     * The payload of the ping sent between the two GOAWAY frames when draining
+     */
+    private static final long DRAIN_PING_PAYLOAD = 0x6d752d647261696eL;
+    /**
+     * How long to wait for the drain ping to be acknowledged before sending the final GOAWAY anyway
+     */
+    private static final long DRAIN_PING_TIMEOUT_MILLIS = 5000;
+    /**
+     * How often to try again to dispatch deferred streams while the handler executor is busy
+     */
+    private static final long DISPATCH_RETRY_MILLIS = 10;
+
+    /**
+     * A stream that has been received but not yet dispatched to the handlers, either because dispatch is deferred
+     * or because the connection has reached its limit of concurrent handlers
+     */
+    private static final class PendingStream {
+        private final int streamId;
+        private final io.netty.handler.codec.http2.Http2Headers headers;
+        private final boolean endOfStream;
+        private final long receivedNanos = System.nanoTime();
+
+        private PendingStream(int streamId, io.netty.handler.codec.http2.Http2Headers headers, boolean endOfStream) {
+            this.streamId = streamId;
+            this.headers = headers;
+            this.endOfStream = endOfStream;
+        }
+    }
+
+    /**
+     * A stream that has been dispatched and whose exchange has not ended. The exchange is given one DATA frame at a
+     * time, so this is also the callback for the frame being read, which is completed on the event loop.
+     */
+    private final class ActiveStream implements DoneCallback, Runnable {
+        private final ChannelHandlerContext ctx;
+        private final int streamId;
+        private final HttpExchange exchange;
+        private @Nullable ByteBuf data;
+        private int consumed;
+        private boolean endOfStream;
+        private @Nullable Throwable error;
+
+        private ActiveStream(ChannelHandlerContext ctx, int streamId, HttpExchange exchange) {
+            this.ctx = ctx;
+            this.streamId = streamId;
+            this.exchange = exchange;
+        }
+
+        private void onData(ByteBuf data, int consumed, boolean endOfStream) {
+            this.data = data.retain();
+            this.consumed = consumed;
+            this.endOfStream = endOfStream;
+            exchange.onBody(data, endOfStream, this);
+        }
+
+        @Override
+        public void onComplete(@Nullable Throwable error) throws Exception {
+            if (ctx.executor().inEventLoop()) {
+                complete(error);
+            } else {
+                this.error = error;
+                ctx.executor().execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Throwable error = this.error;
+            this.error = null;
+            try {
+                complete(error);
+            } catch (Exception e) {
+                log.debug("Error from doneCallback", e);
+            }
+        }
+
+        private void complete(@Nullable Throwable error) throws Http2Exception {
+            ByteBuf data = requireNonNull(this.data);
+            this.data = null;
+            Http2Stream stream = connection().stream(streamId);
+            if (stream != null && decoder().flowController().consumeBytes(stream, consumed)) {
+                ctx.flush();
+            }
+            data.release();
+            if (error != null) {
+                ctx.fireUserEventTriggered(new MuExceptionFiredEvent(exchange, streamId, error));
+            } else if (!endOfStream) {
+                read(ctx, streamId);
+            }
+            // error == null && endOfStream == true here, then do nothing
+            // as it just indicate the request is finished, no more data to read.
+        }
+    }
 
     private final MuServerImpl server;
     private final NettyHandlerAdapter nettyHandlerAdapter;
-    private final ConcurrentHashMap<Integer, HttpExchange> exchanges = new ConcurrentHashMap<>();
+    private final String proto;
+    /**
+     * The dispatched streams, which like the pending streams are only accessed on the event loop
+     */
+    private final IntObjectHashMap<ActiveStream> activeStreams = new IntObjectHashMap<>();
     private volatile int lastStreamId = 0;
     private final MuStatsImpl connectionStats = new MuStatsImpl(null);
     private @Nullable InetSocketAddress remoteAddress;
     private final Instant startTime = Instant.now();
     private @Nullable ChannelHandlerContext nettyContext;
     private @Nullable ProxiedConnectionInfoImpl proxyInfo;
+    private @Nullable Http2WindowTuner windowTuner;
+    private final @Nullable Http2UrgencyByteDistributor urgencyDistributor;
+    private final RttEstimator rtt = new RttEstimator();
+    private @Nullable Http2PingMonitor pingMonitor;
+    private @Nullable ScheduledFuture<?> pingTask;
+    private @Nullable ScheduledFuture<?> lifetimeTimer;
+    private long requestsReceived;
+    private boolean draining = false;
+    private @Nullable ScheduledFuture<?> drainTimeout;
+    private final IntObjectHashMap<PendingStream> pendingStreams = new IntObjectHashMap<>();
+    /**
+     * The pending streams in the order they were received
+     */
+    private final ArrayDeque<PendingStream> pendingOrder = new ArrayDeque<>();
+    private @Nullable ScheduledFuture<?> dispatchRetry;
+    private volatile int queuedStreams;
+    private long controlFrameWindowStart;
+    private int controlFramesInWindow;
 
     Http2Connection(Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
-                    Http2Settings initialSettings, MuServerImpl server, NettyHandlerAdapter nettyHandlerAdapter) {
+                    Http2Settings initialSettings, MuServerImpl server, NettyHandlerAdapter nettyHandlerAdapter, String proto,
+                    @Nullable Http2UrgencyByteDistributor urgencyDistributor) {
         super(decoder, encoder, initialSettings);
         this.server = server;
         this.nettyHandlerAdapter = nettyHandlerAdapter;
+        this.proto = proto;
+        this.urgencyDistributor = urgencyDistributor;
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         server.stats.onConnectionOpened();
-        remoteAddress = (InetSocketAddress) ctx.channel().remoteAddress();
+        remoteAddress = Http1Connection.remoteAddress(ctx.channel());
         this.nettyContext = ctx;
         server.onConnectionStarted(this);
         super.handlerAdded(ctx);
+        Http2Config config = server.http2Config();
+        int connectionWindowIncrease = config.initialConnectionWindowSize - Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+        if (connectionWindowIncrease > 0) {
+            decoder().flowController().incrementWindowSize(connection().connectionStream(), connectionWindowIncrease);
+        }
+        if (config.maxAutoTunedWindowSize > 0) {
+            windowTuner = new Http2WindowTuner(this, config);
+        }
+        long rttInterval = server.settings().rttMeasurementIntervalMillis;
+        if (rttInterval > 0) {
+            Http2PingMonitor monitor = new Http2PingMonitor(this, rtt, server.stats);
+            pingMonitor = monitor;
+            pingTask = ctx.executor().scheduleAtFixedRate(() -> {
+                if (!monitor.onInterval(ctx, !activeStreams.isEmpty())) {
+                    log.info("Closing connection to " + remoteAddress + " as it has not acknowledged a PING");
+                    closeAllAndDisconnect(ctx, Http2Error.NO_ERROR, ResponseState.TIMED_OUT);
+                }
+            }, 0, rttInterval, TimeUnit.MILLISECONDS);
+        }
+        long lifetime = server.settings().connectionLifetimeMillis();
+        if (lifetime > 0) {
+            lifetimeTimer = ctx.executor().schedule(() -> drain(ctx), lifetime, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopTimers() {
+        pingTask = cancel(pingTask);
+        lifetimeTimer = cancel(lifetimeTimer);
+        drainTimeout = cancel(drainTimeout);
+        dispatchRetry = cancel(dispatchRetry);
+    }
+
+    private static @Nullable ScheduledFuture<?> cancel(@Nullable ScheduledFuture<?> task) {
+        if (task != null) {
+            task.cancel(false);
+        }
+        return null;
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        stopTimers();
+        super.handlerRemoved0(ctx);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        stopTimers();
         server.stats.onConnectionClosed();
         server.onConnectionEnded(this);
         super.channelInactive(ctx);
@@ -202,22 +445,35 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
     @Override
     protected void cleanStream(int streamId) {
         super.cleanStream(streamId);
-        exchanges.remove(streamId);
+        activeStreams.remove(streamId);
     }
 
     @Override
     protected void cleanup() {
         super.cleanup();
-        if (!exchanges.isEmpty()) {
-            for (Integer streamId : exchanges.keySet()) {
-                cancelExchange(streamId);
+        pendingStreams.clear();
+        pendingOrder.clear();
+        queuedStreams = 0;
+        if (!activeStreams.isEmpty()) {
+            // cancelling an exchange on the event loop removes it from the map, so this iterates over a copy
+            for (ActiveStream stream : activeStreams.values().toArray(new ActiveStream[0])) {
+                cancelExchange(stream.streamId);
             }
         }
     }
 
+    @Override
+    protected boolean isReceivingData(int streamId) {
+        return activeStreams.containsKey(streamId) || pendingStreams.containsKey(streamId);
+    }
+
     @Override
     public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream) {
-        if (!exchanges.containsKey(streamId)) {
+        Http2WindowTuner tuner = windowTuner;
+        if (tuner != null) {
+            tuner.onDataRead(ctx, data.readableBytes() + padding);
+        }
+        if (!isReceivingData(streamId)) {
             // there was exception in onHeadersRead() e.g. '413 Payload Too Large'
             super.cleanBuffer(streamId);
             return data.readableBytes() + padding;
@@ -229,18 +485,103 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
     public void onHeadersRead(ChannelHandlerContext ctx, int streamId,
                               io.netty.handler.codec.http2.Http2Headers headers, int padding, boolean endOfStream) throws Http2Exception {
         lastStreamId = streamId;
+        long maxRequests = server.settings().maxRequestsPerConnection;
+        if (maxRequests > 0 && ++requestsReceived == maxRequests) {
+            drain(ctx);
+        }
+        Http2Config config = server.http2Config();
+        if (config.deferredDispatch || !pendingStreams.isEmpty() || atHandlerLimit(config)) {
+            // the body, if any, is held by the flow control buffer until the stream is dispatched
+            PendingStream pending = new PendingStream(streamId, headers, endOfStream);
+            pendingStreams.put(streamId, pending);
+            pendingOrder.add(pending);
+            queuedStreams = pendingStreams.size();
+            return;
+        }
+        dispatch(ctx, streamId, headers, endOfStream);
+    }
+
+    /**
+     * Only exchanges that were dispatched and have not ended are in {@link #activeStreams}, as streams that are
+     * rejected by the handler executor are removed straight away.
+     */
+    private boolean atHandlerLimit(Http2Config config) {
+        return config.maxConcurrentHandlers > 0 && activeStreams.size() >= config.maxConcurrentHandlers;
+    }
 
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        if (!pendingStreams.isEmpty()) {
+            dispatchPending(ctx);
+        }
+        super.channelReadComplete(ctx);
+    }
+
+    /**
+     * Dispatches queued streams in the order they were received for as long as the connection is below its limit
+     * of concurrent handlers and, if dispatch is deferred, the handler executor has idle threads. Streams that have
+     * waited for a busy executor for longer than the request read timeout are rejected. Must be called on the
+     * event loop.
+     */
+    private void dispatchPending(ChannelHandlerContext ctx) {
+        Http2Config config = server.http2Config();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(server.settings().requestReadTimeoutMillis);
+        boolean executorBusy = false;
+        PendingStream pending;
+        while ((pending = pendingOrder.peek()) != null) {
+            int streamId = pending.streamId;
+            if (connection().stream(streamId) == null) {
+                removeFirstPending();
+                cleanBuffer(streamId);
+            } else if (atHandlerLimit(config)) {
+                // dispatched when one of this connection's exchanges ends
+                break;
+            } else if (!config.deferredDispatch || nettyHandlerAdapter.hasIdleThread()) {
+                removeFirstPending();
+                dispatch(ctx, streamId, pending.headers, pending.endOfStream);
+            } else if (System.nanoTime() - pending.receivedNanos >= timeoutNanos) {
+                removeFirstPending();
+                cleanBuffer(streamId);
+                log.warn("Could not dispatch stream " + streamId + " from " + remoteAddress + " because the thread pool stayed busy so sending a 503");
+                reject(ctx, streamId, pending.headers, new InvalidHttpRequestException(503, "503 Service Unavailable"));
+            } else {
+                executorBusy = true;
+                break;
+            }
+        }
+        if (executorBusy && dispatchRetry == null) {
+            dispatchRetry = ctx.executor().schedule(() -> {
+                dispatchRetry = null;
+                dispatchPending(ctx);
+                ctx.flush();
+            }, DISPATCH_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Removes the stream at the front of the queue, and updates the count before it is dispatched so that its
+     * handler does not see itself as queued
+     */
+    private void removeFirstPending() {
+        pendingStreams.remove(pendingOrder.remove().streamId);
+        queuedStreams = pendingStreams.size();
+    }
+
+    /**
+     * Creates the request for a stream and gives it to the handlers
+     */
+    private void dispatch(ChannelHandlerContext ctx, int streamId, io.netty.handler.codec.http2.Http2Headers headers, boolean endOfStream) {
         try {
             HttpMethod nettyMeth = HttpMethod.valueOf(headers.method().toString().toUpperCase(Locale.ROOT));
             Method muMethod = HttpExchange.getMethod(nettyMeth);
 
-            String uri = HttpExchange.getRelativeUrl(headers.path().toString());
+            RequestTarget target = RequestTarget.parse(headers.path().toString());
             ServerSettings settings = server.settings();
-            if (uri.length() > settings.maxUrlSize) {
+            if (target.value.length() > settings.maxUrlSize) {
                 throw new InvalidHttpRequestException(414, "414 Request-URI Too Long");
             }
 
-            HttpRequest nettyReq = new Http2To1RequestAdapter(streamId, nettyMeth, uri, headers);
+            HttpRequest nettyReq = new Http2To1RequestAdapter(streamId, nettyMeth, target.value, headers);
             boolean hasRequestBody = !endOfStream;
             if (hasRequestBody) {
                 long bodyLen = headers.getLong(HeaderNames.CONTENT_LENGTH, -1L);
@@ -252,10 +593,19 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
             }
             Http2Headers muHeaders = new Http2Headers(headers, hasRequestBody);
             String host = headers.authority().toString();
+            RequestTarget.validateHost(host);
             muHeaders.set(HeaderNames.HOST, host);
-            NettyRequestAdapter muReq = new NettyRequestAdapter(ctx, nettyReq, muHeaders, muMethod, "https", uri, host);
+            NettyRequestAdapter muReq = new NettyRequestAdapter(ctx, nettyReq, muHeaders, muMethod, proto, target, host);
+
+            CharSequence priority = headers.get(HeaderNames.PRIORITY);
+            if (priority != null) {
+                prioritize(streamId, Http2Priority.parse(priority));
+            }
 
-            Http2Response resp = new Http2Response(ctx, muReq, new Http2Headers(), encoder(), streamId, settings);
+            Http2Response resp = new Http2Response(ctx, muReq, new Http2Headers(), this, streamId, settings);
+            if (settings.altSvc != null) {
+                resp.headers().set(HeaderNames.ALT_SVC, settings.altSvc);
+            }
             HttpExchange httpExchange = new HttpExchange(this, ctx, muReq, resp, streamId);
             resp.setExchange(httpExchange);
             muReq.setExchange(httpExchange);
@@ -270,21 +620,22 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
                     nettyHandlerAdapter.onResponseComplete(exchange, server.stats, connectionStats);
                 }
             });
-            exchanges.put(streamId, httpExchange);
+            activeStreams.put(streamId, new ActiveStream(ctx, streamId, httpExchange));
             httpExchange.addChangeListener((exchange, newState) -> {
                 if (newState.endState()) {
                     muReq.cleanup();
-                    cleanStream(streamId);
-                    if (newState == HttpExchangeState.ERRORED) {
-                        resetStream(ctx, streamId, Http2Error.INTERNAL_ERROR.code(), ctx.voidPromise());
-                        ctx.flush();
+                    if (ctx.executor().inEventLoop()) {
+                        onExchangeEnded(ctx, streamId, newState);
+                    } else {
+                        ctx.executor().execute(() -> onExchangeEnded(ctx, streamId, newState));
                     }
                 }
             });
 
             muReq.addChangeListener((exchange, newState) -> {
                 if (newState == RequestState.RECEIVING_BODY) {
-                    read(ctx, streamId);
+                    // deferred so that the body is not delivered before the reader has finished claiming it
+                    ctx.executor().execute(() -> read(ctx, streamId));
                 }
             });
 
@@ -298,83 +649,76 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
                 connectionStats.onRequestStarted(httpExchange.request);
                 nettyHandlerAdapter.onHeaders(httpExchange);
             } catch (RejectedExecutionException e) {
+                // the exchange never started, so it must not hold a handler slot or have body data buffered for it
+                activeStreams.remove(streamId);
+                cleanBuffer(streamId);
                 server.stats.onRequestEnded(httpExchange.request);
                 connectionStats.onRequestEnded(httpExchange.request);
-                log.warn("Could not service " + httpExchange.request + " because the thread pool is full so sending a 503");
+                if (e instanceof ConcurrencyLimiter.LimitExceededException) {
+                    log.debug("Shedding " + httpExchange.request + " because the concurrency limit has been reached so sending a 503");
+                } else {
+                    log.warn("Could not service " + httpExchange.request + " because the thread pool is full so sending a 503");
+                }
                 throw new InvalidHttpRequestException(503, "503 Service Unavailable");
             }
 
         } catch (InvalidHttpRequestException ihr) {
-            if (ihr.code == 429 || ihr.code == 503) {
-                connectionStats.onRejectedDueToOverload();
-                server.stats.onRejectedDueToOverload();
-            } else {
-                connectionStats.onInvalidRequest();
-                server.stats.onInvalidRequest();
-            }
-            String method = headers.method() == null ? null : headers.method().toString();
-            String uri = headers.path() == null ? null : headers.path().toString();
-            String message = String.valueOf(ihr.getMessage());
-            nettyHandlerAdapter.onRequestRejected(new RejectedRequestImpl(ihr.code, message, method, uri, this));
-            sendSimpleResponse(ctx, streamId, message, ihr.code);
+            reject(ctx, streamId, headers, ihr);
         } catch (RedirectException e) {
             sendRedirect(ctx, streamId, e.location);
         }
     }
 
+    /**
+     * Removes a stream whose exchange has ended, which allows a pending stream to be dispatched. Must be called on
+     * the event loop.
+     */
+    private void onExchangeEnded(ChannelHandlerContext ctx, int streamId, HttpExchangeState state) {
+        cleanStream(streamId);
+        if (!pendingStreams.isEmpty()) {
+            ctx.executor().execute(() -> {
+                if (!pendingStreams.isEmpty()) {
+                    dispatchPending(ctx);
+                    ctx.flush();
+                }
+            });
+        }
+        if (state == HttpExchangeState.ERRORED) {
+            resetStream(ctx, streamId, Http2Error.INTERNAL_ERROR.code(), ctx.voidPromise());
+            ctx.flush();
+        }
+    }
+
+    private void reject(ChannelHandlerContext ctx, int streamId, io.netty.handler.codec.http2.Http2Headers headers, InvalidHttpRequestException ihr) {
+        if (ihr.code == 429 || ihr.code == 503) {
+            connectionStats.onRejectedDueToOverload();
+            server.stats.onRejectedDueToOverload();
+        } else {
+            connectionStats.onInvalidRequest();
+            server.stats.onInvalidRequest();
+        }
+        String method = headers.method() == null ? null : headers.method().toString();
+        String uri = headers.path() == null ? null : headers.path().toString();
+        String message = String.valueOf(ihr.getMessage());
+        nettyHandlerAdapter.onRequestRejected(new RejectedRequestImpl(ihr.code, message, method, uri, this));
+        sendSimpleResponse(ctx, streamId, message, ihr.code);
+    }
+
     @Override
     public void onDataRead0(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream) {
-        int dataSize = data.readableBytes();
-        int consumed = dataSize + padding;
-        boolean empty = dataSize == 0;
-
-        HttpExchange httpExchange = exchanges.get(streamId);
-        if (httpExchange == null) {
+        ActiveStream stream = activeStreams.get(streamId);
+        if (stream == null) {
             log.debug("Got a chunk of message for an unknown request. This can happen when a request is rejected based on headers, and then the rejected body arrives.");
         } else {
-            HttpContent msg;
-            if (endOfStream) {
-                msg = empty ? DefaultLastHttpContent.EMPTY_LAST_CONTENT : new DefaultLastHttpContent(data, false);
-            } else {
-                msg = new DefaultHttpContent(data);
-            }
-            data.retain();
-            DoneCallback doneCallback = error -> {
-
-                Http2Stream stream = this.connection().stream(streamId);
-                if (stream != null && this.decoder().flowController().consumeBytes(stream, consumed)) {
-                    ctx.flush();
-                }
-
-                data.release();
-                if (error != null) {
-                    ctx.fireUserEventTriggered(new MuExceptionFiredEvent(httpExchange, streamId, error));
-                } else if (!endOfStream) {
-                    read(ctx, streamId);
-                }
-                // error == null && endOfStream == true here, then do nothing
-                // as it just indicate the request is finished, no more data to read.
-            };
-            httpExchange.onMessage(ctx, msg, error -> {
-                if (ctx.executor().inEventLoop()) {
-                    doneCallback.onComplete(error);
-                } else {
-                    ctx.executor().execute(() -> {
-                        try {
-                            doneCallback.onComplete(error);
-                        } catch (Exception e) {
-                            log.debug("Error from doneCallback, e");
-                        }
-                    });
-                }
-            });
+            stream.onData(data, data.readableBytes() + padding, endOfStream);
         }
     }
 
     @Override
     protected void onStreamError(ChannelHandlerContext ctx, boolean outbound, Throwable cause, Http2Exception.StreamException http2Ex) {
-        HttpExchange httpExchange = exchanges.get(http2Ex.streamId());
-        if (httpExchange != null) {
+        ActiveStream stream = activeStreams.get(http2Ex.streamId());
+        if (stream != null) {
+            HttpExchange httpExchange = stream.exchange;
             Throwable toy = cause;
             while (toy instanceof Http2Exception) {
                 toy = toy.getCause();
@@ -432,6 +776,13 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
 
     @Override
     public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) {
+        PendingStream pending = pendingStreams.remove(streamId);
+        if (pending != null) {
+            pendingOrder.remove(pending);
+            queuedStreams = pendingStreams.size();
+            cleanBuffer(streamId);
+            return;
+        }
         cancelExchange(streamId);
     }
 
@@ -442,13 +793,13 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
      */
     private void cancelExchange(int streamId) {
         /*
-          It does NOT removed the live exchange from exchanges Map directly here, the side effect of
+          It does NOT removed the live exchange from activeStreams Map directly here, the side effect of
           'httpExchange.onCancelled(ResponseState.ERRORED)' call, (e.g. HttpExchangeStateChangeListener)
           will do the removal.
          */
-        HttpExchange httpExchange = exchanges.get(streamId);
-        if (httpExchange != null) {
-            httpExchange.onCancelled(ResponseState.ERRORED);
+        ActiveStream stream = activeStreams.get(streamId);
+        if (stream != null) {
+            stream.exchange.onCancelled(ResponseState.ERRORED);
         }
     }
 
@@ -457,15 +808,98 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
     }
 
     @Override
-    public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) {
+    public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) throws Http2Exception {
+        onControlFrameRead();
     }
 
     @Override
-    public void onPingRead(ChannelHandlerContext ctx, long data) {
+    public void onPingRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+        onControlFrameRead();
+    }
+
+    /**
+     * Counts a SETTINGS or PING frame from the client against the configured budget
+     * @throws Http2Exception A connection error, which closes the connection with a GOAWAY, if the budget is used up
+     */
+    private void onControlFrameRead() throws Http2Exception {
+        Http2Config config = server.http2Config();
+        if (config.maxControlFrames <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (controlFramesInWindow == 0 || now - controlFrameWindowStart >= TimeUnit.SECONDS.toNanos(config.controlFrameWindowSeconds)) {
+            controlFrameWindowStart = now;
+            controlFramesInWindow = 0;
+        }
+        if (++controlFramesInWindow > config.maxControlFrames) {
+            log.info("Closing connection to " + remoteAddress + " as it sent more than " + config.maxControlFrames
+                + " SETTINGS and PING frames in " + config.controlFrameWindowSeconds + " seconds");
+            throw Http2Exception.connectionError(Http2Error.ENHANCE_YOUR_CALM, "Maximum number of SETTINGS and PING frames exceeded");
+        }
     }
 
     @Override
-    public void onPingAckRead(ChannelHandlerContext ctx, long data) {
+    public void onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+        Http2WindowTuner tuner = windowTuner;
+        if (tuner != null && tuner.onPingAckRead(ctx, data)) {
+            return;
+        }
+        Http2PingMonitor monitor = pingMonitor;
+        if (monitor != null && monitor.onPingAckRead(data)) {
+            return;
+        }
+        if (data == DRAIN_PING_PAYLOAD) {
+            finishDraining(ctx);
+        }
+    }
+
+    @Override
+    public void drain() {
+        startDraining();
+    }
+
+    @Override
+    public Future<Void> startDraining() {
+        ChannelHandlerContext ctx = context();
+        Promise<Void> closed = ctx.executor().newPromise();
+        ctx.executor().execute(() -> {
+            drain(ctx);
+            // completed in a later task so that listeners of the last response's writes have run
+            ctx.channel().closeFuture().addListener(f -> ctx.executor().execute(() -> closed.trySuccess(null)));
+        });
+        return closed;
+    }
+
+    /**
+     * Starts a graceful shutdown as described in RFC 9113 section 6.8: a GOAWAY with the maximum stream ID tells the
+     * client to stop opening streams, and a PING is sent so that the final GOAWAY with the actual last stream ID is
+     * sent once the client has had a round trip to take notice. Must be called on the event loop.
+     */
+    private void drain(ChannelHandlerContext ctx) {
+        if (draining || !ctx.channel().isActive()) {
+            return;
+        }
+        draining = true;
+        goAway(ctx, Integer.MAX_VALUE, Http2Error.NO_ERROR.code(), EMPTY_BUFFER, ctx.newPromise());
+        encoder().writePing(ctx, false, DRAIN_PING_PAYLOAD, ctx.voidPromise());
+        ctx.flush();
+        drainTimeout = ctx.executor().schedule(() -> finishDraining(ctx), DRAIN_PING_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void finishDraining(ChannelHandlerContext ctx) {
+        if (!draining || drainTimeout == null) {
+            return;
+        }
+        drainTimeout = cancel(drainTimeout);
+        goAway(ctx, connection().remote().lastStreamCreated(), Http2Error.NO_ERROR.code(), EMPTY_BUFFER, ctx.newPromise());
+        // waits for the streams in progress to complete before closing
+        gracefulShutdownTimeoutMillis(-1);
+        try {
+            close(ctx, ctx.newPromise());
+        } catch (Exception e) {
+            log.info("Error while draining connection to " + remoteAddress, e);
+            ctx.close();
+        }
     }
 
     @Override
@@ -485,6 +919,27 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
     @Override
     public void onUnknownFrame(ChannelHandlerContext ctx, byte frameType, int streamId,
                                Http2Flags flags, ByteBuf payload) {
+        if (frameType == PRIORITY_UPDATE_FRAME_TYPE && streamId == Http2CodecUtil.CONNECTION_STREAM_ID && payload.readableBytes() >= 4) {
+            // RFC 9218 section 7.1 - updates for streams that are not open yet are ignored
+            int prioritizedStreamId = payload.getInt(payload.readerIndex()) & Integer.MAX_VALUE;
+            String value = payload.toString(payload.readerIndex() + 4, payload.readableBytes() - 4, US_ASCII);
+            prioritize(prioritizedStreamId, Http2Priority.parse(value));
+        }
+    }
+
+    /**
+     * Changes the scheduling priority of the response on the given stream. Must be called on the event loop.
+     */
+    void prioritize(int streamId, Http2Priority priority) {
+        Http2Stream stream = connection().stream(streamId);
+        if (stream == null) {
+            return;
+        }
+        if (urgencyDistributor != null) {
+            urgencyDistributor.prioritize(stream, priority);
+        } else {
+            encoder().flowController().updateDependencyTree(streamId, Http2CodecUtil.CONNECTION_STREAM_ID, priority.weight(), false);
+        }
     }
 
     @Override
@@ -514,17 +969,17 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
 
     @Override
     public boolean isHttps() {
-        return true;
+        return "https".equals(proto);
     }
 
     @Override
     public @Nullable String httpsProtocol() {
-        return Http1Connection.getSslSession(context()).getProtocol();
+        return isHttps() ? Http1Connection.getSslSession(context()).getProtocol() : null;
     }
 
     @Override
     public @Nullable String cipher() {
-        return Http1Connection.getSslSession(context()).getCipherSuite();
+        return isHttps() ? Http1Connection.getSslSession(context()).getCipherSuite() : null;
     }
 
     @Override
@@ -582,6 +1037,21 @@ final class Http2Connection extends Http2ConnectionFlowControl implements HttpCo
         return Optional.ofNullable(context().channel().attr(MuSniHandler.SNI_HOSTNAME).get());
     }
 
+    @Override
+    public int queuedRequests() {
+        return queuedStreams;
+    }
+
+    @Override
+    public Optional<Duration> smoothedRtt() {
+        return rtt.smoothed();
+    }
+
+    @Override
+    public Optional<Duration> rttVariance() {
+        return rtt.variance();
+    }
+
     private ChannelHandlerContext context() {
         return requireNonNull(nettyContext, "The connection has not been initialized");
     }
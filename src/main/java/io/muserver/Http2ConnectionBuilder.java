@@ -1,23 +1,55 @@
 package io.muserver;
 
 import io.netty.handler.codec.http2.*;
+import org.jspecify.annotations.Nullable;
 
 class Http2ConnectionBuilder
     extends AbstractHttp2ConnectionHandlerBuilder<Http2Connection, Http2ConnectionBuilder> {
 
     private final MuServerImpl server;
     private final NettyHandlerAdapter nettyHandlerAdapter;
+    private final String proto;
+    private @Nullable Http2UrgencyByteDistributor urgencyDistributor;
 
-    Http2ConnectionBuilder(MuServerImpl server, NettyHandlerAdapter nettyHandlerAdapter) {
+    Http2ConnectionBuilder(MuServerImpl server, NettyHandlerAdapter nettyHandlerAdapter, String proto) {
         this.server = server;
         this.nettyHandlerAdapter = nettyHandlerAdapter;
+        this.proto = proto;
     }
 
     @Override
     public Http2Connection build() {
+        Http2Config config = server.http2Config();
         initialSettings()
             .maxHeaderListSize(server.settings().maxHeadersSize)
-            .maxConcurrentStreams(server.http2Config().maxConcurrentStreams);
+            .maxConcurrentStreams(config.maxConcurrentStreams)
+            .initialWindowSize(config.initialStreamWindowSize)
+            .maxFrameSize(config.maxFrameSize)
+            .headerTableSize(config.headerTableSize);
+
+        DefaultHttp2Connection connection = new DefaultHttp2Connection(true);
+        StreamByteDistributor distributor;
+        switch (config.streamScheduling) {
+            case UNIFORM:
+                UniformStreamByteDistributor uniform = new UniformStreamByteDistributor(connection);
+                uniform.minAllocationChunk(config.schedulingQuantum);
+                distributor = uniform;
+                break;
+            case URGENCY:
+                distributor = urgencyDistributor = new Http2UrgencyByteDistributor(connection, config.schedulingQuantum);
+                break;
+            default:
+                WeightedFairQueueByteDistributor weighted = new WeightedFairQueueByteDistributor(connection);
+                weighted.allocationQuantum(config.schedulingQuantum);
+                distributor = weighted;
+                break;
+        }
+        connection.remote().flowController(new DefaultHttp2RemoteFlowController(connection, distributor));
+        connection(connection);
+        decoderEnforceMaxRstFramesPerWindow(config.maxResetStreams, config.resetStreamWindowSeconds);
+        decoderEnforceMaxConsecutiveEmptyDataFrames(config.maxConsecutiveEmptyDataFrames);
+        decoderEnforceMaxSmallContinuationFrames(config.maxSmallContinuationFrames);
+        encoderEnforceMaxQueuedControlFrames(config.maxQueuedControlFrames);
         return super.build();
     }
 
@@ -29,7 +61,7 @@ class Http2ConnectionBuilder
             MuGzipHttp2ConnectionEncoder delegate = new MuGzipHttp2ConnectionEncoder(encoder);
             encoder = new MuCompressorHttp2ConnectionEncoder(delegate, CompressorHttp2ConnectionEncoder.DEFAULT_COMPRESSION_LEVEL, CompressorHttp2ConnectionEncoder.DEFAULT_WINDOW_BITS, CompressorHttp2ConnectionEncoder.DEFAULT_MEM_LEVEL);
         }
-        Http2Connection handler = new Http2Connection(decoder, encoder, initialSettings, server, nettyHandlerAdapter);
+        Http2Connection handler = new Http2Connection(decoder, encoder, initialSettings, server, nettyHandlerAdapter, proto, urgencyDistributor);
         frameListener(handler);
         return handler;
     }
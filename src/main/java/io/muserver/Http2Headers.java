@@ -16,6 +16,7 @@ class Http2Headers implements Headers {
 
     final io.netty.handler.codec.http2.Http2Headers entries;
     private final boolean hasRequestBody;
+    private @Nullable ParsedHeaderCache parsed;
 
     Http2Headers() {
         this(new DefaultHttp2Headers(), false);
@@ -26,6 +27,14 @@ class Http2Headers implements Headers {
         this.hasRequestBody = hasRequestBody;
     }
 
+    private ParsedHeaderCache parsed() {
+        ParsedHeaderCache p = parsed;
+        if (p == null) {
+            p = parsed = new ParsedHeaderCache();
+        }
+        return p;
+    }
+
     private static CharSequence toLower(CharSequence name) {
         Mutils.notNull("name", name);
         if (name instanceof String) {
@@ -175,6 +184,7 @@ class Http2Headers implements Headers {
 
     @Override
     public Headers add(CharSequence name, Object value) {
+        parsed = null;
         entries.addObject(toLower(name), value);
         return this;
     }
@@ -186,6 +196,7 @@ class Http2Headers implements Headers {
 
     @Override
     public Headers add(CharSequence name, Iterable<?> values) {
+        parsed = null;
         name = toLower(name);
         for (Object value : values) {
             entries.addObject(name, value);
@@ -203,6 +214,7 @@ class Http2Headers implements Headers {
 
     @Override
     public Headers addInt(CharSequence name, int value) {
+        parsed = null;
         entries.addInt(toLower(name), value);
         return this;
     }
@@ -214,6 +226,7 @@ class Http2Headers implements Headers {
 
     @Override
     public Headers set(CharSequence name, Object value) {
+        parsed = null;
         entries.setObject(toLower(name), value);
         return this;
     }
@@ -225,6 +238,7 @@ class Http2Headers implements Headers {
 
     @Override
     public Headers set(CharSequence name, Iterable<?> values) {
+        parsed = null;
         name = toLower(name);
         entries.remove(name);
         return add(name, values);
@@ -251,6 +265,7 @@ class Http2Headers implements Headers {
 
     @Override
     public Headers setInt(CharSequence name, int value) {
+        parsed = null;
         entries.setInt(toLower(name), value);
         return this;
     }
@@ -262,12 +277,14 @@ class Http2Headers implements Headers {
 
     @Override
     public Headers remove(CharSequence name) {
+        parsed = null;
         entries.remove(toLower(name));
         return this;
     }
 
     @Override
     public Headers clear() {
+        parsed = null;
         entries.clear();
         return this;
     }
@@ -314,36 +331,36 @@ class Http2Headers implements Headers {
 
     @Override
     public List<ParameterizedHeaderWithValue> accept() {
-        return Headtils.getParameterizedHeaderWithValues(this, HeaderNames.ACCEPT);
+        return parsed().accept(this);
     }
 
     @Override
     public List<ParameterizedHeaderWithValue> acceptCharset() {
-        return Headtils.getParameterizedHeaderWithValues(this, HeaderNames.ACCEPT_CHARSET);
+        return parsed().acceptCharset(this);
     }
 
     @Override
     public List<ParameterizedHeaderWithValue> acceptEncoding() {
-        return Headtils.getParameterizedHeaderWithValues(this, HeaderNames.ACCEPT_ENCODING);
+        return parsed().acceptEncoding(this);
     }
 
     @Override
     public List<ForwardedHeader> forwarded() {
-        return Headtils.getForwardedHeaders(this);
+        return parsed().forwarded(this);
     }
 
     @Override
     public List<ParameterizedHeaderWithValue> acceptLanguage() {
-        return Headtils.getParameterizedHeaderWithValues(this, HeaderNames.ACCEPT_LANGUAGE);
+        return parsed().acceptLanguage(this);
     }
 
     @Override
     public ParameterizedHeader cacheControl() {
-        return ParameterizedHeader.fromString(get(HeaderNames.CACHE_CONTROL));
+        return parsed().cacheControl(this);
     }
 
     @Override
     public @Nullable MediaType contentType() {
-        return Headtils.getMediaType(this);
+        return parsed().contentType(this);
     }
 }
@@ -0,0 +1,72 @@
+package io.muserver;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+
+/**
+ * Sends periodic PINGs on an HTTP2 connection to measure its round trip time and to find clients that have gone away.
+ * <p>A PING is sent when the connection is first checked, and after that only while requests are in progress, so
+ * that the PINGs do not stop idle connections from timing out. If a PING is not acknowledged after
+ * {@link #MAX_UNACKNOWLEDGED_INTERVALS} intervals then the client is considered to be unreachable.</p>
+ * <p>All methods are called on the connection's event loop.</p>
+ */
+class Http2PingMonitor {
+
+    /**
+     * The payload of the pings sent to measure round trips, so they can be told apart from any other pings
+     */
+    static final long PING_PAYLOAD = 0x6d752d7274742d31L;
+
+    /**
+     * The number of intervals to wait for an acknowledgement before giving up on the client
+     */
+    static final int MAX_UNACKNOWLEDGED_INTERVALS = 3;
+
+    private final Http2ConnectionHandler handler;
+    private final RttEstimator rtt;
+    private final MuStatsImpl serverStats;
+    private boolean awaitingAck;
+    private int intervalsWaited;
+    private long pingSentNanos;
+
+    Http2PingMonitor(Http2ConnectionHandler handler, RttEstimator rtt, MuStatsImpl serverStats) {
+        this.handler = handler;
+        this.rtt = rtt;
+        this.serverStats = serverStats;
+    }
+
+    /**
+     * Called once per interval
+     * @param active <code>true</code> if the connection has requests in progress
+     * @return <code>false</code> if the client has not acknowledged the last ping for too long
+     */
+    boolean onInterval(ChannelHandlerContext ctx, boolean active) {
+        if (awaitingAck) {
+            intervalsWaited++;
+            return intervalsWaited < MAX_UNACKNOWLEDGED_INTERVALS;
+        }
+        if (active || !rtt.hasValue()) {
+            awaitingAck = true;
+            intervalsWaited = 0;
+            pingSentNanos = System.nanoTime();
+            handler.encoder().writePing(ctx, false, PING_PAYLOAD, ctx.voidPromise());
+            ctx.flush();
+        }
+        return true;
+    }
+
+    /**
+     * Called when a ping acknowledgement is received
+     * @param data The ping payload
+     * @return <code>true</code> if the ping was sent by this monitor
+     */
+    boolean onPingAckRead(long data) {
+        if (data != PING_PAYLOAD || !awaitingAck) {
+            return false;
+        }
+        awaitingAck = false;
+        rtt.onSample(Math.max(1L, System.nanoTime() - pingSentNanos));
+        serverStats.onRttMeasured(rtt);
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package io.muserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+
+import java.util.List;
+
+/**
+ * Detects cleartext HTTP2 connections made with prior knowledge (RFC 9113 section 3.3) by checking whether the
+ * connection starts with the HTTP2 connection preface, and then sets up either the HTTP2 or HTTP1 pipeline.
+ */
+class Http2PriorKnowledgeHandler extends ByteToMessageDecoder {
+    private static final ByteBuf PREFACE = Http2CodecUtil.connectionPrefaceBuf();
+
+    private final NettyHandlerAdapter nettyHandlerAdapter;
+    private final MuServerImpl server;
+    private final String proto;
+
+    Http2PriorKnowledgeHandler(NettyHandlerAdapter nettyHandlerAdapter, MuServerImpl server, String proto) {
+        this.nettyHandlerAdapter = nettyHandlerAdapter;
+        this.server = server;
+        this.proto = proto;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        int prefaceLength = PREFACE.readableBytes();
+        int toCompare = Math.min(in.readableBytes(), prefaceLength);
+        if (!ByteBufUtil.equals(in, in.readerIndex(), PREFACE, PREFACE.readerIndex(), toCompare)) {
+            ctx.pipeline().remove(BackPressureHandler.NAME); // because the http1 pipeline adds it in the right place
+            MuServerBuilder.setupHttp1Pipeline(ctx.pipeline(), nettyHandlerAdapter, server, proto);
+            ctx.pipeline().remove(this);
+        } else if (toCompare == prefaceLength) {
+            ctx.pipeline().addLast(new Http2ConnectionBuilder(server, nettyHandlerAdapter, proto).build());
+            ctx.pipeline().remove(this);
+        }
+        // otherwise wait for more bytes as everything received so far matches the preface
+    }
+}
@@ -0,0 +1,88 @@
+package io.muserver;
+
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * An <a href="https://www.rfc-editor.org/rfc/rfc9218">RFC 9218</a> stream priority
+ */
+final class Http2Priority {
+
+    static final int DEFAULT_URGENCY = 3;
+    static final int LEAST_URGENT = 7;
+    static final Http2Priority DEFAULT = new Http2Priority(DEFAULT_URGENCY, false);
+
+    /**
+     * The urgency, from 0 (most urgent) to 7
+     */
+    final int urgency;
+    /**
+     * Whether the response can usefully be processed as it arrives, so can share the connection with other responses
+     */
+    final boolean incremental;
+
+    Http2Priority(int urgency, boolean incremental) {
+        if (urgency < 0 || urgency > LEAST_URGENT) {
+            throw new IllegalArgumentException("Urgency must be between 0 and " + LEAST_URGENT + " but was " + urgency);
+        }
+        this.urgency = urgency;
+        this.incremental = incremental;
+    }
+
+    /**
+     * The weight used for this priority with weight-based scheduling, where the default urgency gets the default
+     * HTTP2 weight and each more urgent level gets twice the weight of the level below it.
+     * @return A weight from 1 to 128
+     */
+    short weight() {
+        return (short) (Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT << DEFAULT_URGENCY >> urgency);
+    }
+
+    /**
+     * Parses a <code>Priority</code> header or <code>PRIORITY_UPDATE</code> frame value, such as <code>u=1, i</code>
+     * <p>Unknown or invalid parameters are ignored, and missing parameters get their default values.</p>
+     * @param value The field value
+     * @return The parsed priority
+     */
+    static Http2Priority parse(CharSequence value) {
+        int urgency = DEFAULT_URGENCY;
+        boolean incremental = false;
+        for (String member : value.toString().split(",")) {
+            int semi = member.indexOf(';');
+            String trimmed = (semi == -1 ? member : member.substring(0, semi)).trim();
+            int eq = trimmed.indexOf('=');
+            String key = eq == -1 ? trimmed : trimmed.substring(0, eq).trim();
+            String param = eq == -1 ? "?1" : trimmed.substring(eq + 1).trim();
+            if (key.equals("u")) {
+                if (param.length() == 1 && param.charAt(0) >= '0' && param.charAt(0) <= '0' + LEAST_URGENT) {
+                    urgency = param.charAt(0) - '0';
+                }
+            } else if (key.equals("i")) {
+                if (param.equals("?1")) {
+                    incremental = true;
+                } else if (param.equals("?0")) {
+                    incremental = false;
+                }
+            }
+        }
+        return urgency == DEFAULT_URGENCY && !incremental ? DEFAULT : new Http2Priority(urgency, incremental);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Http2Priority that = (Http2Priority) o;
+        return urgency == that.urgency && incremental == that.incremental;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * urgency + (incremental ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return incremental ? "u=" + urgency + ", i" : "u=" + urgency;
+    }
+}
@@ -5,21 +5,24 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 
 class Http2Response extends NettyResponseAdaptor {
 
     private final ChannelHandlerContext ctx;
     private final Http2Headers headers;
+    private final Http2Connection connection;
     private final Http2ConnectionEncoder encoder;
     private final int streamId;
     private final ServerSettings settings;
 
-    Http2Response(ChannelHandlerContext ctx, NettyRequestAdapter request, Http2Headers headers, Http2ConnectionEncoder encoder, int streamId, ServerSettings settings) {
+    Http2Response(ChannelHandlerContext ctx, NettyRequestAdapter request, Http2Headers headers, Http2Connection connection, int streamId, ServerSettings settings) {
         super(request, headers);
         this.ctx = ctx;
         this.headers = headers;
-        this.encoder = encoder;
+        this.connection = connection;
+        this.encoder = connection.encoder();
         this.streamId = streamId;
         this.settings = settings;
     }
@@ -37,6 +40,25 @@ class Http2Response extends NettyResponseAdaptor {
         return channelPromise;
     }
 
+    @Override
+    public void priority(int urgency, boolean incremental) {
+        Http2Priority priority = new Http2Priority(urgency, incremental);
+        if (ctx.executor().inEventLoop()) {
+            connection.prioritize(streamId, priority);
+        } else {
+            ctx.executor().execute(() -> connection.prioritize(streamId, priority));
+        }
+    }
+
+    @Override
+    protected void writeEarlyHints(Headers hints) {
+        Http2Headers informational = new Http2Headers();
+        informational.add(hints);
+        informational.entries.status(HttpResponseStatus.EARLY_HINTS.codeAsText());
+        encoder.writeHeaders(ctx, streamId, informational.entries, 0, false, ctx.voidPromise());
+        ctx.channel().flush();
+    }
+
     @Override
     protected ChannelFuture startStreaming() {
         super.startStreaming();
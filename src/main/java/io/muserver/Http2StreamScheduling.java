@@ -0,0 +1,33 @@
+package io.muserver;
+
+/**
+ * The way response data from concurrent streams on a single HTTP2 connection is interleaved when it is sent,
+ * set with {@link Http2ConfigBuilder#withStreamScheduling(Http2StreamScheduling)}
+ * <p>In all cases, the amount of data a stream is given before moving to the next is controlled by
+ * {@link Http2ConfigBuilder#withSchedulingQuantum(int)}.</p>
+ */
+public enum Http2StreamScheduling {
+
+    /**
+     * Netty's weighted fair queue, where each stream gets a share of the connection proportional to its weight.
+     * <p>Weights come from HTTP2 <code>PRIORITY</code> frames, and from the urgency in <code>Priority</code> request headers
+     * (<a href="https://www.rfc-editor.org/rfc/rfc9218">RFC 9218</a>) or {@link MuResponse#priority(int, boolean)},
+     * where each urgency level gets twice the share of the next lower level.</p>
+     */
+    WEIGHTED_FAIR,
+
+    /**
+     * Each stream with data to send gets an equal share of the connection, regardless of any priorities.
+     */
+    UNIFORM,
+
+    /**
+     * Strict <a href="https://www.rfc-editor.org/rfc/rfc9218">RFC 9218</a> scheduling, where streams with a more urgent
+     * priority are always sent before less urgent streams.
+     * <p>Within an urgency level, non-incremental responses are sent one at a time in the order the requests were
+     * received, followed by incremental responses which share the connection in a round robin.</p>
+     * <p>Priorities come from <code>Priority</code> request headers and <code>PRIORITY_UPDATE</code> frames, and
+     * can be overridden with {@link MuResponse#priority(int, boolean)}. Streams default to urgency 3, non-incremental.</p>
+     */
+    URGENCY
+}
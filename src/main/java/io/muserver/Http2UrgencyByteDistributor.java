@@ -0,0 +1,185 @@
+package io.muserver;
+
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.handler.codec.http2.StreamByteDistributor;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A stream byte distributor that implements the <a href="https://www.rfc-editor.org/rfc/rfc9218">RFC 9218</a>
+ * extensible priority scheme.
+ * <p>Streams are grouped by urgency, and a less urgent group is only written to when all the more urgent streams
+ * are waiting for data or flow control window. Within a group, non-incremental streams are written one at a time
+ * in stream ID order, and then incremental streams are written in a round robin, a quantum at a time.</p>
+ * <p>RFC 7540 priorities are ignored.</p>
+ */
+final class Http2UrgencyByteDistributor implements StreamByteDistributor {
+
+    private final io.netty.handler.codec.http2.Http2Connection.PropertyKey stateKey;
+    private final Level[] levels = new Level[Http2Priority.LEAST_URGENT + 1];
+    private final int quantum;
+    private long totalStreamableBytes;
+
+    Http2UrgencyByteDistributor(io.netty.handler.codec.http2.Http2Connection connection, int quantum) {
+        this.quantum = quantum;
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new Level();
+        }
+        stateKey = connection.newKey();
+        Http2Stream connectionStream = connection.connectionStream();
+        connectionStream.setProperty(stateKey, new State(connectionStream));
+        connection.addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamAdded(Http2Stream stream) {
+                stream.setProperty(stateKey, new State(stream));
+            }
+
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                state(stream).close();
+            }
+        });
+    }
+
+    /**
+     * Changes the priority of a stream, which takes effect from the next distribution
+     */
+    void prioritize(Http2Stream stream, Http2Priority priority) {
+        State state = stream.getProperty(stateKey);
+        if (state != null && !state.priority.equals(priority)) {
+            boolean wasQueued = state.enqueued;
+            state.removeFromQueue();
+            state.priority = priority;
+            if (wasQueued) {
+                state.addToQueue();
+            }
+        }
+    }
+
+    @Override
+    public void updateStreamableBytes(StreamState streamState) {
+        int streamableBytes = Math.max(0, (int) Math.min(streamState.pendingBytes(), streamState.windowSize()));
+        state(streamState.stream()).updateStreamableBytes(streamableBytes, streamState.hasFrame(), streamState.windowSize());
+    }
+
+    @Override
+    public void updateDependencyTree(int childStreamId, int parentStreamId, short weight, boolean exclusive) {
+        // RFC 7540 priorities are deprecated by RFC 9218
+    }
+
+    @Override
+    public boolean distribute(int maxBytes, Writer writer) throws Http2Exception {
+        for (Level level : levels) {
+            State state;
+            while ((state = level.sequential.poll()) != null) {
+                state.enqueued = false;
+                if (state.windowNegative) {
+                    continue;
+                }
+                if (maxBytes == 0 && state.streamableBytes > 0) {
+                    state.addToQueue();
+                    return true;
+                }
+                int chunk = Math.min(maxBytes, state.streamableBytes);
+                maxBytes -= chunk;
+                state.write(chunk, writer);
+            }
+            while ((state = level.incremental.pollFirst()) != null) {
+                state.enqueued = false;
+                if (state.windowNegative) {
+                    continue;
+                }
+                if (maxBytes == 0 && state.streamableBytes > 0) {
+                    state.enqueued = true;
+                    level.incremental.addFirst(state);
+                    return true;
+                }
+                int chunk = Math.min(quantum, Math.min(maxBytes, state.streamableBytes));
+                maxBytes -= chunk;
+                state.write(chunk, writer);
+            }
+        }
+        return totalStreamableBytes > 0;
+    }
+
+    private State state(Http2Stream stream) {
+        return requireNonNull(stream.getProperty(stateKey));
+    }
+
+    private static final class Level {
+        private final PriorityQueue<State> sequential = new PriorityQueue<>(Comparator.comparingInt(s -> s.stream.id()));
+        private final ArrayDeque<State> incremental = new ArrayDeque<>(4);
+    }
+
+    private final class State {
+        private final Http2Stream stream;
+        private Http2Priority priority = Http2Priority.DEFAULT;
+        private int streamableBytes;
+        private boolean windowNegative;
+        private boolean enqueued;
+        private boolean writing;
+
+        private State(Http2Stream stream) {
+            this.stream = stream;
+        }
+
+        private void updateStreamableBytes(int newStreamableBytes, boolean hasFrame, int windowSize) {
+            int delta = newStreamableBytes - streamableBytes;
+            if (delta != 0) {
+                streamableBytes = newStreamableBytes;
+                totalStreamableBytes += delta;
+            }
+            windowNegative = windowSize < 0;
+            if (hasFrame && (windowSize > 0 || (windowSize == 0 && !writing))) {
+                addToQueue();
+            }
+        }
+
+        private void write(int numBytes, Writer writer) throws Http2Exception {
+            writing = true;
+            try {
+                writer.write(stream, numBytes);
+            } catch (Throwable t) {
+                throw Http2Exception.connectionError(Http2Error.INTERNAL_ERROR, t, "byte distribution write error");
+            } finally {
+                writing = false;
+            }
+        }
+
+        private void addToQueue() {
+            if (!enqueued) {
+                enqueued = true;
+                Level level = levels[priority.urgency];
+                if (priority.incremental) {
+                    level.incremental.addLast(this);
+                } else {
+                    level.sequential.add(this);
+                }
+            }
+        }
+
+        private void removeFromQueue() {
+            if (enqueued) {
+                enqueued = false;
+                Level level = levels[priority.urgency];
+                if (priority.incremental) {
+                    level.incremental.remove(this);
+                } else {
+                    level.sequential.remove(this);
+                }
+            }
+        }
+
+        private void close() {
+            removeFromQueue();
+            updateStreamableBytes(0, false, 0);
+        }
+    }
+}
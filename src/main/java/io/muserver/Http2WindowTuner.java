@@ -0,0 +1,109 @@
+package io.muserver;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Settings;
+
+/**
+ * Grows the flow control windows of an HTTP2 connection to match its bandwidth-delay product (BDP).
+ * <p>When request body data arrives and no measurement is in progress, a PING is sent and the bytes received
+ * until it is acknowledged are counted, giving the amount of data the client sends per round trip. If this is close
+ * to the current window then the client is being held back by the window, so the windows are grown to twice the
+ * measured amount, as long as the measured bandwidth has also increased.</p>
+ * <p>All methods are called on the connection's event loop.</p>
+ */
+class Http2WindowTuner {
+
+    /**
+     * The payload of the pings sent to measure round trips, so they can be told apart from any other pings
+     */
+    static final long PING_PAYLOAD = 0x6d752d6264702d31L;
+
+    private final Http2ConnectionHandler handler;
+    private final int maxWindowSize;
+    private int connectionWindowSize;
+    private int streamWindowSize;
+    private boolean measuring;
+    private long pingSentNanos;
+    private long bytesReceived;
+    private double maxBandwidth;
+
+    Http2WindowTuner(Http2ConnectionHandler handler, Http2Config config) {
+        this.handler = handler;
+        this.maxWindowSize = config.maxAutoTunedWindowSize;
+        this.connectionWindowSize = config.initialConnectionWindowSize;
+        this.streamWindowSize = config.initialStreamWindowSize;
+    }
+
+    /**
+     * Called when a DATA frame is received on any stream
+     * @param bytes The flow-controlled size of the frame
+     */
+    void onDataRead(ChannelHandlerContext ctx, int bytes) {
+        if (!measuring) {
+            if (Math.min(connectionWindowSize, streamWindowSize) >= maxWindowSize) {
+                return;
+            }
+            measuring = true;
+            bytesReceived = 0;
+            pingSentNanos = System.nanoTime();
+            handler.encoder().writePing(ctx, false, PING_PAYLOAD, ctx.voidPromise());
+        }
+        bytesReceived += bytes;
+    }
+
+    /**
+     * Called when a ping acknowledgement is received
+     * @param data The ping payload
+     * @return <code>true</code> if the ping was sent by this tuner
+     * @throws Http2Exception if the window could not be updated
+     */
+    boolean onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+        if (data != PING_PAYLOAD || !measuring) {
+            return false;
+        }
+        measuring = false;
+        long roundTripNanos = Math.max(1L, System.nanoTime() - pingSentNanos);
+        double bandwidth = (double) bytesReceived / roundTripNanos;
+        int limitingWindow = Math.min(connectionWindowSize, streamWindowSize);
+        if (bytesReceived >= limitingWindow * 2L / 3 && bandwidth > maxBandwidth) {
+            maxBandwidth = bandwidth;
+            int newWindowSize = (int) Math.min(maxWindowSize, bytesReceived * 2);
+            growWindows(ctx, newWindowSize);
+        }
+        return true;
+    }
+
+    private void growWindows(ChannelHandlerContext ctx, int newWindowSize) throws Http2Exception {
+        boolean changed = false;
+        if (newWindowSize > connectionWindowSize) {
+            handler.decoder().flowController().incrementWindowSize(handler.connection().connectionStream(), newWindowSize - connectionWindowSize);
+            connectionWindowSize = newWindowSize;
+            changed = true;
+        }
+        if (newWindowSize > streamWindowSize) {
+            // applied to all open streams, as well as new ones, once the client acknowledges the settings
+            handler.encoder().writeSettings(ctx, new Http2Settings().initialWindowSize(newWindowSize), ctx.newPromise());
+            streamWindowSize = newWindowSize;
+            changed = true;
+        }
+        if (changed) {
+            ctx.flush();
+        }
+    }
+
+    /**
+     * @return The current size of the connection window
+     */
+    int connectionWindowSize() {
+        return connectionWindowSize;
+    }
+
+    /**
+     * @return The current initial size of stream windows
+     */
+    int streamWindowSize() {
+        return streamWindowSize;
+    }
+}
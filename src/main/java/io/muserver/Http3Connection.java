@@ -0,0 +1,271 @@
+package io.muserver;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.security.cert.Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An HTTP/3 connection, which is a QUIC connection whose bidirectional streams each carry one request.
+ * <p>This is added to the pipeline of the QUIC channel, and is counted as a connection once the QUIC handshake has
+ * completed. Each request stream is handled by an {@link Http3Stream}, which reports its requests here.</p>
+ */
+class Http3Connection extends ChannelInboundHandlerAdapter implements DrainableConnection {
+    private static final Logger log = LoggerFactory.getLogger(Http3Connection.class);
+
+    private final MuServerImpl server;
+    private final Http3Listener listener;
+    private final MuStatsImpl connectionStats = new MuStatsImpl(null);
+    private final Instant startTime = Instant.now();
+    private @Nullable ChannelHandlerContext nettyContext;
+    private @Nullable InetSocketAddress remoteAddress;
+    private volatile @Nullable SSLSession sslSession;
+    private @Nullable ScheduledFuture<?> lifetimeTimer;
+    private long requestsReceived;
+    private int activeStreams;
+    private long lastStreamId = -1;
+    /**
+     * The ID of the first stream that is not handled, once a GOAWAY has been sent
+     */
+    private long goAwayStreamId = -1;
+
+    Http3Connection(MuServerImpl server, Http3Listener listener) {
+        this.server = server;
+        this.listener = listener;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.nettyContext = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        SocketAddress address = listener.remoteAddress(ctx.channel());
+        remoteAddress = address instanceof InetSocketAddress ? (InetSocketAddress) address : Http1Connection.remoteAddress(ctx.channel());
+        sslSession = listener.sslEngine(ctx.channel()).getSession();
+        server.stats.onConnectionOpened();
+        connectionStats.onConnectionOpened();
+        server.onConnectionStarted(this);
+        long lifetime = server.settings().connectionLifetimeMillis();
+        if (lifetime > 0) {
+            lifetimeTimer = ctx.executor().schedule(() -> drain(ctx), lifetime, TimeUnit.MILLISECONDS);
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (lifetimeTimer != null) {
+            lifetimeTimer.cancel(false);
+            lifetimeTimer = null;
+        }
+        server.stats.onConnectionClosed();
+        server.onConnectionEnded(this);
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * Called on the event loop when the client opens a request stream
+     * @return <code>false</code> if the stream was opened after a GOAWAY, so must not be handled
+     */
+    boolean onStreamOpened(Channel stream) {
+        long streamId = listener.streamId(stream);
+        if (goAwayStreamId >= 0 && streamId >= goAwayStreamId) {
+            return false;
+        }
+        lastStreamId = Math.max(lastStreamId, streamId);
+        activeStreams++;
+        long maxRequests = server.settings().maxRequestsPerConnection;
+        if (maxRequests > 0 && ++requestsReceived == maxRequests) {
+            drain(context());
+        }
+        return true;
+    }
+
+    /**
+     * Called on the event loop when a request stream that was handled has closed
+     */
+    void onStreamClosed() {
+        activeStreams--;
+        closeIfDrained(context());
+    }
+
+    MuStatsImpl stats() {
+        return connectionStats;
+    }
+
+    @Override
+    public void drain() {
+        startDraining();
+    }
+
+    @Override
+    public Future<Void> startDraining() {
+        ChannelHandlerContext ctx = context();
+        Promise<Void> closed = ctx.executor().newPromise();
+        ctx.executor().execute(() -> {
+            drain(ctx);
+            // completed in a later task so that listeners of the last response's writes have run
+            ctx.channel().closeFuture().addListener(f -> ctx.executor().execute(() -> closed.trySuccess(null)));
+        });
+        return closed;
+    }
+
+    /**
+     * Sends a GOAWAY as described in RFC 9114 section 5.2 so that the client stops opening request streams, and
+     * closes the connection once the streams already opened have completed. Must be called on the event loop.
+     */
+    private void drain(ChannelHandlerContext ctx) {
+        if (goAwayStreamId >= 0 || !ctx.channel().isActive()) {
+            return;
+        }
+        // client-initiated bidirectional stream IDs start at 0 and go up in steps of 4
+        goAwayStreamId = lastStreamId < 0 ? 0 : lastStreamId + 4;
+        try {
+            listener.sendGoAway(ctx.channel(), goAwayStreamId);
+        } catch (Exception e) {
+            log.info("Error while sending GOAWAY to " + remoteAddress, e);
+        }
+        closeIfDrained(ctx);
+    }
+
+    private void closeIfDrained(ChannelHandlerContext ctx) {
+        if (goAwayStreamId >= 0 && activeStreams == 0) {
+            ctx.channel().close();
+        }
+    }
+
+    @Override
+    public String protocol() {
+        return "HTTP/3";
+    }
+
+    @Override
+    public boolean isHttps() {
+        return true;
+    }
+
+    @Override
+    public @Nullable String httpsProtocol() {
+        return sslSession().getProtocol();
+    }
+
+    @Override
+    public @Nullable String cipher() {
+        return sslSession().getCipherSuite();
+    }
+
+    @Override
+    public Instant startTime() {
+        return startTime;
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return requireNonNull(remoteAddress, "The connection has not been established");
+    }
+
+    @Override
+    public long completedRequests() {
+        return connectionStats.completedRequests();
+    }
+
+    @Override
+    public long invalidHttpRequests() {
+        return connectionStats.invalidHttpRequests();
+    }
+
+    @Override
+    public long rejectedDueToOverload() {
+        return connectionStats.rejectedDueToOverload();
+    }
+
+    @Override
+    public Set<MuRequest> activeRequests() {
+        return connectionStats.activeRequests();
+    }
+
+    @Override
+    public Set<MuWebSocket> activeWebsockets() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public MuServer server() {
+        return server;
+    }
+
+    @Override
+    public Optional<Certificate> clientCertificate() {
+        try {
+            return Optional.of(sslSession().getPeerCertificates()[0]);
+        } catch (SSLPeerUnverifiedException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<ProxiedConnectionInfo> proxyInfo() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> sniHostName() {
+        SSLSession session = sslSession();
+        if (session instanceof ExtendedSSLSession) {
+            for (SNIServerName name : ((ExtendedSSLSession) session).getRequestedServerNames()) {
+                if (name instanceof SNIHostName) {
+                    return Optional.of(((SNIHostName) name).getAsciiName());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public int queuedRequests() {
+        return 0;
+    }
+
+    @Override
+    public Optional<Duration> smoothedRtt() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Duration> rttVariance() {
+        return Optional.empty();
+    }
+
+    private SSLSession sslSession() {
+        return requireNonNull(sslSession, "The connection has not been established");
+    }
+
+    private ChannelHandlerContext context() {
+        return requireNonNull(nettyContext, "The connection has not been initialized");
+    }
+}
@@ -0,0 +1,249 @@
+package io.muserver;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.timeout.IdleStateHandler;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serves HTTP/3 over QUIC with Netty's HTTP/3 codec.
+ * <p>The codec is an optional dependency that lives in different packages in Netty 4.1 (the incubator project) and
+ * Netty 4.2, so it is accessed reflectively rather than being a compile-time dependency. It converts the frames of
+ * each request stream to HTTP/1 messages, so the streams are handled by {@link Http3Stream} rather than needing
+ * classes that reference the codec. Each QUIC connection is an {@link Http3Connection}.</p>
+ */
+class Http3Listener {
+    private static final Logger log = LoggerFactory.getLogger(Http3Listener.class);
+
+    private final String quicPackage;
+    private final String http3Package;
+    private final Method remoteSocketAddressMethod;
+    private final Method sslEngineMethod;
+    private final Method streamIdMethod;
+    private final Method localControlStreamMethod;
+    private final Constructor<?> connectionHandlerConstructor;
+    private final Constructor<?> frameCodecConstructor;
+    private final Constructor<?> goAwayFrameConstructor;
+
+    private Http3Listener(String quicPackage, String http3Package) throws ReflectiveOperationException {
+        this.quicPackage = quicPackage;
+        this.http3Package = http3Package;
+        // looked up on the interface as the implementation classes are not public
+        Class<?> quicChannelClass = load(quicPackage + ".QuicChannel");
+        this.remoteSocketAddressMethod = quicChannelClass.getMethod("remoteSocketAddress");
+        this.sslEngineMethod = quicChannelClass.getMethod("sslEngine");
+        this.streamIdMethod = load(quicPackage + ".QuicStreamChannel").getMethod("streamId");
+        this.localControlStreamMethod = load(http3Package + ".Http3").getMethod("getLocalControlStream", Channel.class);
+        this.connectionHandlerConstructor = load(http3Package + ".Http3ServerConnectionHandler").getConstructor(ChannelHandler.class);
+        this.frameCodecConstructor = load(http3Package + ".Http3FrameToHttpObjectCodec").getConstructor(boolean.class);
+        this.goAwayFrameConstructor = load(http3Package + ".DefaultHttp3GoAwayFrame").getConstructor(long.class);
+    }
+
+    /**
+     * Loads the codec, logging why HTTP/3 cannot be used if it is not available
+     * @return The listener, or <code>null</code> if the codec or its native library is not available
+     */
+    static @Nullable Http3Listener createIfAvailable() {
+        try {
+            Http3Listener listener;
+            if (isClassAvailable("io.netty.handler.codec.http3.Http3")) {
+                // Netty 4.2
+                listener = new Http3Listener("io.netty.handler.codec.quic", "io.netty.handler.codec.http3");
+            } else if (isClassAvailable("io.netty.incubator.codec.http3.Http3")) {
+                // Netty 4.1 with the incubator codec
+                listener = new Http3Listener("io.netty.incubator.codec.quic", "io.netty.incubator.codec.http3");
+            } else {
+                log.warn("HTTP/3 will not be enabled because neither netty-codec-http3 (for Netty 4.2) nor netty-incubator-codec-http3 (for Netty 4.1) is on the classpath");
+                return null;
+            }
+            Class<?> quic = load(listener.quicPackage + ".Quic");
+            if (!Boolean.TRUE.equals(quic.getMethod("isAvailable").invoke(null))) {
+                log.warn("HTTP/3 will not be enabled because the native QUIC library is not available. Reason: "
+                    + quic.getMethod("unavailabilityCause").invoke(null));
+                return null;
+            }
+            return listener;
+        } catch (Exception | LinkageError e) {
+            log.warn("HTTP/3 will not be enabled because of an error while loading the HTTP/3 codec", e);
+            return null;
+        }
+    }
+
+    private static boolean isClassAvailable(String className) {
+        try {
+            Class.forName(className, false, Http3Listener.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static Class<?> load(String className) throws ClassNotFoundException {
+        return Class.forName(className, true, Http3Listener.class.getClassLoader());
+    }
+
+    /**
+     * @param port The UDP port that HTTP/3 is served on
+     * @return The value of the alt-svc header that tells clients where to find HTTP/3
+     */
+    static String altSvc(int port) {
+        return "h3=\":" + port + "\"; ma=86400";
+    }
+
+    /**
+     * Binds a UDP socket for HTTP/3. Nothing is read from it until {@link #serve(Channel, HttpsConfigBuilder, MuServerImpl, NettyHandlerAdapter, long)}
+     * is called, so that it can be bound before the server it serves is created.
+     * @param group The event loop group, which is also used for the QUIC connections and request streams
+     * @param channelClass The UDP channel type for the transport of the group
+     * @return The bound channel
+     */
+    Channel bind(EventLoopGroup group, Class<? extends Channel> channelClass, @Nullable String host, int port) throws InterruptedException {
+        Bootstrap b = new Bootstrap().group(group).channel(channelClass)
+            .option(ChannelOption.AUTO_READ, false)
+            .handler(new ChannelInboundHandlerAdapter());
+        ChannelFuture bound = host == null ? b.bind(port) : b.bind(host, port);
+        return bound.sync().channel();
+    }
+
+    /**
+     * Starts serving HTTP/3 on a channel created with {@link #bind(EventLoopGroup, Class, String, int)}
+     * @param httpsConfig The certificate config, which is shared with the HTTPS listener
+     */
+    void serve(Channel channel, HttpsConfigBuilder httpsConfig, MuServerImpl server, NettyHandlerAdapter nettyHandlerAdapter,
+               long idleTimeoutMillis) throws Exception {
+        channel.pipeline().addLast("quic", newServerCodec(newSslContext(httpsConfig), server, nettyHandlerAdapter, idleTimeoutMillis));
+        channel.config().setAutoRead(true);
+    }
+
+    private Object newSslContext(HttpsConfigBuilder httpsConfig) throws Exception {
+        KeyManager keyManager = httpsConfig.toKeyManager();
+        if (keyManager == null) {
+            throw new MuException("HTTP/3 needs the certificate to come from a keystore or KeyManagerFactory, rather than an SSLContext");
+        }
+        Class<?> builderClass = load(quicPackage + ".QuicSslContextBuilder");
+        Object builder = builderClass.getMethod("forServer", KeyManager.class, String.class).invoke(null, keyManager, null);
+        String[] protocols = (String[]) load(http3Package + ".Http3").getMethod("supportedApplicationProtocols").invoke(null);
+        builderClass.getMethod("applicationProtocols", String[].class).invoke(builder, (Object) protocols);
+        if (httpsConfig.trustManager != null) {
+            builderClass.getMethod("trustManager", TrustManager.class).invoke(builder, httpsConfig.trustManager);
+        }
+        builderClass.getMethod("clientAuth", ClientAuth.class).invoke(builder, httpsConfig.nettyClientAuth());
+        return builderClass.getMethod("build").invoke(builder);
+    }
+
+    private ChannelHandler newServerCodec(Object sslContext, MuServerImpl server, NettyHandlerAdapter nettyHandlerAdapter,
+                                          long idleTimeoutMillis) throws Exception {
+        ChannelHandler requestStreamInitializer = new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel stream) throws Exception {
+                Http3Connection connection = requireNonNull(stream.parent().pipeline().get(Http3Connection.class), "No HTTP/3 connection");
+                if (!connection.onStreamOpened(stream)) {
+                    // opened after a GOAWAY so will not be handled
+                    stream.close();
+                    return;
+                }
+                ChannelPipeline p = stream.pipeline();
+                p.addLast("idle", new IdleStateHandler(0, 0, idleTimeoutMillis, TimeUnit.MILLISECONDS));
+                p.addLast("codec", (ChannelHandler) frameCodecConstructor.newInstance(true));
+                if (server.settings().gzipEnabled) {
+                    p.addLast("compressor", new SelectiveHttpContentCompressor(server.settings()));
+                }
+                p.addLast("flowControl", new MuFlowControlHandler());
+                p.addLast(BackPressureHandler.NAME, new BackPressureHandler());
+                p.addLast("preread", new PreReader());
+                p.addLast("muhandler", new Http3Stream(nettyHandlerAdapter, server, connection));
+            }
+        };
+        ChannelHandler connectionInitializer = new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel quicChannel) throws Exception {
+                quicChannel.pipeline().addLast((ChannelHandler) connectionHandlerConstructor.newInstance(requestStreamInitializer));
+                quicChannel.pipeline().addLast(new Http3Connection(server, Http3Listener.this));
+            }
+        };
+
+        // the flow control limits are the same as for HTTP2
+        Http2Config http2Config = server.http2Config();
+        Class<?> builderClass = load(quicPackage + ".QuicServerCodecBuilder");
+        Object builder = load(http3Package + ".Http3").getMethod("newQuicServerCodecBuilder").invoke(null);
+        builderClass.getMethod("sslContext", load(quicPackage + ".QuicSslContext")).invoke(builder, sslContext);
+        builderClass.getMethod("maxIdleTimeout", long.class, TimeUnit.class).invoke(builder, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        builderClass.getMethod("initialMaxData", long.class).invoke(builder, (long) http2Config.initialConnectionWindowSize);
+        builderClass.getMethod("initialMaxStreamDataBidirectionalLocal", long.class).invoke(builder, (long) http2Config.initialStreamWindowSize);
+        builderClass.getMethod("initialMaxStreamDataBidirectionalRemote", long.class).invoke(builder, (long) http2Config.initialStreamWindowSize);
+        builderClass.getMethod("initialMaxStreamsBidirectional", long.class).invoke(builder, (long) http2Config.maxConcurrentStreams);
+        // validates client addresses with retry tokens that only this server can create
+        Class<?> tokenHandlerClass = load(quicPackage + ".QuicTokenHandler");
+        builderClass.getMethod("tokenHandler", tokenHandlerClass).invoke(builder, new Http3TokenHandler().asQuicTokenHandler(tokenHandlerClass));
+        builderClass.getMethod("handler", ChannelHandler.class).invoke(builder, connectionInitializer);
+        return (ChannelHandler) builderClass.getMethod("build").invoke(builder);
+    }
+
+    /**
+     * @param quicChannel A QUIC connection
+     * @return The address of the client
+     */
+    @Nullable SocketAddress remoteAddress(Channel quicChannel) {
+        return (SocketAddress) invoke(remoteSocketAddressMethod, quicChannel);
+    }
+
+    /**
+     * @param quicChannel A QUIC connection
+     * @return The TLS engine of the connection
+     */
+    SSLEngine sslEngine(Channel quicChannel) {
+        return (SSLEngine) requireNonNull(invoke(sslEngineMethod, quicChannel), "QUIC connection has no SSL engine");
+    }
+
+    /**
+     * @param stream A QUIC stream
+     * @return The ID of the stream
+     */
+    long streamId(Channel stream) {
+        return (Long) requireNonNull(invoke(streamIdMethod, stream));
+    }
+
+    /**
+     * Sends a GOAWAY frame on the control stream of a connection
+     * @param quicChannel A QUIC connection
+     * @param streamId The ID of the first request stream that will not be handled
+     */
+    void sendGoAway(Channel quicChannel, long streamId) throws ReflectiveOperationException {
+        Channel controlStream = (Channel) invoke(localControlStreamMethod, null, quicChannel);
+        if (controlStream != null) {
+            controlStream.writeAndFlush(goAwayFrameConstructor.newInstance(streamId));
+        }
+    }
+
+    private static @Nullable Object invoke(Method method, @Nullable Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw new MuException("Error calling " + method.getName() + " on the HTTP/3 codec", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new MuException("Error calling " + method.getName() + " on the HTTP/3 codec", e);
+        }
+    }
+
+}
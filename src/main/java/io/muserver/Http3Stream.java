@@ -0,0 +1,151 @@
+package io.muserver;
+
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles a request stream of an HTTP/3 connection.
+ * <p>The HTTP/3 codec converts the stream's frames to HTTP/1 messages, so the request is handled with the same
+ * exchange as an HTTP/1 request. A stream only ever carries one request. The connection that the request is reported as being on is the {@link Http3Connection} of the QUIC
+ * connection that the stream is part of.</p>
+ */
+class Http3Stream extends SimpleChannelInboundHandler<Object> {
+    private static final Logger log = LoggerFactory.getLogger(Http3Stream.class);
+    private static final HttpVersion HTTP_3 = HttpVersion.valueOf("HTTP/3.0");
+
+    private final NettyHandlerAdapter nettyHandlerAdapter;
+    private final MuServerImpl server;
+    private final Http3Connection connection;
+    private @Nullable HttpExchange exchange;
+
+    Http3Stream(NettyHandlerAdapter nettyHandlerAdapter, MuServerImpl server, Http3Connection connection) {
+        this.nettyHandlerAdapter = nettyHandlerAdapter;
+        this.server = server;
+        this.connection = connection;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        ctx.channel().read();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        HttpExchange exchange = this.exchange;
+        if (exchange != null) {
+            exchange.onConnectionEnded(ctx);
+        }
+        connection.onStreamClosed();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
+        try {
+            onChannelRead(ctx, msg);
+        } catch (Exception e) {
+            log.warn("Unhandled internal error. Closing stream.", e);
+            ctx.channel().close();
+        }
+    }
+
+    private void onChannelRead(ChannelHandlerContext ctx, Object msg) throws UnexpectedMessageException {
+        if (msg instanceof HttpRequest) {
+            HttpRequest nettyRequest = (HttpRequest) msg;
+            nettyRequest.setProtocolVersion(HTTP_3);
+            // added by the codec to describe the stream rather than sent by the client
+            nettyRequest.headers().remove("x-http3-stream-id").remove("x-http3-scheme");
+            onRequest(ctx, nettyRequest);
+        } else {
+            HttpExchange exchange = this.exchange;
+            if (exchange == null) {
+                log.debug("Got a chunk of message for an unknown request. This can happen when a request is rejected based on headers, and then the rejected body arrives.");
+                ctx.channel().read();
+                return;
+            }
+            exchange.onMessage(ctx, msg, error -> {
+                if (error == null) {
+                    if (!(msg instanceof LastHttpContent)) {
+                        ctx.channel().read();
+                    }
+                } else {
+                    ctx.fireUserEventTriggered(new MuExceptionFiredEvent(exchange, -1, error));
+                }
+            });
+        }
+    }
+
+    private void onRequest(ChannelHandlerContext ctx, HttpRequest nettyRequest) {
+        MuStatsImpl connectionStats = connection.stats();
+        try {
+            exchange = HttpExchange.create(server, "https", ctx, connection, nettyRequest, nettyHandlerAdapter, connectionStats,
+                (exchange, newState) -> {
+                    if (newState == RequestState.RECEIVING_BODY) {
+                        ctx.channel().read();
+                    }
+                },
+                (exchange, newState) -> {
+                    if (newState.endState()) {
+                        nettyHandlerAdapter.onResponseComplete(exchange, server.stats, connectionStats);
+                        ctx.channel().eventLoop().execute(() -> onExchangeEnded(ctx, exchange));
+                    }
+                }, false, false);
+        } catch (InvalidHttpRequestException ihr) {
+            if (ihr.code == 429 || ihr.code == 503) {
+                connectionStats.onRejectedDueToOverload();
+                server.stats.onRejectedDueToOverload();
+            } else {
+                connectionStats.onInvalidRequest();
+                server.stats.onInvalidRequest();
+            }
+            String method = nettyRequest.method() == null ? null : nettyRequest.method().name();
+            String message = String.valueOf(ihr.getMessage());
+            nettyHandlerAdapter.onRequestRejected(new RejectedRequestImpl(ihr.code, message, method, nettyRequest.uri(), connection));
+            Http1Connection.sendSimpleResponse(ctx, message, ihr.code).addListener(ChannelFutureListener.CLOSE);
+        } catch (RedirectException e) {
+            Http1Connection.sendRedirect(ctx, e.location).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private void onExchangeEnded(ChannelHandlerContext ctx, HttpExchange exchange) {
+        this.exchange = null;
+        exchange.request.cleanup();
+        if (exchange.state() == HttpExchangeState.ERRORED) {
+            ctx.channel().close();
+        }
+        // Otherwise the codec has ended the response, and the stream closes once the client has finished sending.
+        // If it never does, the idle timeout closes it.
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        HttpExchange exchange = this.exchange;
+        if (evt instanceof IdleStateEvent) {
+            if (exchange != null) {
+                exchange.onIdleTimeout(ctx, (IdleStateEvent) evt);
+            } else {
+                ctx.channel().close();
+            }
+        } else if (evt instanceof MuExceptionFiredEvent) {
+            exceptionCaught(ctx, ((MuExceptionFiredEvent) evt).error);
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        HttpExchange exchange = this.exchange;
+        if (exchange == null || exchange.onException(ctx, cause)) {
+            ctx.channel().close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.muserver;
+
+import io.netty.buffer.ByteBuf;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Creates and validates the QUIC retry tokens that prove a client can receive packets sent to the address it claims
+ * to be sending from, so that spoofed addresses cannot be used to make the server send data to someone else.
+ * <p>A token is the time it was created, an HMAC of that time with the client's address and the connection ID, and
+ * then the connection ID itself. The HMAC key is random and only known to this server, so tokens cannot be forged,
+ * and they are only accepted from the address they were issued to for a short time.</p>
+ * <p>This has the same methods as the codec's <code>QuicTokenHandler</code> interface, which is implemented with a
+ * proxy as the codec is loaded reflectively.</p>
+ */
+class Http3TokenHandler implements InvocationHandler {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int TIMESTAMP_LENGTH = 8;
+    private static final int MAC_LENGTH = 32;
+    /**
+     * The same as <code>Quic.MAX_CONN_ID_LEN</code>
+     */
+    private static final int MAX_CONN_ID_LENGTH = 20;
+    /**
+     * A retry token is sent back by the client straight away, so this only needs to allow for a slow round trip
+     */
+    static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final SecretKeySpec key;
+    private final LongSupplier clock;
+    private final long maxAgeNanos;
+
+    Http3TokenHandler() {
+        this(newSecret(), System::nanoTime, MAX_AGE_NANOS);
+    }
+
+    Http3TokenHandler(byte[] secret, LongSupplier clock, long maxAgeNanos) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.clock = clock;
+        this.maxAgeNanos = maxAgeNanos;
+    }
+
+    private static byte[] newSecret() {
+        byte[] secret = new byte[MAC_LENGTH];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+    /**
+     * @param tokenHandlerInterface The codec's <code>QuicTokenHandler</code> interface
+     * @return An implementation of the interface that uses this handler
+     */
+    Object asQuicTokenHandler(Class<?> tokenHandlerInterface) {
+        return Proxy.newProxyInstance(tokenHandlerInterface.getClassLoader(), new Class<?>[]{tokenHandlerInterface}, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "writeToken":
+                return writeToken((ByteBuf) args[0], (ByteBuf) args[1], (InetSocketAddress) args[2]);
+            case "validateToken":
+                return validateToken((ByteBuf) args[0], (InetSocketAddress) args[1]);
+            case "maxTokenLength":
+                return maxTokenLength();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "Http3TokenHandler";
+            default:
+                throw new UnsupportedOperationException(method.toString());
+        }
+    }
+
+    boolean writeToken(ByteBuf out, ByteBuf dcid, InetSocketAddress address) {
+        long timestamp = clock.getAsLong();
+        out.writeLong(timestamp);
+        out.writeBytes(mac(timestamp, address, dcid, dcid.readerIndex(), dcid.readableBytes()));
+        out.writeBytes(dcid, dcid.readerIndex(), dcid.readableBytes());
+        return true;
+    }
+
+    /**
+     * @return The index of the connection ID in the token, or <code>-1</code> if the token is not valid
+     */
+    int validateToken(ByteBuf token, InetSocketAddress address) {
+        int start = token.readerIndex();
+        int dcidIndex = start + TIMESTAMP_LENGTH + MAC_LENGTH;
+        int dcidLength = token.writerIndex() - dcidIndex;
+        if (dcidLength < 0 || dcidLength > MAX_CONN_ID_LENGTH) {
+            return -1;
+        }
+        long timestamp = token.getLong(start);
+        long age = clock.getAsLong() - timestamp;
+        if (age < 0 || age > maxAgeNanos) {
+            return -1;
+        }
+        byte[] expected = mac(timestamp, address, token, dcidIndex, dcidLength);
+        byte[] actual = new byte[MAC_LENGTH];
+        token.getBytes(start + TIMESTAMP_LENGTH, actual);
+        return MessageDigest.isEqual(expected, actual) ? dcidIndex : -1;
+    }
+
+    int maxTokenLength() {
+        return TIMESTAMP_LENGTH + MAC_LENGTH + MAX_CONN_ID_LENGTH;
+    }
+
+    private byte[] mac(long timestamp, InetSocketAddress address, ByteBuf dcid, int dcidIndex, int dcidLength) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            for (int i = 56; i >= 0; i -= 8) {
+                mac.update((byte) (timestamp >>> i));
+            }
+            mac.update(address.getAddress().getAddress());
+            mac.update((byte) (address.getPort() >>> 8));
+            mac.update((byte) address.getPort());
+            byte[] dcidBytes = new byte[dcidLength];
+            dcid.getBytes(dcidIndex, dcidBytes);
+            mac.update(dcidBytes);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new MuException("Could not create a QUIC retry token", e);
+        }
+    }
+}
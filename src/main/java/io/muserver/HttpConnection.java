@@ -4,6 +4,7 @@ import org.jspecify.annotations.Nullable;
 
 import java.net.InetSocketAddress;
 import java.security.cert.Certificate;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
@@ -108,4 +109,48 @@ public interface HttpConnection {
      */
     Optional<String> sniHostName();
 
+    /**
+     * Gets the smoothed round trip time between the server and the client.
+     * <p>This is only available when enabled with {@link MuServerBuilder#withRttMeasurement(long, java.util.concurrent.TimeUnit)}.
+     * HTTP2 connections measure it with PING frames. HTTP1 connections report the value measured by the kernel,
+     * which is only available when using the {@link Transport#EPOLL} transport.</p>
+     * @return The smoothed round trip time, or {@link Optional#empty()} if it has not been measured
+     */
+    Optional<Duration> smoothedRtt();
+
+    /**
+     * Gets the variation in the round trip time between the server and the client.
+     * <p>This is measured along with {@link #smoothedRtt()}, and a large value relative to it indicates an
+     * unstable network path.</p>
+     * @return The round trip time variance, or {@link Optional#empty()} if it has not been measured
+     */
+    Optional<Duration> rttVariance();
+
+    /**
+     * Gets the number of requests that have been received on this connection but are waiting to be given to the
+     * handlers.
+     * <p>HTTP2 requests are queued on their connection when the connection has reached the limit set with
+     * {@link Http2ConfigBuilder#withMaxConcurrentHandlers(int)}, or while waiting for a free handler thread when
+     * {@link Http2ConfigBuilder#withDeferredDispatch(boolean)} is enabled. HTTP1 requests are given to the handlers
+     * as soon as they are read, so this is always 0 for HTTP1 connections.</p>
+     * @return The number of queued requests
+     */
+    int queuedRequests();
+
+    /**
+     * Gracefully closes this connection so that the client makes a new connection, which may be to a different
+     * server, for any further requests. Requests in progress are allowed to complete.
+     * <p>An HTTP1 connection is closed straight away if no request is in progress, otherwise the response gets a
+     * <code>Connection: close</code> header (if it has not started yet) and the connection is closed once the
+     * response is complete. On HTTP2 a <code>GOAWAY</code> frame is sent so that the client stops opening new
+     * streams, followed by a second <code>GOAWAY</code> with the ID of the last stream that will be handled once
+     * the client has had a round trip to take notice of the first, and the connection is closed when the streams in
+     * progress have completed.</p>
+     * <p>Connections being used for websockets are not affected. This method returns straight away and may be
+     * called from any thread.</p>
+     * @see MuServerBuilder#withMaxRequestsPerConnection(long)
+     * @see MuServerBuilder#withMaxConnectionAge(long, java.util.concurrent.TimeUnit)
+     */
+    void drain();
+
 }
@@ -9,6 +9,7 @@ import io.netty.handler.codec.http.*;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.PlatformDependent;
 import jakarta.ws.rs.InternalServerErrorException;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.WebApplicationException;
@@ -55,6 +56,16 @@ class HttpExchange implements ResponseInfo, Exchange {
     private volatile HttpExchangeState state = HttpExchangeState.IN_PROGRESS;
     private final List<HttpExchangeStateChangeListener> listeners = new CopyOnWriteArrayList<>();
     private @Nullable ScheduledFuture<?> readTimer;
+    /**
+     * Only one chunk of the request body is read at a time, so the chunk being read is held here rather than in
+     * callbacks created for each chunk
+     */
+    private final DoneCallback bodyReadDone = this::onBodyReadDone;
+    private final Runnable afterBodyRead = this::afterBodyRead;
+    private @Nullable ByteBuf currentBody;
+    private boolean currentBodyIsLast;
+    private @Nullable DoneCallback currentBodyCallback;
+    private @Nullable Throwable currentBodyError;
 
     boolean inLoop() {
         return ctx.executor().inEventLoop();
@@ -62,38 +73,70 @@ class HttpExchange implements ResponseInfo, Exchange {
 
     void block(Runnable runnable) {
         // TODO: only use the callable version as this perhaps doesn't block until the runnable is finished? (e.g. when doing a write)
-        assert !inLoop() : "Should not be blocking on the event loop";
-        io.netty.util.concurrent.Future<?> task = ctx.executor().submit(runnable);
-        try {
-            task.get();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new UncheckedIOException(new InterruptedIOException("Interrupted while writing"));
-        } catch (ExecutionException e) {
-            Throwable cause = requireNonNull(e.getCause(), "ExecutionException had no cause");
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            } else {
-                throw new MuException("Error while writing response", cause);
+        throwIfInLoop();
+        CompletionLatch latch = new CompletionLatch();
+        ctx.executor().execute(() -> {
+            try {
+                runnable.run();
+                latch.complete(null);
+            } catch (Throwable e) {
+                latch.complete(new ExecutionException(e));
             }
+        });
+        Throwable error = await(latch);
+        if (error != null) {
+            throwTaskError((ExecutionException) error);
         }
     }
 
     void block(Callable<ChannelFuture> callable) {
-        assert !inLoop() : "Should not be blocking on the event loop";
-        io.netty.util.concurrent.Future<ChannelFuture> task = ctx.executor().submit(callable);
+        throwIfInLoop();
+        // The latch is completed when the returned future completes, rather than waiting for the task and then
+        // separately for its future, so the blocked thread is only woken up once.
+        CompletionLatch latch = new CompletionLatch();
+        ctx.executor().execute(() -> {
+            try {
+                callable.call().addListener(f -> latch.complete(f.cause()));
+            } catch (Throwable e) {
+                latch.complete(new ExecutionException(e));
+            }
+        });
+        Throwable error = await(latch);
+        if (error instanceof ExecutionException) {
+            throwTaskError((ExecutionException) error);
+        } else if (error != null) {
+            // the write failed, which is thrown as-is like ChannelFuture.sync() does
+            PlatformDependent.throwException(error);
+        }
+    }
+
+    /**
+     * Blocking on the event loop would stop all its connections from being processed, and if waiting for the
+     * event loop itself, would never return. This can happen when a {@link NonBlockingMuHandler} calls a
+     * blocking method.
+     */
+    void throwIfInLoop() {
+        if (inLoop()) {
+            throw new IllegalStateException("Blocking methods cannot be called from an IO thread, for example from a " +
+                "NonBlockingMuHandler. Use request.handleAsync() to read the request body or write the response asynchronously.");
+        }
+    }
+
+    private static @Nullable Throwable await(CompletionLatch latch) {
         try {
-            task.get().sync();
+            return latch.await();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new UncheckedIOException(new InterruptedIOException("Interrupted while writing"));
-        } catch (ExecutionException e) {
-            Throwable cause = requireNonNull(e.getCause(), "ExecutionException had no cause");
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            } else {
-                throw new MuException("Error while writing response", cause);
-            }
+        }
+    }
+
+    private static void throwTaskError(ExecutionException e) {
+        Throwable cause = requireNonNull(e.getCause(), "ExecutionException had no cause");
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else {
+            throw new MuException("Error while writing response", cause);
         }
     }
 
@@ -189,48 +232,70 @@ class HttpExchange implements ResponseInfo, Exchange {
         if (!(msg instanceof HttpContent)) {
             throw new UnexpectedMessageException(this, msg);
         }
-        cancelReadTimeout();
-        HttpContent content = (HttpContent) msg;
-        ByteBuf byteBuf = content.content().retain();
-        boolean last = msg instanceof LastHttpContent;
+        onBody(((HttpContent) msg).content(), msg instanceof LastHttpContent, doneCallback);
+    }
 
-        DoneCallback onDone = error -> {
-            byteBuf.release();
-            try {
-                Runnable cleanup = () -> {
-                    boolean requestInProgress = !request.requestState().endState();
-                    if (error == null) {
-                        if (requestInProgress) {
-                            if (last) {
-                                request.setState(RequestState.COMPLETE);
-                            } else {
-                                scheduleReadTimeout();
-                            }
-                        }
-                    } else if (requestInProgress) {
-                        request.onCancelled(ResponseState.ERRORED, error);
-                    }
-                };
-                if (ctx.executor().inEventLoop()) {
-                    cleanup.run();
-                } else {
-                    ctx.executor().execute(cleanup);
-                }
-            } finally {
-                doneCallback.onComplete(error);
-            }
-        };
+    /**
+     * Passes a chunk of the request body to the request. The callback is called once it has been read, and the next
+     * chunk must not be passed on before then.
+     */
+    void onBody(ByteBuf content, boolean last, DoneCallback doneCallback) {
+        cancelReadTimeout();
+        currentBody = content.retain();
+        currentBodyIsLast = last;
+        currentBodyCallback = doneCallback;
         try {
-            request.onRequestBodyRead(byteBuf, last, onDone);
+            request.onRequestBodyRead(content, last, bodyReadDone);
         } catch (Exception e) {
             try {
-                onDone.onComplete(e);
+                bodyReadDone.onComplete(e);
             } catch (Exception exception) {
                 log.error("Unhandled callback error", exception);
             }
         }
     }
 
+    private void onBodyReadDone(@Nullable Throwable error) throws Exception {
+        ByteBuf body = currentBody;
+        DoneCallback doneCallback = currentBodyCallback;
+        if (body == null || doneCallback == null) {
+            return;
+        }
+        currentBody = null;
+        currentBodyCallback = null;
+        body.release();
+        try {
+            currentBodyError = error;
+            if (ctx.executor().inEventLoop()) {
+                afterBodyRead();
+            } else {
+                ctx.executor().execute(afterBodyRead);
+            }
+        } finally {
+            doneCallback.onComplete(error);
+        }
+    }
+
+    /**
+     * Runs on the event loop after a chunk has been read, which is before the next chunk can be received
+     */
+    private void afterBodyRead() {
+        Throwable error = currentBodyError;
+        currentBodyError = null;
+        boolean requestInProgress = !request.requestState().endState();
+        if (error == null) {
+            if (requestInProgress) {
+                if (currentBodyIsLast) {
+                    request.setState(RequestState.COMPLETE);
+                } else {
+                    scheduleReadTimeout();
+                }
+            }
+        } else if (requestInProgress) {
+            request.onCancelled(ResponseState.ERRORED, error);
+        }
+    }
+
     void scheduleReadTimeout() {
         cancelReadTimeout();
         long delay = connection.server().requestIdleTimeoutMillis();
@@ -267,22 +332,27 @@ class HttpExchange implements ResponseInfo, Exchange {
         return state;
     }
 
-    static HttpExchange create(MuServerImpl server, String proto, ChannelHandlerContext ctx, Http1Connection connection,
+    static HttpExchange create(MuServerImpl server, String proto, ChannelHandlerContext ctx, HttpConnection connection,
                                HttpRequest nettyRequest, NettyHandlerAdapter nettyHandlerAdapter, MuStatsImpl connectionStats,
-                               RequestStateChangeListener requestStateChangeListener, HttpExchangeStateChangeListener stateChangeListener) throws InvalidHttpRequestException, RedirectException {
+                               RequestStateChangeListener requestStateChangeListener, HttpExchangeStateChangeListener stateChangeListener,
+                               boolean holdResponse, boolean closeConnection) throws InvalidHttpRequestException, RedirectException {
         ServerSettings settings = server.settings();
         throwIfInvalid(settings, ctx, nettyRequest);
 
         Method method = getMethod(nettyRequest.method());
         Http1Headers headers = new Http1Headers(nettyRequest.headers());
 
-        String relativeUri = getRelativeUrl(nettyRequest.uri());
+        RequestTarget target = RequestTarget.parse(nettyRequest.uri());
+        String host = requireNonNull(headers.get(HeaderNames.HOST), "Validated HTTP/1 request had no Host header");
+        RequestTarget.validateHost(host);
 
-        NettyRequestAdapter muRequest = new NettyRequestAdapter(ctx, nettyRequest, headers, method,
-            proto, relativeUri, requireNonNull(headers.get(HeaderNames.HOST), "Validated HTTP/1 request had no Host header"));
+        NettyRequestAdapter muRequest = new NettyRequestAdapter(ctx, nettyRequest, headers, method, proto, target, host);
 
         MuStatsImpl serverStats = server.stats;
-        Http1Response muResponse = new Http1Response(ctx, muRequest, new Http1Headers());
+        Http1Response muResponse = new Http1Response(ctx, muRequest, new Http1Headers(), holdResponse, closeConnection);
+        if (settings.altSvc != null) {
+            muResponse.headers().set(HeaderNames.ALT_SVC, settings.altSvc);
+        }
 
         HttpExchange httpExchange = new HttpExchange(connection, ctx, muRequest, muResponse, -1);
         muRequest.setExchange(httpExchange);
@@ -301,36 +371,14 @@ class HttpExchange implements ResponseInfo, Exchange {
         } catch (RejectedExecutionException e) {
             serverStats.onRequestEnded(httpExchange.request);
             connectionStats.onRequestEnded(httpExchange.request);
-            log.warn("Could not service " + muRequest + " because the thread pool is full so sending a 503");
-            throw new InvalidHttpRequestException(503, "503 Service Unavailable");
-        }
-        return httpExchange;
-    }
-
-    static String getRelativeUrl(String nettyUri) throws InvalidHttpRequestException, RedirectException {
-        try {
-            URI requestUri = new URI(nettyUri).normalize();
-            if (requestUri.getScheme() == null && requestUri.getHost() != null) {
-                throw new RedirectException(new URI(nettyUri.substring(1)).normalize());
-            }
-
-            String s = requestUri.getRawPath();
-            if (Mutils.nullOrEmpty(s)) {
-                s = "/";
+            if (e instanceof ConcurrencyLimiter.LimitExceededException) {
+                log.debug("Shedding " + muRequest + " because the concurrency limit has been reached so sending a 503");
             } else {
-                s = Mutils.decodeUnreserved(s);
-            }
-            String q = requestUri.getRawQuery();
-            if (q != null) {
-                s += "?" + q;
+                log.warn("Could not service " + muRequest + " because the thread pool is full so sending a 503");
             }
-            return s;
-        } catch (RedirectException re) {
-            throw re;
-        } catch (Exception e) {
-            if (log.isDebugEnabled()) log.debug("Invalid request URL " + nettyUri);
-            throw new InvalidHttpRequestException(400, "400 Bad Request");
+            throw new InvalidHttpRequestException(503, "503 Service Unavailable");
         }
+        return httpExchange;
     }
 
     static Method getMethod(HttpMethod nettyMethod) throws InvalidHttpRequestException {
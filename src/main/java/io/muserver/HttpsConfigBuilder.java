@@ -334,44 +334,7 @@ public class HttpsConfigBuilder {
         if (sslContext != null) {
             return new JdkSslContext(sslContext, false, null, cipherFilter, ApplicationProtocolConfig.DISABLED, clientAuthSetting, getHttpsProtocolsArray(), false);
         } else if (keystoreBytes != null) {
-            ByteArrayInputStream keystoreStream = new ByteArrayInputStream(keystoreBytes);
-            KeyManagerFactory kmf;
-            String defaultAliasToUse = this.defaultAlias;
-            Map<String, String> sanToAliasMap = new HashMap<>();
-            try {
-                KeyStore ks = KeyStore.getInstance(keystoreType);
-                ks.load(keystoreStream, keystorePassword);
-                if (defaultAliasToUse == null) {
-                    Enumeration<String> aliases = ks.aliases();
-                    while (aliases.hasMoreElements() && defaultAliasToUse == null) {
-                        String al = aliases.nextElement();
-                        if (ks.isKeyEntry(al)) {
-                            defaultAliasToUse = al;
-                        }
-                    }
-                }
-                kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-                kmf.init(ks, keyPassword);
-                sanToAliasMap.putAll(buildSanToAliasMap(ks));
-                log.debug("keystore san to alias mapping: {}", sanToAliasMap);
-            } finally {
-                try {
-                    keystoreStream.close();
-                } catch (IOException e) {
-                    log.info("Error while closing keystore stream: " + e.getMessage());
-                }
-            }
-
-            X509ExtendedKeyManager x509KeyManager = null;
-            for (KeyManager keyManager : kmf.getKeyManagers()) {
-                if (keyManager instanceof X509ExtendedKeyManager) {
-                    x509KeyManager = (X509ExtendedKeyManager) keyManager;
-                }
-            }
-            if (x509KeyManager == null)
-                throw new Exception("KeyManagerFactory did not create an X509ExtendedKeyManager");
-            SniKeyManager sniKeyManager = new SniKeyManager(x509KeyManager, defaultAliasToUse, sanToAliasMap);
-            builder = SslContextBuilder.forServer(sniKeyManager);
+            builder = SslContextBuilder.forServer(keystoreKeyManager(keystoreBytes));
         } else if (keyManagerFactory != null) {
             builder = SslContextBuilder.forServer(keyManagerFactory);
         } else {
@@ -398,6 +361,79 @@ public class HttpsConfigBuilder {
             .build();
     }
 
+    /**
+     * Loads the keys from the keystore, choosing the certificate for each connection from its SNI hostname
+     */
+    private X509ExtendedKeyManager keystoreKeyManager(byte[] keystoreBytes) throws Exception {
+        ByteArrayInputStream keystoreStream = new ByteArrayInputStream(keystoreBytes);
+        KeyManagerFactory kmf;
+        String defaultAliasToUse = this.defaultAlias;
+        Map<String, String> sanToAliasMap = new HashMap<>();
+        try {
+            KeyStore ks = KeyStore.getInstance(keystoreType);
+            ks.load(keystoreStream, keystorePassword);
+            if (defaultAliasToUse == null) {
+                Enumeration<String> aliases = ks.aliases();
+                while (aliases.hasMoreElements() && defaultAliasToUse == null) {
+                    String al = aliases.nextElement();
+                    if (ks.isKeyEntry(al)) {
+                        defaultAliasToUse = al;
+                    }
+                }
+            }
+            kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            kmf.init(ks, keyPassword);
+            sanToAliasMap.putAll(buildSanToAliasMap(ks));
+            log.debug("keystore san to alias mapping: {}", sanToAliasMap);
+        } finally {
+            try {
+                keystoreStream.close();
+            } catch (IOException e) {
+                log.info("Error while closing keystore stream: " + e.getMessage());
+            }
+        }
+
+        X509ExtendedKeyManager x509KeyManager = null;
+        for (KeyManager keyManager : kmf.getKeyManagers()) {
+            if (keyManager instanceof X509ExtendedKeyManager) {
+                x509KeyManager = (X509ExtendedKeyManager) keyManager;
+            }
+        }
+        if (x509KeyManager == null)
+            throw new Exception("KeyManagerFactory did not create an X509ExtendedKeyManager");
+        return new SniKeyManager(x509KeyManager, defaultAliasToUse, sanToAliasMap);
+    }
+
+    /**
+     * Gets the keys for HTTP/3, which does its own TLS rather than using an {@link SslContext}
+     * @return The key manager, or <code>null</code> if this was created with an {@link SSLContext}, which does not
+     * expose its keys
+     */
+    @Nullable KeyManager toKeyManager() throws Exception {
+        if (sslContext != null) {
+            return null;
+        } else if (keystoreBytes != null) {
+            return keystoreKeyManager(keystoreBytes);
+        } else if (keyManagerFactory != null) {
+            for (KeyManager keyManager : keyManagerFactory.getKeyManagers()) {
+                if (keyManager instanceof X509KeyManager) {
+                    return keyManager;
+                }
+            }
+            return null;
+        } else {
+            throw new IllegalStateException("No SSL info");
+        }
+    }
+
+    /**
+     * @return Whether clients are asked for a certificate
+     */
+    ClientAuth nettyClientAuth() {
+        validateClientCertificateAuthentication();
+        return toNettyClientAuth(effectiveClientCertificateAuthentication());
+    }
+
     private ClientCertificateAuthentication effectiveClientCertificateAuthentication() {
         ClientCertificateAuthentication authentication = clientCertificateAuthentication;
         if (authentication != null) {
@@ -3,7 +3,9 @@ package io.muserver;
 import io.muserver.rest.MuRuntimeDelegate;
 import jakarta.ws.rs.core.MediaType;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.muserver.Mutils.notNull;
 
@@ -15,6 +17,26 @@ public class MediaTypeParser {
         MuRuntimeDelegate.ensureSet();
     }
 
+    /**
+     * Parsed forms of the content types that most requests use, in the ways clients commonly write them. Media
+     * types are immutable, so the same instances are handed out every time. This is a fixed set so that values
+     * sent by clients can never make it grow.
+     */
+    private static final Map<String, MediaType> COMMON = new HashMap<>();
+
+    static {
+        String[] types = {"application/json", "application/x-www-form-urlencoded", "application/octet-stream",
+            "application/xml", "application/javascript", "text/plain", "text/html", "text/xml", "text/css",
+            "text/csv", "text/event-stream", "application/problem+json", "application/x-ndjson"};
+        String[] charsets = {"", ";charset=utf-8", ";charset=UTF-8", "; charset=utf-8", "; charset=UTF-8"};
+        for (String type : types) {
+            for (String charset : charsets) {
+                String value = type + charset;
+                COMMON.put(value, parse(value));
+            }
+        }
+    }
+
     /**
      * Converts a string such as "text/plain" into a MediaType object.
      * @param value The value to parse
@@ -24,6 +46,11 @@ public class MediaTypeParser {
         if (value == null) {
             throw new NullPointerException("value");
         }
+        MediaType common = COMMON.get(value);
+        return common != null ? common : parse(value);
+    }
+
+    private static MediaType parse(String value) {
         List<ParameterizedHeaderWithValue> headerValues = ParameterizedHeaderWithValue.fromString(value);
         if (headerValues.isEmpty()) {
             throw new IllegalArgumentException("The value '" + value + "' did not contain a valid header value");
@@ -108,6 +108,22 @@ public interface MuRequest {
      */
     @Nullable UploadedFile uploadedFile(String name) throws IOException;
 
+    /**
+     * <p>Reads a <code>multipart/form-data</code> request body one part at a time, as it is received.</p>
+     * <p>Unlike {@link #form()} and {@link #uploadedFiles(String)}, which wait for the whole body and store every
+     * file first, this lets each part be validated, rejected or streamed to its destination as it arrives, so memory
+     * use does not depend on the size of the upload. The limits are set with
+     * {@link MuServerBuilder#withMultipartConfig(MultipartConfigBuilder)}.</p>
+     * <p>The returned reader should be closed. Like {@link #inputStream()}, this can only be used once and cannot be
+     * used with the other methods that read the body.</p>
+     *
+     * @return A reader of the parts of the body, which has no parts if there is no request body
+     * @throws IOException If the body could not be read
+     * @throws jakarta.ws.rs.ClientErrorException If the request body is not <code>multipart/form-data</code>
+     * @see AsyncHandle#setFormPartListener(FormPartListener) for reading parts asynchronously
+     */
+    FormPartReader formPartReader() throws IOException;
+
     /**
      * <p>Gets query parameters decoded with {@code application/x-www-form-urlencoded} compatibility.
      * Both {@code +} and {@code %20} are decoded to a space; use {@link #uri()}{@code .getRawQuery()} for the raw query.</p>
@@ -120,4 +120,30 @@ public interface MuResponse {
      * @return The current state of this response
      */
     ResponseState responseState();
+
+    /**
+     * Sets the scheduling priority of this response, relative to other responses on the same HTTP2 connection,
+     * using the <a href="https://www.rfc-editor.org/rfc/rfc9218">RFC 9218</a> urgency and incremental parameters.
+     * <p>This overrides any priority requested by the client, and can be changed at any time, for example to lower
+     * the priority of a large download once it has started. It has no effect on HTTP1 connections.</p>
+     * <p>How the priority is applied depends on {@link Http2ConfigBuilder#withStreamScheduling(Http2StreamScheduling)}.</p>
+     * @param urgency The urgency, from <code>0</code> (most urgent) to <code>7</code> (least urgent). The default is <code>3</code>.
+     * @param incremental <code>true</code> if the client can usefully process the response as it arrives, so it can
+     *                    share the connection with other responses of the same urgency; otherwise <code>false</code>.
+     * @throws IllegalArgumentException if the urgency is out of range
+     */
+    void priority(int urgency, boolean incremental);
+
+    /**
+     * Sends a <code>103 Early Hints</code> informational response, which lets clients start loading resources the
+     * final response will need while the response is still being prepared.
+     * <p>For example, a handler for an HTML page may send a <code>Link: &lt;/style.css&gt;; rel=preload; as=style</code>
+     * header before doing the work to generate the page.</p>
+     * <p>This may be called any number of times before the response is started, from the handler thread or from
+     * any other thread when handling requests asynchronously. It does not wait for the hints to be sent. The hints
+     * are not sent to HTTP/1.0 clients, which do not support informational responses.</p>
+     * @param hints The headers to send, which are not included in the final response unless also added to {@link #headers()}
+     * @throws IllegalStateException if the response has already started
+     */
+    void sendEarlyHints(Headers hints);
 }
@@ -26,8 +26,9 @@ public interface MuServer {
 
     /**
      * Gracefully shuts down the server with a timeout. During the graceful shutdown period, the server will stop
-     * accepting new connections and wait for in-flight requests to complete. When timeout is reached and there
-     * are still in-flight requests, all the http connections will be aborted, no exception will be thrown.
+     * accepting new connections, drain the existing connections as described in {@link HttpConnection#drain()}, and
+     * wait for them to close. When timeout is reached and there are still in-flight requests, all the http
+     * connections will be aborted, no exception will be thrown.
      *
      * <p>
      * This is a blocking call and will not return until the server is fully stopped or the timeout is reached.
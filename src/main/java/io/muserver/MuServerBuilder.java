@@ -3,26 +3,31 @@ package io.muserver;
 import io.muserver.handlers.ResourceType;
 import io.muserver.rest.MuRuntimeDelegate;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.codec.haproxy.HAProxyMessageDecoder;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseEncoder;
 import io.netty.handler.codec.http.HttpServerKeepAliveHandler;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.handler.traffic.GlobalTrafficShapingHandler;
 import io.netty.util.DomainWildcardMappingBuilder;
 import io.netty.util.HashedWheelTimer;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -31,6 +36,7 @@ import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -52,6 +58,7 @@ public class MuServerBuilder {
     private long minimumGzipSize = 1400;
     private int httpPort = -1;
     private int httpsPort = -1;
+    private int http3Port = -1;
     private int maxHeadersSize = 8192;
     private int maxUrlSize = 8192 - LENGTH_OF_METHOD_AND_PROTOCOL;
     private int nioThreads = DEFAULT_NIO_THREADS;
@@ -64,8 +71,15 @@ public class MuServerBuilder {
     private @Nullable Http2Config http2Config;
     private long requestReadTimeoutMillis = TimeUnit.MINUTES.toMillis(2);
     private long idleTimeoutMills = TimeUnit.MINUTES.toMillis(10);
+    private long rttMeasurementIntervalMillis = 0;
+    private long maxRequestsPerConnection = 0;
+    private long maxConnectionAgeMillis = 0;
     private @Nullable ExecutorService executor;
+    private boolean virtualThreads = false;
+    private boolean eventLoopAffineHandlers = false;
+    private @Nullable ConcurrencyLimitConfig concurrencyLimit;
     private long maxRequestSize = 24 * 1024 * 1024;
+    private MultipartConfig multipartConfig = MultipartConfigBuilder.multipartConfig().build();
     private @Nullable List<ResponseCompleteListener> responseCompleteListeners;
     private @Nullable List<RequestRejectListener> requestRejectListeners;
     private @Nullable HashedWheelTimer wheelTimer;
@@ -73,8 +87,20 @@ public class MuServerBuilder {
     private WriteBufferWaterMark writeBufferWaterMark = WriteBufferWaterMark.DEFAULT;
     private @Nullable UnhandledExceptionHandler unhandledExceptionHandler;
     private boolean haProxyProtocolEnabled = false;
+    private Transport transport = Transport.NIO;
+    private boolean reusePort = false;
+    private int flushConsolidation = 0;
+    private int http1PipeliningDepth = 1;
+    private @Nullable String altSvc;
+    private SocketConfig socketConfig = SocketConfigBuilder.socketConfig().build();
+    private @Nullable Path unixSocket;
 
     /**
+     * <p>Listens for plaintext HTTP connections on the given port.</p>
+     * <p>If HTTP2 is enabled with {@link #withHttp2Config(Http2ConfigBuilder)} then clients may also use cleartext
+     * HTTP2 on this port, either with prior knowledge or by upgrading an HTTP1 request with <code>Upgrade: h2c</code>.
+     * This is useful when TLS is terminated by a load balancer, as it lets a single connection from the load balancer
+     * carry many concurrent requests.</p>
      * @param port The HTTP port to use. A value of 0 will have a random port assigned; a value of -1 will
      *             result in no HTTP connector.
      * @return The current Mu Server Builder
@@ -161,6 +187,48 @@ public class MuServerBuilder {
         return this;
     }
 
+    /**
+     * <p>Serves HTTP/3 over QUIC on the given UDP port, which is typically the same number as the HTTPS port.</p>
+     * <p>Clients first connect over HTTPS and learn about HTTP/3 from the <code>Alt-Svc</code> response header, so
+     * an HTTPS port is required. Unless {@link #withAltSvc(String)} is set, the header is added to every HTTP1 and
+     * HTTP2 response with the bound UDP port, for example <code>h3=":443"; ma=86400</code>. The certificate is the
+     * one from {@link #withHttpsConfig(HttpsConfigBuilder)}, which must be created from a keystore or a
+     * <code>KeyManagerFactory</code>.</p>
+     * <p>This needs Netty's HTTP/3 codec and the native QUIC library for the platform on the classpath:
+     * <code>io.netty:netty-codec-http3</code> for Netty 4.2, or
+     * <code>io.netty.incubator:netty-incubator-codec-http3</code> for Netty 4.1. If it is not available, a warning
+     * is logged and the server starts without HTTP/3.</p>
+     * <p>Each QUIC connection is an {@link HttpConnection} with the protocol <code>HTTP/3</code>, which is drained
+     * with a <code>GOAWAY</code> frame in the same way as an HTTP2 connection.</p>
+     *
+     * @param port A value of 0 will result in a random port being assigned; a value of -1 (the default) will
+     *             disable HTTP/3.
+     * @return The current Mu Server builder
+     */
+    public MuServerBuilder withHttp3Port(int port) {
+        this.http3Port = port;
+        return this;
+    }
+
+    /**
+     * <p>Listens for plaintext HTTP connections on a unix domain socket at the given path, in addition to the
+     * HTTP and HTTPS ports.</p>
+     * <p>This is useful when the server only receives requests from a local reverse proxy or sidecar, as it avoids
+     * the overhead of the TCP loopback stack. If HTTP2 is enabled with {@link #withHttp2Config(Http2ConfigBuilder)}
+     * then clients may also use cleartext HTTP2 on this socket, as they can on the HTTP port.</p>
+     * <p>This requires the {@link Transport#EPOLL} transport (see {@link #withTransport(Transport)}). Any existing
+     * socket file at the path is replaced, and the file is deleted when the server stops. As domain socket connections
+     * have no client IP address, {@link HttpConnection#remoteAddress()} returns the loopback address with port 0, unless
+     * {@link #withHAProxyProtocolEnabled(boolean)} is used to receive the original client's address from the proxy.</p>
+     *
+     * @param path The path of the socket file, or <code>null</code> to not listen on a unix domain socket
+     * @return The current Mu Server builder
+     */
+    public MuServerBuilder withUnixSocket(@Nullable Path path) {
+        this.unixSocket = path;
+        return this;
+    }
+
     /**
      * Sets the configuration for HTTP2
      *
@@ -196,6 +264,70 @@ public class MuServerBuilder {
         return this;
     }
 
+    /**
+     * <p>Runs each request handler on its own virtual thread, rather than on a bounded pool of platform threads.</p>
+     * <p>With the default executor, requests are rejected with a <code>503</code> once 400 handlers are running
+     * concurrently. Virtual threads are cheap enough to have one per request, so handlers that block (for example
+     * on a database or downstream HTTP call) do not limit the number of concurrent requests.</p>
+     * <p>Virtual threads require Java 21 or later. On older versions a warning is logged and the default executor
+     * is used. This setting is ignored if an executor is set with {@link #withHandlerExecutor(ExecutorService)}.</p>
+     *
+     * @param virtualThreads <code>true</code> to run handlers on virtual threads. The default is <code>false</code>.
+     * @return The current Mu Server builder
+     */
+    public MuServerBuilder withVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * <p>Gives each NIO thread its own pool of handler threads, rather than all NIO threads sharing one pool.</p>
+     * <p>A request is handled by a thread from the pool of the NIO thread that reads its connection, and the
+     * response is written back through that same NIO thread. So each connection's work stays within a small group
+     * of threads, rather than moving between every handler thread and NIO thread on the server. This reduces
+     * contention on the handler pool and can improve CPU cache locality on servers with many cores, especially
+     * when the number of NIO threads is set to the number of cores with {@link #withNioThreads(int)}.</p>
+     * <p>Each pool gets an even share of the default limit of 400 handler threads. When a pool has no idle thread,
+     * its requests run on a shared overflow pool instead, so a busy connection can use the whole limit and requests are
+     * only rejected with a <code>503</code> once 400 handlers are running across all the pools. This setting is ignored if an executor is
+     * set with {@link #withHandlerExecutor(ExecutorService)} or if virtual threads are used.</p>
+     *
+     * @param eventLoopAffineHandlers <code>true</code> to use a handler pool per NIO thread. The default is <code>false</code>.
+     * @return The current Mu Server builder
+     */
+    public MuServerBuilder withEventLoopAffineHandlers(boolean eventLoopAffineHandlers) {
+        this.eventLoopAffineHandlers = eventLoopAffineHandlers;
+        return this;
+    }
+
+    /**
+     * <p>Enables an adaptive limit on the number of requests that are handled concurrently.</p>
+     * <p>Without a limit, requests are given to the handler executor until it rejects them, so under overload
+     * every request slows down as they compete for threads and downstream resources. With a limit, the server
+     * measures request latencies and lowers the limit when they rise, rejecting the excess requests with a
+     * <code>503</code> before they reach a handler thread. Rejected requests are reported to any
+     * {@link RequestRejectListener} and counted in {@link MuStats#rejectedDueToOverload()}.</p>
+     *
+     * @param concurrencyLimit The limit settings, or <code>null</code> to not limit concurrency (the default)
+     * @return The current Mu Server builder
+     * @see ConcurrencyLimitConfigBuilder
+     */
+    public MuServerBuilder withConcurrencyLimit(@Nullable ConcurrencyLimitConfig concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+        return this;
+    }
+
+    /**
+     * <p>Enables an adaptive limit on the number of requests that are handled concurrently.</p>
+     *
+     * @param concurrencyLimit The limit settings, or <code>null</code> to not limit concurrency (the default)
+     * @return The current Mu Server builder
+     * @see #withConcurrencyLimit(ConcurrencyLimitConfig)
+     */
+    public MuServerBuilder withConcurrencyLimit(@Nullable ConcurrencyLimitConfigBuilder concurrencyLimit) {
+        return withConcurrencyLimit(concurrencyLimit == null ? null : concurrencyLimit.build());
+    }
+
     /**
      * <p>The number of nio threads to handle requests.</p>
      * <p>Generally only a small number is required as NIO threads are only used for non-blocking
@@ -211,6 +343,134 @@ public class MuServerBuilder {
         return this;
     }
 
+    /**
+     * <p>Specifies the Netty transport used for network I/O by the acceptor and NIO worker threads.</p>
+     * <p>The default is {@link Transport#NIO}. Use {@link Transport#AUTO} to use the native epoll transport when
+     * it is on the classpath and supported by the current platform. If a native transport is explicitly
+     * requested but is not available then a warning is logged and NIO is used.</p>
+     *
+     * @param transport The transport to use
+     * @return The current Mu Server builder
+     * @see #withNioThreads(int)
+     */
+    public MuServerBuilder withTransport(Transport transport) {
+        Mutils.notNull("transport", transport);
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * <p>Enables multiple acceptors per port using the <code>SO_REUSEPORT</code> socket option.</p>
+     * <p>By default, a single thread accepts all new connections for each port. When enabled, one listening
+     * socket per NIO thread is bound to each port and the kernel spreads new connections across them, so
+     * that accepting connections scales across cores during connection storms. Each connection is then handled
+     * by the same NIO thread that accepted it.</p>
+     * <p>This requires Linux, which load-balances <code>SO_REUSEPORT</code> sockets with the NIO, epoll and io_uring
+     * transports. On other platforms, such as macOS and the BSDs, the option does not spread connections across the
+     * sockets, so a warning is logged and a single acceptor is used. Accept counts for
+     * each acceptor are available from {@link MuStats#acceptedConnections()}.</p>
+     *
+     * @param reusePort <code>true</code> to bind one listening socket per NIO thread. The default is <code>false</code>.
+     * @return The current Mu Server builder
+     * @see #withNioThreads(int)
+     * @see #withTransport(Transport)
+     */
+    public MuServerBuilder withReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+        return this;
+    }
+
+    /**
+     * <p>Sets the socket options and buffer allocation strategies used for the listening sockets and client connections.</p>
+     * <p>The defaults are suitable for most applications. These can be tuned for the expected workload, for example
+     * by using larger read buffers for servers receiving large uploads.</p>
+     *
+     * @param socketConfig The socket config
+     * @return The current Mu Server builder
+     * @see SocketConfigBuilder
+     */
+    public MuServerBuilder withSocketConfig(SocketConfig socketConfig) {
+        Mutils.notNull("socketConfig", socketConfig);
+        this.socketConfig = socketConfig;
+        return this;
+    }
+
+    /**
+     * <p>Sets the socket options and buffer allocation strategies used for the listening sockets and client connections.</p>
+     *
+     * @param socketConfig The socket config
+     * @return The current Mu Server builder
+     * @see SocketConfigBuilder
+     */
+    public MuServerBuilder withSocketConfig(SocketConfigBuilder socketConfig) {
+        Mutils.notNull("socketConfig", socketConfig);
+        return withSocketConfig(socketConfig.build());
+    }
+
+    /**
+     * <p>Combines the flushes of responses written at around the same time into fewer writes to the socket.</p>
+     * <p>By default, every chunk of every response is flushed to the socket as soon as it is written, which is one
+     * system call each. When enabled, a flush made while a connection is being read from is delayed until the read
+     * completes, and a flush made at other times is delayed until the IO thread has run its other pending tasks,
+     * so that all the responses written in the meantime are sent together. This greatly reduces the number of
+     * system calls for HTTP2 connections carrying many small concurrent responses, and for pipelined HTTP1
+     * requests. As the delayed flush does not wait for a timer, a single response is still sent straight away.</p>
+     *
+     * @param maxFlushesPerBatch The number of flushes after which data is sent without waiting, or <code>0</code>
+     *                           to disable flush consolidation (the default). A value such as 256 is reasonable.
+     * @return The current Mu Server builder
+     */
+    public MuServerBuilder withFlushConsolidation(int maxFlushesPerBatch) {
+        if (maxFlushesPerBatch < 0) {
+            throw new IllegalArgumentException("maxFlushesPerBatch cannot be negative");
+        }
+        this.flushConsolidation = maxFlushesPerBatch;
+        return this;
+    }
+
+    /**
+     * <p>Sets how many pipelined requests on an HTTP/1.1 connection can be handled at the same time.</p>
+     * <p>HTTP/1.1 clients may send several requests on a connection without waiting for each response. By default
+     * these requests are read and handled one at a time, so each waits for the full response to the request
+     * before it. With a depth greater than 1, once a request has been fully received the next request is read and
+     * passed to the handlers straight away, up to the given number of requests at once. Responses are always sent
+     * in the order the requests were received: a response to a later request is held in memory until the
+     * responses before it have been sent, and handlers writing a large response wait for those writes.</p>
+     * <p>Requests that upgrade the connection, such as websockets, are only handled once all earlier requests on
+     * the connection have completed. This setting has no effect on HTTP2, which multiplexes requests.</p>
+     *
+     * @param depth The maximum number of requests on a connection to handle at once. The default is 1.
+     * @return The current Mu Server builder
+     */
+    public MuServerBuilder withHttp1PipeliningDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("The pipelining depth must be at least 1");
+        }
+        this.http1PipeliningDepth = depth;
+        return this;
+    }
+
+    /**
+     * <p>Adds an <code>Alt-Svc</code> header to every HTTP1 and HTTP2 response, which tells clients that the same
+     * site is available over another protocol or at another address.</p>
+     * <p>This is typically used to advertise HTTP/3, for example <code>h3=":443"; ma=86400</code>. When
+     * {@link #withHttp3Port(int)} is used the header is added automatically, so this is only needed when QUIC is
+     * handled by a load balancer or proxy in front of this server. Clients that support the advertised protocol
+     * switch to it for later requests, which avoids TCP head-of-line blocking on lossy networks.</p>
+     * <p>A handler may override the header by setting or removing it on the response.</p>
+     *
+     * @param altSvc The value of the header, or <code>null</code> to not add one, or to advertise the HTTP/3 port
+     *               when one is set (the default)
+     * @return The current Mu Server builder
+     */
+    public MuServerBuilder withAltSvc(@Nullable String altSvc) {
+        if (altSvc != null && (altSvc.trim().isEmpty() || altSvc.indexOf('\r') >= 0 || altSvc.indexOf('\n') >= 0)) {
+            throw new IllegalArgumentException("The alt-svc value must be a non-empty single line");
+        }
+        this.altSvc = altSvc;
+        return this;
+    }
+
     /**
      * <p>Specifies the maximum size in bytes of the HTTP request headers. Defaults to 8192.</p>
      * <p>If a request has headers exceeding this value, it will be rejected and a <code>431</code>
@@ -250,6 +510,32 @@ public class MuServerBuilder {
         return this;
     }
 
+    /**
+     * Sets how <code>multipart/form-data</code> request bodies are read, such as when parts are written to disk and
+     * the limits on each part.
+     *
+     * @param multipartConfig A config
+     * @return The current Mu Server builder
+     * @see MultipartConfigBuilder
+     */
+    public MuServerBuilder withMultipartConfig(MultipartConfig multipartConfig) {
+        Mutils.notNull("multipartConfig", multipartConfig);
+        this.multipartConfig = multipartConfig;
+        return this;
+    }
+
+    /**
+     * Sets how <code>multipart/form-data</code> request bodies are read, such as when parts are written to disk and
+     * the limits on each part.
+     *
+     * @param multipartConfig A config
+     * @return The current Mu Server builder
+     * @see MultipartConfigBuilder
+     */
+    public MuServerBuilder withMultipartConfig(MultipartConfigBuilder multipartConfig) {
+        return withMultipartConfig(multipartConfig.build());
+    }
+
     /**
      * Sets the idle timeout for connections. If no bytes are sent or received within this time then
      * the connection is closed.
@@ -289,6 +575,69 @@ public class MuServerBuilder {
         return this;
     }
 
+    /**
+     * Periodically measures the round trip time of each connection, which is then available from
+     * {@link HttpConnection#smoothedRtt()} and aggregated in {@link MuStats#rttHistogram()}.
+     * <p>On HTTP2 connections a PING frame is sent when the connection starts, and then once per interval while
+     * the connection has requests in progress. This also detects clients that have gone away without closing the
+     * connection: if a PING is not acknowledged within 3 intervals then the connection is closed. As PINGs are not
+     * sent on idle connections, this does not stop the idle timeout from closing them.</p>
+     * <p>On HTTP1 connections the round trip time measured by the kernel is read once per interval. This is only
+     * available with the {@link Transport#EPOLL} transport, and no values are reported for HTTP1 connections with
+     * other transports.</p>
+     *
+     * @param interval The time between measurements, or 0 to disable measurement (the default).
+     * @param unit     The unit of the interval.
+     * @return This builder
+     */
+    public MuServerBuilder withRttMeasurement(long interval, TimeUnit unit) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("The interval must be 0 or greater");
+        }
+        Mutils.notNull("unit", unit);
+        this.rttMeasurementIntervalMillis = unit.toMillis(interval);
+        return this;
+    }
+
+    /**
+     * Limits the number of requests on each connection, after which the connection is drained as described in
+     * {@link HttpConnection#drain()}.
+     * <p>Clients reuse connections for as long as they can, so without a limit a client stays on whichever server
+     * it first connected to. This makes clients reconnect from time to time so that a load balancer can spread them
+     * over servers that were started after they connected.</p>
+     *
+     * @param maxRequests The maximum number of requests per connection, or 0 for no limit (the default).
+     * @return This builder
+     * @see #withMaxConnectionAge(long, TimeUnit)
+     */
+    public MuServerBuilder withMaxRequestsPerConnection(long maxRequests) {
+        if (maxRequests < 0) {
+            throw new IllegalArgumentException("The maximum number of requests must be 0 or greater");
+        }
+        this.maxRequestsPerConnection = maxRequests;
+        return this;
+    }
+
+    /**
+     * Limits how long each connection is used for, after which the connection is drained as described in
+     * {@link HttpConnection#drain()}.
+     * <p>The age of each connection is randomly reduced by up to 10% so that connections opened at the same time,
+     * for example after a server restarts, do not all reconnect at the same time.</p>
+     *
+     * @param duration The maximum connection age, or 0 for no limit (the default).
+     * @param unit     The unit of the duration.
+     * @return This builder
+     * @see #withMaxRequestsPerConnection(long)
+     */
+    public MuServerBuilder withMaxConnectionAge(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("The duration must be 0 or greater");
+        }
+        Mutils.notNull("unit", unit);
+        this.maxConnectionAgeMillis = unit.toMillis(duration);
+        return this;
+    }
+
 
     /**
      * <p>Adds a request handler.</p>
@@ -342,6 +691,29 @@ public class MuServerBuilder {
         return addHandler(Routes.route(method, uriTemplate, handler));
     }
 
+    /**
+     * <p>Registers a new non-blocking handler that will only be called if it matches the given route info.</p>
+     * <p>Rather than being passed to the handler executor, the handler is called directly on the IO thread that
+     * read the request, which is faster for handlers that return quickly or that use {@link MuRequest#handleAsync()}.
+     * The handler must not block, and is only run on the IO thread if all handlers added before it are also
+     * non-blocking. See {@link NonBlockingMuHandler} for details.</p>
+     *
+     * @param method      The method to match, or <code>null</code> to accept any method.
+     * @param uriTemplate A URL template. Supports plain URLs like <code>/abc</code> or paths
+     *                    with named parameters such as <code>/abc/{id}</code> or named parameters
+     *                    with regexes such as <code>/abc/{id : [0-9]+}</code> where the named
+     *                    parameter values can be accessed with the <code>pathParams</code>
+     *                    parameter in the route handler.
+     * @param handler     The handler to invoke if the method and URI matches. If null, then no handler is added.
+     * @return Returns the server builder
+     */
+    public MuServerBuilder addNonBlockingHandler(@Nullable Method method, String uriTemplate, @Nullable RouteHandler handler) {
+        if (handler == null) {
+            return this;
+        }
+        return addHandler(Routes.nonBlockingRoute(method, uriTemplate, handler));
+    }
+
     /**
      * Adds a listener that is notified when each response completes
      *
@@ -466,6 +838,13 @@ public class MuServerBuilder {
         return httpsPort;
     }
 
+    /**
+     * @return The current value of this property
+     */
+    public int http3Port() {
+        return http3Port;
+    }
+
     /**
      * @return The current value of this property
      */
@@ -487,6 +866,55 @@ public class MuServerBuilder {
         return nioThreads;
     }
 
+    /**
+     * @return The current value of this property
+     */
+    public Transport transport() {
+        return transport;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public boolean reusePort() {
+        return reusePort;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public SocketConfig socketConfig() {
+        return socketConfig;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int flushConsolidation() {
+        return flushConsolidation;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int http1PipeliningDepth() {
+        return http1PipeliningDepth;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public @Nullable String altSvc() {
+        return altSvc;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public @Nullable Path unixSocket() {
+        return unixSocket;
+    }
+
     /**
      * @return The current value of this property
      */
@@ -536,6 +964,13 @@ public class MuServerBuilder {
         return http2Config;
     }
 
+    /**
+     * @return The current value of this property
+     */
+    public MultipartConfig multipartConfig() {
+        return multipartConfig;
+    }
+
     /**
      * @return The current value of this property
      */
@@ -550,6 +985,27 @@ public class MuServerBuilder {
         return idleTimeoutMills;
     }
 
+    /**
+     * @return The time between round trip time measurements in milliseconds, or 0 if they are disabled
+     */
+    public long rttMeasurementIntervalMillis() {
+        return rttMeasurementIntervalMillis;
+    }
+
+    /**
+     * @return The maximum number of requests per connection, or 0 if there is no limit
+     */
+    public long maxRequestsPerConnection() {
+        return maxRequestsPerConnection;
+    }
+
+    /**
+     * @return The maximum connection age in milliseconds, or 0 if there is no limit
+     */
+    public long maxConnectionAgeMillis() {
+        return maxConnectionAgeMillis;
+    }
+
     /**
      * @return The current value of this property
      */
@@ -557,6 +1013,27 @@ public class MuServerBuilder {
         return executor;
     }
 
+    /**
+     * @return The current value of this property
+     */
+    public boolean virtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public boolean eventLoopAffineHandlers() {
+        return eventLoopAffineHandlers;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public @Nullable ConcurrencyLimitConfig concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
     /**
      * @return The current value of this property
      */
@@ -651,24 +1128,81 @@ public class MuServerBuilder {
         if (httpPort < 0 && httpsPort < 0) {
             throw new IllegalArgumentException("No ports were configured. Please call MuServerBuilder.withHttpPort(int) or MuServerBuilder.withHttpsPort(int)");
         }
-
-        ServerSettings settings = new ServerSettings(minimumGzipSize, maxHeadersSize, requestReadTimeoutMillis, maxRequestSize, maxUrlSize, gzipEnabled, mimeTypesToGzip, rateLimiters);
+        if (http3Port >= 0 && httpsPort < 0) {
+            throw new IllegalArgumentException("HTTP/3 needs an HTTPS port, as clients find it from the Alt-Svc header of HTTPS responses. Please call MuServerBuilder.withHttpsPort(int)");
+        }
 
         ExecutorService handlerExecutor = this.executor;
-        if (handlerExecutor == null) {
+        if (virtualThreads) {
+            if (handlerExecutor != null) {
+                log.warn("Virtual threads will not be used because a handler executor was specified");
+            } else {
+                handlerExecutor = VirtualThreads.newThreadPerTaskExecutor("muhandler-");
+                if (handlerExecutor == null) {
+                    log.warn("Virtual threads are not supported by this JVM so a platform thread pool will be used");
+                }
+            }
+        }
+        if (eventLoopAffineHandlers && handlerExecutor != null) {
+            log.warn("Event loop affine handler pools will not be used because " + (this.executor != null ? "a handler executor was specified" : "virtual threads are used"));
+        }
+        if (handlerExecutor == null && !eventLoopAffineHandlers) {
             DefaultThreadFactory threadFactory = new DefaultThreadFactory("muhandler");
             handlerExecutor = new ThreadPoolExecutor(8, 400, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
         }
-        NettyHandlerAdapter nettyHandlerAdapter = new NettyHandlerAdapter(handlerExecutor, handlers, responseCompleteListeners, requestRejectListeners);
+        NettyTransport nettyTransport = NettyTransport.create(transport);
+        log.debug("Using the " + nettyTransport + " transport");
+        boolean multipleAcceptors = reusePort && nettyTransport.supportsReusePort();
+        if (reusePort && !multipleAcceptors) {
+            log.warn("SO_REUSEPORT does not load-balance connections with the " + nettyTransport + " transport on "
+                + System.getProperty("os.name") + " so a single acceptor will be used. Multiple acceptors need Linux.");
+        }
+        if (unixSocket != null && nettyTransport.serverDomainSocketChannelClass() == null) {
+            throw new MuException("Unix domain sockets are not supported by the " + nettyTransport + " transport. Use withTransport(Transport.EPOLL) on Linux.");
+        }
+        Http3Listener http3Listener = http3Port >= 0 ? Http3Listener.createIfAvailable() : null;
+        ChannelOptions channelOptions = new ChannelOptions(nettyTransport, socketConfig, writeBufferWaterMark);
+        EventLoopGroup bossGroup = multipleAcceptors ? null : nettyTransport.newEventLoopGroup(1);
+        EventLoopGroup workerGroup = nettyTransport.newEventLoopGroup(this.nioThreads);
+
+        if (handlerExecutor == null) {
+            // the pools are created after the worker group as they are matched to its event loops
+            handlerExecutor = new EventLoopAffineExecutor(workerGroup, 8, 400);
+        }
+        ConcurrencyLimiter concurrencyLimiter = concurrencyLimit == null ? null : new ConcurrencyLimiter(concurrencyLimit);
+        NettyHandlerAdapter nettyHandlerAdapter = new NettyHandlerAdapter(handlerExecutor, handlers, responseCompleteListeners, requestRejectListeners, concurrencyLimiter);
 
-        NioEventLoopGroup bossGroup = new NioEventLoopGroup(1);
-        NioEventLoopGroup workerGroup = new NioEventLoopGroup(this.nioThreads);
         List<Channel> channels = new ArrayList<>();
+        // QUIC connections end when their UDP socket is closed, so these are closed after the connections are drained
+        List<Channel> http3Channels = new ArrayList<>();
+        String altSvcToUse = altSvc;
+        if (http3Listener != null) {
+            // bound before the settings are created so that the alt-svc header can have the port that was bound
+            try {
+                Channel http3Channel = http3Listener.bind(workerGroup, nettyTransport.datagramChannelClass(), host, http3Port);
+                http3Channels.add(http3Channel);
+            } catch (Exception ex) {
+                if (bossGroup != null) {
+                    bossGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+                }
+                workerGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+                handlerExecutor.shutdown();
+                if (ex instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new MuException("Error while starting server", ex);
+            }
+            if (altSvcToUse == null) {
+                altSvcToUse = Http3Listener.altSvc(((InetSocketAddress) http3Channels.get(0).localAddress()).getPort());
+            }
+        }
+        ServerSettings settings = new ServerSettings(minimumGzipSize, maxHeadersSize, requestReadTimeoutMillis, maxRequestSize, maxUrlSize, gzipEnabled, mimeTypesToGzip, rateLimiters, flushConsolidation, http1PipeliningDepth, altSvcToUse, rttMeasurementIntervalMillis, maxRequestsPerConnection, maxConnectionAgeMillis, multipartConfig);
 
         GlobalTrafficShapingHandler trafficShapingHandler = new GlobalTrafficShapingHandler(workerGroup, 0, 0, 1000);
         MuStatsImpl stats = new MuStatsImpl(trafficShapingHandler.trafficCounter());
 
         ExecutorService finalHandlerExecutor = handlerExecutor;
+        MuServerImpl server = new MuServerImpl(stats, http2Config, settings, unhandledExceptionHandler);
         Function<Duration, Boolean> shutdown = (gracefulDuration) -> {
             try {
                 if (wheelTimer != null) {
@@ -678,9 +1212,14 @@ public class MuServerBuilder {
                     channel.close().sync();
                 }
 
-                bossGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+                if (bossGroup != null) {
+                    bossGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+                }
 
-                boolean hasInFlightRequests = gracefulWait(gracefulDuration, stats);
+                boolean hasInFlightRequests = drainConnections(server, gracefulDuration, stats);
+                for (Channel channel : http3Channels) {
+                    channel.close().sync();
+                }
                 if (hasInFlightRequests) {
                     log.info("Shutting down worker threads. Active requests: {}", stats.activeRequests());
                 }
@@ -705,27 +1244,35 @@ public class MuServerBuilder {
             SslContextProvider sslContextProvider = null;
 
             boolean http2Enabled = http2Config != null && http2Config.enabled;
-            MuServerImpl server = new MuServerImpl(stats, http2Config, settings, unhandledExceptionHandler);
 
-            Channel httpChannel = httpPort < 0 ? null : createChannel(bossGroup, workerGroup, nettyHandlerAdapter, host, httpPort, null, trafficShapingHandler, server, false, idleTimeoutMills, writeBufferWaterMark, haProxyProtocolEnabled);
-            Channel httpsChannel;
-            if (httpsPort < 0) {
-                httpsChannel = null;
-            } else {
-                HttpsConfigBuilder toUse = this.sslContextBuilder != null ? this.sslContextBuilder : HttpsConfigBuilder.unsignedLocalhost();
-                SslContext nettySslContext = toUse.toNettySslContext(http2Enabled);
+            if (http3Listener != null) {
+                http3Listener.serve(http3Channels.get(0), httpsConfigToUse(), server, nettyHandlerAdapter, idleTimeoutMills);
+            }
+
+            Channel httpChannel = null;
+            if (httpPort >= 0) {
+                List<Channel> httpChannels = createChannels(channelOptions, bossGroup, workerGroup, nettyHandlerAdapter, host, httpPort, null, trafficShapingHandler, server, http2Enabled, idleTimeoutMills, haProxyProtocolEnabled);
+                channels.addAll(httpChannels);
+                httpChannel = httpChannels.get(0);
+            }
+            Channel httpsChannel = null;
+            if (httpsPort >= 0) {
+                SslContext nettySslContext = httpsConfigToUse().toNettySslContext(http2Enabled);
                 log.debug("SSL Context is " + nettySslContext);
                 sslContextProvider = new SslContextProvider(nettySslContext);
-                httpsChannel = createChannel(bossGroup, workerGroup, nettyHandlerAdapter, host, httpsPort, sslContextProvider, trafficShapingHandler, server, http2Enabled, idleTimeoutMills, writeBufferWaterMark, haProxyProtocolEnabled);
+                List<Channel> httpsChannels = createChannels(channelOptions, bossGroup, workerGroup, nettyHandlerAdapter, host, httpsPort, sslContextProvider, trafficShapingHandler, server, http2Enabled, idleTimeoutMills, haProxyProtocolEnabled);
+                channels.addAll(httpsChannels);
+                httpsChannel = httpsChannels.get(0);
+            }
+            if (unixSocket != null) {
+                channels.add(createUnixSocketChannel(channelOptions, bossGroup, workerGroup, nettyHandlerAdapter, unixSocket, trafficShapingHandler, server, http2Enabled, idleTimeoutMills, haProxyProtocolEnabled));
             }
             URI uri = null;
             if (httpChannel != null) {
-                channels.add(httpChannel);
                 uri = getUriFromChannel(httpChannel, "http", host);
             }
             URI httpsUri = null;
             if (httpsChannel != null) {
-                channels.add(httpsChannel);
                 httpsUri = getUriFromChannel(httpsChannel, "https", host);
                 ((SSLInfoImpl) Objects.requireNonNull(sslContextProvider).sslInfo()).setHttpsUri(httpsUri);
             }
@@ -748,18 +1295,37 @@ public class MuServerBuilder {
 
     }
 
+    private HttpsConfigBuilder httpsConfigToUse() {
+        return this.sslContextBuilder != null ? this.sslContextBuilder : HttpsConfigBuilder.unsignedLocalhost();
+    }
+
     @SuppressWarnings("ReturnValueIgnored")
     private static void shutDownAfterStartupFailure(Function<Duration, Boolean> shutdown) {
         // There is no caller to observe the clean-shutdown result because server startup has already failed.
         shutdown.apply(Duration.ofMillis(0));
     }
 
-    private boolean gracefulWait(Duration gracefulDuration, MuStatsImpl stats) throws InterruptedException {
-        long endTime = System.currentTimeMillis() + gracefulDuration.toMillis();
-        while (!stats.activeRequests().isEmpty() && System.currentTimeMillis() < endTime) {
-            Thread.sleep(100);
+    /**
+     * Drains every connection and waits for them to close, or for the graceful duration to pass
+     * @return <code>true</code> if there are requests that are still in progress
+     */
+    private static boolean drainConnections(MuServerImpl server, Duration gracefulDuration, MuStatsImpl stats) throws InterruptedException {
+        if (gracefulDuration.isZero()) {
+            return !stats.activeRequests().isEmpty();
+        }
+        long endTime = System.nanoTime() + gracefulDuration.toNanos();
+        List<io.netty.util.concurrent.Future<Void>> closures = new ArrayList<>();
+        for (HttpConnection connection : server.activeConnections()) {
+            closures.add(((DrainableConnection) connection).startDraining());
         }
-        return !stats.activeRequests().isEmpty();
+        for (io.netty.util.concurrent.Future<Void> closure : closures) {
+            long remaining = endTime - System.nanoTime();
+            if (remaining <= 0 || !closure.await(remaining, TimeUnit.NANOSECONDS)) {
+                break;
+            }
+        }
+        // a request may be recorded as ended just after its connection closes
+        return !stats.awaitNoActiveRequests(endTime - System.nanoTime());
     }
 
     private static URI getUriFromChannel(Channel httpChannel, String protocol, @Nullable String host) {
@@ -768,51 +1334,186 @@ public class MuServerBuilder {
         return URI.create(protocol + "://" + host.toLowerCase(Locale.ROOT) + ":" + a.getPort());
     }
 
-    private static Channel createChannel(NioEventLoopGroup bossGroup, NioEventLoopGroup workerGroup,
+    /**
+     * Binds the listening sockets for a port. When <code>bossGroup</code> is null, a socket is bound with
+     * <code>SO_REUSEPORT</code> for each worker event loop, and that event loop is used for both accepting and
+     * handling its connections.
+     */
+    private static List<Channel> createChannels(ChannelOptions channelOptions, @Nullable EventLoopGroup bossGroup, EventLoopGroup workerGroup,
                                          NettyHandlerAdapter nettyHandlerAdapter, @Nullable String host, int port,
                                          @Nullable SslContextProvider sslContextProvider,
                                          GlobalTrafficShapingHandler trafficShapingHandler, MuServerImpl server,
                                          final boolean http2, long idleTimeoutMills,
-                                         WriteBufferWaterMark writeBufferWaterMark,
                                          boolean haProxyProtocolEnabled) throws InterruptedException {
         boolean usesSsl = sslContextProvider != null;
         String proto = usesSsl ? "https" : "http";
-        ServerBootstrap b = new ServerBootstrap();
-        b.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark);
-        b.group(bossGroup, workerGroup)
-            .channel(NioServerSocketChannel.class)
-            .childHandler(new ChannelInitializer<SocketChannel>() {
-
-                @Override
-                protected void initChannel(SocketChannel socketChannel) {
-                    ChannelPipeline p = socketChannel.pipeline();
-                    p.addLast("idle", new IdleStateHandler(0, 0, idleTimeoutMills, TimeUnit.MILLISECONDS));
-                    p.addLast(trafficShapingHandler);
-                    if (haProxyProtocolEnabled) {
-                        p.addLast("HAProxyMessageDecoder", new HAProxyMessageDecoder());
-                        p.addLast("HAProxyMessageHandler", new HAProxyMessageHandler());
-                    }
-                    if (usesSsl) {
-                        p.addLast("sni", new MuSniHandler(() -> new DomainWildcardMappingBuilder<>(Objects.requireNonNull(sslContextProvider).get()).build()));
+        ChannelHandler childHandler = createChildHandler(nettyHandlerAdapter, sslContextProvider, trafficShapingHandler, server, http2, idleTimeoutMills, haProxyProtocolEnabled);
+
+        List<Channel> bound = new ArrayList<>();
+        if (bossGroup != null) {
+            ServerBootstrap b = createBootstrap(channelOptions, bossGroup, workerGroup, childHandler, server.stats.registerAcceptor(proto + "-0"), false);
+            bound.add(bind(b, host, port));
+        } else {
+            int portToBind = port;
+            for (EventExecutor executor : workerGroup) {
+                EventLoop eventLoop = (EventLoop) executor;
+                ServerBootstrap b = createBootstrap(channelOptions, eventLoop, eventLoop, childHandler, server.stats.registerAcceptor(proto + "-" + bound.size()), false);
+                channelOptions.transport.enableReusePort(b);
+                try {
+                    Channel channel = bind(b, host, portToBind);
+                    bound.add(channel);
+                    portToBind = ((InetSocketAddress) channel.localAddress()).getPort();
+                } catch (InterruptedException | RuntimeException e) {
+                    for (Channel channel : bound) {
+                        channel.close();
                     }
-                    boolean addAlpn = http2 && usesSsl;
-                    if (addAlpn) {
-                        p.addLast(BackPressureHandler.NAME, new BackPressureHandler());
-                        p.addLast("alpn", new AlpnHandler(nettyHandlerAdapter, server, proto));
-                    }
-                    p.addLast("conerror", new ChannelInboundHandlerAdapter() {
-                        @Override
-                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-                            server.stats.onFailedToConnect();
-                        }
-                    });
-                    if (!addAlpn) {
-                        setupHttp1Pipeline(p, nettyHandlerAdapter, server, proto);
+                    throw e;
+                }
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Creates the initializer for the pipeline of each accepted connection. Cleartext HTTP2 is accepted when
+     * <code>http2</code> is true on a listener without TLS, either with prior knowledge or, once the HTTP1 pipeline
+     * is set up, by an upgrade request (see {@link Http2CleartextUpgrade}).
+     */
+    private static ChannelInitializer<Channel> createChildHandler(NettyHandlerAdapter nettyHandlerAdapter,
+                                                                  @Nullable SslContextProvider sslContextProvider,
+                                                                  GlobalTrafficShapingHandler trafficShapingHandler, MuServerImpl server,
+                                                                  boolean http2, long idleTimeoutMills, boolean haProxyProtocolEnabled) {
+        boolean usesSsl = sslContextProvider != null;
+        String proto = usesSsl ? "https" : "http";
+        return new ChannelInitializer<Channel>() {
+
+            @Override
+            protected void initChannel(Channel socketChannel) {
+                ChannelPipeline p = socketChannel.pipeline();
+                p.addLast("idle", new IdleStateHandler(0, 0, idleTimeoutMills, TimeUnit.MILLISECONDS));
+                p.addLast(trafficShapingHandler);
+                if (haProxyProtocolEnabled) {
+                    p.addLast("HAProxyMessageDecoder", new HAProxyMessageDecoder());
+                    p.addLast("HAProxyMessageHandler", new HAProxyMessageHandler());
+                }
+                if (usesSsl) {
+                    p.addLast("sni", new MuSniHandler(() -> new DomainWildcardMappingBuilder<>(Objects.requireNonNull(sslContextProvider).get()).build()));
+                }
+                int flushConsolidation = server.settings().flushConsolidation;
+                if (flushConsolidation > 0) {
+                    // after TLS so that consolidated flushes are also encrypted together
+                    p.addLast("flushConsolidation", new FlushConsolidationHandler(flushConsolidation, true));
+                }
+                boolean addAlpn = http2 && usesSsl;
+                boolean detectPriorKnowledge = http2 && !usesSsl;
+                if (addAlpn) {
+                    p.addLast(BackPressureHandler.NAME, new BackPressureHandler());
+                    p.addLast("alpn", new AlpnHandler(nettyHandlerAdapter, server, proto));
+                } else if (detectPriorKnowledge) {
+                    p.addLast(BackPressureHandler.NAME, new BackPressureHandler());
+                    p.addLast("h2priorknowledge", new Http2PriorKnowledgeHandler(nettyHandlerAdapter, server, proto));
+                }
+                p.addLast("conerror", new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        server.stats.onFailedToConnect();
                     }
+                });
+                if (!addAlpn && !detectPriorKnowledge) {
+                    setupHttp1Pipeline(p, nettyHandlerAdapter, server, proto);
+                }
+            }
+        };
+    }
+
+    private static Channel createUnixSocketChannel(ChannelOptions channelOptions, @Nullable EventLoopGroup bossGroup, EventLoopGroup workerGroup,
+                                                   NettyHandlerAdapter nettyHandlerAdapter, Path path,
+                                                   GlobalTrafficShapingHandler trafficShapingHandler, MuServerImpl server,
+                                                   boolean http2, long idleTimeoutMills, boolean haProxyProtocolEnabled) throws InterruptedException, IOException {
+        if (Files.exists(path, LinkOption.NOFOLLOW_LINKS) && !Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            Files.delete(path); // a stale socket from a previous run
+        }
+        ChannelHandler childHandler = createChildHandler(nettyHandlerAdapter, null, trafficShapingHandler, server, http2, idleTimeoutMills, haProxyProtocolEnabled);
+        ServerBootstrap b = createBootstrap(channelOptions, bossGroup == null ? workerGroup : bossGroup, workerGroup,
+            childHandler, server.stats.registerAcceptor("unix-0"), true);
+        return b.bind(new DomainSocketAddress(path.toFile())).sync().channel();
+    }
+
+    private static ServerBootstrap createBootstrap(ChannelOptions channelOptions, EventLoopGroup parentGroup, EventLoopGroup childGroup,
+                                                   ChannelHandler childHandler, AtomicLong acceptCounter, boolean domainSocket) {
+        ServerBootstrap b = new ServerBootstrap();
+        if (domainSocket) {
+            channelOptions.applyToDomainSocket(b);
+            b.channel(Objects.requireNonNull(channelOptions.transport.serverDomainSocketChannelClass()));
+        } else {
+            channelOptions.apply(b);
+            b.channel(channelOptions.transport.serverChannelClass());
+        }
+        return b.group(parentGroup, childGroup)
+            .handler(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    acceptCounter.incrementAndGet();
+                    ctx.fireChannelRead(msg);
                 }
+            })
+            .childHandler(childHandler);
+    }
+
+    /**
+     * The transport and options shared by every listening socket of a server. The allocators are created once
+     * so that all connections share the same buffer pools.
+     */
+    private static class ChannelOptions {
+        private final NettyTransport transport;
+        private final SocketConfig config;
+        private final WriteBufferWaterMark writeBufferWaterMark;
+        private final @Nullable ByteBufAllocator allocator;
+        private final @Nullable RecvByteBufAllocator readBufferAllocator;
+
+        private ChannelOptions(NettyTransport transport, SocketConfig config, WriteBufferWaterMark writeBufferWaterMark) {
+            this.transport = transport;
+            this.config = config;
+            this.writeBufferWaterMark = writeBufferWaterMark;
+            this.allocator = config.createAllocator();
+            this.readBufferAllocator = config.createReadBufferAllocator();
+            if (config.hasNativeOnlyOptions() && transport.type() == Transport.NIO) {
+                log.warn("TCP_FASTOPEN, TCP_DEFER_ACCEPT and TCP_QUICKACK are not supported by the NIO transport so will be ignored");
+            }
+        }
 
+        void apply(ServerBootstrap b) {
+            applyToDomainSocket(b);
+            b.childOption(ChannelOption.TCP_NODELAY, config.tcpNoDelay);
+            if (config.backlog > 0) {
+                b.option(ChannelOption.SO_BACKLOG, config.backlog);
+            }
+            if (config.socketSendBufferSize > 0) {
+                b.childOption(ChannelOption.SO_SNDBUF, config.socketSendBufferSize);
+            }
+            if (config.socketReceiveBufferSize > 0) {
+                b.option(ChannelOption.SO_RCVBUF, config.socketReceiveBufferSize);
+                b.childOption(ChannelOption.SO_RCVBUF, config.socketReceiveBufferSize);
+            }
+            transport.applyNativeOptions(b, config);
+        }
+
+        /**
+         * Applies the options that are not specific to TCP sockets
+         */
+        void applyToDomainSocket(ServerBootstrap b) {
+            b.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, writeBufferWaterMark);
+            if (allocator != null) {
+                b.option(ChannelOption.ALLOCATOR, allocator);
+                b.childOption(ChannelOption.ALLOCATOR, allocator);
+            }
+            if (readBufferAllocator != null) {
+                b.childOption(ChannelOption.RCVBUF_ALLOCATOR, readBufferAllocator);
+            }
+        }
+    }
 
-            });
+    private static Channel bind(ServerBootstrap b, @Nullable String host, int port) throws InterruptedException {
         ChannelFuture bound = host == null ? b.bind(port) : b.bind(host, port);
         return bound.sync().channel();
     }
@@ -842,9 +1543,17 @@ public class MuServerBuilder {
             "minimumGzipSize=" + minimumGzipSize +
             ", httpPort=" + httpPort +
             ", httpsPort=" + httpsPort +
+            ", http3Port=" + http3Port +
             ", maxHeadersSize=" + maxHeadersSize +
             ", maxUrlSize=" + maxUrlSize +
             ", nioThreads=" + nioThreads +
+            ", transport=" + transport +
+            ", reusePort=" + reusePort +
+            ", socketConfig=" + socketConfig +
+            ", flushConsolidation=" + flushConsolidation +
+            ", http1PipeliningDepth=" + http1PipeliningDepth +
+            ", altSvc=" + altSvc +
+            ", unixSocket=" + unixSocket +
             ", handlers=" + handlers +
             ", gzipEnabled=" + gzipEnabled +
             ", mimeTypesToGzip=" + mimeTypesToGzip +
@@ -852,9 +1561,16 @@ public class MuServerBuilder {
             ", host='" + host + '\'' +
             ", sslContextBuilder=" + sslContextBuilder +
             ", http2Config=" + http2Config +
+            ", multipartConfig=" + multipartConfig +
             ", requestReadTimeoutMillis=" + requestReadTimeoutMillis +
             ", idleTimeoutMills=" + idleTimeoutMills +
+            ", rttMeasurementIntervalMillis=" + rttMeasurementIntervalMillis +
+            ", maxRequestsPerConnection=" + maxRequestsPerConnection +
+            ", maxConnectionAgeMillis=" + maxConnectionAgeMillis +
             ", executor=" + executor +
+            ", virtualThreads=" + virtualThreads +
+            ", eventLoopAffineHandlers=" + eventLoopAffineHandlers +
+            ", concurrencyLimit=" + concurrencyLimit +
             ", maxRequestSize=" + maxRequestSize +
             ", responseCompleteListeners=" + responseCompleteListeners +
             ", requestRejectListeners=" + requestRejectListeners +
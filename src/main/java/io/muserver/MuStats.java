@@ -1,5 +1,6 @@
 package io.muserver;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
@@ -53,4 +54,31 @@ public interface MuStats {
      * @return The requests that are currently in-flight
      */
     Set<MuRequest> activeRequests();
+
+    /**
+     * Gets the number of connections accepted by each listening socket.
+     * <p>The keys are the scheme followed by the acceptor index, for example <code>http-0</code> or
+     * <code>https-0</code>. There is a single acceptor per port unless {@link MuServerBuilder#withReusePort(boolean)}
+     * is enabled, in which case there is one per NIO thread. A listener added with
+     * {@link MuServerBuilder#withUnixSocket(java.nio.file.Path)} is named <code>unix-0</code>.</p>
+     * @return A readonly map of acceptor names to the number of connections each has accepted
+     */
+    Map<String, Long> acceptedConnections();
+
+    /**
+     * Gets a histogram of the smoothed round trip times of connections.
+     * <p>Round trip times are only measured when enabled with {@link MuServerBuilder#withRttMeasurement(long, java.util.concurrent.TimeUnit)},
+     * and each measurement of each connection is counted once. The keys are the exclusive upper bound of each bucket in
+     * milliseconds in ascending order, with the last bucket having a key of {@link Long#MAX_VALUE}.</p>
+     * @return A readonly map of bucket upper bounds in milliseconds to the number of measurements in that bucket
+     * @see HttpConnection#smoothedRtt()
+     */
+    Map<Long, Long> rttHistogram();
+
+    /**
+     * Gets a histogram of the round trip time variance of connections, in the same form as {@link #rttHistogram()}.
+     * @return A readonly map of bucket upper bounds in milliseconds to the number of measurements in that bucket
+     * @see HttpConnection#rttVariance()
+     */
+    Map<Long, Long> rttVarianceHistogram();
 }
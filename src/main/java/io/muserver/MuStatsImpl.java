@@ -6,9 +6,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static java.util.Objects.requireNonNull;
 
@@ -21,6 +27,12 @@ class MuStatsImpl implements MuStats {
     private final AtomicLong rejectedDueToOverload = new AtomicLong(0);
     private final AtomicLong failedToConnect = new AtomicLong(0);
     private final Set<MuRequest> activeRequests = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> acceptedConnections = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Histogram rttHistogram = new Histogram();
+    private final Histogram rttVarianceHistogram = new Histogram();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition idle = idleLock.newCondition();
+    private volatile int idleWaiters = 0;
 
     MuStatsImpl(@Nullable TrafficCounter trafficCounter) {
         this.trafficCounter = trafficCounter;
@@ -72,6 +84,38 @@ class MuStatsImpl implements MuStats {
     }
 
 
+    @Override
+    public Map<String, Long> acceptedConnections() {
+        Map<String, Long> copy = new LinkedHashMap<>();
+        synchronized (acceptedConnections) {
+            for (Map.Entry<String, AtomicLong> entry : acceptedConnections.entrySet()) {
+                copy.put(entry.getKey(), entry.getValue().get());
+            }
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public Map<Long, Long> rttHistogram() {
+        return rttHistogram.snapshot();
+    }
+
+    @Override
+    public Map<Long, Long> rttVarianceHistogram() {
+        return rttVarianceHistogram.snapshot();
+    }
+
+    void onRttMeasured(RttEstimator rtt) {
+        rttHistogram.record(rtt.smoothedNanos());
+        rttVarianceHistogram.record(rtt.varianceNanos());
+    }
+
+    AtomicLong registerAcceptor(String name) {
+        AtomicLong counter = new AtomicLong(0);
+        acceptedConnections.put(name, counter);
+        return counter;
+    }
+
     void onRequestStarted(MuRequest request) {
         activeRequests.add(request);
     }
@@ -80,11 +124,42 @@ class MuStatsImpl implements MuStats {
     void onRequestEnded(MuRequest request) {
         if (activeRequests.remove(request)) {
             completedRequests.incrementAndGet();
+            if (idleWaiters > 0 && activeRequests.isEmpty()) {
+                idleLock.lock();
+                try {
+                    idle.signalAll();
+                } finally {
+                    idleLock.unlock();
+                }
+            }
         } else {
             log.info("Asked to remove " + request + " but it wasn't active");
         }
     }
 
+    /**
+     * Waits until there are no active requests
+     * @param timeoutNanos The maximum time to wait
+     * @return <code>true</code> if there are no active requests, or <code>false</code> if the time ran out
+     */
+    boolean awaitNoActiveRequests(long timeoutNanos) throws InterruptedException {
+        idleLock.lock();
+        try {
+            idleWaiters++;
+            long remaining = timeoutNanos;
+            while (!activeRequests.isEmpty()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = idle.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            idleWaiters--;
+            idleLock.unlock();
+        }
+    }
+
     void onRejectedDueToOverload() {
         rejectedDueToOverload.incrementAndGet();
     }
@@ -106,6 +181,13 @@ class MuStatsImpl implements MuStats {
         totalConnections.incrementAndGet();
     }
 
+    /**
+     * Called when a connection is handed to a handler for another protocol, which counts it as opened again
+     */
+    void onConnectionUpgraded() {
+        activeConnections.decrementAndGet();
+    }
+
     @Override
     public String toString() {
         return "Active requests: " + activeRequests().size() + "; completed requests: " + completedRequests() +
@@ -114,4 +196,29 @@ class MuStatsImpl implements MuStats {
             "; bytes sent: " + bytesSent() + "; rejected: " + rejectedDueToOverload() +
             "; connectionFailured: " + failedToConnect();
     }
+
+    /**
+     * Counts durations in fixed buckets, so that recording is a single atomic increment
+     */
+    private static class Histogram {
+        private static final long[] UPPER_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, Long.MAX_VALUE};
+        private final AtomicLongArray counts = new AtomicLongArray(UPPER_BOUNDS_MILLIS.length);
+
+        void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (millis >= UPPER_BOUNDS_MILLIS[bucket] && bucket < UPPER_BOUNDS_MILLIS.length - 1) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+        }
+
+        Map<Long, Long> snapshot() {
+            Map<Long, Long> copy = new LinkedHashMap<>();
+            for (int i = 0; i < UPPER_BOUNDS_MILLIS.length; i++) {
+                copy.put(UPPER_BOUNDS_MILLIS[i], counts.get(i));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+    }
 }
@@ -138,7 +138,7 @@ class MuWebSocketSessionImpl implements MuWebSocketSession, Exchange {
 
     @Override
     public InetSocketAddress remoteAddress() {
-        return (InetSocketAddress) ctx.channel().remoteAddress();
+        return Http1Connection.remoteAddress(ctx.channel());
     }
 
     @Override
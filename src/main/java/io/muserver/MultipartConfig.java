@@ -0,0 +1,56 @@
+package io.muserver;
+
+import org.jspecify.annotations.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration settings for reading <code>multipart/form-data</code> request bodies
+ * @see MultipartConfigBuilder
+ */
+public class MultipartConfig {
+
+    final long memoryThreshold;
+    final @Nullable Path tempDirectory;
+    final long maxPartSize;
+    final int maxParts;
+    final int maxPartHeaderSize;
+
+    MultipartConfig(long memoryThreshold, @Nullable Path tempDirectory, long maxPartSize, int maxParts, int maxPartHeaderSize) {
+        this.memoryThreshold = memoryThreshold;
+        this.tempDirectory = tempDirectory;
+        this.maxPartSize = maxPartSize;
+        this.maxParts = maxParts;
+        this.maxPartHeaderSize = maxPartHeaderSize;
+    }
+
+    /**
+     * @return The temp directory as a string, or null for the default, as used by netty's data factories
+     */
+    @Nullable String tempDirectoryName() {
+        return tempDirectory == null ? null : tempDirectory.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "MultipartConfig{" +
+            "memoryThreshold=" + memoryThreshold +
+            ", tempDirectory=" + tempDirectory +
+            ", maxPartSize=" + maxPartSize +
+            ", maxParts=" + maxParts +
+            ", maxPartHeaderSize=" + maxPartHeaderSize +
+            '}';
+    }
+
+    /**
+     * @return A new multipart config builder based on the current settings
+     */
+    public MultipartConfigBuilder toBuilder() {
+        return new MultipartConfigBuilder()
+            .withMemoryThreshold(memoryThreshold)
+            .withTempDirectory(tempDirectory)
+            .withMaxPartSize(maxPartSize)
+            .withMaxParts(maxParts)
+            .withMaxPartHeaderSize(maxPartHeaderSize);
+    }
+}
@@ -0,0 +1,145 @@
+package io.muserver;
+
+import org.jspecify.annotations.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration builder for how <code>multipart/form-data</code> request bodies are read, which can be set by passing
+ * the config to {@link MuServerBuilder#withMultipartConfig(MultipartConfigBuilder)}
+ * <p>These settings apply to the parts read with {@link MuRequest#formPartReader()} and
+ * {@link AsyncHandle#setFormPartListener(FormPartListener)}, and the memory threshold, temp directory and part size
+ * limit also apply to {@link MuRequest#form()} and {@link MuRequest#uploadedFiles(String)}. The whole request body is
+ * always limited by {@link MuServerBuilder#withMaxRequestSize(long)}.</p>
+ */
+public class MultipartConfigBuilder {
+
+    private long memoryThreshold = 16 * 1024;
+    private @Nullable Path tempDirectory = null;
+    private long maxPartSize = 0;
+    private int maxParts = 0;
+    private int maxPartHeaderSize = 8192;
+
+    /**
+     * Sets how large a buffered part can get before it is written to a temporary file rather than kept in memory.
+     * <p>The default is 16KB.</p>
+     * @param bytes The threshold, in bytes
+     * @return This builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public MultipartConfigBuilder withMemoryThreshold(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("The memory threshold cannot be negative");
+        }
+        this.memoryThreshold = bytes;
+        return this;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public long memoryThreshold() {
+        return memoryThreshold;
+    }
+
+    /**
+     * Sets the directory that parts larger than the {@link #withMemoryThreshold(long)} are written to.
+     * <p>The default is <code>null</code>, which uses the directory in the <code>java.io.tmpdir</code> system
+     * property.</p>
+     * @param tempDirectory The directory to use, or <code>null</code> for the default
+     * @return This builder
+     */
+    public MultipartConfigBuilder withTempDirectory(@Nullable Path tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public @Nullable Path tempDirectory() {
+        return tempDirectory;
+    }
+
+    /**
+     * Sets the maximum size of the body of a single part. If exceeded, a 413 is returned.
+     * <p>The default is 0, meaning a part is only limited by the maximum request size.</p>
+     * @param bytes The maximum number of bytes in a part, or 0 for no limit
+     * @return This builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public MultipartConfigBuilder withMaxPartSize(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("The maximum part size cannot be negative");
+        }
+        this.maxPartSize = bytes;
+        return this;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public long maxPartSize() {
+        return maxPartSize;
+    }
+
+    /**
+     * Sets the maximum number of parts in a single request. If exceeded, a 413 is returned.
+     * <p>The default is 0, meaning there is no limit.</p>
+     * @param maxParts The maximum number of parts, or 0 for no limit
+     * @return This builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public MultipartConfigBuilder withMaxParts(int maxParts) {
+        if (maxParts < 0) {
+            throw new IllegalArgumentException("The maximum number of parts cannot be negative");
+        }
+        this.maxParts = maxParts;
+        return this;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int maxParts() {
+        return maxParts;
+    }
+
+    /**
+     * Sets the maximum size of the headers of a single part, such as its <code>content-disposition</code> and
+     * <code>content-type</code>. If exceeded, a 413 is returned.
+     * <p>The default is 8192 bytes.</p>
+     * @param bytes The maximum size in bytes
+     * @return This builder
+     * @throws IllegalArgumentException if the value is less than 1
+     */
+    public MultipartConfigBuilder withMaxPartHeaderSize(int bytes) {
+        if (bytes < 1) {
+            throw new IllegalArgumentException("The maximum part header size must be at least 1");
+        }
+        this.maxPartHeaderSize = bytes;
+        return this;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int maxPartHeaderSize() {
+        return maxPartHeaderSize;
+    }
+
+    /**
+     * @return A new config object
+     */
+    public MultipartConfig build() {
+        return new MultipartConfig(memoryThreshold, tempDirectory, maxPartSize, maxParts, maxPartHeaderSize);
+    }
+
+    /**
+     * Creates a new builder with the default settings
+     * @return A new builder
+     */
+    public static MultipartConfigBuilder multipartConfig() {
+        return new MultipartConfigBuilder();
+    }
+}
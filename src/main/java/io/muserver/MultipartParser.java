@@ -0,0 +1,380 @@
+package io.muserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.MediaType;
+import org.jspecify.annotations.Nullable;
+
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An incremental parser for <code>multipart/form-data</code> bodies (RFC 7578) that finds the parts in whatever
+ * chunks of the body it is given.
+ * <p>Part bodies are never buffered: each call to {@link #next(ByteBuf)} returns a slice of the given buffer. The
+ * only bytes the parser does not consume are part headers that have not fully arrived and the end of a chunk that
+ * may be the start of a boundary, so the caller needs to keep at most {@link #maxLeftover()} bytes between chunks.</p>
+ * <p>The part count, part size and part header size limits are enforced here, and the request size limit is enforced
+ * by the request body reader.</p>
+ */
+final class MultipartParser {
+
+    enum Event {
+        /**
+         * All of the input that can be parsed has been consumed, and any remaining bytes must be given again along
+         * with the next chunk of the body
+         */
+        NEED_MORE,
+        /**
+         * A part's headers have been read, and the part is available from {@link #part()}
+         */
+        PART_START,
+        /**
+         * Some of the current part's body is available from {@link #data()}
+         */
+        DATA,
+        /**
+         * The current part's body has ended
+         */
+        PART_END,
+        /**
+         * The closing boundary was found. Anything after it is ignored.
+         */
+        END
+    }
+
+    private enum State {PREAMBLE, AFTER_BOUNDARY, HEADERS, BODY, EPILOGUE}
+
+    private static final byte[] CRLFCRLF = {'\r', '\n', '\r', '\n'};
+
+    /**
+     * The boundary delimiter, which is <code>CRLF--boundary</code>
+     */
+    private final byte[] delimiter;
+    private final ByteBuf delimiterBuf;
+    private final ByteBuf headerEndBuf = Unpooled.wrappedBuffer(CRLFCRLF);
+    private final MultipartConfig config;
+    private final Charset charset;
+
+    private State state = State.PREAMBLE;
+    private boolean atStart = true;
+    private int parts;
+    private long partBytes;
+    private @Nullable MuFormPart part;
+    private @Nullable ByteBuf data;
+
+    /**
+     * @param boundary The boundary from the request's content type
+     * @param config The limits to apply
+     * @param charset The charset of part headers
+     */
+    MultipartParser(String boundary, MultipartConfig config, Charset charset) {
+        this.delimiter = ("\r\n--" + boundary).getBytes(US_ASCII);
+        this.delimiterBuf = Unpooled.wrappedBuffer(delimiter);
+        this.config = config;
+        this.charset = charset;
+    }
+
+    /**
+     * Gets the boundary of a multipart request
+     * @param contentType The request content type
+     * @return The boundary
+     * @throws ClientErrorException with a 415 if the request is not <code>multipart/form-data</code> or a 400 if
+     * there is no valid boundary
+     */
+    static String boundary(@Nullable MediaType contentType) {
+        if (contentType == null || !contentType.getType().equalsIgnoreCase("multipart")
+            || !contentType.getSubtype().equalsIgnoreCase("form-data")) {
+            throw new ClientErrorException(RequestBodyReader.closingResponse(415, "The request body must be multipart/form-data"));
+        }
+        String boundary = contentType.getParameters().get("boundary");
+        // RFC 2046 allows boundaries of 1 to 70 characters
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw invalid("No valid multipart boundary was specified");
+        }
+        for (int i = 0; i < boundary.length(); i++) {
+            if (boundary.charAt(i) > 127) {
+                throw invalid("No valid multipart boundary was specified");
+            }
+        }
+        return boundary;
+    }
+
+    /**
+     * @return The most bytes that {@link #next(ByteBuf)} leaves unconsumed before returning {@link Event#NEED_MORE}
+     */
+    int maxLeftover() {
+        return Math.max(config.maxPartHeaderSize + CRLFCRLF.length, delimiter.length);
+    }
+
+    /**
+     * @return The part started by the last {@link Event#PART_START}
+     */
+    MuFormPart part() {
+        if (part == null) {
+            throw new IllegalStateException("There is no current part");
+        }
+        return part;
+    }
+
+    /**
+     * @return The body data from the last {@link Event#DATA}, which is a slice of the input buffer
+     */
+    ByteBuf data() {
+        if (data == null) {
+            throw new IllegalStateException("There is no current data");
+        }
+        return data;
+    }
+
+    /**
+     * @return <code>true</code> if the closing boundary has been read
+     */
+    boolean ended() {
+        return state == State.EPILOGUE;
+    }
+
+    /**
+     * Parses the next part of the body
+     * @param in The unparsed body, which is consumed as far as the returned event
+     * @return The event that was found
+     * @throws ClientErrorException If the body is invalid or a limit is exceeded
+     */
+    Event next(ByteBuf in) {
+        data = null;
+        switch (state) {
+            case PREAMBLE:
+                return preamble(in);
+            case AFTER_BOUNDARY:
+                return afterBoundary(in);
+            case HEADERS:
+                return headers(in);
+            case BODY:
+                return body(in);
+            default:
+                in.skipBytes(in.readableBytes());
+                return Event.END;
+        }
+    }
+
+    private Event preamble(ByteBuf in) {
+        if (atStart) {
+            // the first boundary does not need to be preceded by a line break
+            int dashBoundaryLength = delimiter.length - 2;
+            int toCompare = Math.min(in.readableBytes(), dashBoundaryLength);
+            if (matches(in, in.readerIndex(), 2, toCompare)) {
+                if (toCompare < dashBoundaryLength) {
+                    return Event.NEED_MORE;
+                }
+                in.skipBytes(dashBoundaryLength);
+                atStart = false;
+                state = State.AFTER_BOUNDARY;
+                return afterBoundary(in);
+            }
+            atStart = false;
+        }
+        int index = ByteBufUtil.indexOf(delimiterBuf, in);
+        if (index == -1) {
+            in.skipBytes(in.readableBytes() - possibleDelimiterStart(in));
+            return Event.NEED_MORE;
+        }
+        in.readerIndex(index + delimiter.length);
+        state = State.AFTER_BOUNDARY;
+        return afterBoundary(in);
+    }
+
+    private Event afterBoundary(ByteBuf in) {
+        if (in.readableBytes() < 2) {
+            return Event.NEED_MORE;
+        }
+        int i = in.readerIndex();
+        if (in.getByte(i) == '-' && in.getByte(i + 1) == '-') {
+            in.skipBytes(in.readableBytes());
+            state = State.EPILOGUE;
+            return Event.END;
+        }
+        // skip any transport padding before the line break
+        while (in.isReadable() && (in.getByte(in.readerIndex()) == ' ' || in.getByte(in.readerIndex()) == '\t')) {
+            in.skipBytes(1);
+        }
+        if (in.readableBytes() < 2) {
+            return Event.NEED_MORE;
+        }
+        if (in.readByte() != '\r' || in.readByte() != '\n') {
+            throw invalid("Invalid multipart boundary");
+        }
+        state = State.HEADERS;
+        return headers(in);
+    }
+
+    private Event headers(ByteBuf in) {
+        int max = config.maxPartHeaderSize + CRLFCRLF.length;
+        int end;
+        if (in.readableBytes() >= 2 && in.getByte(in.readerIndex()) == '\r' && in.getByte(in.readerIndex() + 1) == '\n') {
+            end = in.readerIndex() - 2; // no headers at all
+        } else {
+            end = ByteBufUtil.indexOf(headerEndBuf, in.slice(in.readerIndex(), Math.min(in.readableBytes(), max)));
+            if (end == -1) {
+                if (in.readableBytes() >= max) {
+                    throw tooLarge("The headers of a multipart part were too large");
+                }
+                return Event.NEED_MORE;
+            }
+            end += in.readerIndex();
+        }
+        if (config.maxParts > 0 && parts == config.maxParts) {
+            throw tooLarge("The request has too many parts");
+        }
+        String headerBlock = end < in.readerIndex() ? "" : in.toString(in.readerIndex(), end - in.readerIndex(), charset);
+        in.readerIndex(end + CRLFCRLF.length);
+        part = createPart(headerBlock);
+        parts++;
+        partBytes = 0;
+        state = State.BODY;
+        return Event.PART_START;
+    }
+
+    private Event body(ByteBuf in) {
+        int index = ByteBufUtil.indexOf(delimiterBuf, in);
+        int available;
+        if (index == in.readerIndex()) {
+            in.skipBytes(delimiter.length);
+            state = State.AFTER_BOUNDARY;
+            return Event.PART_END;
+        } else if (index == -1) {
+            available = in.readableBytes() - possibleDelimiterStart(in);
+            if (available == 0) {
+                return Event.NEED_MORE;
+            }
+        } else {
+            available = index - in.readerIndex();
+        }
+        partBytes += available;
+        if (config.maxPartSize > 0 && partBytes > config.maxPartSize) {
+            throw tooLarge("A multipart part was too large");
+        }
+        data = in.readSlice(available);
+        return Event.DATA;
+    }
+
+    /**
+     * @return The number of bytes at the end of the buffer that could be the start of a delimiter
+     */
+    private int possibleDelimiterStart(ByteBuf in) {
+        int max = Math.min(in.readableBytes(), delimiter.length - 1);
+        for (int length = max; length > 0; length--) {
+            int start = in.writerIndex() - length;
+            if (in.getByte(start) == '\r' && matches(in, start, 0, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private boolean matches(ByteBuf in, int index, int delimiterIndex, int length) {
+        for (int i = 0; i < length; i++) {
+            if (in.getByte(index + i) != delimiter[delimiterIndex + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MuFormPart createPart(String headerBlock) {
+        Http1Headers headers = new Http1Headers();
+        try {
+            String name = null;
+            StringBuilder value = new StringBuilder();
+            for (String line : headerBlock.split("\r\n")) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if ((line.charAt(0) == ' ' || line.charAt(0) == '\t') && name != null) {
+                    value.append(' ').append(line.trim()); // an obsolete folded line
+                    continue;
+                }
+                if (name != null) {
+                    headers.add(name, value.toString());
+                }
+                int colon = line.indexOf(':');
+                if (colon < 1) {
+                    throw invalid("Invalid multipart part header");
+                }
+                name = line.substring(0, colon).trim();
+                value.setLength(0);
+                value.append(line.substring(colon + 1).trim());
+            }
+            if (name != null) {
+                headers.add(name, value.toString());
+            }
+        } catch (IllegalArgumentException e) {
+            throw invalid("Invalid multipart part header");
+        }
+
+        String disposition = headers.get(HeaderNames.CONTENT_DISPOSITION);
+        if (disposition == null) {
+            throw invalid("A multipart part had no content-disposition header");
+        }
+        Map<String, String> params;
+        try {
+            List<ParameterizedHeaderWithValue> values = ParameterizedHeaderWithValue.fromString(disposition);
+            params = values.isEmpty() ? null : values.get(0).parameters();
+        } catch (IllegalArgumentException e) {
+            params = null;
+        }
+        String name = params == null ? null : param(params, "name");
+        if (name == null) {
+            throw invalid("A multipart part had no name in its content-disposition header");
+        }
+        String filename = param(params, "filename*");
+        if (filename != null) {
+            filename = decodeExtendedValue(filename);
+        }
+        if (filename == null) {
+            filename = param(params, "filename");
+        }
+        return new MuFormPart(name, filename, headers);
+    }
+
+    private static @Nullable String param(Map<String, String> params, String name) {
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes an RFC 8187 value such as <code>UTF-8''na%C3%AFve.txt</code>
+     * @return The decoded value, or null if it could not be decoded
+     */
+    private static @Nullable String decodeExtendedValue(String value) {
+        int charsetEnd = value.indexOf('\'');
+        int languageEnd = charsetEnd == -1 ? -1 : value.indexOf('\'', charsetEnd + 1);
+        if (languageEnd == -1) {
+            return null;
+        }
+        try {
+            Charset valueCharset = charsetEnd == 0 ? UTF_8 : Charset.forName(value.substring(0, charsetEnd));
+            return URLDecoder.decode(value.substring(languageEnd + 1).replace("+", "%2B"), valueCharset.name());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static ClientErrorException invalid(String message) {
+        return new ClientErrorException(RequestBodyReader.closingResponse(400, message));
+    }
+
+    private static ClientErrorException tooLarge(String message) {
+        return new ClientErrorException(RequestBodyReader.closingResponse(413, message));
+    }
+}
@@ -8,6 +8,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 class NettyHandlerAdapter {
 
@@ -17,35 +19,48 @@ class NettyHandlerAdapter {
     private final ExecutorService executor;
     private final @Nullable List<ResponseCompleteListener> completeListeners;
     private final @Nullable List<RequestRejectListener> rejectListeners;
+    private final @Nullable ConcurrencyLimiter concurrencyLimiter;
+    /**
+     * The number of handlers at the start of the list that are non-blocking, and so run on the event loop
+     */
+    private final int leadingNonBlockingHandlers;
 
     NettyHandlerAdapter(ExecutorService executor, List<MuHandler> muHandlers,
                         @Nullable List<ResponseCompleteListener> completeListeners,
-                        @Nullable List<RequestRejectListener> rejectListeners) {
+                        @Nullable List<RequestRejectListener> rejectListeners,
+                        @Nullable ConcurrencyLimiter concurrencyLimiter) {
         this.executor = executor;
         this.muHandlers = muHandlers;
         this.completeListeners = completeListeners;
         this.rejectListeners = rejectListeners;
+        this.concurrencyLimiter = concurrencyLimiter;
+        int nonBlocking = 0;
+        while (nonBlocking < muHandlers.size() && muHandlers.get(nonBlocking) instanceof NonBlockingMuHandler) {
+            nonBlocking++;
+        }
+        this.leadingNonBlockingHandlers = nonBlocking;
     }
 
+    /**
+     * Runs any leading non-blocking handlers on the event loop, and if they do not handle the request hands it to
+     * the handler executor
+     * @param muCtx The exchange
+     * @throws RejectedExecutionException If the concurrency limit has been reached, or the executor rejected the request
+     */
     void onHeaders(HttpExchange muCtx) {
 
-        executor.execute(() -> {
+        if (leadingNonBlockingHandlers > 0 && handleOnLoop(muCtx)) {
+            return;
+        }
+
+        Runnable handlerTask = () -> {
             if (muCtx.state().endState()) {
                 return;
             }
             NettyRequestAdapter request = muCtx.request;
             NettyResponseAdaptor response = muCtx.response;
             try {
-                boolean handled = false;
-                for (MuHandler muHandler : muHandlers) {
-                    handled = muHandler.handle(request, response);
-                    if (handled) {
-                        break;
-                    }
-                    if (request.isAsync()) {
-                        throw new IllegalStateException(muHandler.getClass() + " returned false however this is not allowed after starting to handle a request asynchronously.");
-                    }
-                }
+                boolean handled = callHandlers(request, response, leadingNonBlockingHandlers, muHandlers.size());
                 if (!handled) {
                     throw new NotFoundException();
                 }
@@ -56,7 +71,77 @@ class NettyHandlerAdapter {
             } catch (Throwable ex) {
                 useCustomExceptionHandlerOrFireIt(muCtx, ex);
             }
-        });
+        };
+
+        ConcurrencyLimiter limiter = this.concurrencyLimiter;
+        if (limiter == null) {
+            executor.execute(handlerTask);
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            throw ConcurrencyLimiter.LIMIT_EXCEEDED;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            executor.execute(handlerTask);
+        } catch (RejectedExecutionException e) {
+            limiter.release(startNanos, false);
+            throw e;
+        }
+        muCtx.addChangeListener((exchange, newState) -> limiter.release(startNanos, newState == HttpExchangeState.COMPLETE));
+    }
+
+    /**
+     * @return <code>false</code> if the handler executor is a thread pool that has all of its threads busy, in which
+     * case a request given to it now would be rejected or have to wait. Called on the event loop.
+     */
+    boolean hasIdleThread() {
+        if (executor instanceof EventLoopAffineExecutor) {
+            return ((EventLoopAffineExecutor) executor).hasIdleThread();
+        }
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor tpe = (ThreadPoolExecutor) executor;
+            return tpe.getActiveCount() < tpe.getMaximumPoolSize();
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>false</code> if none of the non-blocking handlers handled the request, so the remaining
+     * handlers need to be run on the executor
+     */
+    private boolean handleOnLoop(HttpExchange muCtx) {
+        NettyRequestAdapter request = muCtx.request;
+        NettyResponseAdaptor response = muCtx.response;
+        try {
+            boolean handled = callHandlers(request, response, 0, leadingNonBlockingHandlers);
+            if (!handled) {
+                if (leadingNonBlockingHandlers < muHandlers.size()) {
+                    return false;
+                }
+                throw new NotFoundException();
+            }
+            if (!request.isAsync() && !response.outputState().endState()) {
+                muCtx.complete();
+            }
+        } catch (Throwable ex) {
+            // the connection may not know about this exchange until the headers have been handled, so defer the error
+            muCtx.ctx.executor().execute(() -> useCustomExceptionHandlerOrFireIt(muCtx, ex));
+        }
+        return true;
+    }
+
+    private boolean callHandlers(NettyRequestAdapter request, NettyResponseAdaptor response, int from, int to) throws Exception {
+        for (int i = from; i < to; i++) {
+            MuHandler muHandler = muHandlers.get(i);
+            if (muHandler.handle(request, response)) {
+                return true;
+            }
+            if (request.isAsync()) {
+                throw new IllegalStateException(muHandler.getClass() + " returned false however this is not allowed after starting to handle a request asynchronously.");
+            }
+        }
+        return false;
     }
 
     static void useCustomExceptionHandlerOrFireIt(HttpExchange exchange, Throwable ex) {
@@ -64,7 +149,11 @@ class NettyHandlerAdapter {
         try {
             if (server.unhandledExceptionHandler != null && !(ex instanceof RedirectionException) && server.unhandledExceptionHandler.handle(exchange.request, exchange.response, ex)) {
                 exchange.response.flushAndCloseOutputStream();
-                exchange.block(exchange::complete);
+                if (exchange.inLoop()) {
+                    exchange.complete();
+                } else {
+                    exchange.block(exchange::complete);
+                }
             } else {
                 exchange.fireException(ex);
             }
@@ -36,14 +36,18 @@ class NettyRequestAdapter implements MuRequest {
     private volatile RequestState state = RequestState.HEADERS_RECEIVED;
     final ChannelHandlerContext ctx;
     private final HttpRequest nettyRequest;
-    private final URI serverUri;
-    private final URI uri;
+    private final String proto;
+    private final String host;
+    private final RequestTarget target;
+    private volatile @Nullable URI serverUri;
+    private volatile @Nullable URI uri;
     private final Method method;
     private final Headers headers;
     private volatile @Nullable RequestBodyReader requestBodyReader;
-    private final RequestParameters query;
+    private volatile @Nullable RequestParameters query;
 
     private @Nullable List<Cookie> cookies;
+    private volatile @Nullable BlockingFormPartReader formPartReader;
     private String contextPath = "";
     private String relativePath;
     private @Nullable Map<String, Object> attributes;
@@ -51,14 +55,19 @@ class NettyRequestAdapter implements MuRequest {
     private @Nullable HttpExchange httpExchange;
     private final List<RequestStateChangeListener> listeners = new CopyOnWriteArrayList<>();
 
-    NettyRequestAdapter(ChannelHandlerContext ctx, HttpRequest nettyRequest, Headers headers, Method method, String proto, String uri, String host) {
+    /**
+     * Creates a request. The absolute URIs and the query parameters are only created when first asked for, as many
+     * handlers never use them.
+     * @param host The host header value, which has been checked with {@link RequestTarget#validateHost(String)}
+     */
+    NettyRequestAdapter(ChannelHandlerContext ctx, HttpRequest nettyRequest, Headers headers, Method method, String proto, RequestTarget target, String host) {
         this.ctx = ctx;
         this.nettyRequest = nettyRequest;
-        this.serverUri = URI.create(proto + "://" + host + uri).normalize();
+        this.proto = proto;
+        this.host = host;
+        this.target = target;
         this.headers = headers;
-        this.uri = getUri(headers, proto, host, uri, serverUri);
-        this.relativePath = this.uri.getRawPath();
-        this.query = new NettyRequestParameters(new QueryStringDecoder(uri, true).parameters());
+        this.relativePath = target.rawPath();
         this.method = method;
     }
 
@@ -77,6 +86,13 @@ class NettyRequestAdapter implements MuRequest {
         return exchange().connection();
     }
 
+    /**
+     * @return The request as received by netty
+     */
+    HttpRequest nettyRequest() {
+        return nettyRequest;
+    }
+
     private static URI getUri(Headers h, String scheme, String hostHeader, String requestUri, URI serverUri) {
         try {
             List<ForwardedHeader> forwarded = h.forwarded();
@@ -118,13 +134,24 @@ class NettyRequestAdapter implements MuRequest {
 
     @Override
     public URI uri() {
-        return uri;
+        URI u = this.uri;
+        if (u == null) {
+            // racing threads build equal values, so there is no need to lock
+            u = getUri(headers, proto, host, target.value, serverURI());
+            this.uri = u;
+        }
+        return u;
     }
 
 
     @Override
     public URI serverURI() {
-        return serverUri;
+        URI u = this.serverUri;
+        if (u == null) {
+            u = URI.create(proto + "://" + host + target.value);
+            this.serverUri = u;
+        }
+        return u;
     }
 
 
@@ -142,6 +169,7 @@ class NettyRequestAdapter implements MuRequest {
         if (!headers().hasBody()) {
             return Optional.empty();
         }
+        exchange().throwIfInLoop();
         RequestBodyReader rbr = this.requestBodyReader;
         if (rbr == null) {
             RequestBodyReaderInputStreamAdapter inputStreamReader = new RequestBodyReaderInputStreamAdapter(maxRequestBytes());
@@ -167,6 +195,7 @@ class NettyRequestAdapter implements MuRequest {
     @Override
     public String readBodyAsString() throws IOException {
         if (headers.hasBody()) {
+            exchange().throwIfInLoop();
             RequestBodyReader.StringRequestBodyReader reader = createStringRequestBodyReader(maxRequestBytes(), headers());
             claimingBodyRead(reader);
             reader.blockUntilFullyRead();
@@ -239,9 +268,26 @@ class NettyRequestAdapter implements MuRequest {
     }
 
 
+    @Override
+    public FormPartReader formPartReader() throws IOException {
+        MultipartParser parser = new MultipartParser(MultipartParser.boundary(headers.contentType()), multipartConfig(), bodyCharset(headers, true));
+        BlockingFormPartReader reader = new BlockingFormPartReader(inputStream().orElse(null), parser, multipartConfig(), bodyCharset(headers, true));
+        this.formPartReader = reader;
+        return reader;
+    }
+
+    private MultipartConfig multipartConfig() {
+        return ((MuServerImpl) server()).settings().multipartConfig;
+    }
+
     @Override
     public RequestParameters query() {
-        return query;
+        RequestParameters q = this.query;
+        if (q == null) {
+            q = new NettyRequestParameters(target.queryStart < 0 ? Collections.emptyMap() : new QueryStringDecoder(target.value, true).parameters());
+            this.query = q;
+        }
+        return q;
     }
 
     @Override
@@ -269,7 +315,10 @@ class NettyRequestAdapter implements MuRequest {
 
     @Override
     public Optional<String> cookie(String name) {
-        List<Cookie> cookies = cookies();
+        List<Cookie> cookies = this.cookies;
+        if (cookies == null) {
+            return findCookie(headers.getAll(HeaderNames.COOKIE), name);
+        }
         for (Cookie cookie : cookies) {
             if (cookie.name().equals(name)) {
                 return Optional.of(cookie.value());
@@ -278,6 +327,47 @@ class NettyRequestAdapter implements MuRequest {
         return Optional.empty();
     }
 
+    /**
+     * Finds a cookie without decoding all of them. The decoder ends every name and value at a semicolon, so each
+     * pair that mentions the name can be decoded (and validated) on its own with the same result as decoding the
+     * whole header. Headers using the old <code>$Version</code> style attributes are decoded in full.
+     */
+    static Optional<String> findCookie(List<String> encoded, String name) {
+        for (String val : encoded) {
+            if (val.indexOf('$') >= 0) {
+                for (Cookie cookie : nettyToMu(ServerCookieDecoder.STRICT.decode(val))) {
+                    if (cookie.name().equals(name)) {
+                        return Optional.of(cookie.value());
+                    }
+                }
+                continue;
+            }
+            int start = 0;
+            while (start < val.length()) {
+                int end = val.indexOf(';', start);
+                if (end == -1) {
+                    end = val.length();
+                }
+                int nameIndex = val.indexOf(name, start);
+                if (nameIndex == -1) {
+                    break;
+                }
+                if (nameIndex >= end) {
+                    // skip straight to the pair the name appears in
+                    start = val.lastIndexOf(';', nameIndex) + 1;
+                    continue;
+                }
+                for (io.netty.handler.codec.http.cookie.Cookie cookie : ServerCookieDecoder.STRICT.decode(val.substring(start, end))) {
+                    if (cookie.name().equals(name)) {
+                        return Optional.of(cookie.value());
+                    }
+                }
+                start = end + 1;
+            }
+        }
+        return Optional.empty();
+    }
+
     @Override
     public String contextPath() {
         return contextPath;
@@ -348,10 +438,11 @@ class NettyRequestAdapter implements MuRequest {
 
     private void ensureFormDataLoaded() throws IOException {
         if (requestBodyReader == null) {
+            exchange().throwIfInLoop();
             String ct = contentType();
             RequestBodyReader reader;
             if (ct != null && ct.startsWith("multipart/")) {
-                reader = new RequestBodyReader.MultipartFormReader(maxRequestBytes(), nettyRequest, bodyCharset(headers, true));
+                reader = new RequestBodyReader.MultipartFormReader(maxRequestBytes(), nettyRequest, bodyCharset(headers, true), multipartConfig());
                 claimingBodyRead(reader);
             } else if ("application/x-www-form-urlencoded".equals(ct)) {
                 reader = new RequestBodyReader.UrlEncodedBodyReader(createStringRequestBodyReader(maxRequestBytes(), headers()));
@@ -454,6 +545,11 @@ class NettyRequestAdapter implements MuRequest {
             requestBodyReader.cleanup();
             requestBodyReader = null;
         }
+        BlockingFormPartReader partReader = formPartReader;
+        if (partReader != null) {
+            partReader.cleanup();
+            formPartReader = null;
+        }
     }
 
     public RequestState requestState() {
@@ -498,6 +594,18 @@ class NettyRequestAdapter implements MuRequest {
             }
         }
 
+        @Override
+        public void setFormPartListener(FormPartListener listener) {
+            MultipartParser parser = new MultipartParser(MultipartParser.boundary(request.headers.contentType()),
+                request.multipartConfig(), bodyCharset(request.headers, true));
+            if (request.state.endState()) {
+                listener.onComplete();
+            } else {
+                request.claimingBodyRead(new RequestBodyReader.MultipartListenerAdapter(this, httpExchange.ctx.executor(),
+                    request.maxRequestBytes(), parser, listener));
+            }
+        }
+
         @Override
         public void complete() {
             if (!httpExchange.state().endState()) {
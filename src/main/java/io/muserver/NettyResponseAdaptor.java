@@ -22,6 +22,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.jspecify.annotations.Nullable;
@@ -42,6 +43,12 @@ abstract class NettyResponseAdaptor implements MuResponse {
     protected long declaredLength = -1;
     private final List<ResponseStateChangeListener> listeners = new CopyOnWriteArrayList<>();
     protected @Nullable HttpExchange httpExchange;
+    private @Nullable PipelinedWriter pipelinedWriter;
+    /**
+     * The number of body bytes given to {@link #writeFromHandlerThread(ByteBuf)}, some of which may not have been
+     * written yet
+     */
+    private long bytesFromHandler = 0;
 
     public void setExchange(HttpExchange httpExchange) {
         this.httpExchange = requireNonNull(httpExchange, "httpExchange");
@@ -216,13 +223,35 @@ abstract class NettyResponseAdaptor implements MuResponse {
     @Override
     public void sendChunk(String text) {
         throwIfAsync();
-        exchange().block(() -> {
+        writeFromHandlerThread(textToBuffer(text));
+    }
+
+    /**
+     * Writes a chunk of the response body from a blocking handler thread. Most writes are pipelined, so the
+     * handler only waits if too much data is already waiting to be written. A write that sends the response
+     * headers is waited for, so that the response is committed when this returns, as is a write that goes over the
+     * declared content length, so that the error is thrown from this call.
+     */
+    void writeFromHandlerThread(ByteBuf data) {
+        throwIfFinished();
+        int size = data.readableBytes();
+        bytesFromHandler += size;
+        Callable<ChannelFuture> writeTask = () -> {
             throwIfFinished();
             if (state == ResponseState.NOTHING) {
                 startStreaming();
             }
-            return writeAndFlush(textToBuffer(text));
-        });
+            return writeAndFlush(data);
+        };
+        if (state == ResponseState.NOTHING || (declaredLength > -1 && bytesFromHandler > declaredLength)) {
+            exchange().block(writeTask);
+        } else {
+            PipelinedWriter pipelinedWriter = this.pipelinedWriter;
+            if (pipelinedWriter == null) {
+                pipelinedWriter = this.pipelinedWriter = new PipelinedWriter(exchange());
+            }
+            pipelinedWriter.write(writeTask, size);
+        }
     }
 
     private ByteBuf textToBuffer(@Nullable String text) {
@@ -301,6 +330,38 @@ abstract class NettyResponseAdaptor implements MuResponse {
         return state;
     }
 
+    @Override
+    public void sendEarlyHints(Headers hints) {
+        Mutils.notNull("hints", hints);
+        if (hasStartedSendingData()) {
+            throw new IllegalStateException("Early hints cannot be sent after the response has started");
+        }
+        Headers copy = Headers.http2Headers().add(hints);
+        if (request.ctx.executor().inEventLoop()) {
+            writeEarlyHintsIfNotStarted(copy);
+        } else {
+            request.ctx.executor().execute(() -> writeEarlyHintsIfNotStarted(copy));
+        }
+    }
+
+    private void writeEarlyHintsIfNotStarted(Headers hints) {
+        // the response may have started since the hints were given if the final response was written from another thread
+        if (!hasStartedSendingData()) {
+            writeEarlyHints(hints);
+        }
+    }
+
+    /**
+     * Writes a 103 response with the given headers. Called on the event loop before the response has started.
+     */
+    protected abstract void writeEarlyHints(Headers hints);
+
+    @Override
+    public void priority(int urgency, boolean incremental) {
+        // only HTTP2 multiplexes responses on a connection, so this is just validated
+        new Http2Priority(urgency, incremental);
+    }
+
     void flushAndCloseOutputStream() {
         Mutils.closeSilently(writer);
         Mutils.closeSilently(outputStream);
@@ -338,7 +399,13 @@ abstract class NettyResponseAdaptor implements MuResponse {
     @Override
     public void write(String text) {
         throwIfAsync();
-        exchange().block(() -> writeOnLoop(text).addListener(f -> outputState(f, ResponseState.FULL_SENT)));
+        HttpExchange exchange = exchange();
+        if (exchange.inLoop()) {
+            // nothing is waited for, so this can be done from a non-blocking handler
+            writeOnLoop(text).addListener(f -> outputState(f, ResponseState.FULL_SENT));
+        } else {
+            exchange.block(() -> writeOnLoop(text).addListener(f -> outputState(f, ResponseState.FULL_SENT)));
+        }
     }
 
     ChannelFuture writeOnLoop(String text) {
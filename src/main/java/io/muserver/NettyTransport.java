@@ -0,0 +1,390 @@
+package io.muserver;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.epoll.EpollTcpInfo;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioChannelOption;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.UnixChannelOption;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the event loop groups and channels for a {@link Transport}.
+ * <p>The native transports are optional dependencies, so classes referencing them are only loaded after
+ * checking that they are on the classpath.</p>
+ */
+abstract class NettyTransport {
+    private static final Logger log = LoggerFactory.getLogger(NettyTransport.class);
+    private static final boolean EPOLL_CLASSES_AVAILABLE = isClassAvailable("io.netty.channel.epoll.EpollSocketChannel");
+
+    /**
+     * @return The transport actually in use, which is never {@link Transport#AUTO}
+     */
+    abstract Transport type();
+
+    abstract EventLoopGroup newEventLoopGroup(int threads);
+
+    abstract Class<? extends ServerChannel> serverChannelClass();
+
+    /**
+     * @return The server channel type for unix domain sockets, or <code>null</code> if this transport does not support them
+     */
+    @Nullable Class<? extends ServerChannel> serverDomainSocketChannelClass() {
+        return null;
+    }
+
+    /**
+     * @return The UDP channel type, which is used for HTTP/3
+     */
+    abstract Class<? extends Channel> datagramChannelClass();
+
+    /**
+     * @return <code>true</code> if multiple server sockets can be bound to the same port with <code>SO_REUSEPORT</code>
+     * and the kernel spreads new connections across them
+     */
+    abstract boolean supportsReusePort();
+
+    /**
+     * Sets <code>SO_REUSEPORT</code> on the server channels created by the given bootstrap.
+     * @param bootstrap The bootstrap to configure
+     */
+    abstract void enableReusePort(ServerBootstrap bootstrap);
+
+    /**
+     * Sets the socket options from the config that are specific to this transport.
+     * @param bootstrap The bootstrap to configure
+     * @param config The socket config
+     */
+    abstract void applyNativeOptions(ServerBootstrap bootstrap, SocketConfig config);
+
+    static NettyTransport create(Transport requested) {
+        Mutils.notNull("transport", requested);
+        switch (requested) {
+            case NIO:
+                return NioTransport.INSTANCE;
+            case AUTO:
+                return isEpollAvailable() ? new EpollTransport() : NioTransport.INSTANCE;
+            case EPOLL:
+                if (isEpollAvailable()) {
+                    return new EpollTransport();
+                }
+                log.warn("The epoll transport was requested but is not available so NIO will be used instead. Reason: "
+                    + epollUnavailabilityCause());
+                return NioTransport.INSTANCE;
+            case IO_URING:
+                IoUringTransport ioUring = IoUringTransport.createIfAvailable();
+                if (ioUring != null) {
+                    return ioUring;
+                }
+                log.warn("The io_uring transport was requested but is not available so NIO will be used instead");
+                return NioTransport.INSTANCE;
+            default:
+                throw new IllegalArgumentException("Unsupported transport " + requested);
+        }
+    }
+
+    /**
+     * Reads the round trip time that the kernel has measured for a TCP connection.
+     * @param channel The connection
+     * @param rtt The estimator to set the values on
+     * @return <code>false</code> if the transport of the channel does not expose the kernel's measurements
+     */
+    static boolean readTcpRtt(Channel channel, RttEstimator rtt) {
+        return EPOLL_CLASSES_AVAILABLE && EpollTransport.readTcpRtt(channel, rtt);
+    }
+
+    private static boolean isClassAvailable(String className) {
+        try {
+            Class.forName(className, false, NettyTransport.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static boolean isEpollAvailable() {
+        return isClassAvailable("io.netty.channel.epoll.Epoll") && EpollTransport.isAvailable();
+    }
+
+    private static String epollUnavailabilityCause() {
+        if (!isClassAvailable("io.netty.channel.epoll.Epoll")) {
+            return "netty-transport-native-epoll is not on the classpath";
+        }
+        return String.valueOf(EpollTransport.unavailabilityCause());
+    }
+
+    @Override
+    public String toString() {
+        return type().name();
+    }
+
+    private static class NioTransport extends NettyTransport {
+        private static final NioTransport INSTANCE = new NioTransport();
+        private static final boolean REUSE_PORT_SUPPORTED = isLinux() && jdkSupportsReusePort();
+
+        /**
+         * macOS and the BSDs accept <code>SO_REUSEPORT</code> but do not spread new connections across the bound
+         * sockets, so multiple acceptors would leave one socket accepting everything.
+         */
+        private static boolean isLinux() {
+            return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux");
+        }
+
+        private static boolean jdkSupportsReusePort() {
+            try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+                return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        @Override
+        Transport type() {
+            return Transport.NIO;
+        }
+
+        @Override
+        EventLoopGroup newEventLoopGroup(int threads) {
+            return new NioEventLoopGroup(threads);
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+
+        @Override
+        Class<? extends Channel> datagramChannelClass() {
+            return NioDatagramChannel.class;
+        }
+
+        @Override
+        boolean supportsReusePort() {
+            return REUSE_PORT_SUPPORTED;
+        }
+
+        @Override
+        void enableReusePort(ServerBootstrap bootstrap) {
+            bootstrap.option(NioChannelOption.of(StandardSocketOptions.SO_REUSEPORT), true);
+        }
+
+        @Override
+        void applyNativeOptions(ServerBootstrap bootstrap, SocketConfig config) {
+            // The JDK does not expose TCP_FASTOPEN or TCP_DEFER_ACCEPT, so there is nothing to apply
+        }
+    }
+
+    private static class EpollTransport extends NettyTransport {
+
+        static boolean isAvailable() {
+            return Epoll.isAvailable();
+        }
+
+        static @Nullable Throwable unavailabilityCause() {
+            return Epoll.unavailabilityCause();
+        }
+
+        static boolean readTcpRtt(Channel channel, RttEstimator rtt) {
+            if (!(channel instanceof EpollSocketChannel) || !channel.isActive()) {
+                return false;
+            }
+            EpollTcpInfo info = ((EpollSocketChannel) channel).tcpInfo();
+            rtt.set(TimeUnit.MICROSECONDS.toNanos(info.rtt()), TimeUnit.MICROSECONDS.toNanos(info.rttvar()));
+            return true;
+        }
+
+        @Override
+        Transport type() {
+            return Transport.EPOLL;
+        }
+
+        @Override
+        EventLoopGroup newEventLoopGroup(int threads) {
+            return new EpollEventLoopGroup(threads);
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverDomainSocketChannelClass() {
+            return EpollServerDomainSocketChannel.class;
+        }
+
+        @Override
+        Class<? extends Channel> datagramChannelClass() {
+            return EpollDatagramChannel.class;
+        }
+
+        @Override
+        boolean supportsReusePort() {
+            return true;
+        }
+
+        @Override
+        void enableReusePort(ServerBootstrap bootstrap) {
+            bootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+        }
+
+        @Override
+        void applyNativeOptions(ServerBootstrap bootstrap, SocketConfig config) {
+            if (config.tcpFastOpen > 0) {
+                bootstrap.option(EpollChannelOption.TCP_FASTOPEN, config.tcpFastOpen);
+            }
+            if (config.tcpDeferAccept > 0) {
+                bootstrap.option(EpollChannelOption.TCP_DEFER_ACCEPT, config.tcpDeferAccept);
+            }
+            if (config.tcpQuickAck) {
+                bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, true);
+            }
+        }
+    }
+
+    /**
+     * io_uring lives in different packages in Netty 4.1 (the incubator project) and Netty 4.2, so it is
+     * accessed reflectively rather than being a compile-time dependency.
+     */
+    private static class IoUringTransport extends NettyTransport {
+        private final java.lang.reflect.Constructor<?> groupConstructor;
+        private final @Nullable Object ioHandlerFactory;
+        private final Class<? extends ServerChannel> serverChannelClass;
+        private final Class<? extends Channel> datagramChannelClass;
+        private final Class<?> channelOptionClass;
+
+        private IoUringTransport(java.lang.reflect.Constructor<?> groupConstructor, @Nullable Object ioHandlerFactory,
+                                 Class<? extends ServerChannel> serverChannelClass, Class<? extends Channel> datagramChannelClass,
+                                 Class<?> channelOptionClass) {
+            this.groupConstructor = groupConstructor;
+            this.ioHandlerFactory = ioHandlerFactory;
+            this.serverChannelClass = serverChannelClass;
+            this.datagramChannelClass = datagramChannelClass;
+            this.channelOptionClass = channelOptionClass;
+        }
+
+        static @Nullable IoUringTransport createIfAvailable() {
+            ClassLoader loader = NettyTransport.class.getClassLoader();
+            try {
+                if (isClassAvailable("io.netty.channel.uring.IoUring")) {
+                    // Netty 4.2
+                    if (!isAvailable(Class.forName("io.netty.channel.uring.IoUring", true, loader))) {
+                        return null;
+                    }
+                    Class<?> factoryType = Class.forName("io.netty.channel.IoHandlerFactory", true, loader);
+                    Object factory = Class.forName("io.netty.channel.uring.IoUringIoHandler", true, loader).getMethod("newFactory").invoke(null);
+                    java.lang.reflect.Constructor<?> constructor = Class.forName("io.netty.channel.MultiThreadIoEventLoopGroup", true, loader)
+                        .getConstructor(int.class, factoryType);
+                    return new IoUringTransport(constructor, factory,
+                        Class.forName("io.netty.channel.uring.IoUringServerSocketChannel", true, loader).asSubclass(ServerChannel.class),
+                        Class.forName("io.netty.channel.uring.IoUringDatagramChannel", true, loader).asSubclass(Channel.class),
+                        Class.forName("io.netty.channel.uring.IoUringChannelOption", true, loader));
+                } else if (isClassAvailable("io.netty.incubator.channel.uring.IOUring")) {
+                    // Netty 4.1 with the incubator transport
+                    if (!isAvailable(Class.forName("io.netty.incubator.channel.uring.IOUring", true, loader))) {
+                        return null;
+                    }
+                    java.lang.reflect.Constructor<?> constructor = Class.forName("io.netty.incubator.channel.uring.IOUringEventLoopGroup", true, loader)
+                        .getConstructor(int.class);
+                    return new IoUringTransport(constructor, null,
+                        Class.forName("io.netty.incubator.channel.uring.IOUringServerSocketChannel", true, loader).asSubclass(ServerChannel.class),
+                        Class.forName("io.netty.incubator.channel.uring.IOUringDatagramChannel", true, loader).asSubclass(Channel.class),
+                        Class.forName("io.netty.incubator.channel.uring.IOUringChannelOption", true, loader));
+                }
+            } catch (Exception | LinkageError e) {
+                log.warn("Error while loading the io_uring transport", e);
+            }
+            return null;
+        }
+
+        private static boolean isAvailable(Class<?> ioUringClass) throws ReflectiveOperationException {
+            return Boolean.TRUE.equals(ioUringClass.getMethod("isAvailable").invoke(null));
+        }
+
+        @Override
+        Transport type() {
+            return Transport.IO_URING;
+        }
+
+        @Override
+        EventLoopGroup newEventLoopGroup(int threads) {
+            try {
+                Object group = ioHandlerFactory == null
+                    ? groupConstructor.newInstance(threads)
+                    : groupConstructor.newInstance(threads, ioHandlerFactory);
+                return (EventLoopGroup) group;
+            } catch (ReflectiveOperationException e) {
+                throw new MuException("Error creating io_uring event loop group", e);
+            }
+        }
+
+        @Override
+        Class<? extends ServerChannel> serverChannelClass() {
+            return serverChannelClass;
+        }
+
+        @Override
+        Class<? extends Channel> datagramChannelClass() {
+            return datagramChannelClass;
+        }
+
+        @Override
+        boolean supportsReusePort() {
+            return true;
+        }
+
+        @Override
+        void enableReusePort(ServerBootstrap bootstrap) {
+            bootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+        }
+
+        @Override
+        void applyNativeOptions(ServerBootstrap bootstrap, SocketConfig config) {
+            if (config.tcpFastOpen > 0) {
+                bootstrap.option(ChannelOption.TCP_FASTOPEN, config.tcpFastOpen);
+            }
+            if (config.tcpDeferAccept > 0) {
+                ChannelOption<Integer> option = channelOption("TCP_DEFER_ACCEPT");
+                if (option != null) {
+                    bootstrap.option(option, config.tcpDeferAccept);
+                }
+            }
+            if (config.tcpQuickAck) {
+                ChannelOption<Boolean> option = channelOption("TCP_QUICKACK");
+                if (option != null) {
+                    bootstrap.childOption(option, true);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> @Nullable ChannelOption<T> channelOption(String name) {
+            try {
+                return (ChannelOption<T>) channelOptionClass.getField(name).get(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn(name + " is not supported by this version of the io_uring transport so will be ignored");
+                return null;
+            }
+        }
+    }
+}
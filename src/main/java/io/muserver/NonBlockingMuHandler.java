@@ -0,0 +1,20 @@
+package io.muserver;
+
+/**
+ * <p>A handler that does not block, and so is called directly on the IO thread that read the request rather than
+ * being passed to the handler executor.</p>
+ * <p>This avoids handing each request to another thread and back, which is worthwhile for handlers that return
+ * quickly such as health checks, or that handle requests asynchronously with {@link MuRequest#handleAsync()}.</p>
+ * <p>A handler must never block while running on an IO thread, as that would stop all other requests on the same
+ * thread from being processed. So methods that wait on the network, such as reading the request body with
+ * {@link MuRequest#readBodyAsString()} or writing with {@link MuResponse#sendChunk(String)} or
+ * {@link MuResponse#outputStream()}, throw an {@link IllegalStateException} when called from an IO thread. The
+ * body can be read and written with the {@link AsyncHandle} instead. {@link MuResponse#write(String)} can be used
+ * as it does not need to wait for the response to be sent.</p>
+ * <p>Non-blocking handlers that are added to the server before any other handlers are run on the IO thread. If none
+ * of them handle the request, the remaining handlers are run on the handler executor as usual. A non-blocking
+ * handler added after a blocking handler is run on the handler executor.</p>
+ * @see MuServerBuilder#addNonBlockingHandler(Method, String, RouteHandler)
+ */
+public interface NonBlockingMuHandler extends MuHandler {
+}
@@ -0,0 +1,83 @@
+package io.muserver;
+
+import jakarta.ws.rs.core.MediaType;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parsed forms of the headers that have been asked for, so that a header is only parsed once no matter how
+ * many times it is read.
+ * <p>The {@link Headers} object that owns this throws it away whenever a header is changed.</p>
+ * <p>Lists are returned as copies, as callers have always been able to sort or change the lists that the
+ * {@link Headers} accessors return. Copying the parsed values is still much cheaper than parsing them again.</p>
+ */
+final class ParsedHeaderCache {
+
+    private @Nullable List<ParameterizedHeaderWithValue> accept;
+    private @Nullable List<ParameterizedHeaderWithValue> acceptCharset;
+    private @Nullable List<ParameterizedHeaderWithValue> acceptEncoding;
+    private @Nullable List<ParameterizedHeaderWithValue> acceptLanguage;
+    private @Nullable List<ForwardedHeader> forwarded;
+    private @Nullable ParameterizedHeader cacheControl;
+    private @Nullable MediaType contentType;
+    private boolean contentTypeParsed;
+
+    List<ParameterizedHeaderWithValue> accept(Headers headers) {
+        List<ParameterizedHeaderWithValue> v = accept;
+        if (v == null) {
+            v = accept = Headtils.getParameterizedHeaderWithValues(headers, HeaderNames.ACCEPT);
+        }
+        return new ArrayList<>(v);
+    }
+
+    List<ParameterizedHeaderWithValue> acceptCharset(Headers headers) {
+        List<ParameterizedHeaderWithValue> v = acceptCharset;
+        if (v == null) {
+            v = acceptCharset = Headtils.getParameterizedHeaderWithValues(headers, HeaderNames.ACCEPT_CHARSET);
+        }
+        return new ArrayList<>(v);
+    }
+
+    List<ParameterizedHeaderWithValue> acceptEncoding(Headers headers) {
+        List<ParameterizedHeaderWithValue> v = acceptEncoding;
+        if (v == null) {
+            v = acceptEncoding = Headtils.getParameterizedHeaderWithValues(headers, HeaderNames.ACCEPT_ENCODING);
+        }
+        return new ArrayList<>(v);
+    }
+
+    List<ParameterizedHeaderWithValue> acceptLanguage(Headers headers) {
+        List<ParameterizedHeaderWithValue> v = acceptLanguage;
+        if (v == null) {
+            v = acceptLanguage = Headtils.getParameterizedHeaderWithValues(headers, HeaderNames.ACCEPT_LANGUAGE);
+        }
+        return new ArrayList<>(v);
+    }
+
+    List<ForwardedHeader> forwarded(Headers headers) {
+        List<ForwardedHeader> v = forwarded;
+        if (v == null) {
+            v = forwarded = Headtils.getForwardedHeaders(headers);
+        }
+        return new ArrayList<>(v);
+    }
+
+    ParameterizedHeader cacheControl(Headers headers) {
+        ParameterizedHeader v = cacheControl;
+        if (v == null) {
+            v = cacheControl = ParameterizedHeader.fromString(headers.get(HeaderNames.CACHE_CONTROL));
+        }
+        return v;
+    }
+
+    @Nullable MediaType contentType(Headers headers) {
+        if (!contentTypeParsed) {
+            // an invalid value throws every time it is asked for, as it did before it was cached
+            contentType = Headtils.getMediaType(headers);
+            contentTypeParsed = true;
+        }
+        return contentType;
+    }
+}
@@ -0,0 +1,95 @@
+package io.muserver;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.internal.PlatformDependent;
+import org.jspecify.annotations.Nullable;
+
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes response data from a blocking handler thread without waiting for each write to complete.
+ * <p>Each write is handed to the event loop and the handler thread carries on straight away, so a handler
+ * streaming many small chunks is not limited to one round trip to the event loop per chunk. The number of bytes
+ * handed over but not yet written is bounded: once it reaches the channel's write buffer high water mark, or the
+ * channel becomes unwritable, the handler thread waits until earlier writes complete.</p>
+ * <p>The event loop runs tasks in order, so writes are made in the order they were given, and before anything
+ * the handler thread later blocks on, such as completing the response. If a write fails, the error is thrown from
+ * the next write.</p>
+ */
+class PipelinedWriter {
+
+    private final HttpExchange exchange;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition writeCompleted = lock.newCondition();
+    private long inFlightBytes;
+    private @Nullable Throwable error;
+
+    PipelinedWriter(HttpExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    /**
+     * Hands a write to the event loop, first waiting if too much data is already waiting to be written
+     * @param writeTask The task to run on the event loop, which returns the future of the write
+     * @param size The number of bytes being written
+     */
+    void write(Callable<ChannelFuture> writeTask, int size) {
+        exchange.throwIfInLoop();
+        Channel channel = exchange.ctx.channel();
+        long window = channel.config().getWriteBufferHighWaterMark();
+        lock.lock();
+        try {
+            while (error == null && inFlightBytes > 0 && (inFlightBytes >= window || !channel.isWritable())) {
+                writeCompleted.await();
+            }
+            throwIfFailed();
+            inFlightBytes += size;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while writing"));
+        } finally {
+            lock.unlock();
+        }
+        try {
+            exchange.ctx.executor().execute(() -> {
+                try {
+                    writeTask.call().addListener(f -> onWriteComplete(size, f.cause()));
+                } catch (Throwable e) {
+                    onWriteComplete(size, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            onWriteComplete(size, e);
+            throw e;
+        }
+    }
+
+    private void onWriteComplete(int size, @Nullable Throwable cause) {
+        lock.lock();
+        try {
+            inFlightBytes -= size;
+            if (cause != null && error == null) {
+                error = cause;
+            }
+            writeCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void throwIfFailed() {
+        Throwable error = this.error;
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error != null) {
+            // thrown as-is, as ChannelFuture.sync() does
+            PlatformDependent.throwException(error);
+        }
+    }
+}
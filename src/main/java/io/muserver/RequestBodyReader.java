@@ -9,6 +9,7 @@ import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.codec.http.multipart.*;
 import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.util.concurrent.EventExecutor;
 import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
@@ -21,8 +22,6 @@ import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
@@ -39,9 +38,12 @@ interface FormRequestBodyReader {
 
 abstract class RequestBodyReader {
 
-    private final CompletableFuture<@Nullable Throwable> future = new CompletableFuture<>();
+    private final CompletionLatch completion = new CompletionLatch();
     private final AtomicLong bytes = new AtomicLong();
     final long maxSize;
+    private final DoneCallback readDone = this::onReadDone;
+    private @Nullable DoneCallback readCallback;
+    private boolean readIsLast;
 
     long receivedBytes() {
         return bytes.get();
@@ -52,15 +54,15 @@ abstract class RequestBodyReader {
     }
 
     boolean completed() {
-        return future.isDone();
+        return completion.isCompleted();
     }
 
     protected @Nullable Throwable currentError() {
-        return future.getNow(null);
+        return completion.error();
     }
 
     void onCancelled(Throwable cause) {
-        future.complete(cause);
+        completion.complete(cause);
     }
 
     final void onRequestBodyRead(ByteBuf content, boolean last, DoneCallback callback) {
@@ -69,24 +71,29 @@ abstract class RequestBodyReader {
             if (soFar > maxSize) {
                 throw new ClientErrorException(closingResponse(413, "The request body was too large"));
             } else {
-                onRequestBodyRead0(content, last, error -> {
-                    if (error != null) {
-                        future.complete(error);
-                    } else if (last) {
-                        future.complete(null);
-                    }
-                    callback.onComplete(error);
-                });
+                // the next chunk is not read until the callback is called, so the same callback is used for each chunk
+                readCallback = callback;
+                readIsLast = last;
+                onRequestBodyRead0(content, last, readDone);
             }
         } catch (Exception e) {
             try {
                 callback.onComplete(e);
-                future.complete(e);
+                completion.complete(e);
             } catch (Exception ignored) {
             }
         }
     }
 
+    private void onReadDone(@Nullable Throwable error) throws Exception {
+        if (error != null) {
+            completion.complete(error);
+        } else if (readIsLast) {
+            completion.complete(null);
+        }
+        requireNonNull(readCallback).onComplete(error);
+    }
+
     abstract protected void onRequestBodyRead0(ByteBuf content, boolean last, DoneCallback callback);
 
     /**
@@ -95,7 +102,10 @@ abstract class RequestBodyReader {
     void blockUntilFullyRead() throws IOException {
         Throwable throwable;
         try {
-            throwable = future.get(1, TimeUnit.HOURS); // TODO: configure this. Note max-upload-size + read-idle timeouts are applying too.
+            if (!completion.await(1, TimeUnit.HOURS)) { // TODO: configure this. Note max-upload-size + read-idle timeouts are applying too.
+                throw new IOException("Timed out");
+            }
+            throwable = completion.error();
             if (throwable instanceof Http2Exception.StreamException) {
                 throwable = throwable.getCause();
             }
@@ -104,10 +114,6 @@ abstract class RequestBodyReader {
             } else if (throwable instanceof WebApplicationException) {
                 throw (WebApplicationException) throwable;
             }
-        } catch (ExecutionException e) {
-            throwable = Mutils.coalesce(e.getCause(), e);
-        } catch (TimeoutException e) {
-            throw new IOException("Timed out");
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new InterruptedIOException("Interrupted while reading request body");
@@ -123,7 +129,7 @@ abstract class RequestBodyReader {
         }
     }
 
-    private static Response closingResponse(int status, String message) {
+    static Response closingResponse(int status, String message) {
         return Response.status(status).entity(message)
             .header(HeaderNames.CONNECTION.toString(), HeaderValues.CLOSE)
             .build();
@@ -176,6 +182,176 @@ abstract class RequestBodyReader {
         }
     }
 
+    /**
+     * Parses a multipart body as it arrives and passes each part to a {@link FormPartListener}. A chunk of the body
+     * may hold several parts, so parsing stops at each piece of part data until the listener's done callback is
+     * called. Unparsed bytes at the end of a chunk are copied so that the chunk can be released.
+     */
+    static class MultipartListenerAdapter extends RequestBodyReader {
+        private final NettyRequestAdapter.AsyncHandleImpl asyncHandle;
+        private final EventExecutor executor;
+        private final MultipartParser parser;
+        private final FormPartListener listener;
+        private final DoneCallback dataDone = this::onDataDone;
+        private @Nullable ByteBuf leftover;
+        private @Nullable ByteBuf current;
+        private boolean currentIsCopy;
+        private @Nullable DoneCallback currentCallback;
+        private boolean currentIsLast;
+        private boolean parsing;
+        private boolean waitingForListener;
+        private boolean failed;
+
+        MultipartListenerAdapter(NettyRequestAdapter.AsyncHandleImpl asyncHandle, EventExecutor executor, long maxSize,
+                                 MultipartParser parser, FormPartListener listener) {
+            super(maxSize);
+            this.asyncHandle = asyncHandle;
+            this.executor = executor;
+            this.parser = parser;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void onRequestBodyRead0(ByteBuf content, boolean last, DoneCallback callback) {
+            ByteBuf previous = leftover;
+            if (previous != null) {
+                leftover = null;
+                previous.writeBytes(content);
+                current = previous;
+                currentIsCopy = true;
+            } else {
+                current = content;
+                currentIsCopy = false;
+            }
+            currentCallback = callback;
+            currentIsLast = last;
+            parse();
+        }
+
+        private void parse() {
+            ByteBuf in = requireNonNull(current);
+            parsing = true;
+            try {
+                while (!failed) {
+                    MultipartParser.Event event = parser.next(in);
+                    if (event == MultipartParser.Event.PART_START) {
+                        listener.onPartStart(parser.part());
+                    } else if (event == MultipartParser.Event.DATA) {
+                        waitingForListener = true;
+                        listener.onPartData(parser.part(), parser.data().nioBuffer(), dataDone);
+                        if (waitingForListener) {
+                            return; // continued by the done callback
+                        }
+                    } else if (event == MultipartParser.Event.PART_END) {
+                        listener.onPartEnd(parser.part());
+                    } else {
+                        endOfChunk(in);
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                fail(e);
+            } finally {
+                parsing = false;
+            }
+        }
+
+        private void onDataDone(@Nullable Throwable error) {
+            if (!executor.inEventLoop()) {
+                executor.execute(() -> onDataDone(error));
+            } else if (failed) {
+                // the body was cancelled while the listener had the data
+            } else if (error != null) {
+                fail(error);
+            } else if (waitingForListener) {
+                waitingForListener = false;
+                if (!parsing) {
+                    parse();
+                }
+            }
+        }
+
+        private void endOfChunk(ByteBuf in) throws Exception {
+            boolean ended = parser.ended();
+            if (currentIsLast && !ended) {
+                throw new ClientErrorException(closingResponse(400, "The multipart body ended before its closing boundary"));
+            }
+            if (!ended && in.isReadable()) {
+                ByteBuf rest = Unpooled.buffer(in.readableBytes() + 8192);
+                rest.writeBytes(in);
+                leftover = rest;
+            }
+            releaseCurrent();
+            DoneCallback callback = requireNonNull(currentCallback);
+            boolean last = currentIsLast;
+            currentCallback = null;
+            // the chunk is handed back first so it is released even if the listener throws, and this may synchronously
+            // deliver the next chunk, so the fields of this chunk must not be used after this
+            callback.onComplete(null);
+            if (last) {
+                listener.onComplete();
+            }
+        }
+
+        private void releaseCurrent() {
+            ByteBuf buf = current;
+            current = null;
+            if (buf != null && currentIsCopy) {
+                buf.release();
+            }
+        }
+
+        private void fail(Throwable error) {
+            if (failed) {
+                return;
+            }
+            failed = true;
+            releaseLeftover();
+            releaseCurrent();
+            DoneCallback callback = currentCallback;
+            currentCallback = null;
+            try {
+                if (callback != null) {
+                    callback.onComplete(error);
+                }
+            } catch (Exception ignored) {
+            } finally {
+                listener.onError(error);
+                if (error instanceof WebApplicationException) {
+                    asyncHandle.complete(error);
+                }
+            }
+        }
+
+        private void releaseLeftover() {
+            ByteBuf buf = leftover;
+            leftover = null;
+            if (buf != null) {
+                buf.release();
+            }
+        }
+
+        @Override
+        void onCancelled(Throwable cause) {
+            super.onCancelled(cause);
+            if (!executor.inEventLoop()) {
+                executor.execute(() -> onCancelled0(cause));
+            } else {
+                onCancelled0(cause);
+            }
+        }
+
+        private void onCancelled0(Throwable cause) {
+            if (!failed) {
+                failed = true;
+                releaseLeftover();
+                releaseCurrent();
+                listener.onError(cause);
+            }
+            asyncHandle.complete(cause);
+        }
+    }
+
     static class DiscardingReader extends RequestBodyReader {
 
         DiscardingReader(long maxSize) {
@@ -236,9 +412,16 @@ abstract class RequestBodyReader {
             return requireNonNull(form, "Form data has not been fully read");
         }
 
-        public MultipartFormReader(long maxSize, HttpRequest nettyRequest, Charset charset) {
+        public MultipartFormReader(long maxSize, HttpRequest nettyRequest, Charset charset, MultipartConfig config) {
             super(maxSize);
-            HttpDataFactory factory = new DefaultHttpDataFactory(charset);
+            DefaultHttpDataFactory factory = new DefaultHttpDataFactory(config.memoryThreshold, charset);
+            String tempDirectory = config.tempDirectoryName();
+            if (tempDirectory != null) {
+                factory.setBaseDir(tempDirectory);
+            }
+            if (config.maxPartSize > 0) {
+                factory.setMaxLimit(config.maxPartSize);
+            }
             multipartRequestDecoder = new HttpPostMultipartRequestDecoder(factory, nettyRequest, charset, 4096, 2048);
         }
 
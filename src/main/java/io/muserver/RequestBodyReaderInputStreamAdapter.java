@@ -7,6 +7,8 @@ import org.jspecify.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static java.util.Objects.requireNonNull;
 
@@ -16,13 +18,15 @@ class RequestBodyReaderInputStreamAdapter extends RequestBodyReader {
     private @Nullable ByteBuf currentBuf;
     private @Nullable DoneCallback currentCallback;
     private boolean userClosed = false;
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dataAvailable = lock.newCondition();
 
     private final InputStream stream = new InputStream() {
         @Override
         public int read() throws IOException {
 
-            synchronized (lock) {
+            lock.lock();
+            try {
                 if (finished) {
                     return -1;
                 }
@@ -36,6 +40,8 @@ class RequestBodyReaderInputStreamAdapter extends RequestBodyReader {
                 int b = currentBuf.readUnsignedByte();
                 afterConsumed();
                 return b;
+            } finally {
+                lock.unlock();
             }
         }
 
@@ -54,7 +60,8 @@ class RequestBodyReaderInputStreamAdapter extends RequestBodyReader {
                 return 0;
             }
 
-            synchronized (lock) {
+            lock.lock();
+            try {
                 if (userClosed) {
                     throw new IOException("Cannot call read after the stream is closed");
                 }
@@ -72,31 +79,40 @@ class RequestBodyReaderInputStreamAdapter extends RequestBodyReader {
                 currentBuf.readBytes(b, off, actual);
                 afterConsumed();
                 return actual;
+            } finally {
+                lock.unlock();
             }
         }
 
         @Override
         public long skip(long n) throws IOException {
-            synchronized (lock) {
+            lock.lock();
+            try {
                 waitForData();
                 ByteBuf buffer = requireNonNull(currentBuf);
                 int toSkip = Math.min((int) n, buffer.readableBytes());
                 buffer.skipBytes(toSkip);
                 afterConsumed();
                 return toSkip;
+            } finally {
+                lock.unlock();
             }
         }
 
         @Override
         public int available() {
-            synchronized (lock) {
+            lock.lock();
+            try {
                 return currentBuf == null ? 0 : currentBuf.readableBytes();
+            } finally {
+                lock.unlock();
             }
         }
 
         @Override
         public void close() throws IOException {
-            synchronized (lock) {
+            lock.lock();
+            try {
                 if (!userClosed) {
                     userClosed = true;
                     if (currentCallback != null) {
@@ -109,6 +125,8 @@ class RequestBodyReaderInputStreamAdapter extends RequestBodyReader {
                         currentBuf = null;
                     }
                 }
+            } finally {
+                lock.unlock();
             }
         }
 
@@ -146,14 +164,18 @@ class RequestBodyReaderInputStreamAdapter extends RequestBodyReader {
     @Override
     void onCancelled(Throwable cause) {
         super.onCancelled(cause);
-        synchronized (lock) {
-            lock.notify();
+        lock.lock();
+        try {
+            dataAvailable.signal();
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void onRequestBodyRead0(ByteBuf content, boolean last, DoneCallback callback) {
-        synchronized (lock) {
+        lock.lock();
+        try {
 
             if (userClosed) {
                 try {
@@ -173,7 +195,9 @@ class RequestBodyReaderInputStreamAdapter extends RequestBodyReader {
             if (last) {
                 receivedLast = true;
             }
-            lock.notify();
+            dataAvailable.signal();
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -203,7 +227,7 @@ class RequestBodyReaderInputStreamAdapter extends RequestBodyReader {
         }
         try {
             while (currentBuf == null) {
-                lock.wait();
+                dataAvailable.await();
                 throwIfErrored();
             }
         } catch (InterruptedException e) {
@@ -0,0 +1,184 @@
+package io.muserver;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+
+/**
+ * The validated and normalized target of a request, such as <code>/path/to/resource?a=b</code>, split into its
+ * path and query.
+ * <p>Almost all request targets are already normalized, so a single scan checks that the target only uses
+ * characters allowed by RFC 3986 and has no dot segments, redundant slashes or percent-encoding in the path, in
+ * which case the string received is used as is. Anything else is parsed and normalized with {@link URI}.</p>
+ */
+final class RequestTarget {
+    private static final Logger log = LoggerFactory.getLogger(RequestTarget.class);
+
+    /**
+     * Returned by {@link #scan(String)} when the target needs to be parsed as a URI
+     */
+    private static final int SLOW_PATH = -2;
+
+    /**
+     * The characters allowed in a path segment (RFC 3986 <code>pchar</code>) without percent-encoding, along with
+     * <code>/</code>
+     */
+    private static final boolean[] PATH_CHARS = new boolean[128];
+    /**
+     * The characters allowed in the authority of a URI, in addition to {@link #PATH_CHARS}
+     */
+    private static final boolean[] HOST_CHARS = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) PATH_CHARS[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) PATH_CHARS[c] = true;
+        for (char c = '0'; c <= '9'; c++) PATH_CHARS[c] = true;
+        for (char c : "-._~!$&'()*+,;=:@/".toCharArray()) PATH_CHARS[c] = true;
+        System.arraycopy(PATH_CHARS, 0, HOST_CHARS, 0, 128);
+        HOST_CHARS['/'] = false;
+        HOST_CHARS['['] = true;
+        HOST_CHARS[']'] = true;
+        HOST_CHARS['%'] = true;
+    }
+
+    /**
+     * The normalized target, with path and query
+     */
+    final String value;
+    /**
+     * The index of the <code>?</code> in {@link #value}, or -1 if there is no query
+     */
+    final int queryStart;
+
+    private RequestTarget(String value, int queryStart) {
+        this.value = value;
+        this.queryStart = queryStart;
+    }
+
+    /**
+     * @return The raw path, which is never empty
+     */
+    String rawPath() {
+        return queryStart < 0 ? value : value.substring(0, queryStart);
+    }
+
+    /**
+     * @return The raw query string, or null if the target has no query
+     */
+    @Nullable String rawQuery() {
+        return queryStart < 0 ? null : value.substring(queryStart + 1);
+    }
+
+    /**
+     * Validates and normalizes a request target
+     * @param target The target from the request line or <code>:path</code> pseudo-header
+     * @return The parsed target
+     * @throws InvalidHttpRequestException If the target is not a valid URI
+     * @throws RedirectException If the target starts with <code>//</code> and so is a host followed by a path
+     */
+    static RequestTarget parse(String target) throws InvalidHttpRequestException, RedirectException {
+        int queryStart = scan(target);
+        if (queryStart != SLOW_PATH) {
+            return new RequestTarget(target, queryStart);
+        }
+        try {
+            URI requestUri = new URI(target).normalize();
+            if (requestUri.getScheme() == null && requestUri.getHost() != null) {
+                throw new RedirectException(new URI(target.substring(1)).normalize());
+            }
+
+            String path = requestUri.getRawPath();
+            if (Mutils.nullOrEmpty(path)) {
+                path = "/";
+            } else if (path.charAt(0) != '/') {
+                // such as the asterisk-form used by server-wide OPTIONS requests, which has no resource to route to
+                throw new InvalidHttpRequestException(400, "400 Bad Request");
+            } else {
+                // decoding may create new dot segments, which are removed as they would be for the absolute URI
+                path = URI.create(Mutils.decodeUnreserved(path)).normalize().getRawPath();
+            }
+            String query = requestUri.getRawQuery();
+            return query == null ? new RequestTarget(path, -1) : new RequestTarget(path + "?" + query, path.length());
+        } catch (RedirectException | InvalidHttpRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) log.debug("Invalid request URL " + target);
+            throw new InvalidHttpRequestException(400, "400 Bad Request");
+        }
+    }
+
+    /**
+     * @return The index of the start of the query, or -1 if there is none, or {@link #SLOW_PATH} if the target is
+     * not a normalized origin-form target using only the allowed characters
+     */
+    private static int scan(String target) {
+        int len = target.length();
+        if (len == 0 || target.charAt(0) != '/') {
+            return SLOW_PATH;
+        }
+        int i = 1;
+        char prev = '/';
+        for (; i < len; i++) {
+            char c = target.charAt(i);
+            if (c == '?') {
+                break;
+            }
+            if (c >= 128 || !PATH_CHARS[c]) {
+                return SLOW_PATH;
+            }
+            if (prev == '/' && (c == '/' || (c == '.' && isDotSegment(target, i)))) {
+                return SLOW_PATH;
+            }
+            prev = c;
+        }
+        if (i == len) {
+            return -1;
+        }
+        int queryStart = i;
+        for (i++; i < len; i++) {
+            char c = target.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= len || Character.digit(target.charAt(i + 1), 16) < 0 || Character.digit(target.charAt(i + 2), 16) < 0) {
+                    return SLOW_PATH;
+                }
+                i += 2;
+            } else if (c != '?' && (c >= 128 || !PATH_CHARS[c])) {
+                return SLOW_PATH;
+            }
+        }
+        return queryStart;
+    }
+
+    /**
+     * @return <code>true</code> if the segment starting at the given index is <code>.</code> or <code>..</code>
+     */
+    private static boolean isDotSegment(String target, int start) {
+        int end = start + 1;
+        if (end < target.length() && target.charAt(end) == '.') {
+            end++;
+        }
+        return end == target.length() || target.charAt(end) == '/' || target.charAt(end) == '?';
+    }
+
+    /**
+     * Checks that a host header value only uses characters that are allowed in the authority of a URI, so that
+     * building the absolute request URI later cannot fail
+     * @param host The host header value
+     * @throws InvalidHttpRequestException If the value has characters that are not allowed
+     */
+    static void validateHost(String host) throws InvalidHttpRequestException {
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c >= 128 || !HOST_CHARS[c]) {
+                throw new InvalidHttpRequestException(400, "400 Bad Request - invalid Host header");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -24,31 +24,66 @@ public class Routes {
      * @see MuServerBuilder#addHandler(Method, String, RouteHandler)
      */
 	public static MuHandler route(@Nullable Method method, String uriTemplate, RouteHandler muHandler) {
-        UriPattern uriPattern = UriPattern.uriTemplateToRegex(uriTemplate);
-
-        return new MuHandler() {
-            @Override
-            public boolean handle(MuRequest request, MuResponse response) throws Exception {
-                boolean methodMatches = method == null || method.equals(request.method());
-                if (methodMatches) {
-                    PathMatch matcher = uriPattern.matcher(request.relativePath());
-                    if (matcher.fullyMatches()) {
-                        muHandler.handle(request, response, matcher.params());
-                        return true;
-                    }
+        return new RouteMuHandler(method, uriTemplate, muHandler);
+	}
+
+    /**
+     * Creates a new non-blocking handler that will only be called if it matches the given route info. The handler
+     * is called on an IO thread, so it must not block. See {@link NonBlockingMuHandler} for details.
+     * @param method The method to match, or <code>null</code> to accept any method.
+     * @param uriTemplate A URL template. Supports plain URLs like <code>/abc</code> or paths
+     *                   with named parameters such as <code>/abc/{id}</code> or named parameters
+     *                    with regexes such as <code>/abc/{id : [0-9]+}</code> where the named
+     *                    parameter values can be accessed with the <code>pathParams</code>
+     *                    parameter in the route handler.
+     * @param muHandler The handler to invoke if the method and URI matches.
+     * @return Returns a {@link NonBlockingMuHandler} that is only called if the request URI and method matches.
+     * @see MuServerBuilder#addNonBlockingHandler(Method, String, RouteHandler)
+     */
+    public static NonBlockingMuHandler nonBlockingRoute(@Nullable Method method, String uriTemplate, RouteHandler muHandler) {
+        return new NonBlockingRouteMuHandler(method, uriTemplate, muHandler);
+    }
+
+    private static class RouteMuHandler implements MuHandler {
+        private final @Nullable Method method;
+        private final String uriTemplate;
+        private final UriPattern uriPattern;
+        private final RouteHandler muHandler;
+
+        private RouteMuHandler(@Nullable Method method, String uriTemplate, RouteHandler muHandler) {
+            this.method = method;
+            this.uriTemplate = uriTemplate;
+            this.uriPattern = UriPattern.uriTemplateToRegex(uriTemplate);
+            this.muHandler = muHandler;
+        }
+
+        @Override
+        public boolean handle(MuRequest request, MuResponse response) throws Exception {
+            boolean methodMatches = method == null || method.equals(request.method());
+            if (methodMatches) {
+                PathMatch matcher = uriPattern.matcher(request.relativePath());
+                if (matcher.fullyMatches()) {
+                    muHandler.handle(request, response, matcher.params());
+                    return true;
                 }
-                return false;
             }
+            return false;
+        }
 
-            @Override
-            public String toString() {
-                return "RouteHandler{" +
-                    "method='" + (method == null ? "Any" : method.name()) + '\'' +
-                    ", path='" + uriTemplate + '\'' +
-                    '}';
-            }
-        };
-	}
+        @Override
+        public String toString() {
+            return "RouteHandler{" +
+                "method='" + (method == null ? "Any" : method.name()) + '\'' +
+                ", path='" + uriTemplate + '\'' +
+                '}';
+        }
+    }
+
+    private static class NonBlockingRouteMuHandler extends RouteMuHandler implements NonBlockingMuHandler {
+        private NonBlockingRouteMuHandler(@Nullable Method method, String uriTemplate, RouteHandler muHandler) {
+            super(method, uriTemplate, muHandler);
+        }
+    }
 
 	private Routes() {}
 }
@@ -0,0 +1,65 @@
+package io.muserver;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * The round trip time of a connection, smoothed in the same way as TCP does (RFC 6298) so that a single slow
+ * sample does not throw the reported value around.
+ * <p>Samples are added on the connection's event loop, and the values may be read from any thread.</p>
+ */
+class RttEstimator {
+
+    private volatile long smoothedNanos = -1;
+    private volatile long varianceNanos = -1;
+
+    /**
+     * Adds a single measured round trip
+     * @param rttNanos The time between sending a message and getting its acknowledgement
+     */
+    void onSample(long rttNanos) {
+        long smoothed = smoothedNanos;
+        if (smoothed < 0) {
+            varianceNanos = rttNanos / 2;
+            smoothedNanos = rttNanos;
+        } else {
+            varianceNanos = (3 * varianceNanos + Math.abs(smoothed - rttNanos)) / 4;
+            smoothedNanos = (7 * smoothed + rttNanos) / 8;
+        }
+    }
+
+    /**
+     * Replaces the values with ones that have already been smoothed, such as those measured by the kernel
+     */
+    void set(long smoothedNanos, long varianceNanos) {
+        this.varianceNanos = varianceNanos;
+        this.smoothedNanos = smoothedNanos;
+    }
+
+    boolean hasValue() {
+        return smoothedNanos >= 0;
+    }
+
+    long smoothedNanos() {
+        return smoothedNanos;
+    }
+
+    long varianceNanos() {
+        return varianceNanos;
+    }
+
+    Optional<Duration> smoothed() {
+        long nanos = smoothedNanos;
+        return nanos < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(nanos));
+    }
+
+    Optional<Duration> variance() {
+        long nanos = varianceNanos;
+        return nanos < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(nanos));
+    }
+
+    @Override
+    public String toString() {
+        return hasValue() ? "RTT " + smoothed().get().toMillis() + "ms (variance " + variance().get().toMillis() + "ms)" : "RTT unknown";
+    }
+}
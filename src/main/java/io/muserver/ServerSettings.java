@@ -4,6 +4,7 @@ import org.jspecify.annotations.Nullable;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 class ServerSettings {
     final long minimumGzipSize;
@@ -14,10 +15,40 @@ class ServerSettings {
     final boolean gzipEnabled;
     final Set<String> mimeTypesToGzip;
     final @Nullable List<RateLimiterImpl> rateLimiters;
+    /**
+     * The maximum number of flushes to combine before writing to the socket, or 0 to flush every write
+     */
+    final int flushConsolidation;
+    /**
+     * The maximum number of requests on an HTTP1 connection that are handled at the same time
+     */
+    final int http1PipeliningDepth;
+    /**
+     * The value of the alt-svc header added to each response, or null to not add one
+     */
+    final @Nullable String altSvc;
+    /**
+     * How often to measure the round trip time of each connection, or 0 to not measure it
+     */
+    final long rttMeasurementIntervalMillis;
+    /**
+     * The number of requests after which a connection is drained, or 0 for no limit
+     */
+    final long maxRequestsPerConnection;
+    /**
+     * The time after which a connection is drained, before jitter is applied, or 0 for no limit
+     */
+    final long maxConnectionAgeMillis;
+    /**
+     * How multipart request bodies are read
+     */
+    final MultipartConfig multipartConfig;
 
     ServerSettings(long minimumGzipSize, int maxHeadersSize, long requestReadTimeoutMillis, long maxRequestSize,
                    int maxUrlSize, boolean gzipEnabled, Set<String> mimeTypesToGzip,
-                   @Nullable List<RateLimiterImpl> rateLimiters) {
+                   @Nullable List<RateLimiterImpl> rateLimiters, int flushConsolidation,
+                   int http1PipeliningDepth, @Nullable String altSvc, long rttMeasurementIntervalMillis,
+                   long maxRequestsPerConnection, long maxConnectionAgeMillis, MultipartConfig multipartConfig) {
         this.minimumGzipSize = minimumGzipSize;
         this.maxHeadersSize = maxHeadersSize;
         this.requestReadTimeoutMillis = requestReadTimeoutMillis;
@@ -26,6 +57,25 @@ class ServerSettings {
         this.gzipEnabled = gzipEnabled;
         this.mimeTypesToGzip = mimeTypesToGzip;
         this.rateLimiters = rateLimiters;
+        this.flushConsolidation = flushConsolidation;
+        this.http1PipeliningDepth = http1PipeliningDepth;
+        this.altSvc = altSvc;
+        this.rttMeasurementIntervalMillis = rttMeasurementIntervalMillis;
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+        this.maxConnectionAgeMillis = maxConnectionAgeMillis;
+        this.multipartConfig = multipartConfig;
+    }
+
+    /**
+     * @return The age at which a new connection should be drained, randomly reduced by up to 10% so that connections
+     * opened at the same time are not all drained at the same time, or 0 if there is no limit
+     */
+    long connectionLifetimeMillis() {
+        if (maxConnectionAgeMillis <= 0) {
+            return 0;
+        }
+        long jitter = maxConnectionAgeMillis / 10;
+        return Math.max(1, maxConnectionAgeMillis - (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0));
     }
 
     boolean shouldCompress(@Nullable String declaredLength, @Nullable String contentType) {
@@ -65,6 +115,12 @@ class ServerSettings {
             ", maxUrlSize=" + maxUrlSize +
             ", gzipEnabled=" + gzipEnabled +
             ", rateLimiters=" + rateLimiters +
+            ", flushConsolidation=" + flushConsolidation +
+            ", http1PipeliningDepth=" + http1PipeliningDepth +
+            ", altSvc=" + altSvc +
+            ", rttMeasurementIntervalMillis=" + rttMeasurementIntervalMillis +
+            ", maxRequestsPerConnection=" + maxRequestsPerConnection +
+            ", maxConnectionAgeMillis=" + maxConnectionAgeMillis +
             '}';
     }
 }
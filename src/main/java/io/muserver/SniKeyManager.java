@@ -49,14 +49,17 @@ class SniKeyManager extends X509ExtendedKeyManager {
 
     @Override
     public @Nullable String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
-        ExtendedSSLSession session = (ExtendedSSLSession) engine.getHandshakeSession();
+        SSLSession session = engine.getHandshakeSession();
 
-        // Pick first SNIHostName in the list of SNI names.
+        // Pick first SNIHostName in the list of SNI names. The QUIC engine used for HTTP/3 does not have an extended
+        // session, so it gets the default certificate.
         @Nullable String sniHostname = null;
-        for (SNIServerName name : session.getRequestedServerNames()) {
-            if (name.getType() == StandardConstants.SNI_HOST_NAME) {
-                sniHostname = ((SNIHostName) name).getAsciiName();
-                break;
+        if (session instanceof ExtendedSSLSession) {
+            for (SNIServerName name : ((ExtendedSSLSession) session).getRequestedServerNames()) {
+                if (name.getType() == StandardConstants.SNI_HOST_NAME) {
+                    sniHostname = ((SNIHostName) name).getAsciiName();
+                    break;
+                }
             }
         }
 
@@ -0,0 +1,122 @@
+package io.muserver;
+
+import io.netty.buffer.AdaptiveByteBufAllocator;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Socket options and buffer allocation settings
+ * @see SocketConfigBuilder
+ */
+public class SocketConfig {
+
+    final boolean tcpNoDelay;
+    final int backlog;
+    final int socketSendBufferSize;
+    final int socketReceiveBufferSize;
+    final int tcpFastOpen;
+    final int tcpDeferAccept;
+    final boolean tcpQuickAck;
+    final BufferAllocatorType allocator;
+    final boolean preferDirectBuffers;
+    final int readBufferMinimum;
+    final int readBufferInitial;
+    final int readBufferMaximum;
+
+    SocketConfig(boolean tcpNoDelay, int backlog, int socketSendBufferSize, int socketReceiveBufferSize, int tcpFastOpen,
+                 int tcpDeferAccept, boolean tcpQuickAck, BufferAllocatorType allocator, boolean preferDirectBuffers,
+                 int readBufferMinimum, int readBufferInitial, int readBufferMaximum) {
+        this.tcpNoDelay = tcpNoDelay;
+        this.backlog = backlog;
+        this.socketSendBufferSize = socketSendBufferSize;
+        this.socketReceiveBufferSize = socketReceiveBufferSize;
+        this.tcpFastOpen = tcpFastOpen;
+        this.tcpDeferAccept = tcpDeferAccept;
+        this.tcpQuickAck = tcpQuickAck;
+        this.allocator = allocator;
+        this.preferDirectBuffers = preferDirectBuffers;
+        this.readBufferMinimum = readBufferMinimum;
+        this.readBufferInitial = readBufferInitial;
+        this.readBufferMaximum = readBufferMaximum;
+    }
+
+    /**
+     * @return A new allocator for the configured type, or <code>null</code> to use the transport's default
+     */
+    @Nullable ByteBufAllocator createAllocator() {
+        switch (allocator) {
+            case POOLED:
+                return preferDirectBuffers == PooledByteBufAllocator.defaultPreferDirect()
+                    ? PooledByteBufAllocator.DEFAULT : new PooledByteBufAllocator(preferDirectBuffers);
+            case UNPOOLED:
+                return new UnpooledByteBufAllocator(preferDirectBuffers);
+            case ADAPTIVE:
+                return new AdaptiveByteBufAllocator(preferDirectBuffers);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return The read buffer sizing strategy, or <code>null</code> to use the transport's default
+     */
+    @Nullable RecvByteBufAllocator createReadBufferAllocator() {
+        if (readBufferMinimum == 0) {
+            return null;
+        }
+        if (readBufferMinimum == readBufferMaximum) {
+            return new FixedRecvByteBufAllocator(readBufferMinimum);
+        }
+        return new AdaptiveRecvByteBufAllocator(readBufferMinimum, readBufferInitial, readBufferMaximum);
+    }
+
+    /**
+     * @return <code>true</code> if any options that are only supported by native transports have been set
+     */
+    boolean hasNativeOnlyOptions() {
+        return tcpFastOpen > 0 || tcpDeferAccept > 0 || tcpQuickAck;
+    }
+
+    @Override
+    public String toString() {
+        return "SocketConfig{" +
+            "tcpNoDelay=" + tcpNoDelay +
+            ", backlog=" + backlog +
+            ", socketSendBufferSize=" + socketSendBufferSize +
+            ", socketReceiveBufferSize=" + socketReceiveBufferSize +
+            ", tcpFastOpen=" + tcpFastOpen +
+            ", tcpDeferAccept=" + tcpDeferAccept +
+            ", tcpQuickAck=" + tcpQuickAck +
+            ", allocator=" + allocator +
+            ", preferDirectBuffers=" + preferDirectBuffers +
+            ", readBufferMinimum=" + readBufferMinimum +
+            ", readBufferInitial=" + readBufferInitial +
+            ", readBufferMaximum=" + readBufferMaximum +
+            '}';
+    }
+
+    /**
+     * @return A new socket config builder based on the current settings
+     */
+    public SocketConfigBuilder toBuilder() {
+        SocketConfigBuilder builder = new SocketConfigBuilder()
+            .withTcpNoDelay(tcpNoDelay)
+            .withBacklog(backlog)
+            .withSocketSendBufferSize(socketSendBufferSize)
+            .withSocketReceiveBufferSize(socketReceiveBufferSize)
+            .withTcpFastOpen(tcpFastOpen)
+            .withTcpDeferAccept(tcpDeferAccept)
+            .withTcpQuickAck(tcpQuickAck)
+            .withAllocator(allocator)
+            .withPreferDirectBuffers(preferDirectBuffers);
+        if (readBufferMinimum > 0) {
+            builder.withAdaptiveReadBufferSize(readBufferMinimum, readBufferInitial, readBufferMaximum);
+        }
+        return builder;
+    }
+}
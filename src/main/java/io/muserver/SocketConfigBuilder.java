@@ -0,0 +1,266 @@
+package io.muserver;
+
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * <p>Configuration builder for the socket options and buffer allocation strategies used by the server, which
+ * is passed to {@link MuServerBuilder#withSocketConfig(SocketConfigBuilder)}</p>
+ * <p>For any setting left unspecified, the default of the operating system or Netty is used.</p>
+ */
+public class SocketConfigBuilder {
+
+    private boolean tcpNoDelay = true;
+    private int backlog = 0;
+    private int socketSendBufferSize = 0;
+    private int socketReceiveBufferSize = 0;
+    private int tcpFastOpen = 0;
+    private int tcpDeferAccept = 0;
+    private boolean tcpQuickAck = false;
+    private BufferAllocatorType allocator = BufferAllocatorType.DEFAULT;
+    private boolean preferDirectBuffers = PooledByteBufAllocator.defaultPreferDirect();
+    private int readBufferMinimum = 0;
+    private int readBufferInitial = 0;
+    private int readBufferMaximum = 0;
+
+    /**
+     * Sets the <code>TCP_NODELAY</code> option on client connections, which disables Nagle's algorithm so that
+     * small writes are sent without delay.
+     * @param tcpNoDelay <code>true</code> to disable Nagle's algorithm. The default is <code>true</code>.
+     * @return This builder
+     */
+    public SocketConfigBuilder withTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    /**
+     * Sets the <code>SO_BACKLOG</code> option of the listening sockets, which is the maximum number of connections
+     * waiting to be accepted.
+     * @param backlog The maximum queue length, or <code>0</code> to use the operating system's default
+     *                (<code>somaxconn</code> on Linux). The default is <code>0</code>.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public SocketConfigBuilder withBacklog(int backlog) {
+        this.backlog = requireNonNegative("backlog", backlog);
+        return this;
+    }
+
+    /**
+     * Sets the <code>SO_SNDBUF</code> option on client connections.
+     * @param size The size in bytes of the kernel send buffer, or <code>0</code> to let the operating system
+     *             choose (and auto-tune, where supported). The default is <code>0</code>.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public SocketConfigBuilder withSocketSendBufferSize(int size) {
+        this.socketSendBufferSize = requireNonNegative("socketSendBufferSize", size);
+        return this;
+    }
+
+    /**
+     * <p>Sets the <code>SO_RCVBUF</code> option on client connections.</p>
+     * <p>This is also set on the listening sockets so that accepted connections can advertise a large enough
+     * TCP window scale during the handshake.</p>
+     * @param size The size in bytes of the kernel receive buffer, or <code>0</code> to let the operating system
+     *             choose (and auto-tune, where supported). The default is <code>0</code>.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public SocketConfigBuilder withSocketReceiveBufferSize(int size) {
+        this.socketReceiveBufferSize = requireNonNegative("socketReceiveBufferSize", size);
+        return this;
+    }
+
+    /**
+     * <p>Enables TCP Fast Open on the listening sockets, allowing clients that have connected before to send
+     * request data in the <code>SYN</code> packet.</p>
+     * <p>This is only supported by the native {@link Transport#EPOLL} and {@link Transport#IO_URING} transports
+     * and is ignored, with a warning, when using NIO.</p>
+     * @param queueLength The maximum number of pending fast open requests, or <code>0</code> to disable.
+     *                    The default is <code>0</code>.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public SocketConfigBuilder withTcpFastOpen(int queueLength) {
+        this.tcpFastOpen = requireNonNegative("tcpFastOpen", queueLength);
+        return this;
+    }
+
+    /**
+     * <p>Sets <code>TCP_DEFER_ACCEPT</code> on the listening sockets, so that connections are only accepted
+     * once the client has sent some data.</p>
+     * <p>This is only supported by the native {@link Transport#EPOLL} and {@link Transport#IO_URING} transports
+     * and is ignored, with a warning, when using NIO.</p>
+     * @param seconds The number of seconds to wait for data before the connection is accepted anyway, or
+     *                <code>0</code> to disable. The default is <code>0</code>.
+     * @return This builder
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public SocketConfigBuilder withTcpDeferAccept(int seconds) {
+        this.tcpDeferAccept = requireNonNegative("tcpDeferAccept", seconds);
+        return this;
+    }
+
+    /**
+     * <p>Sets <code>TCP_QUICKACK</code> on client connections, so that acknowledgements are sent immediately
+     * rather than being delayed.</p>
+     * <p>This is only supported by the native {@link Transport#EPOLL} and {@link Transport#IO_URING} transports
+     * and is ignored, with a warning, when using NIO.</p>
+     * @param tcpQuickAck <code>true</code> to enable quick acknowledgements. The default is <code>false</code>.
+     * @return This builder
+     */
+    public SocketConfigBuilder withTcpQuickAck(boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+        return this;
+    }
+
+    /**
+     * Specifies the allocator used for the buffers that data is read into and written from.
+     * @param allocator The allocator type. The default is {@link BufferAllocatorType#DEFAULT}.
+     * @return This builder
+     */
+    public SocketConfigBuilder withAllocator(BufferAllocatorType allocator) {
+        Mutils.notNull("allocator", allocator);
+        this.allocator = allocator;
+        return this;
+    }
+
+    /**
+     * Specifies whether direct (off-heap) buffers are preferred over heap buffers. This has no effect when the
+     * allocator is {@link BufferAllocatorType#DEFAULT}.
+     * @param preferDirectBuffers <code>true</code> to prefer direct buffers. The default is <code>true</code> on
+     *                            platforms that support direct buffers.
+     * @return This builder
+     */
+    public SocketConfigBuilder withPreferDirectBuffers(boolean preferDirectBuffers) {
+        this.preferDirectBuffers = preferDirectBuffers;
+        return this;
+    }
+
+    /**
+     * <p>Reads socket data into buffers of a fixed size.</p>
+     * <p>This is useful when the typical message size is known, for example when all requests are small API
+     * calls.</p>
+     * @param size The size in bytes of each read buffer
+     * @return This builder
+     * @throws IllegalArgumentException if the size is less than 1
+     * @see #withAdaptiveReadBufferSize(int, int, int)
+     */
+    public SocketConfigBuilder withFixedReadBufferSize(int size) {
+        return withAdaptiveReadBufferSize(size, size, size);
+    }
+
+    /**
+     * <p>Reads socket data into buffers which grow when reads fill them, and shrink when they do not. This is the
+     * default strategy, using Netty's default sizes.</p>
+     * <p>A higher maximum allows large uploads to be read with fewer, larger reads while the minimum keeps the
+     * memory used by idle or small requests low.</p>
+     * @param minimum The smallest read buffer size in bytes
+     * @param initial The read buffer size in bytes used for the first read on a connection
+     * @param maximum The largest read buffer size in bytes
+     * @return This builder
+     * @throws IllegalArgumentException if the minimum is less than 1, or the values are not in ascending order
+     * @see #withFixedReadBufferSize(int)
+     */
+    public SocketConfigBuilder withAdaptiveReadBufferSize(int minimum, int initial, int maximum) {
+        if (minimum < 1) {
+            throw new IllegalArgumentException("The minimum read buffer size must be at least 1 but was " + minimum);
+        }
+        if (initial < minimum || maximum < initial) {
+            throw new IllegalArgumentException("Read buffer sizes must satisfy minimum <= initial <= maximum but were "
+                + minimum + ", " + initial + " and " + maximum);
+        }
+        this.readBufferMinimum = minimum;
+        this.readBufferInitial = initial;
+        this.readBufferMaximum = maximum;
+        return this;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public boolean tcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int backlog() {
+        return backlog;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int socketSendBufferSize() {
+        return socketSendBufferSize;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int socketReceiveBufferSize() {
+        return socketReceiveBufferSize;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int tcpFastOpen() {
+        return tcpFastOpen;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public int tcpDeferAccept() {
+        return tcpDeferAccept;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public boolean tcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public BufferAllocatorType allocator() {
+        return allocator;
+    }
+
+    /**
+     * @return The current value of this property
+     */
+    public boolean preferDirectBuffers() {
+        return preferDirectBuffers;
+    }
+
+    /**
+     * Creates the socket settings object
+     * @return A new SocketConfig object
+     */
+    public SocketConfig build() {
+        return new SocketConfig(tcpNoDelay, backlog, socketSendBufferSize, socketReceiveBufferSize, tcpFastOpen,
+            tcpDeferAccept, tcpQuickAck, allocator, preferDirectBuffers, readBufferMinimum, readBufferInitial, readBufferMaximum);
+    }
+
+    /**
+     * Creates a new config with the default settings
+     * @return A new builder
+     */
+    public static SocketConfigBuilder socketConfig() {
+        return new SocketConfigBuilder();
+    }
+
+    private static int requireNonNegative(String name, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must be non-negative but was " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,58 @@
+package io.muserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * A part of a <code>multipart/form-data</code> request body that is being read from the client.
+ * <p>The body of the part can be read once, and only until {@link FormPartReader#next()} is called again, after
+ * which any unread data in this part is skipped.</p>
+ * @see MuRequest#formPartReader()
+ */
+public interface StreamingFormPart extends FormPart {
+
+    /**
+     * <p>Gets the body of this part as it is received.</p>
+     * <p>The stream ends at the end of this part. Closing it skips the rest of the part.</p>
+     * @return An input stream of the part body
+     */
+    InputStream inputStream();
+
+    /**
+     * Reads the whole body of this part as a string, such as the value of a form field. The charset in the part's
+     * content type is used, otherwise the charset of the request, which defaults to UTF-8.
+     * @return The value of the part
+     * @throws IOException If the body could not be read
+     */
+    String value() throws IOException;
+
+    /**
+     * Writes the body of this part to a file as it is received, without storing it anywhere first. Any existing
+     * file is replaced.
+     * @param destination The file to write to
+     * @return The number of bytes written
+     * @throws IOException If the body could not be read or the file could not be written
+     */
+    long transferTo(Path destination) throws IOException;
+
+    /**
+     * Writes the body of this part to a stream as it is received. The stream is not closed.
+     * @param out The stream to write to
+     * @return The number of bytes written
+     * @throws IOException If the body could not be read or the stream could not be written to
+     */
+    long transferTo(OutputStream out) throws IOException;
+
+    /**
+     * <p>Reads the whole body of this part into an uploaded file. The body is kept in memory unless it is larger
+     * than {@link MultipartConfigBuilder#withMemoryThreshold(long)}, in which case it is written to a temporary file
+     * in {@link MultipartConfigBuilder#withTempDirectory(java.nio.file.Path)}.</p>
+     * <p>Temporary files are deleted when the request completes, so use {@link UploadedFile#saveTo(java.io.File)}
+     * to keep it, or {@link #transferTo(Path)} to write it straight to its final location instead.</p>
+     * @return The uploaded file
+     * @throws IOException If the body could not be read or written to disk
+     */
+    UploadedFile toUploadedFile() throws IOException;
+}
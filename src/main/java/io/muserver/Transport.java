@@ -0,0 +1,32 @@
+package io.muserver;
+
+/**
+ * The Netty transport used for network I/O, set with {@link MuServerBuilder#withTransport(Transport)}
+ * <p>The native transports are only used when their Netty libraries (including the native library for the
+ * current platform) are on the classpath. If a requested transport is unavailable then NIO is used instead.</p>
+ */
+public enum Transport {
+
+    /**
+     * Uses epoll if it is available, otherwise NIO.
+     */
+    AUTO,
+
+    /**
+     * The Java NIO transport, which works on all platforms.
+     */
+    NIO,
+
+    /**
+     * The Linux epoll transport. Requires <code>io.netty:netty-transport-native-epoll</code> with the classifier
+     * for the current platform (for example <code>linux-x86_64</code>) on the classpath.
+     */
+    EPOLL,
+
+    /**
+     * The Linux io_uring transport. Requires <code>io.netty:netty-transport-native-io_uring</code> when using
+     * Netty 4.2, or <code>io.netty.incubator:netty-incubator-transport-native-io_uring</code> when using Netty 4.1,
+     * along with a kernel that supports io_uring.
+     */
+    IO_URING
+}
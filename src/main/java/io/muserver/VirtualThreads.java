@@ -0,0 +1,59 @@
+package io.muserver;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads, which are only available from Java 21. As Mu Server supports older Java versions,
+ * the APIs are called reflectively.
+ */
+class VirtualThreads {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return <code>true</code> if the current JVM supports virtual threads
+     */
+    static boolean isSupported() {
+        return threadFactory("probe-") != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * @param namePrefix The prefix of the name of each thread, which is followed by an incrementing number
+     * @return A new executor, or <code>null</code> if virtual threads are not supported by this JVM
+     */
+    static @Nullable ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory threadFactory = threadFactory(namePrefix);
+        if (threadFactory == null) {
+            return null;
+        }
+        try {
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not create virtual thread executor", e);
+            return null;
+        }
+    }
+
+    private static @Nullable ThreadFactory threadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available before Java 21 (or Java 19 and 20 without preview features enabled)
+            return null;
+        }
+    }
+}
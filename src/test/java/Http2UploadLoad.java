@@ -0,0 +1,73 @@
+import io.muserver.Method;
+import io.muserver.MuServer;
+import scaffolding.Http2Client;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.muserver.Http2ConfigBuilder.http2Enabled;
+import static io.muserver.MuServerBuilder.httpsServer;
+
+/**
+ * Sends many concurrent uploads over each of a few HTTP2 connections and reports the throughput, for measuring the
+ * inbound data path. Run with e.g. <code>-Dconnections=4 -Dstreams=100 -Dsize=262144 -Drounds=20</code>
+ */
+public class Http2UploadLoad {
+
+    public static void main(String[] args) throws Exception {
+        int connections = Integer.getInteger("connections", 4);
+        int streams = Integer.getInteger("streams", 100);
+        int size = Integer.getInteger("size", 256 * 1024);
+        int rounds = Integer.getInteger("rounds", 20);
+
+        MuServer server = httpsServer()
+            .withHttp2Config(http2Enabled().withMaxConcurrentStreams(Math.max(streams, 200)))
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                long received = 0;
+                byte[] buffer = new byte[16384];
+                try (InputStream in = request.inputStream().orElseThrow(() -> new IllegalStateException("No body"))) {
+                    int read;
+                    while ((read = in.read(buffer)) > -1) {
+                        received += read;
+                    }
+                }
+                response.write(String.valueOf(received));
+            })
+            .start();
+
+        byte[] body = new byte[size];
+        List<Http2Client> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                clients.add(Http2Client.connect(server.uri()));
+            }
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                List<CompletableFuture<Http2Client.Response>> responses = new ArrayList<>();
+                for (Http2Client client : clients) {
+                    for (int i = 0; i < streams; i++) {
+                        responses.add(client.post("/upload", body));
+                    }
+                }
+                for (CompletableFuture<Http2Client.Response> response : responses) {
+                    Http2Client.Response resp = response.get(2, TimeUnit.MINUTES);
+                    if (resp.status != 200 || !resp.body.equals(String.valueOf(size))) {
+                        throw new IllegalStateException("Unexpected response: " + resp);
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                double megabytes = (double) size * responses.size() / (1024 * 1024);
+                System.out.printf("Round %d: %d uploads, %.1f MB in %.2fs = %.1f MB/s%n",
+                    round + 1, responses.size(), megabytes, seconds, megabytes / seconds);
+            }
+        } finally {
+            for (Http2Client client : clients) {
+                client.close();
+            }
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.muserver;
+
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class AltSvcTest {
+
+    private MuServer server;
+
+    @Test
+    public void theHeaderIsAddedToResponsesWhenSet() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .withAltSvc("h3=\":443\"; ma=86400")
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hello"))
+            .addHandler(Method.GET, "/override", (request, response, pathParams) -> {
+                response.headers().set(HeaderNames.ALT_SVC, "clear");
+                response.write("Hello");
+            })
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.header("alt-svc"), equalTo("h3=\":443\"; ma=86400"));
+        }
+        try (Response resp = call(request(server.uri().resolve("/not-found")))) {
+            assertThat(resp.code(), is(404));
+            assertThat(resp.header("alt-svc"), equalTo("h3=\":443\"; ma=86400"));
+        }
+        try (Response resp = call(request(server.uri().resolve("/override")))) {
+            assertThat(resp.header("alt-svc"), equalTo("clear"));
+        }
+    }
+
+    @Test
+    public void theHeaderIsNotAddedByDefault() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hello"))
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.header("alt-svc"), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void valuesMustBeASingleLine() {
+        assertThrows(IllegalArgumentException.class, () -> MuServerBuilder.muServer().withAltSvc("h3=\":443\"\r\nx-injected: true"));
+        assertThrows(IllegalArgumentException.class, () -> MuServerBuilder.muServer().withAltSvc(" "));
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,186 @@
+package io.muserver;
+
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+
+import static io.muserver.ConcurrencyLimitConfigBuilder.concurrencyLimitConfig;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class ConcurrencyLimiterTest {
+
+    private MuServer server;
+
+    @Test
+    public void requestsOverTheLimitAreRejectedBeforeReachingAHandler() throws Exception {
+        CountDownLatch handlersStarted = new CountDownLatch(2);
+        CountDownLatch releaseHandlers = new CountDownLatch(1);
+        CompletableFuture<RejectedRequest> rejected = new CompletableFuture<>();
+        server = ServerUtils.httpsServerForTest()
+            .withConcurrencyLimit(concurrencyLimitConfig().withInitialLimit(2).withMinLimit(2).withMaxLimit(2))
+            .addRequestRejectListener(rejected::complete)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                handlersStarted.countDown();
+                releaseHandlers.await(30, TimeUnit.SECONDS);
+                response.write("done");
+            })
+            .start();
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = clientExecutor.submit(() -> body(call(request(server.uri()))));
+            Future<String> second = clientExecutor.submit(() -> body(call(request(server.uri()))));
+            assertThat(handlersStarted.await(10, TimeUnit.SECONDS), is(true));
+
+            try (Response resp = call(request(server.uri()))) {
+                assertThat(resp.code(), is(503));
+            }
+            assertThat(rejected.get(10, TimeUnit.SECONDS).status(), is(503));
+            assertThat(server.stats().rejectedDueToOverload(), is(1L));
+
+            releaseHandlers.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS), is("done"));
+            assertThat(second.get(10, TimeUnit.SECONDS), is("done"));
+        } finally {
+            releaseHandlers.countDown();
+            clientExecutor.shutdownNow();
+        }
+
+        // the in-flight count is released as the exchanges complete
+        MuAssert.assertEventually(() -> server.stats().activeRequests().size(), is(0));
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.code(), is(200));
+        }
+    }
+
+    @Test
+    public void shedHttp2StreamsDoNotCountTowardsTheirConnectionsHandlerLimit() throws Exception {
+        CountDownLatch handlerStarted = new CountDownLatch(1);
+        CountDownLatch releaseHandler = new CountDownLatch(1);
+        server = MuServerBuilder.httpServer()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled().withMaxConcurrentHandlers(2))
+            .withConcurrencyLimit(concurrencyLimitConfig().withInitialLimit(1).withMinLimit(1).withMaxLimit(1))
+            .addHandler(Method.GET, "/slow", (request, response, pathParams) -> {
+                handlerStarted.countDown();
+                releaseHandler.await(30, TimeUnit.SECONDS);
+                response.write("slow");
+            })
+            .addHandler(Method.POST, "/fast", (request, response, pathParams) -> response.write(request.readBodyAsString()))
+            .start();
+
+        try (Http2Client busy = Http2Client.connect(server.uri());
+             Http2Client shed = Http2Client.connect(server.uri())) {
+            CompletableFuture<Http2Client.Response> slow = busy.get("/slow");
+            assertThat(handlerStarted.await(10, TimeUnit.SECONDS), is(true));
+
+            // more sheds than the connection's handler limit
+            for (int i = 0; i < 3; i++) {
+                assertThat(shed.post("/fast", new byte[20000]).get(10, TimeUnit.SECONDS).status, is(503));
+            }
+            releaseHandler.countDown();
+            assertThat(slow.get(10, TimeUnit.SECONDS).body, is("slow"));
+            MuAssert.assertEventually(() -> server.stats().activeRequests().size(), is(0));
+
+            Http2Client.Response afterShedding = shed.post("/fast", "hello".getBytes(StandardCharsets.UTF_8)).get(10, TimeUnit.SECONDS);
+            assertThat(afterShedding.status, is(200));
+            assertThat(afterShedding.body, is("hello"));
+        } finally {
+            releaseHandler.countDown();
+        }
+        assertThat(server.stats().rejectedDueToOverload(), is(3L));
+    }
+
+    @Test
+    public void theLimitGrowsWhileLatencyIsSteadyAndTheLimiterIsBusy() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(concurrencyLimitConfig().withInitialLimit(10).build());
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), limiter.limit());
+        }
+        assertThat(limiter.limit(), greaterThan(50));
+    }
+
+    @Test
+    public void theLimitDoesNotGrowWhenFewRequestsAreInProgress() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(concurrencyLimitConfig().withInitialLimit(10).build());
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), 1);
+        }
+        assertThat(limiter.limit(), is(10));
+    }
+
+    @Test
+    public void theLimitShrinksWhenLatencyRises() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(concurrencyLimitConfig().withInitialLimit(100).build());
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), limiter.limit());
+        }
+        int steadyLimit = limiter.limit();
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(100), limiter.limit());
+        }
+        assertThat(limiter.limit(), lessThan(steadyLimit / 2));
+    }
+
+    @Test
+    public void theLimitStaysWithinTheConfiguredBounds() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(concurrencyLimitConfig()
+            .withInitialLimit(10).withMinLimit(5).withMaxLimit(20).build());
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), limiter.limit());
+        }
+        assertThat(limiter.limit(), is(20));
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(TimeUnit.SECONDS.toNanos(10 + i), limiter.limit());
+        }
+        assertThat(limiter.limit(), is(5));
+    }
+
+    @Test
+    public void acquiringFailsAtTheLimitUntilARequestIsReleased() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(concurrencyLimitConfig().withInitialLimit(2).build());
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(false));
+        limiter.release(System.nanoTime(), false);
+        assertThat(limiter.inFlight(), is(1));
+        assertThat(limiter.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void invalidConfigIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> concurrencyLimitConfig().withMinLimit(0));
+        assertThrows(IllegalArgumentException.class, () -> concurrencyLimitConfig().withLatencyTolerance(0.9));
+        assertThrows(IllegalArgumentException.class, () -> concurrencyLimitConfig().withSmoothing(0));
+        assertThrows(IllegalArgumentException.class, () -> concurrencyLimitConfig().withMinLimit(10).withMaxLimit(5).build());
+        assertThrows(IllegalArgumentException.class, () -> concurrencyLimitConfig().withInitialLimit(500).build());
+    }
+
+    @Test
+    public void configCanBeConvertedBackToABuilder() {
+        ConcurrencyLimitConfig config = concurrencyLimitConfig().withInitialLimit(5).withMinLimit(2).withMaxLimit(50)
+            .withLatencyTolerance(2).withSmoothing(0.5).build();
+        assertThat(config.toBuilder().build().toString(), is(config.toString()));
+    }
+
+    private static String body(Response response) throws IOException {
+        try (Response resp = response) {
+            return resp.body().string();
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
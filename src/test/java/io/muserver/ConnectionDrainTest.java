@@ -0,0 +1,161 @@
+package io.muserver;
+
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http1Client;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.muserver.MuServerBuilder.httpServer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ConnectionDrainTest {
+
+    private MuServer server;
+
+    private static MuServerBuilder helloServer() {
+        return httpServer()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hello"));
+    }
+
+    private static void assertEof(Http1Client client) throws Exception {
+        assertThat(client.in().read(), is(-1));
+    }
+
+    @Test
+    public void http1ConnectionsCloseAfterTheMaxRequests() throws Exception {
+        server = helloServer().withMaxRequestsPerConnection(2).start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/").flushHeaders();
+            assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+            Headers first = client.readHeaders();
+            assertThat(first.get("connection"), is(nullValue()));
+            assertThat(client.readBody(first), equalTo("Hello"));
+
+            client.writeRequestLine(Method.GET, "/").flushHeaders();
+            assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+            Headers second = client.readHeaders();
+            assertThat(second.get("connection"), equalTo("close"));
+            assertThat(client.readBody(second), equalTo("Hello"));
+            assertEof(client);
+        }
+        MuAssert.assertEventually(() -> server.stats().completedConnections(), is(1L));
+    }
+
+    @Test
+    public void idleHttp1ConnectionsAreClosedStraightAwayWhenDrained() throws Exception {
+        server = helloServer().start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/").flushHeaders();
+            assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+            assertThat(client.readBody(client.readHeaders()), equalTo("Hello"));
+            MuAssert.assertEventually(() -> server.stats().completedRequests(), is(1L));
+            server.activeConnections().forEach(HttpConnection::drain);
+            assertEof(client);
+        }
+    }
+
+    @Test
+    public void http1ResponsesInProgressCompleteBeforeTheConnectionCloses() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server = httpServer()
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                started.countDown();
+                MuAssert.assertNotTimedOut("release", release);
+                response.write("Finished");
+            })
+            .start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/").flushHeaders();
+            MuAssert.assertNotTimedOut("started", started);
+            server.activeConnections().forEach(HttpConnection::drain);
+            release.countDown();
+            assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+            Headers headers = client.readHeaders();
+            assertThat(headers.get("connection"), equalTo("close"));
+            assertThat(client.readBody(headers), equalTo("Finished"));
+            assertEof(client);
+        }
+    }
+
+    @Test
+    public void http1ConnectionsAreDrainedAfterTheMaxAge() throws Exception {
+        server = helloServer().withMaxConnectionAge(200, TimeUnit.MILLISECONDS).start();
+        long start = System.currentTimeMillis();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/").flushHeaders();
+            assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+            assertThat(client.readBody(client.readHeaders()), equalTo("Hello"));
+            assertEof(client);
+        }
+        assertThat(System.currentTimeMillis() - start, both(greaterThanOrEqualTo(150L)).and(lessThan(5000L)));
+    }
+
+    @Test
+    public void http2ConnectionsCloseAfterTheMaxRequests() throws Exception {
+        server = helloServer().withMaxRequestsPerConnection(2).start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            assertThat(client.get("/").get(10, TimeUnit.SECONDS).body, equalTo("Hello"));
+            assertThat(client.get("/").get(10, TimeUnit.SECONDS).body, equalTo("Hello"));
+            MuAssert.assertEventually(() -> server.stats().completedConnections(), is(1L));
+        }
+    }
+
+    @Test
+    public void http2StreamsInProgressCompleteBeforeTheConnectionCloses() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server = httpServer()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                started.countDown();
+                MuAssert.assertNotTimedOut("release", release);
+                response.write("Finished");
+            })
+            .start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            CompletableFuture<Http2Client.Response> resp = client.get("/");
+            MuAssert.assertNotTimedOut("started", started);
+            server.activeConnections().forEach(HttpConnection::drain);
+            Thread.sleep(100);
+            assertThat(server.stats().activeConnections(), is(1L));
+            release.countDown();
+            assertThat(resp.get(10, TimeUnit.SECONDS).body, equalTo("Finished"));
+            MuAssert.assertEventually(() -> server.stats().activeConnections(), is(0L));
+        }
+    }
+
+    @Test
+    public void stopDrainsConnectionsAndWaitsForRequestsInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        server = httpServer()
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                started.countDown();
+                Thread.sleep(300);
+                response.write("Finished");
+            })
+            .start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/").flushHeaders();
+            MuAssert.assertNotTimedOut("started", started);
+            assertThat(server.stop(10, TimeUnit.SECONDS), is(true));
+            assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+            Headers headers = client.readHeaders();
+            assertThat(headers.get("connection"), equalTo("close"));
+            assertThat(client.readBody(headers), equalTo("Finished"));
+            assertEof(client);
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -317,6 +317,20 @@ public class CookieTest {
         assertThat(actual.value(), equalTo("Some%20value%20%26%20another%20thing%3Dumm"));
     }
 
+    @Test
+    public void findingASingleCookieGivesTheSameValueAsDecodingThemAll() {
+        List<String> headers = Arrays.asList("a=1; b=2; ab=3", "b=4; c=\"quoted\"", "bad name=5; d=x y; e=6;;f=7",
+            "$Version=1; g=8; $Path=/", "h=9,i=10; ba=11", " j = 12 ");
+        List<Cookie> all = new ArrayList<>();
+        for (String header : headers) {
+            all.addAll(Cookie.nettyToMu(io.netty.handler.codec.http.cookie.ServerCookieDecoder.STRICT.decode(header)));
+        }
+        for (String name : Arrays.asList("a", "b", "ab", "c", "bad name", "d", "e", "f", "g", "$Path", "h", "i", "ba", "j", "missing", "")) {
+            Optional<String> expected = all.stream().filter(c -> c.name().equals(name)).map(Cookie::value).findFirst();
+            assertThat(name, NettyRequestAdapter.findCookie(headers, name), equalTo(expected));
+        }
+    }
+
     @Test
     public void noCookiesReturnsEmptySet() throws IOException {
         server = ServerUtils.httpsServerForTest()
@@ -0,0 +1,147 @@
+package io.muserver;
+
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http1Client;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class EarlyHintsTest {
+
+    private static final String PAGE = "<html><body>" + "Hello, world. ".repeat(200) + "</body></html>";
+    private MuServer server;
+
+    private static Headers preloadHints() {
+        return Headers.http2Headers()
+            .add(HeaderNames.LINK, "</style.css>; rel=preload; as=style")
+            .add(HeaderNames.LINK, "</script.js>; rel=preload; as=script");
+    }
+
+    private static MuServerBuilder serverWithHints() {
+        return ServerUtils.httpsServerForTest()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .addHandler(Method.GET, "/page", (request, response, pathParams) -> {
+                response.sendEarlyHints(preloadHints());
+                response.contentType(ContentTypes.TEXT_HTML_UTF8);
+                response.write(PAGE);
+            });
+    }
+
+    @Test
+    public void http1ClientsGetAnInformationalResponseBeforeTheFinalResponse() throws Exception {
+        server = serverWithHints().start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            for (String acceptEncoding : new String[]{"identity", "gzip"}) {
+                client.writeRequestLine(Method.GET, "/page")
+                    .writeHeader("accept-encoding", acceptEncoding)
+                    .flushHeaders();
+                assertThat(client.readLine(), equalTo("HTTP/1.1 103 Early Hints"));
+                Headers hints = client.readHeaders();
+                assertThat(hints.getAll("link"), contains("</style.css>; rel=preload; as=style", "</script.js>; rel=preload; as=script"));
+                assertThat(hints.contains("content-length"), is(false));
+
+                assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+                Headers headers = client.readHeaders();
+                assertThat(headers.contains("link"), is(false));
+                if (acceptEncoding.equals("gzip")) {
+                    assertThat(headers.get("content-encoding"), equalTo("gzip"));
+                } else {
+                    assertThat(headers.get("content-encoding"), is(nullValue()));
+                    assertThat(client.readBody(headers), equalTo(PAGE));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void http2ClientsGetAnInformationalHeadersFrameBeforeTheFinalResponse() throws Exception {
+        server = serverWithHints().start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            Http2Client.Response resp = client.get("/page").get(10, TimeUnit.SECONDS);
+            assertThat(resp.status, is(200));
+            assertThat(resp.body, equalTo(PAGE));
+            assertThat(resp.informational, hasSize(1));
+            io.netty.handler.codec.http2.Http2Headers hints = resp.informational.get(0);
+            assertThat(hints.status().toString(), equalTo("103"));
+            assertThat(hints.getAll("link").toString(), equalTo("[</style.css>; rel=preload; as=style, </script.js>; rel=preload; as=script]"));
+        }
+    }
+
+    @Test
+    public void asyncHandlersCanSendHintsFromOtherThreads() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .addHandler(Method.GET, "/page", (request, response, pathParams) -> {
+                AsyncHandle handle = request.handleAsync();
+                response.contentType(ContentTypes.TEXT_HTML_UTF8);
+                response.headers().set(HeaderNames.CONTENT_LENGTH, PAGE.length());
+                new Thread(() -> {
+                    response.sendEarlyHints(preloadHints());
+                    response.sendEarlyHints(Headers.http2Headers().add(HeaderNames.LINK, "</font.woff2>; rel=preload; as=font"));
+                    handle.write(Mutils.toByteBuffer(PAGE), error -> handle.complete(error));
+                }).start();
+            })
+            .start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            for (int i = 0; i < 3; i++) {
+                client.writeRequestLine(Method.GET, "/page").flushHeaders();
+                assertThat(client.readLine(), equalTo("HTTP/1.1 103 Early Hints"));
+                assertThat(client.readHeaders().getAll("link"), hasSize(2));
+                assertThat(client.readLine(), equalTo("HTTP/1.1 103 Early Hints"));
+                assertThat(client.readHeaders().getAll("link"), contains("</font.woff2>; rel=preload; as=font"));
+                assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+                assertThat(client.readBody(client.readHeaders()), equalTo(PAGE));
+            }
+        }
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            Http2Client.Response resp = client.get("/page").get(10, TimeUnit.SECONDS);
+            assertThat(resp.body, equalTo(PAGE));
+            assertThat(resp.informational, hasSize(2));
+            assertThat(resp.informational.get(1).get("link").toString(), equalTo("</font.woff2>; rel=preload; as=font"));
+        }
+    }
+
+    @Test
+    public void hintsCannotBeSentAfterTheResponseStarts() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                response.sendChunk("Started ");
+                try {
+                    response.sendEarlyHints(preloadHints());
+                    response.sendChunk("and sent hints");
+                } catch (IllegalStateException e) {
+                    response.sendChunk("and could not send hints");
+                }
+            })
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.body().string(), equalTo("Started and could not send hints"));
+        }
+    }
+
+    @Test
+    public void http10ClientsDoNotGetHints() throws Exception {
+        server = serverWithHints().start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, URI.create("/page"), "HTTP/1.0", true)
+                .flushHeaders();
+            assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+            assertThat(client.readBody(client.readHeaders()), equalTo(PAGE));
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,113 @@
+package io.muserver;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class EventLoopAffineExecutorTest {
+
+    private MuServer server;
+
+    @Test
+    public void tasksRunOnThePoolOfTheEventLoopThatSubmittedThem() throws Exception {
+        EventLoopGroup group = NettyTransport.create(Transport.NIO).newEventLoopGroup(3);
+        EventLoopAffineExecutor executor = new EventLoopAffineExecutor(group, 3, 30);
+        try {
+            int index = 0;
+            for (EventExecutor eventLoop : group) {
+                CompletableFuture<String> threadName = new CompletableFuture<>();
+                eventLoop.execute(() -> executor.execute(() -> threadName.complete(Thread.currentThread().getName())));
+                assertThat(threadName.get(10, TimeUnit.SECONDS), startsWith("muhandler-" + index + "-"));
+                index++;
+            }
+            CompletableFuture<String> fromOtherThread = new CompletableFuture<>();
+            executor.execute(() -> fromOtherThread.complete(Thread.currentThread().getName()));
+            assertThat(fromOtherThread.get(10, TimeUnit.SECONDS), startsWith("muhandler-"));
+        } finally {
+            executor.shutdown();
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(executor.isShutdown(), is(true));
+    }
+
+    @Test
+    public void aBusyEventLoopCanUseTheWholeThreadLimitBeforeTasksAreRejected() throws Exception {
+        EventLoopGroup group = NettyTransport.create(Transport.NIO).newEventLoopGroup(2);
+        EventLoopAffineExecutor executor = new EventLoopAffineExecutor(group, 2, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            EventExecutor eventLoop = group.next();
+            List<String> threadNames = new CopyOnWriteArrayList<>();
+            CountDownLatch started = new CountDownLatch(4);
+            for (int i = 0; i < 4; i++) {
+                eventLoop.submit(() -> executor.execute(() -> {
+                    threadNames.add(Thread.currentThread().getName());
+                    started.countDown();
+                    MuAssert.assertNotTimedOut("release", release);
+                })).get(10, TimeUnit.SECONDS);
+            }
+            assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+            // the pool of the event loop has 2 threads, so the other 2 tasks overflow rather than being rejected
+            assertThat(threadNames.stream().filter(name -> name.startsWith("muhandler-overflow-")).count(), is(2L));
+            assertThat(executor.hasIdleThread(), is(false));
+
+            Future<?> rejected = group.next().submit(() -> executor.execute(() -> {}));
+            ExecutionException ee = assertThrows(ExecutionException.class, () -> rejected.get(10, TimeUnit.SECONDS));
+            assertThat(ee.getCause(), instanceOf(RejectedExecutionException.class));
+
+            release.countDown();
+            MuAssert.assertEventually(executor::hasIdleThread, is(true));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void requestsOnTheSameConnectionAreHandledByTheSamePool() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .withNioThreads(2)
+            .withEventLoopAffineHandlers(true)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write(Thread.currentThread().getName()))
+            .start();
+        Set<String> pools = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            try (Response resp = call(request(server.uri()))) {
+                assertThat(resp.code(), is(200));
+                String threadName = resp.body().string();
+                assertThat(threadName, matchesPattern("muhandler-[01]-.*"));
+                pools.add(threadName.substring(0, "muhandler-0".length()));
+            }
+        }
+        assertThat(pools, hasSize(1));
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,79 @@
+package io.muserver;
+
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class FlushConsolidationTest {
+
+    private MuServer server;
+
+    @Test
+    public void fullAndStreamedResponsesAreSent() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .withFlushConsolidation(256)
+            .addHandler(Method.GET, "/full", (request, response, pathParams) -> response.write("Hello"))
+            .addHandler(Method.GET, "/chunked", (request, response, pathParams) -> {
+                for (int i = 0; i < 100; i++) {
+                    response.sendChunk(i + ",");
+                }
+            })
+            .start();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expected.append(i).append(',');
+        }
+        for (int i = 0; i < 5; i++) {
+            try (Response resp = call(request(server.uri().resolve("/full")))) {
+                assertThat(resp.body().string(), is("Hello"));
+            }
+            try (Response resp = call(request(server.uri().resolve("/chunked")))) {
+                assertThat(resp.body().string(), is(expected.toString()));
+            }
+        }
+    }
+
+    @Test
+    public void concurrentHttp2StreamsAreAllSent() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .withFlushConsolidation(256)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("stream " + request.query().get("i")))
+            .start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            List<CompletableFuture<Http2Client.Response>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                responses.add(client.get("/?i=" + i));
+            }
+            for (int i = 0; i < 50; i++) {
+                Http2Client.Response resp = responses.get(i).get(30, TimeUnit.SECONDS);
+                assertThat(resp.status, is(200));
+                assertThat(resp.body, equalTo("stream " + i));
+            }
+        }
+    }
+
+    @Test
+    public void negativeValuesAreNotAllowed() {
+        assertThrows(IllegalArgumentException.class, () -> MuServerBuilder.muServer().withFlushConsolidation(-1));
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
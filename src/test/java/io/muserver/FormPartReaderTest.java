@@ -0,0 +1,316 @@
+package io.muserver;
+
+import io.muserver.rest.MuRuntimeDelegate;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import jakarta.ws.rs.ClientErrorException;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.muserver.UploadTest.guangzhou;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+import static scaffolding.MuAssert.assertEventually;
+
+public class FormPartReaderTest {
+
+    private MuServer server;
+
+    private static RequestBody formWithImage() {
+        return new MultipartBody.Builder()
+            .setType(MultipartBody.FORM)
+            .addFormDataPart("Hello", "World")
+            .addPart(Headers.of("Content-Disposition", "form-data; name=\"image\"; filename=\"guangzhou.jpeg\""),
+                RequestBody.create(guangzhou, MediaType.parse("image/jpeg")))
+            .addFormDataPart("The name", "the value / with / stuff")
+            .build();
+    }
+
+    @Test
+    public void partsCanBeStreamedInOrder() throws IOException {
+        Path dir = Files.createTempDirectory("mu-form-parts");
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                try (FormPartReader reader = request.formPartReader()) {
+                    StreamingFormPart part;
+                    while ((part = reader.next()) != null) {
+                        if (part.isFile()) {
+                            Path dest = dir.resolve(part.filename());
+                            long size = part.transferTo(dest);
+                            response.sendChunk(part.name() + "=" + part.filename() + " " + part.contentType() + " " + size + " " + Files.size(dest) + "\n");
+                        } else {
+                            response.sendChunk(part.name() + "=" + part.value() + "\n");
+                        }
+                    }
+                }
+            }).start();
+
+        try (Response resp = call(request(server.uri().resolve("/upload")).post(formWithImage()))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), is("Hello=World\n" +
+                "image=guangzhou.jpeg image/jpeg 372987 372987\n" +
+                "The name=the value / with / stuff\n"));
+        }
+    }
+
+    @Test
+    public void unreadPartsAreSkippedAndPartsCanBeConvertedToUploadedFiles() throws IOException {
+        server = ServerUtils.httpsServerForTest()
+            .withMultipartConfig(MultipartConfigBuilder.multipartConfig().withMemoryThreshold(1024))
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                FormPartReader reader = request.formPartReader();
+                StreamingFormPart part;
+                while ((part = reader.next()) != null) {
+                    if (part.isFile()) {
+                        UploadedFile file = part.toUploadedFile();
+                        response.sendChunk(file.filename() + " " + file.size() + " " + file.asBytes().length + " " + file.contentType() + "\n");
+                    } else {
+                        response.sendChunk(part.name() + "\n");
+                    }
+                }
+            }).start();
+
+        try (Response resp = call(request(server.uri().resolve("/upload")).post(formWithImage()))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), is("Hello\n" +
+                "guangzhou.jpeg 372987 372987 image/jpeg\n" +
+                "The name\n"));
+        }
+    }
+
+    @Test
+    public void partsLargerThanTheLimitResultIn413OrAKilledConnection() throws IOException {
+        AtomicReference<Throwable> exception = new AtomicReference<>();
+        server = ServerUtils.httpsServerForTest()
+            .withMultipartConfig(MultipartConfigBuilder.multipartConfig().withMaxPartSize(10000))
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                try (FormPartReader reader = request.formPartReader()) {
+                    StreamingFormPart part;
+                    while ((part = reader.next()) != null) {
+                        part.transferTo(new ByteArrayOutputStream());
+                    }
+                } catch (Throwable e) {
+                    exception.set(e);
+                    throw e;
+                }
+                response.write("Should not get here");
+            }).start();
+
+        try (Response resp = call(request(server.uri().resolve("/upload")).post(formWithImage()))) {
+            assertThat(resp.code(), is(413));
+        } catch (Exception e) {
+            // the server may reset the stream before the client has sent the whole body
+            MuAssert.assertIOException(e);
+        }
+        assertEventually(exception::get, instanceOf(ClientErrorException.class));
+        assertThat(((ClientErrorException) exception.get()).getResponse().getStatus(), is(413));
+    }
+
+    @Test
+    public void tooManyPartsResultsIn413() throws IOException {
+        server = ServerUtils.httpsServerForTest()
+            .withMultipartConfig(MultipartConfigBuilder.multipartConfig().withMaxParts(2))
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                try (FormPartReader reader = request.formPartReader()) {
+                    while (reader.next() != null) {
+                    }
+                }
+                response.write("Should not get here");
+            }).start();
+
+        try (Response resp = call(request(server.uri().resolve("/upload")).post(new MultipartBody.Builder()
+            .setType(MultipartBody.FORM)
+            .addFormDataPart("a", "1")
+            .addFormDataPart("b", "2")
+            .addFormDataPart("c", "3")
+            .build()))) {
+            assertThat(resp.code(), is(413));
+        }
+    }
+
+    @Test
+    public void nonMultipartBodiesResultIn415() throws IOException {
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                request.formPartReader();
+                response.write("Should not get here");
+            }).start();
+
+        try (Response resp = call(request(server.uri().resolve("/upload"))
+            .post(RequestBody.create("Hello", MediaType.parse("text/plain"))))) {
+            assertThat(resp.code(), is(415));
+        }
+    }
+
+    @Test
+    public void partsCanBeReadAsynchronously() throws IOException {
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                AsyncHandle handle = request.handleAsync();
+                List<String> results = new CopyOnWriteArrayList<>();
+                handle.setFormPartListener(new FormPartListener() {
+                    private long size;
+
+                    @Override
+                    public void onPartStart(FormPart part) {
+                        size = 0;
+                    }
+
+                    @Override
+                    public void onPartData(FormPart part, ByteBuffer data, DoneCallback doneCallback) throws Exception {
+                        size += data.remaining();
+                        // complete on another thread to check the parser waits for the callback
+                        new Thread(() -> {
+                            try {
+                                doneCallback.onComplete(null);
+                            } catch (Exception e) {
+                                handle.complete(e);
+                            }
+                        }).start();
+                    }
+
+                    @Override
+                    public void onPartEnd(FormPart part) {
+                        results.add(part.name() + "=" + (part.isFile() ? part.filename() + " " : "") + size);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        handle.write(Mutils.toByteBuffer(String.join("\n", results)), handle::complete);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        handle.complete(t);
+                    }
+                });
+            }).start();
+
+        try (Response resp = call(request(server.uri().resolve("/upload")).post(formWithImage()))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), is("Hello=5\n" +
+                "image=guangzhou.jpeg 372987\n" +
+                "The name=24"));
+        }
+    }
+
+    @Test
+    public void theParserHandlesDelimitersSplitAcrossChunks() {
+        String body = "preamble\r\n--XyZ\r\n" +
+            "Content-Disposition: form-data; name=\"a\"\r\n\r\n" +
+            "value with \r\n--Xy almost a delimiter\r\n" +
+            "--XyZ\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename*=UTF-8''%E2%82%AC%20rates.txt\r\n" +
+            "Content-Type: text/plain\r\n\r\n" +
+            "\r\n" +
+            "--XyZ--\r\nepilogue";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            MultipartParser parser = new MultipartParser("XyZ", MultipartConfigBuilder.multipartConfig().build(), StandardCharsets.UTF_8);
+            ByteBuf in = Unpooled.buffer();
+            List<String> events = new CopyOnWriteArrayList<>();
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            int offset = 0;
+            boolean done = false;
+            while (!done) {
+                MultipartParser.Event event = parser.next(in);
+                switch (event) {
+                    case NEED_MORE:
+                        int length = Math.min(chunkSize, bytes.length - offset);
+                        if (length == 0) {
+                            throw new AssertionError("Ran out of data with chunk size " + chunkSize + " after " + events);
+                        }
+                        in.discardReadBytes();
+                        in.writeBytes(bytes, offset, length);
+                        offset += length;
+                        break;
+                    case PART_START:
+                        events.add("start " + parser.part().name() + " " + parser.part().filename());
+                        break;
+                    case DATA:
+                        ByteBuf data = parser.data();
+                        byte[] chunk = new byte[data.readableBytes()];
+                        data.readBytes(chunk);
+                        value.write(chunk, 0, chunk.length);
+                        break;
+                    case PART_END:
+                        events.add("end " + new String(value.toByteArray(), StandardCharsets.UTF_8));
+                        value.reset();
+                        break;
+                    case END:
+                        done = true;
+                        break;
+                }
+            }
+            assertThat("chunk size " + chunkSize, events, contains("start a null",
+                "end value with \r\n--Xy almost a delimiter",
+                "start file € rates.txt",
+                "end "));
+            assertThat(parser.ended(), is(true));
+            in.release();
+        }
+    }
+
+    @Test
+    public void partsWithoutANameAreRejected() {
+        MuRuntimeDelegate.ensureSet();
+        MultipartParser parser = new MultipartParser("b", MultipartConfigBuilder.multipartConfig().build(), StandardCharsets.UTF_8);
+        ByteBuf in = Unpooled.copiedBuffer("--b\r\nContent-Disposition: form-data\r\n\r\nhi\r\n--b--", StandardCharsets.UTF_8);
+        try {
+            ClientErrorException e = assertThrows(ClientErrorException.class, () -> parser.next(in));
+            assertThat(e.getResponse().getStatus(), is(400));
+        } finally {
+            in.release();
+        }
+    }
+
+    @Test
+    public void boundariesAreValidated() {
+        MuRuntimeDelegate.ensureSet();
+        assertThat(MultipartParser.boundary(jakarta.ws.rs.core.MediaType.valueOf("multipart/form-data; boundary=abc")), is("abc"));
+        assertThat(assertThrows(ClientErrorException.class, () -> MultipartParser.boundary(jakarta.ws.rs.core.MediaType.valueOf("multipart/form-data")))
+            .getResponse().getStatus(), is(400));
+        assertThat(assertThrows(ClientErrorException.class, () -> MultipartParser.boundary(jakarta.ws.rs.core.MediaType.valueOf("text/plain")))
+            .getResponse().getStatus(), is(415));
+    }
+
+    @Test
+    public void configCanBeCopiedToABuilder() {
+        File tmp = new File("target");
+        MultipartConfig config = MultipartConfigBuilder.multipartConfig()
+            .withMemoryThreshold(100).withTempDirectory(tmp.toPath()).withMaxPartSize(200)
+            .withMaxParts(3).withMaxPartHeaderSize(400).build();
+        assertThat(config.toBuilder().build().toString(), is(config.toString()));
+        assertThat(config.toString(), is("MultipartConfig{memoryThreshold=100, tempDirectory=target, maxPartSize=200, maxParts=3, maxPartHeaderSize=400}"));
+        assertThrows(IllegalArgumentException.class, () -> MultipartConfigBuilder.multipartConfig().withMaxParts(-1));
+        assertThrows(IllegalArgumentException.class, () -> MultipartConfigBuilder.multipartConfig().withMaxPartHeaderSize(0));
+    }
+
+    @After
+    public void stopIt() {
+        MuAssert.stopAndCheck(server);
+    }
+}
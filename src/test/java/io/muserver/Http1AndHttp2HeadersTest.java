@@ -15,6 +15,8 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.IsEqual.equalTo;
 
 public class Http1AndHttp2HeadersTest {
@@ -272,6 +274,60 @@ public class Http1AndHttp2HeadersTest {
         assertThat(headers.names(), containsInAnyOrder("content-type", "content-length"));
     }
 
+    @Test
+    public void parsedViewsAreOnlyParsedOnceUntilTheHeadersChange() {
+        for (Headers headers : impls) {
+            headers.set("accept", "text/html, application/json;q=0.9");
+            headers.set("x-forwarded-for", "10.0.0.1");
+            headers.set("cache-control", "max-age=60");
+            headers.set("content-type", "application/json; charset=UTF-8");
+
+            List<ParameterizedHeaderWithValue> accept = headers.accept();
+            assertThat(headers.accept().get(0), sameInstance(accept.get(0)));
+            List<ForwardedHeader> forwarded = headers.forwarded();
+            assertThat(headers.forwarded().get(0), sameInstance(forwarded.get(0)));
+            assertThat(headers.cacheControl(), sameInstance(headers.cacheControl()));
+            assertThat(headers.contentType(), sameInstance(headers.contentType()));
+
+            headers.add("accept", "text/plain");
+            headers.set("x-forwarded-for", "10.0.0.2");
+            headers.remove("cache-control");
+            headers.set("content-type", "text/plain");
+            assertThat(headers.accept().stream().map(ParameterizedHeaderWithValue::value).collect(Collectors.toList()),
+                contains("text/html", "application/json"));
+            assertThat(headers.forwarded().get(0).forValue(), is("10.0.0.2"));
+            assertThat(headers.cacheControl().parameters().isEmpty(), is(true));
+            assertThat(headers.contentType(), equalTo(MediaType.TEXT_PLAIN_TYPE));
+
+            headers.clear();
+            assertThat(headers.accept().isEmpty(), is(true));
+            assertThat(headers.contentType(), nullValue());
+        }
+    }
+
+    @Test
+    public void parsedListsCanBeChangedWithoutChangingTheCachedValues() {
+        for (Headers headers : impls) {
+            headers.set("accept-encoding", "gzip, br;q=0.9");
+            headers.set("forwarded", "for=10.0.0.1");
+            List<ParameterizedHeaderWithValue> acceptEncoding = headers.acceptEncoding();
+            acceptEncoding.sort(Comparator.comparing(ParameterizedHeaderWithValue::value));
+            acceptEncoding.clear();
+            headers.forwarded().clear();
+            assertThat(headers.acceptEncoding(), contains(ph("gzip"), ph("br", "q", "0.9")));
+            assertThat(headers.forwarded().size(), is(1));
+        }
+    }
+
+    @Test
+    public void commonMediaTypesAreShared() {
+        assertThat(MediaTypeParser.fromString("application/json"), sameInstance(MediaTypeParser.fromString("application/json")));
+        assertThat(MediaTypeParser.fromString("text/plain;charset=utf-8").getParameters(), equalTo(singletonMap("charset", "utf-8")));
+        MediaType custom = MediaTypeParser.fromString("application/vnd.example+json");
+        assertThat(custom, equalTo(new MediaType("application", "vnd.example+json")));
+        assertThat(MediaTypeParser.fromString("application/vnd.example+json"), not(sameInstance(custom)));
+    }
+
     static String stringsFrom(Iterator<Map.Entry<String, String>> iterator) {
         List<Map.Entry<String,String>> list = new ArrayList<>();
         iterator.forEachRemaining(list::add);
@@ -0,0 +1,168 @@
+package io.muserver;
+
+import jakarta.ws.rs.NotFoundException;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http1Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class Http1PipeliningTest {
+
+    private MuServer server;
+
+    @Test
+    public void pipelinedRequestsAreHandledConcurrentlyAndRespondedToInOrder() throws Exception {
+        CountDownLatch laterRequestsHandled = new CountDownLatch(3);
+        server = ServerUtils.httpsServerForTest()
+            .withHttp1PipeliningDepth(4)
+            .addHandler(Method.GET, "/slow", (request, response, pathParams) -> {
+                boolean concurrent = laterRequestsHandled.await(10, TimeUnit.SECONDS);
+                response.write("slow concurrent=" + concurrent);
+            })
+            .addHandler(Method.GET, "/fast/{i}", (request, response, pathParams) -> {
+                laterRequestsHandled.countDown();
+                response.write("fast " + pathParams.get("i"));
+            })
+            .start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/slow").endHeaders();
+            for (int i = 1; i <= 3; i++) {
+                client.writeRequestLine(Method.GET, "/fast/" + i).endHeaders();
+            }
+            client.flush();
+            assertThat(readResponse(client), equalTo("slow concurrent=true"));
+            for (int i = 1; i <= 3; i++) {
+                assertThat(readResponse(client), equalTo("fast " + i));
+            }
+        }
+    }
+
+    @Test
+    public void requestsWithBodiesCanBePipelined() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .withHttp1PipeliningDepth(8)
+            .addHandler(Method.POST, "/", (request, response, pathParams) -> response.write("posted " + request.readBodyAsString()))
+            .addHandler(Method.GET, "/{i}", (request, response, pathParams) -> response.write("got " + pathParams.get("i")))
+            .start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            for (int i = 0; i < 10; i++) {
+                if (i % 2 == 0) {
+                    byte[] body = ("body " + i).getBytes(StandardCharsets.UTF_8);
+                    client.writeRequestLine(Method.POST, "/").contentHeader("text/plain", body.length).endHeaders();
+                    client.out().write(body);
+                } else {
+                    client.writeRequestLine(Method.GET, "/" + i).endHeaders();
+                }
+            }
+            client.flush();
+            for (int i = 0; i < 10; i++) {
+                assertThat(readResponse(client), equalTo(i % 2 == 0 ? "posted body " + i : "got " + i));
+            }
+        }
+    }
+
+    @Test
+    public void errorsInPipelinedRequestsAreSentInOrder() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .withHttp1PipeliningDepth(4)
+            .addHandler(Method.GET, "/ok", (request, response, pathParams) -> response.write("ok"))
+            .addHandler(Method.GET, "/notfound", (request, response, pathParams) -> {
+                throw new NotFoundException("Nothing here");
+            })
+            .start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/ok").endHeaders();
+            client.writeRequestLine(Method.GET, "/notfound").endHeaders();
+            client.writeRequestLine(Method.GET, "/ok").endHeaders();
+            client.flush();
+            assertThat(readStatusLine(client), equalTo("HTTP/1.1 200 OK"));
+            assertThat(client.readBody(client.readHeaders()), equalTo("ok"));
+            assertThat(readStatusLine(client), equalTo("HTTP/1.1 404 Not Found"));
+            assertThat(client.readBody(client.readHeaders()), containsString("Nothing here"));
+            assertThat(readStatusLine(client), equalTo("HTTP/1.1 200 OK"));
+            assertThat(client.readBody(client.readHeaders()), equalTo("ok"));
+        }
+    }
+
+    @Test
+    public void continueResponsesAreNotSentUntilEarlierResponsesAreComplete() throws Exception {
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        server = ServerUtils.httpsServerForTest()
+            .withHttp1PipeliningDepth(4)
+            .addHandler(Method.GET, "/slow", (request, response, pathParams) -> {
+                MuAssert.assertNotTimedOut("releaseSlow", releaseSlow);
+                response.write("slow");
+            })
+            .addHandler(Method.POST, "/", (request, response, pathParams) -> response.write("posted " + request.readBodyAsString()))
+            .start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            byte[] body = "hello".getBytes(StandardCharsets.UTF_8);
+            client.writeRequestLine(Method.GET, "/slow").endHeaders();
+            client.writeRequestLine(Method.POST, "/").writeHeader("expect", "100-continue")
+                .contentHeader("text/plain", body.length).endHeaders();
+            client.flush();
+            MuAssert.sleep(100);
+            assertThat(client.available(), is(0));
+            releaseSlow.countDown();
+
+            assertThat(readResponse(client), equalTo("slow"));
+            assertThat(readStatusLine(client), equalTo("HTTP/1.1 100 Continue"));
+            assertThat(client.readLine(), equalTo(""));
+            client.out().write(body);
+            client.flush();
+            assertThat(readResponse(client), equalTo("posted hello"));
+        }
+    }
+
+    @Test
+    public void pipelinedRequestsAreHandledOneAtATimeByDefault() throws Exception {
+        CountDownLatch secondRequestHandled = new CountDownLatch(1);
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.GET, "/first", (request, response, pathParams) -> {
+                boolean concurrent = secondRequestHandled.await(200, TimeUnit.MILLISECONDS);
+                response.write("first concurrent=" + concurrent);
+            })
+            .addHandler(Method.GET, "/second", (request, response, pathParams) -> {
+                secondRequestHandled.countDown();
+                response.write("second");
+            })
+            .start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/first").endHeaders();
+            client.writeRequestLine(Method.GET, "/second").endHeaders();
+            client.flush();
+            assertThat(readResponse(client), equalTo("first concurrent=false"));
+            assertThat(readResponse(client), equalTo("second"));
+        }
+    }
+
+    @Test
+    public void depthMustBeAtLeastOne() {
+        assertThat(MuServerBuilder.muServer().http1PipeliningDepth(), is(1));
+        assertThrows(IllegalArgumentException.class, () -> MuServerBuilder.muServer().withHttp1PipeliningDepth(0));
+    }
+
+    private static String readStatusLine(Http1Client client) throws IOException {
+        return client.readLine();
+    }
+
+    private static String readResponse(Http1Client client) throws IOException {
+        assertThat(readStatusLine(client), equalTo("HTTP/1.1 200 OK"));
+        return client.readBody(client.readHeaders());
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,98 @@
+package io.muserver;
+
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http1Client;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import static io.muserver.MuServerBuilder.httpServer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class Http2CleartextTest {
+
+    private MuServer server;
+
+    private static MuServerBuilder serverReportingProtocols(boolean http2) {
+        return httpServer()
+            .withHttp2Config(http2 ? Http2ConfigBuilder.http2Enabled() : Http2ConfigBuilder.http2Config().enabled(false))
+            .addHandler(Method.GET, "/", (request, response, pathParams) ->
+                response.write(request.protocol() + " " + request.uri().getScheme() + " " + request.connection().protocol()
+                    + " https=" + request.connection().isHttps()));
+    }
+
+    @Test
+    public void upgradeRequestsAreHandledOverHttp2() throws Exception {
+        server = serverReportingProtocols(true).start();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        for (int i = 0; i < 3; i++) {
+            HttpResponse<String> resp = client.send(HttpRequest.newBuilder(server.uri()).build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(resp.statusCode(), is(200));
+            assertThat(resp.version(), is(HttpClient.Version.HTTP_2));
+            assertThat(resp.body(), equalTo("HTTP/2.0 http HTTP/2 https=false"));
+        }
+        assertThat(server.stats().completedConnections(), is(0L));
+        assertThat(server.stats().activeConnections(), is(1L));
+        assertThat(server.activeConnections(), hasSize(1));
+    }
+
+    @Test
+    public void priorKnowledgeConnectionsReportCleartextHttp2() throws Exception {
+        server = serverReportingProtocols(true).start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            Http2Client.Response resp = client.get("/").get(10, TimeUnit.SECONDS);
+            assertThat(resp.status, is(200));
+            assertThat(resp.body, equalTo("HTTP/2.0 http HTTP/2 https=false"));
+        }
+    }
+
+    @Test
+    public void upgradesAreIgnoredIfHttp2IsDisabled() throws Exception {
+        server = serverReportingProtocols(false).start();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        HttpResponse<String> resp = client.send(HttpRequest.newBuilder(server.uri()).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(resp.version(), is(HttpClient.Version.HTTP_1_1));
+        assertThat(resp.body(), equalTo("HTTP/1.1 http HTTP/1.1 https=false"));
+    }
+
+    @Test
+    public void upgradesWithInvalidSettingsAreIgnored() throws Exception {
+        server = serverReportingProtocols(true).start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/")
+                .writeHeader("connection", "Upgrade, HTTP2-Settings")
+                .writeHeader("upgrade", "h2c")
+                .writeHeader("http2-settings", "not@base64!")
+                .flushHeaders();
+            assertThat(client.readLine(), equalTo("HTTP/1.1 200 OK"));
+            assertThat(client.readBody(client.readHeaders()), equalTo("HTTP/1.1 http HTTP/1.1 https=false"));
+        }
+    }
+
+    @Test
+    public void validUpgradesGetSwitchingProtocolsResponses() throws Exception {
+        server = serverReportingProtocols(true).start();
+        try (Http1Client client = Http1Client.connect(server)) {
+            client.writeRequestLine(Method.GET, "/")
+                .writeHeader("connection", "Upgrade, HTTP2-Settings")
+                .writeHeader("upgrade", "h2c")
+                .writeHeader("http2-settings", "AAMAAABkAAQAAP__")
+                .flushHeaders();
+            assertThat(client.readLine(), equalTo("HTTP/1.1 101 Switching Protocols"));
+            Headers headers = client.readHeaders();
+            assertThat(headers.get("upgrade"), equalTo("h2c"));
+            assertThat(headers.get("connection"), equalToIgnoringCase("upgrade"));
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,140 @@
+package io.muserver;
+
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.muserver.MuServerBuilder.httpServer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class Http2ConnectionFairnessTest {
+
+    private MuServer server;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private MuServerBuilder blockingServer(Http2ConfigBuilder config) {
+        return httpServer()
+            .withHttp2Config(config)
+            .addHandler(Method.GET, "/slow", (request, response, pathParams) -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    MuAssert.assertNotTimedOut("release", release);
+                } finally {
+                    running.decrementAndGet();
+                }
+                response.write("Slow");
+            })
+            .addHandler(Method.GET, "/fast", (request, response, pathParams) ->
+                response.write("queued=" + request.connection().queuedRequests()));
+    }
+
+    @Test
+    public void streamsBeyondTheLimitAreQueuedOnTheirConnection() throws Exception {
+        server = blockingServer(Http2ConfigBuilder.http2Enabled().withMaxConcurrentHandlers(2)).start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            List<CompletableFuture<Http2Client.Response>> responses = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                responses.add(client.get("/slow"));
+            }
+            MuAssert.assertEventually(running::get, is(2));
+            HttpConnection connection = server.activeConnections().iterator().next();
+            MuAssert.assertEventually(connection::queuedRequests, is(3));
+            assertThat(connection.activeRequests(), hasSize(2));
+
+            release.countDown();
+            for (CompletableFuture<Http2Client.Response> response : responses) {
+                assertThat(response.get(10, TimeUnit.SECONDS).body, equalTo("Slow"));
+            }
+            assertThat(connection.queuedRequests(), is(0));
+        }
+        assertThat(maxRunning.get(), is(2));
+        assertThat(server.stats().rejectedDueToOverload(), is(0L));
+    }
+
+    @Test
+    public void otherConnectionsAreNotHeldUpByABusyConnection() throws Exception {
+        server = blockingServer(Http2ConfigBuilder.http2Enabled().withMaxConcurrentHandlers(1)).start();
+        try (Http2Client busy = Http2Client.connect(server.uri());
+             Http2Client other = Http2Client.connect(server.uri())) {
+            CompletableFuture<Http2Client.Response> first = busy.get("/slow");
+            MuAssert.assertEventually(running::get, is(1));
+            CompletableFuture<Http2Client.Response> queued = busy.get("/fast");
+
+            assertThat(other.get("/fast").get(10, TimeUnit.SECONDS).body, equalTo("queued=0"));
+            assertThat(queued.isDone(), is(false));
+
+            release.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS).body, equalTo("Slow"));
+            assertThat(queued.get(10, TimeUnit.SECONDS).body, equalTo("queued=0"));
+        }
+    }
+
+    @Test
+    public void aRejectedStreamDoesNotHoldAHandlerSlot() throws Exception {
+        release.countDown();
+        AtomicInteger submissions = new AtomicInteger();
+        ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                if (submissions.incrementAndGet() == 1) {
+                    throw new RejectedExecutionException("Rejecting the first request");
+                }
+                super.execute(command);
+            }
+        };
+        try {
+            server = blockingServer(Http2ConfigBuilder.http2Enabled().withMaxConcurrentHandlers(1))
+                .withHandlerExecutor(executor)
+                .start();
+            try (Http2Client client = Http2Client.connect(server.uri())) {
+                assertThat(client.get("/fast").get(10, TimeUnit.SECONDS).status, is(503));
+                Http2Client.Response second = client.get("/fast").get(10, TimeUnit.SECONDS);
+                assertThat(second.status, is(200));
+                assertThat(second.body, equalTo("queued=0"));
+            }
+            assertThat(server.stats().rejectedDueToOverload(), is(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void http1ConnectionsNeverQueue() throws Exception {
+        release.countDown();
+        server = blockingServer(Http2ConfigBuilder.http2Config()).start();
+        try (Response resp = call(request(server.uri().resolve("/fast")))) {
+            assertThat(resp.body().string(), equalTo("queued=0"));
+        }
+    }
+
+    @Test
+    public void theLimitCannotBeNegative() {
+        assertThrows(IllegalArgumentException.class, () -> Http2ConfigBuilder.http2Enabled().withMaxConcurrentHandlers(-1));
+        assertThat(Http2ConfigBuilder.http2Enabled().withMaxConcurrentHandlers(4).build().toBuilder().maxConcurrentHandlers(), is(4));
+    }
+
+    @After
+    public void destroy() {
+        release.countDown();
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,272 @@
+package io.muserver;
+
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.muserver.MuServerBuilder.httpServer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class Http2FloodProtectionTest {
+
+    private static final int DATA = 0, HEADERS = 1, RST_STREAM = 3, SETTINGS = 4, PING = 6, GOAWAY = 7;
+    private static final int END_STREAM = 0x1, END_HEADERS = 0x4;
+    private static final long ENHANCE_YOUR_CALM = 0xb;
+
+    private MuServer server;
+    private final AtomicInteger handled = new AtomicInteger();
+
+    private MuServerBuilder serverWith(Http2ConfigBuilder config) {
+        return httpServer()
+            .withHttp2Config(config)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                handled.incrementAndGet();
+                response.write("Hello");
+            });
+    }
+
+    @Test
+    public void connectionsThatResetTooManyStreamsAreClosed() throws Exception {
+        server = serverWith(Http2ConfigBuilder.http2Enabled().withResetStreamLimit(5, 10)).start();
+        try (RawConnection conn = new RawConnection(server)) {
+            for (int streamId = 1; streamId < 40; streamId += 2) {
+                conn.frame(HEADERS, END_STREAM | END_HEADERS, streamId, conn.getRequest());
+                conn.frame(RST_STREAM, 0, streamId, new byte[]{0, 0, 0, 8});
+            }
+            conn.flush();
+            assertThat(conn.readGoAwayError(), is(ENHANCE_YOUR_CALM));
+        }
+    }
+
+    @Test
+    public void connectionsThatSendTooManyPingsAreClosed() throws Exception {
+        server = serverWith(Http2ConfigBuilder.http2Enabled().withControlFrameLimit(10, 10)).start();
+        try (RawConnection conn = new RawConnection(server)) {
+            for (int i = 0; i < 20; i++) {
+                conn.frame(PING, 0, 0, new byte[8]);
+            }
+            conn.flush();
+            assertThat(conn.readGoAwayError(), is(ENHANCE_YOUR_CALM));
+        }
+    }
+
+    @Test
+    public void connectionsThatSendTooManySettingsAreClosed() throws Exception {
+        server = serverWith(Http2ConfigBuilder.http2Enabled().withControlFrameLimit(10, 10)).start();
+        try (RawConnection conn = new RawConnection(server)) {
+            for (int i = 0; i < 20; i++) {
+                conn.frame(SETTINGS, 0, 0, new byte[0]);
+            }
+            conn.flush();
+            assertThat(conn.readGoAwayError(), is(ENHANCE_YOUR_CALM));
+        }
+    }
+
+    @Test
+    public void connectionsThatSendEmptyDataFramesAreClosed() throws Exception {
+        server = serverWith(Http2ConfigBuilder.http2Enabled().withMaxConsecutiveEmptyDataFrames(3)).start();
+        try (RawConnection conn = new RawConnection(server)) {
+            conn.frame(HEADERS, END_HEADERS, 1, conn.getRequest());
+            for (int i = 0; i < 10; i++) {
+                conn.frame(DATA, 0, 1, new byte[0]);
+            }
+            conn.flush();
+            assertThat(conn.readGoAwayError(), is(ENHANCE_YOUR_CALM));
+        }
+    }
+
+    @Test
+    public void controlFramesWithinTheBudgetAreFine() throws Exception {
+        server = serverWith(Http2ConfigBuilder.http2Enabled().withControlFrameLimit(10, 10)).start();
+        try (RawConnection conn = new RawConnection(server)) {
+            for (int i = 0; i < 5; i++) {
+                conn.frame(PING, 0, 0, new byte[8]);
+            }
+            conn.frame(HEADERS, END_STREAM | END_HEADERS, 1, conn.getRequest());
+            conn.flush();
+            assertThat(conn.readUntilStreamEnds(1), is(true));
+        }
+        assertThat(handled.get(), is(1));
+    }
+
+    @Test
+    public void deferredStreamsThatAreResetStraightAwayAreNeverDispatched() throws Exception {
+        server = serverWith(Http2ConfigBuilder.http2Enabled().withDeferredDispatch(true)).start();
+        try (RawConnection conn = new RawConnection(server)) {
+            for (int streamId = 1; streamId < 20; streamId += 2) {
+                conn.frame(HEADERS, END_STREAM | END_HEADERS, streamId, conn.getRequest());
+                conn.frame(RST_STREAM, 0, streamId, new byte[]{0, 0, 0, 8});
+            }
+            conn.frame(HEADERS, END_STREAM | END_HEADERS, 21, conn.getRequest());
+            conn.flush();
+            assertThat(conn.readUntilStreamEnds(21), is(true));
+        }
+        assertThat(handled.get(), is(1));
+    }
+
+    @Test
+    public void deferredStreamsWaitForAFreeHandlerThread() throws Exception {
+        ExecutorService executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new SynchronousQueue<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server = httpServer()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled().withDeferredDispatch(true))
+            .withHandlerExecutor(executor)
+            .addHandler(Method.GET, "/slow", (request, response, pathParams) -> {
+                started.countDown();
+                MuAssert.assertNotTimedOut("release", release);
+                response.write("Slow");
+            })
+            .addHandler(Method.GET, "/fast", (request, response, pathParams) -> response.write("Fast"))
+            .start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            CompletableFuture<Http2Client.Response> slow = client.get("/slow");
+            MuAssert.assertNotTimedOut("started", started);
+            CompletableFuture<Http2Client.Response> fast = client.get("/fast");
+            Thread.sleep(100);
+            assertThat(fast.isDone(), is(false));
+            release.countDown();
+            assertThat(slow.get(10, TimeUnit.SECONDS).body, equalTo("Slow"));
+            Http2Client.Response fastResp = fast.get(10, TimeUnit.SECONDS);
+            assertThat(fastResp.status, is(200));
+            assertThat(fastResp.body, equalTo("Fast"));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(server.stats().rejectedDueToOverload(), is(0L));
+    }
+
+    @Test
+    public void budgetsAreValidated() {
+        assertThrows(IllegalArgumentException.class, () -> Http2ConfigBuilder.http2Enabled().withResetStreamLimit(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> Http2ConfigBuilder.http2Enabled().withResetStreamLimit(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> Http2ConfigBuilder.http2Enabled().withControlFrameLimit(10, -1));
+        assertThrows(IllegalArgumentException.class, () -> Http2ConfigBuilder.http2Enabled().withMaxConsecutiveEmptyDataFrames(-1));
+        assertThrows(IllegalArgumentException.class, () -> Http2ConfigBuilder.http2Enabled().withMaxContinuationFrames(-1));
+        assertThrows(IllegalArgumentException.class, () -> Http2ConfigBuilder.http2Enabled().withMaxQueuedControlFrames(-1));
+        Http2ConfigBuilder disabled = Http2ConfigBuilder.http2Enabled().withResetStreamLimit(0, 0).withControlFrameLimit(0, 0);
+        assertThat(disabled.build().toBuilder().maxResetStreams(), is(0));
+        assertThat(disabled.build().toBuilder().maxControlFrames(), is(0));
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+
+    /**
+     * A cleartext HTTP2 connection made with prior knowledge, where frames are written and read by hand
+     */
+    private static class RawConnection implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private final String authority;
+
+        RawConnection(MuServer server) throws IOException {
+            socket = new Socket(server.uri().getHost(), server.uri().getPort());
+            socket.setSoTimeout(10000);
+            in = new DataInputStream(socket.getInputStream());
+            authority = server.uri().getAuthority();
+            byte[] preface = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(US_ASCII);
+            pending.write(preface, 0, preface.length);
+            frame(SETTINGS, 0, 0, new byte[0]);
+        }
+
+        /**
+         * @return A header block for <code>GET /</code> using the static HPACK table and a literal authority
+         */
+        byte[] getRequest() {
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            block.write(0x82); // :method GET
+            block.write(0x86); // :scheme http
+            block.write(0x84); // :path /
+            block.write(0x41); // :authority, literal with incremental indexing
+            byte[] value = authority.getBytes(US_ASCII);
+            block.write(value.length);
+            block.write(value, 0, value.length);
+            return block.toByteArray();
+        }
+
+        void frame(int type, int flags, int streamId, byte[] payload) {
+            pending.write(payload.length >>> 16);
+            pending.write(payload.length >>> 8);
+            pending.write(payload.length);
+            pending.write(type);
+            pending.write(flags);
+            pending.write(streamId >>> 24);
+            pending.write(streamId >>> 16);
+            pending.write(streamId >>> 8);
+            pending.write(streamId);
+            pending.write(payload, 0, payload.length);
+        }
+
+        void flush() throws IOException {
+            socket.getOutputStream().write(pending.toByteArray());
+            socket.getOutputStream().flush();
+            pending.reset();
+        }
+
+        /**
+         * @return The error code of the first GOAWAY with an error, or -1 if the connection closed without one
+         */
+        long readGoAwayError() throws IOException {
+            try {
+                while (true) {
+                    int length = (in.readUnsignedShort() << 8) | in.readUnsignedByte();
+                    int type = in.readUnsignedByte();
+                    in.readUnsignedByte();
+                    in.readInt();
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    if (type == GOAWAY) {
+                        long error = new DataInputStream(new ByteArrayInputStream(payload, 4, 4)).readInt() & 0xffffffffL;
+                        if (error != 0) {
+                            return error;
+                        }
+                    }
+                }
+            } catch (EOFException e) {
+                return -1;
+            }
+        }
+
+        /**
+         * @return <code>true</code> if a frame ending the given stream was received before the connection closed
+         */
+        boolean readUntilStreamEnds(int streamId) throws IOException {
+            try {
+                while (true) {
+                    int length = (in.readUnsignedShort() << 8) | in.readUnsignedByte();
+                    in.readUnsignedByte();
+                    int flags = in.readUnsignedByte();
+                    int frameStreamId = in.readInt() & Integer.MAX_VALUE;
+                    in.readFully(new byte[length]);
+                    if (frameStreamId == streamId && (flags & END_STREAM) != 0) {
+                        return true;
+                    }
+                }
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
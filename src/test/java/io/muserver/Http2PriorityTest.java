@@ -0,0 +1,153 @@
+package io.muserver;
+
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class Http2PriorityTest {
+
+    private static final int BIG_SIZE = 4 * 1024 * 1024;
+    private static final String BIG_BODY = "x".repeat(BIG_SIZE);
+    private MuServer server;
+    private final CountDownLatch writeStarted = new CountDownLatch(1);
+
+    private MuServer startServer(Http2StreamScheduling scheduling) {
+        return ServerUtils.httpsServerForTest()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled().withStreamScheduling(scheduling))
+            .addHandler(Method.GET, "/big", (request, response, pathParams) -> {
+                writeStarted.countDown();
+                response.write(BIG_BODY);
+            })
+            .addHandler(Method.GET, "/big-background", (request, response, pathParams) -> {
+                response.priority(7, false);
+                writeStarted.countDown();
+                response.write(BIG_BODY);
+            })
+            .start();
+    }
+
+    private List<String> completionOrder(Http2Client client, String firstPath, Map<String, String> firstHeaders,
+                                                String secondPath, Map<String, String> secondHeaders) throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Http2Client.Response> first = client.get(firstPath, firstHeaders);
+        first.thenRun(() -> order.add("first"));
+        // the second request is sent once the first has a head start, so it can only finish first if it is prioritized
+        assertThat(writeStarted.await(10, TimeUnit.SECONDS), is(true));
+        CompletableFuture<Http2Client.Response> second = client.get(secondPath, secondHeaders);
+        second.thenRun(() -> order.add("second"));
+        for (CompletableFuture<Http2Client.Response> future : List.of(first, second)) {
+            Http2Client.Response resp = future.get(30, TimeUnit.SECONDS);
+            assertThat(resp.status, is(200));
+            assertThat(resp.body.length(), is(BIG_SIZE));
+        }
+        return order;
+    }
+
+    @Test
+    public void moreUrgentRequestsAreSentFirstWithUrgencyScheduling() throws Exception {
+        server = startServer(Http2StreamScheduling.URGENCY);
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            List<String> order = completionOrder(client, "/big", Map.of("priority", "u=6"), "/big", Map.of("priority", "u=1"));
+            assertThat(order, contains("second", "first"));
+        }
+    }
+
+    @Test
+    public void serverHintsOverrideTheDefaultPriority() throws Exception {
+        server = startServer(Http2StreamScheduling.URGENCY);
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            List<String> order = completionOrder(client, "/big-background", Collections.emptyMap(), "/big", Collections.emptyMap());
+            assertThat(order, contains("second", "first"));
+        }
+    }
+
+    @Test
+    public void serverHintsOverrideClientPriorities() throws Exception {
+        server = startServer(Http2StreamScheduling.URGENCY);
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            List<String> order = completionOrder(client, "/big-background", Map.of("priority", "u=0"), "/big", Map.of("priority", "u=5"));
+            assertThat(order, contains("second", "first"));
+        }
+    }
+
+    @Test
+    public void urgencyIsMappedToWeightsWithWeightedFairScheduling() throws Exception {
+        server = startServer(Http2StreamScheduling.WEIGHTED_FAIR);
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            List<String> order = completionOrder(client, "/big", Map.of("priority", "u=7"), "/big", Map.of("priority", "u=0"));
+            assertThat(order, contains("second", "first"));
+        }
+    }
+
+    @Test
+    public void incrementalAndUniformStreamsAreAllSentIntact() throws Exception {
+        for (Http2StreamScheduling scheduling : Http2StreamScheduling.values()) {
+            server = startServer(scheduling);
+            try (Http2Client client = Http2Client.connect(server.uri())) {
+                List<CompletableFuture<Http2Client.Response>> responses = new CopyOnWriteArrayList<>();
+                for (int i = 0; i < 6; i++) {
+                    responses.add(client.get("/big", Map.of("priority", i % 2 == 0 ? "u=3, i" : "u=4;foo=bar, i=?0")));
+                }
+                for (CompletableFuture<Http2Client.Response> response : responses) {
+                    Http2Client.Response resp = response.get(30, TimeUnit.SECONDS);
+                    assertThat(resp.status, is(200));
+                    assertThat(resp.body, equalTo(BIG_BODY));
+                }
+            }
+            MuAssert.stopAndCheck(server);
+        }
+    }
+
+    @Test
+    public void hintsAreValidatedAndIgnoredForHttp1() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                response.priority(0, true);
+                assertThrows(IllegalArgumentException.class, () -> response.priority(8, false));
+                assertThrows(IllegalArgumentException.class, () -> response.priority(-1, false));
+                response.write("Hello");
+            })
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), equalTo("Hello"));
+        }
+    }
+
+    @Test
+    public void priorityFieldValuesCanBeParsed() {
+        assertThat(Http2Priority.parse(""), sameInstance(Http2Priority.DEFAULT));
+        assertThat(Http2Priority.parse("u=1"), equalTo(new Http2Priority(1, false)));
+        assertThat(Http2Priority.parse("u=5, i"), equalTo(new Http2Priority(5, true)));
+        assertThat(Http2Priority.parse(" i=?1 ,u=0"), equalTo(new Http2Priority(0, true)));
+        assertThat(Http2Priority.parse("u=2, i=?0"), equalTo(new Http2Priority(2, false)));
+        assertThat(Http2Priority.parse("u=2;x=y, i;z"), equalTo(new Http2Priority(2, true)));
+        assertThat(Http2Priority.parse("u=8, i=1"), equalTo(Http2Priority.DEFAULT));
+        assertThat(Http2Priority.parse("u=x, foo=bar, baz"), equalTo(Http2Priority.DEFAULT));
+        assertThat(new Http2Priority(0, false).weight(), is((short) 128));
+        assertThat(new Http2Priority(3, true).weight(), is((short) 16));
+        assertThat(new Http2Priority(7, false).weight(), is((short) 1));
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
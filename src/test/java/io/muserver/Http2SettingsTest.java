@@ -0,0 +1,130 @@
+package io.muserver;
+
+import io.netty.handler.codec.http2.Http2Settings;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class Http2SettingsTest {
+
+    private MuServer server;
+
+    private static MuServerBuilder serverCountingUploads(Http2ConfigBuilder http2Config) {
+        return ServerUtils.httpsServerForTest()
+            .withHttp2Config(http2Config)
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                long received = 0;
+                byte[] buffer = new byte[16384];
+                try (InputStream in = request.inputStream().orElseThrow(() -> new IllegalStateException("No body"))) {
+                    int read;
+                    while ((read = in.read(buffer)) > -1) {
+                        received += read;
+                    }
+                }
+                response.write(String.valueOf(received));
+            });
+    }
+
+    @Test
+    public void configuredSettingsAreSentToClients() throws Exception {
+        server = serverCountingUploads(Http2ConfigBuilder.http2Enabled()
+            .withInitialStreamWindowSize(1024 * 1024)
+            .withInitialConnectionWindowSize(4 * 1024 * 1024)
+            .withMaxFrameSize(64 * 1024)
+            .withHeaderTableSize(8192))
+            .start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            Http2Settings settings = client.settingsReceived().get(0);
+            assertThat(settings.initialWindowSize(), is(1024 * 1024));
+            assertThat(settings.maxFrameSize(), is(64 * 1024));
+            assertThat(settings.headerTableSize(), is(8192L));
+
+            List<CompletableFuture<Http2Client.Response>> responses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(client.post("/upload", new byte[2 * 1024 * 1024]));
+            }
+            for (CompletableFuture<Http2Client.Response> response : responses) {
+                Http2Client.Response resp = response.get(30, TimeUnit.SECONDS);
+                assertThat(resp.status, is(200));
+                assertThat(resp.body, equalTo(String.valueOf(2 * 1024 * 1024)));
+            }
+        }
+    }
+
+    @Test
+    public void windowsGrowWhenAutoTuningIsEnabled() throws Exception {
+        server = serverCountingUploads(Http2ConfigBuilder.http2Enabled()
+            .withWindowAutoTuning(8 * 1024 * 1024))
+            .start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            for (int i = 0; i < 5; i++) {
+                Http2Client.Response resp = client.post("/upload", new byte[4 * 1024 * 1024]).get(30, TimeUnit.SECONDS);
+                assertThat(resp.status, is(200));
+                assertThat(resp.body, equalTo(String.valueOf(4 * 1024 * 1024)));
+            }
+            List<Http2Settings> settings = client.settingsReceived();
+            assertThat(settings.get(0).initialWindowSize(), is(65535));
+            assertThat(settings.size(), greaterThan(1));
+            Http2Settings last = settings.get(settings.size() - 1);
+            assertThat(last.initialWindowSize(), allOf(greaterThan(65535), lessThanOrEqualTo(8 * 1024 * 1024)));
+        }
+    }
+
+    @Test
+    public void windowsAreNotChangedWhenAutoTuningIsDisabled() throws Exception {
+        server = serverCountingUploads(Http2ConfigBuilder.http2Enabled()).start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            Http2Client.Response resp = client.post("/upload", new byte[4 * 1024 * 1024]).get(30, TimeUnit.SECONDS);
+            assertThat(resp.body, equalTo(String.valueOf(4 * 1024 * 1024)));
+            assertThat(client.settingsReceived(), hasSize(1));
+        }
+    }
+
+    @Test
+    public void invalidValuesAreRejected() {
+        Http2ConfigBuilder builder = Http2ConfigBuilder.http2Enabled();
+        assertThrows(IllegalArgumentException.class, () -> builder.withInitialStreamWindowSize(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.withInitialConnectionWindowSize(65534));
+        assertThrows(IllegalArgumentException.class, () -> builder.withMaxFrameSize(16383));
+        assertThrows(IllegalArgumentException.class, () -> builder.withMaxFrameSize(16 * 1024 * 1024));
+        assertThrows(IllegalArgumentException.class, () -> builder.withHeaderTableSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> builder.withWindowAutoTuning(1000));
+        assertThrows(IllegalArgumentException.class, () -> builder.withWindowAutoTuning(-1));
+    }
+
+    @Test
+    public void configCanBeConvertedBackToABuilder() {
+        Http2Config config = Http2ConfigBuilder.http2Enabled()
+            .withMaxConcurrentStreams(50)
+            .withInitialStreamWindowSize(100000)
+            .withInitialConnectionWindowSize(200000)
+            .withMaxFrameSize(32768)
+            .withHeaderTableSize(0)
+            .withWindowAutoTuning(1024 * 1024)
+            .build();
+        Http2Config copy = config.toBuilder().build();
+        assertThat(copy.toString(), equalTo(config.toString()));
+        assertThat(copy.initialStreamWindowSize, is(100000));
+        assertThat(copy.initialConnectionWindowSize, is(200000));
+        assertThat(copy.maxFrameSize, is(32768));
+        assertThat(copy.headerTableSize, is(0));
+        assertThat(copy.maxAutoTunedWindowSize, is(1024 * 1024));
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
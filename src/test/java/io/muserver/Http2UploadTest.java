@@ -0,0 +1,92 @@
+package io.muserver;
+
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class Http2UploadTest {
+
+    private MuServer server;
+
+    @Test
+    public void manyConcurrentUploadsOnOneConnectionAreReceivedIntact() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .addHandler(Method.POST, "/blocking", (request, response, pathParams) -> {
+                CRC32 crc = new CRC32();
+                long size = 0;
+                byte[] buffer = new byte[8192];
+                try (InputStream in = request.inputStream().orElseThrow(() -> new IllegalStateException("No body"))) {
+                    int read;
+                    while ((read = in.read(buffer)) > -1) {
+                        crc.update(buffer, 0, read);
+                        size += read;
+                    }
+                }
+                response.write(size + " " + crc.getValue());
+            })
+            .addHandler(Method.POST, "/async", (request, response, pathParams) -> {
+                AsyncHandle handle = request.handleAsync();
+                CRC32 crc = new CRC32();
+                AtomicLong size = new AtomicLong();
+                handle.setReadListener(new RequestBodyListener() {
+                    @Override
+                    public void onDataReceived(ByteBuffer buffer, DoneCallback doneCallback) throws Exception {
+                        size.addAndGet(buffer.remaining());
+                        crc.update(buffer);
+                        doneCallback.onComplete(null);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        handle.write(Mutils.toByteBuffer(size.get() + " " + crc.getValue()), error -> handle.complete());
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        handle.complete(t);
+                    }
+                });
+            })
+            .start();
+
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            List<CompletableFuture<Http2Client.Response>> responses = new ArrayList<>();
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                byte[] body = new byte[20000 + i * 1013];
+                for (int j = 0; j < body.length; j++) {
+                    body[j] = (byte) (i * 31 + j);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                expected.add(body.length + " " + crc.getValue());
+                responses.add(client.post(i % 2 == 0 ? "/blocking" : "/async", body));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                Http2Client.Response resp = responses.get(i).get(30, TimeUnit.SECONDS);
+                assertThat(resp.status, is(200));
+                assertThat(resp.body, equalTo(expected.get(i)));
+            }
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,188 @@
+package io.muserver;
+
+import io.netty.handler.codec.http.HttpMethod;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import scaffolding.Http3Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+import scaffolding.StringUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class Http3Test {
+
+    private MuServer server;
+
+    @Test
+    public void httpsResponsesAdvertiseTheHttp3PortWhichServesTheSameHandlers() throws Exception {
+        assumeHttp3IsAvailable();
+        server = ServerUtils.httpsServerForTest()
+            .withHttp3Port(0)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                HttpConnection connection = request.connection();
+                response.write(request.protocol() + " " + connection.protocol() + " " + connection.isHttps() + " "
+                    + connection.httpsProtocol() + " " + request.uri().getScheme() + " " + request.remoteAddress()
+                    + " " + request.headers().contains("x-http3-stream-id"));
+            })
+            .start();
+        int http3Port;
+        try (Response resp = call(request(server.uri()))) {
+            String altSvc = resp.header("alt-svc");
+            Matcher matcher = Pattern.compile("h3=\":(\\d+)\"; ma=86400").matcher(String.valueOf(altSvc));
+            assertThat(altSvc, matcher.matches(), is(true));
+            http3Port = Integer.parseInt(matcher.group(1));
+        }
+
+        try (Http3Client client = Http3Client.connect("localhost", http3Port)) {
+            Http3Client.Response resp = client.get("/");
+            assertThat(resp.code, is(200));
+            assertThat(resp.body, equalTo("HTTP/3.0 HTTP/3 true TLSv1.3 https 127.0.0.1 false"));
+            assertThat(resp.headers.get("alt-svc"), equalTo("h3=\":" + http3Port + "\"; ma=86400"));
+
+            Http3Client.Response notFound = client.get("/not-found");
+            assertThat(notFound.code, is(404));
+        }
+        MuAssert.assertEventually(() -> server.stats().completedRequests(), is(3L));
+    }
+
+    @Test
+    public void requestBodiesAndLargeResponsesCanBeSentOnManyStreams() throws Exception {
+        assumeHttp3IsAvailable();
+        String bigBody = StringUtils.randomAsciiStringOfLength(200_000);
+        server = ServerUtils.httpsServerForTest()
+            .withHttp3Port(0)
+            .addHandler(Method.POST, "/echo", (request, response, pathParams) -> response.write(request.readBodyAsString()))
+            .addHandler(Method.GET, "/big", (request, response, pathParams) -> {
+                response.contentType(ContentTypes.TEXT_PLAIN_UTF8);
+                response.sendChunk(bigBody);
+            })
+            .start();
+        try (Http3Client client = Http3Client.connect("localhost", http3Port(server))) {
+            for (int i = 0; i < 5; i++) {
+                Http3Client.Response echo = client.post("/echo", "Hello " + i);
+                assertThat(echo.code, is(200));
+                assertThat(echo.body, equalTo("Hello " + i));
+            }
+            Http3Client.Response bigEcho = client.post("/echo", bigBody);
+            assertThat(bigEcho.body, equalTo(bigBody));
+
+            Http3Client.Response big = client.get("/big");
+            assertThat(big.code, is(200));
+            assertThat(big.body, equalTo(bigBody));
+            assertThat(big.headers.contains("transfer-encoding"), is(false));
+        }
+    }
+
+    @Test
+    public void eachQuicConnectionIsOneHttpConnectionWhichCanBeDrained() throws Exception {
+        assumeHttp3IsAvailable();
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        server = ServerUtils.httpsServerForTest()
+            .withHttp3Port(0)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write(String.valueOf(request.connection().completedRequests())))
+            .addHandler(Method.GET, "/slow", (request, response, pathParams) -> {
+                slowStarted.countDown();
+                releaseSlow.await(30, TimeUnit.SECONDS);
+                response.write("slow");
+            })
+            .start();
+        int port = http3Port(server);
+        long connectionsBefore = server.stats().activeConnections();
+        try (Http3Client client = Http3Client.connect("localhost", port)) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(client.get("/").body, equalTo(String.valueOf(i)));
+            }
+            List<HttpConnection> connections = http3Connections(server);
+            assertThat(connections, hasSize(1));
+            HttpConnection connection = connections.get(0);
+            assertThat(connection.remoteAddress().getHostString(), equalTo("127.0.0.1"));
+            assertThat(connection.httpsProtocol(), equalTo("TLSv1.3"));
+            MuAssert.assertEventually(connection::completedRequests, is(3L));
+            assertThat(server.stats().activeConnections(), is(connectionsBefore + 1));
+
+            CompletableFuture<Http3Client.Response> slow = client.send(HttpMethod.GET, "/slow", null);
+            assertThat(slowStarted.await(10, TimeUnit.SECONDS), is(true));
+            connection.drain();
+            Thread.sleep(100);
+            assertThat("Draining waits for the request in progress", http3Connections(server), hasSize(1));
+            releaseSlow.countDown();
+            assertThat(slow.get(10, TimeUnit.SECONDS).body, equalTo("slow"));
+            MuAssert.assertEventually(() -> http3Connections(server), empty());
+        } finally {
+            releaseSlow.countDown();
+        }
+        MuAssert.assertEventually(() -> server.stats().activeConnections(), is(connectionsBefore));
+    }
+
+    @Test
+    public void theQuicConnectionIsClosedAfterTheMaximumNumberOfRequests() throws Exception {
+        assumeHttp3IsAvailable();
+        server = ServerUtils.httpsServerForTest()
+            .withHttp3Port(0)
+            .withMaxRequestsPerConnection(2)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hello"))
+            .start();
+        try (Http3Client client = Http3Client.connect("localhost", http3Port(server))) {
+            assertThat(client.get("/").body, equalTo("Hello"));
+            assertThat(client.get("/").body, equalTo("Hello"));
+            MuAssert.assertEventually(() -> http3Connections(server), empty());
+        }
+    }
+
+    @Test
+    public void anAltSvcValueThatIsSetIsNotReplaced() throws Exception {
+        assumeHttp3IsAvailable();
+        server = ServerUtils.httpsServerForTest()
+            .withHttp3Port(0)
+            .withAltSvc("h3=\":443\"; ma=3600")
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hello"))
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.header("alt-svc"), equalTo("h3=\":443\"; ma=3600"));
+        }
+    }
+
+    @Test
+    public void anHttpsPortIsRequired() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> MuServerBuilder.httpServer().withHttp3Port(0).start());
+        assertThat(e.getMessage(), containsString("HTTP/3 needs an HTTPS port"));
+    }
+
+    private static void assumeHttp3IsAvailable() {
+        Assume.assumeTrue("The HTTP/3 codec is not available on this platform", Http3Client.isAvailable());
+    }
+
+    private static List<HttpConnection> http3Connections(MuServer server) {
+        return server.activeConnections().stream().filter(c -> c.protocol().equals("HTTP/3")).collect(Collectors.toList());
+    }
+
+    private static int http3Port(MuServer server) throws Exception {
+        try (Response resp = call(request(server.uri()))) {
+            Matcher matcher = Pattern.compile("h3=\":(\\d+)\".*").matcher(String.valueOf(resp.header("alt-svc")));
+            assertThat(matcher.matches(), is(true));
+            return Integer.parseInt(matcher.group(1));
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,79 @@
+package io.muserver;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class Http3TokenHandlerTest {
+
+    private final AtomicLong clock = new AtomicLong(1000);
+    private final Http3TokenHandler handler = new Http3TokenHandler(secret(1), clock::get, TimeUnit.SECONDS.toNanos(10));
+    private final InetSocketAddress client = new InetSocketAddress("10.0.0.1", 5000);
+    private final ByteBuf dcid = Unpooled.wrappedBuffer(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+    @Test
+    public void aTokenIsValidForTheAddressItWasIssuedTo() {
+        ByteBuf token = issue(client);
+        int offset = handler.validateToken(token, client);
+        assertThat(offset, is(40));
+        assertThat(token.slice(offset, token.writerIndex() - offset), equalTo(dcid));
+        assertThat(token.readableBytes(), lessThanOrEqualTo(handler.maxTokenLength()));
+    }
+
+    @Test
+    public void aTokenCannotBeUsedFromAnotherAddressOrPort() {
+        ByteBuf token = issue(client);
+        assertThat(handler.validateToken(token, new InetSocketAddress("10.0.0.2", 5000)), is(-1));
+        assertThat(handler.validateToken(token, new InetSocketAddress("10.0.0.1", 5001)), is(-1));
+    }
+
+    @Test
+    public void aTokenThatHasBeenChangedIsNotValid() {
+        for (int i = 0; i < 48; i++) {
+            ByteBuf token = issue(client);
+            token.setByte(i, token.getByte(i) ^ 1);
+            assertThat("Changed byte " + i, handler.validateToken(token, client), is(-1));
+        }
+        ByteBuf truncated = issue(client);
+        truncated.writerIndex(39);
+        assertThat(handler.validateToken(truncated, client), is(-1));
+    }
+
+    @Test
+    public void aTokenFromAnotherServerIsNotValid() {
+        Http3TokenHandler other = new Http3TokenHandler(secret(2), clock::get, TimeUnit.SECONDS.toNanos(10));
+        ByteBuf token = Unpooled.buffer();
+        other.writeToken(token, dcid, client);
+        assertThat(handler.validateToken(token, client), is(-1));
+    }
+
+    @Test
+    public void tokensExpire() {
+        ByteBuf token = issue(client);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(handler.validateToken(token, client), is(40));
+        clock.incrementAndGet();
+        assertThat(handler.validateToken(token, client), is(-1));
+    }
+
+    private ByteBuf issue(InetSocketAddress address) {
+        ByteBuf token = Unpooled.buffer();
+        assertThat(handler.writeToken(token, dcid, address), is(true));
+        return token;
+    }
+
+    private static byte[] secret(int seed) {
+        byte[] secret = new byte[32];
+        secret[0] = (byte) seed;
+        return secret;
+    }
+}
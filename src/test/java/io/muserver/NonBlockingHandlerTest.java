@@ -0,0 +1,144 @@
+package io.muserver;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class NonBlockingHandlerTest {
+
+    private MuServer server;
+
+    @Test
+    public void nonBlockingHandlersRunOnTheIOThread() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .addNonBlockingHandler(Method.GET, "/health", (request, response, pathParams) ->
+                response.write(Thread.currentThread().getName()))
+            .start();
+        try (Response resp = call(request(server.uri().resolve("/health")))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), not(startsWith("muhandler")));
+        }
+        MuAssert.assertEventually(() -> server.stats().completedRequests(), is(1L));
+    }
+
+    @Test
+    public void requestsNotHandledByNonBlockingHandlersGoToTheExecutor() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .addNonBlockingHandler(Method.GET, "/health", (request, response, pathParams) -> response.write("healthy"))
+            .addHandler((request, response) -> {
+                response.headers().set("x-filter-thread", Thread.currentThread().getName());
+                return false;
+            })
+            .addHandler(Method.GET, "/blocking", (request, response, pathParams) -> response.sendChunk("blocking"))
+            .addNonBlockingHandler(Method.GET, "/after-blocking", (request, response, pathParams) ->
+                response.write(Thread.currentThread().getName()))
+            .start();
+        try (Response resp = call(request(server.uri().resolve("/health")))) {
+            assertThat(resp.body().string(), is("healthy"));
+            assertThat(resp.header("x-filter-thread"), is(nullValue()));
+        }
+        try (Response resp = call(request(server.uri().resolve("/blocking")))) {
+            assertThat(resp.body().string(), is("blocking"));
+            assertThat(resp.header("x-filter-thread"), startsWith("muhandler"));
+        }
+        try (Response resp = call(request(server.uri().resolve("/after-blocking")))) {
+            assertThat(resp.body().string(), startsWith("muhandler"));
+        }
+        try (Response resp = call(request(server.uri().resolve("/not-found")))) {
+            assertThat(resp.code(), is(404));
+        }
+    }
+
+    @Test
+    public void aNotFoundIsReturnedIfNoNonBlockingHandlersMatch() {
+        server = ServerUtils.httpsServerForTest()
+            .addNonBlockingHandler(Method.GET, "/health", (request, response, pathParams) -> response.write("healthy"))
+            .start();
+        try (Response resp = call(request(server.uri().resolve("/something-else")))) {
+            assertThat(resp.code(), is(404));
+        }
+    }
+
+    @Test
+    public void nonBlockingHandlersCanUseAsyncHandles() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .addNonBlockingHandler(Method.POST, "/echo", (request, response, pathParams) -> {
+                AsyncHandle handle = request.handleAsync();
+                StringBuilder body = new StringBuilder();
+                handle.setReadListener(new RequestBodyListener() {
+                    @Override
+                    public void onDataReceived(ByteBuffer buffer, DoneCallback doneCallback) throws Exception {
+                        body.append(UTF_8.decode(buffer));
+                        doneCallback.onComplete(null);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        handle.write(ByteBuffer.wrap(body.toString().getBytes(UTF_8)), error -> handle.complete(error));
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        handle.complete(t);
+                    }
+                });
+            })
+            .start();
+        try (Response resp = call(request(server.uri().resolve("/echo"))
+            .post(RequestBody.create("Hello, world", MediaType.get("text/plain"))))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), is("Hello, world"));
+        }
+    }
+
+    @Test
+    public void blockingMethodsThrowWhenCalledFromNonBlockingHandlers() throws Exception {
+        AtomicReference<Throwable> sendChunkError = new AtomicReference<>();
+        AtomicReference<Throwable> readBodyError = new AtomicReference<>();
+        server = ServerUtils.httpsServerForTest()
+            .addNonBlockingHandler(Method.GET, "/chunk", (request, response, pathParams) -> {
+                try {
+                    response.sendChunk("hello");
+                } catch (Throwable e) {
+                    sendChunkError.set(e);
+                    throw e;
+                }
+            })
+            .addNonBlockingHandler(Method.POST, "/read", (request, response, pathParams) -> {
+                try {
+                    request.readBodyAsString();
+                } catch (Throwable e) {
+                    readBodyError.set(e);
+                    throw e;
+                }
+            })
+            .start();
+        try (Response resp = call(request(server.uri().resolve("/chunk")))) {
+            assertThat(resp.code(), is(500));
+        }
+        assertThat(sendChunkError.get(), instanceOf(IllegalStateException.class));
+        try (Response resp = call(request(server.uri().resolve("/read"))
+            .post(RequestBody.create("Hello", MediaType.get("text/plain"))))) {
+            assertThat(resp.code(), is(500));
+        }
+        assertThat(readBodyError.get(), instanceOf(IllegalStateException.class));
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
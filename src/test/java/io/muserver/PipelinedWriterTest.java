@@ -0,0 +1,78 @@
+package io.muserver;
+
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Test;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class PipelinedWriterTest {
+
+    private MuServer server;
+
+    @Test
+    public void manySmallChunksAreSentInOrder() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.GET, "/chunks", (request, response, pathParams) -> {
+                for (int i = 0; i < 5000; i++) {
+                    response.sendChunk(i + ",");
+                }
+            })
+            .addHandler(Method.GET, "/stream", (request, response, pathParams) -> {
+                try (OutputStream out = response.outputStream(0)) {
+                    for (int i = 0; i < 5000; i++) {
+                        out.write((i + ",").getBytes(UTF_8));
+                    }
+                }
+            })
+            .start();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            expected.append(i).append(',');
+        }
+        for (String path : new String[]{"/chunks", "/stream"}) {
+            try (Response resp = call(request(server.uri().resolve(path)))) {
+                assertThat(resp.code(), is(200));
+                assertThat(resp.body().string(), equalTo(expected.toString()));
+            }
+        }
+    }
+
+    @Test
+    public void writesFailOnceTheClientHasGone() throws Exception {
+        CompletableFuture<Throwable> writeError = new CompletableFuture<>();
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                byte[] chunk = new byte[1024];
+                try (OutputStream out = response.outputStream(0)) {
+                    while (true) {
+                        out.write(chunk);
+                    }
+                } catch (Throwable e) {
+                    writeError.complete(e);
+                }
+            })
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            InputStream body = resp.body().byteStream();
+            assertThat(body.read(new byte[8192]), greaterThan(0));
+        }
+        assertThat(writeError.get(30, TimeUnit.SECONDS), notNullValue());
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
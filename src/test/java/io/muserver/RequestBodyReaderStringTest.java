@@ -284,8 +284,9 @@ public class RequestBodyReaderStringTest {
             assertThat(resp.body().string(), containsString("408 Request Timeout"));
         } catch (Exception e) {
             // The HttpServerKeepAliveHandler will probably close the connection before the full request body is read, which is probably a good thing in this case.
-            // So allow a valid 408 response or an error
-            assertThat(e.getCause(), instanceOf(IOException.class));
+            // So allow a valid 408 response or an error. Over HTTP2 the stream is reset after the 408 is sent, and the
+            // client may see the reset before it has read the response body.
+            assertThat(Mutils.coalesce(e.getCause(), e), instanceOf(IOException.class));
         }
         assertThat(exception.get(), instanceOf(ClientErrorException.class));
         assertThat(((ClientErrorException) exception.get()).getResponse().getStatus(), equalTo(408));
@@ -0,0 +1,108 @@
+package io.muserver;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+
+/**
+ * Reports the bytes allocated on one thread to create a request and route it by its path, compared with building
+ * the absolute URIs and query parameters up front as used to be done. Run with e.g.
+ * <code>-Dtarget=/a/b?c=d -Diterations=100000</code>
+ */
+public class RequestTargetAllocations {
+
+    public static void main(String[] args) throws Exception {
+        if (!supported()) {
+            System.out.println("Thread allocation counting is not available on this JVM");
+            return;
+        }
+        String target = System.getProperty("target", "/api/v1/customers/12345/orders?page=2&size=50");
+        int iterations = Integer.getInteger("iterations", 100000);
+        warmUp(target, iterations);
+        long lazyBytes = bytesPerRequest(() -> request(target).relativePath(), iterations);
+        long lazyWithUriAndQuery = bytesPerRequest(() -> {
+            NettyRequestAdapter request = request(target);
+            request.uri();
+            return request.query().get("page");
+        }, iterations);
+        long eagerBytes = bytesPerRequest(() -> eagerRequest(target), iterations);
+        System.out.println("Bytes allocated per request: " + lazyBytes + " lazily; " + lazyWithUriAndQuery
+            + " lazily with the URI and query used; " + eagerBytes + " eagerly");
+    }
+
+    static void warmUp(String target, int iterations) throws Exception {
+        for (int i = 0; i < iterations; i++) {
+            request(target).relativePath();
+            eagerRequest(target);
+        }
+    }
+
+    static NettyRequestAdapter request(String target) throws Exception {
+        HttpRequest nettyRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, target, new DefaultHttpHeaders());
+        return new NettyRequestAdapter(null, nettyRequest, new Http1Headers(nettyRequest.headers()), Method.GET, "http",
+            RequestTarget.parse(target), "localhost:8080");
+    }
+
+    /**
+     * The work that used to be done for every request
+     */
+    static Object eagerRequest(String target) throws Exception {
+        String relative = eagerRelativeUrl(target);
+        URI serverUri = URI.create("http://localhost:8080" + relative).normalize();
+        return new Object[]{serverUri.getRawPath(), new QueryStringDecoder(relative, true).parameters()};
+    }
+
+    static String eagerRelativeUrl(String nettyUri) throws InvalidHttpRequestException, RedirectException {
+        try {
+            URI requestUri = new URI(nettyUri).normalize();
+            if (requestUri.getScheme() == null && requestUri.getHost() != null) {
+                throw new RedirectException(new URI(nettyUri.substring(1)).normalize());
+            }
+            String s = requestUri.getRawPath();
+            if (Mutils.nullOrEmpty(s)) {
+                s = "/";
+            } else {
+                s = Mutils.decodeUnreserved(s);
+            }
+            String q = requestUri.getRawQuery();
+            if (q != null) {
+                s += "?" + q;
+            }
+            return s;
+        } catch (RedirectException re) {
+            throw re;
+        } catch (Exception e) {
+            throw new InvalidHttpRequestException(400, "400 Bad Request");
+        }
+    }
+
+    interface Work {
+        Object run() throws Exception;
+    }
+
+    static boolean supported() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).isThreadAllocatedMemorySupported();
+    }
+
+    static long bytesPerRequest(Work work, int iterations) throws Exception {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        Object last = null;
+        for (int i = 0; i < iterations; i++) {
+            last = work.run();
+        }
+        long after = bean.getThreadAllocatedBytes(threadId);
+        if (last == null) {
+            throw new IllegalStateException("The work did not return a result");
+        }
+        return (after - before) / iterations;
+    }
+}
@@ -0,0 +1,98 @@
+package io.muserver;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static io.muserver.RequestTargetAllocations.*;
+import static org.junit.Assert.assertThrows;
+
+public class RequestTargetTest {
+
+    private static final List<String> TARGETS = Arrays.asList(
+        "/", "/hello", "/hello/", "/a/b/c.txt", "/blah?a=b&c=d", "/blah?", "/?a", "/a?b=/c?d", "/a?b=%20c+d",
+        "/~user/file-name_1.2", "/a;b=c/d:e@f", "/.hidden", "/a/.../b", "/a..b/c.",
+        "/a/./b", "/a/../b", "/../a", "/a/b/..", "/a/b/.", "/a//b", "//a/b", "/a/%2E%2E/b",
+        "/%41%42", "/a%20b", "/a?b=%zz", "/a?b=%2", "/a?b=c#frag", "/a#frag", "/café", "/a b",
+        "/a<b", "/a?b=<c>", "/a|b", "", "http://example.org/a?b", "/a?b?c");
+
+    @Test
+    public void parsingMatchesParsingAsAUri() throws Exception {
+        for (String target : TARGETS) {
+            String expected;
+            try {
+                expected = eagerRelativeUrl(target);
+            } catch (InvalidHttpRequestException e) {
+                assertThrows(target, InvalidHttpRequestException.class, () -> RequestTarget.parse(target));
+                continue;
+            } catch (RedirectException e) {
+                RedirectException actual = assertThrows(target, RedirectException.class, () -> RequestTarget.parse(target));
+                assertThat(target, actual.location, equalTo(e.location));
+                continue;
+            }
+            RequestTarget actual = RequestTarget.parse(target);
+            URI eagerUri = URI.create("http://localhost:8080" + expected).normalize();
+            assertThat(target, actual.rawPath(), equalTo(eagerUri.getRawPath()));
+            assertThat(target, actual.rawQuery(), equalTo(eagerUri.getRawQuery()));
+            assertThat(target, URI.create("http://localhost:8080" + actual.value), equalTo(eagerUri));
+        }
+    }
+
+    @Test
+    public void targetsWithoutAnAbsolutePathAreRejected() {
+        for (String target : Arrays.asList("*", "a/b", "../a")) {
+            InvalidHttpRequestException e = assertThrows(target, InvalidHttpRequestException.class, () -> RequestTarget.parse(target));
+            assertThat(e.code, is(400));
+        }
+    }
+
+    @Test
+    public void normalizedTargetsAreUsedAsTheyAre() throws Exception {
+        String target = "/some/path?a=b";
+        assertThat(RequestTarget.parse(target).value, sameInstance(target));
+        assertThat(RequestTarget.parse("/a/./b/../c?d").value, equalTo("/a/c?d"));
+        assertThat(RequestTarget.parse("/%7E%2E/x").rawPath(), equalTo("/~./x"));
+    }
+
+    @Test
+    public void hostsWithCharactersThatCannotBeInAUriAreRejected() throws Exception {
+        RequestTarget.validateHost("localhost:8080");
+        RequestTarget.validateHost("[::1]:8443");
+        RequestTarget.validateHost("");
+        for (String host : Arrays.asList("local host", "a/b", "a<b", "café.com", "a\tb")) {
+            InvalidHttpRequestException e = assertThrows(host, InvalidHttpRequestException.class, () -> RequestTarget.validateHost(host));
+            assertThat(e.code, is(400));
+        }
+    }
+
+    @Test
+    public void requestsOnlyBuildUrisAndQueryParametersWhenAskedFor() throws Exception {
+        NettyRequestAdapter request = request("/some/path?name=value%201");
+        assertThat(request.relativePath(), equalTo("/some/path"));
+        assertThat(request.query().get("name"), equalTo("value 1"));
+        assertThat(request.uri(), equalTo(URI.create("http://localhost:8080/some/path?name=value%201")));
+        assertThat(request.uri(), sameInstance(request.uri()));
+        assertThat(request.serverURI(), sameInstance(request.uri()));
+        assertThat(request("/no-query").query().all().isEmpty(), is(true));
+    }
+
+    /**
+     * Checks that creating a request and routing it by its path allocates less than building the absolute URIs and
+     * query parameters up front, as used to be done. See {@link RequestTargetAllocations} for the actual numbers.
+     */
+    @Test
+    public void allocationsPerRequest() throws Exception {
+        Assume.assumeTrue("Thread allocation counting is not available", RequestTargetAllocations.supported());
+        String target = "/api/v1/customers/12345/orders?page=2&size=50";
+        int iterations = 20000;
+        warmUp(target, iterations);
+        long lazyBytes = bytesPerRequest(() -> request(target).relativePath(), iterations);
+        long eagerBytes = bytesPerRequest(() -> eagerRequest(target), iterations);
+        assertThat(lazyBytes, lessThan(eagerBytes));
+    }
+}
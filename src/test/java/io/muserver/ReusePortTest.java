@@ -0,0 +1,92 @@
+package io.muserver;
+
+import io.netty.channel.epoll.Epoll;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import scaffolding.MuAssert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ReusePortTest {
+    private MuServer server;
+
+    @Test
+    public void aSingleAcceptorIsUsedByDefault() throws IOException {
+        server = MuServerBuilder.httpServer()
+            .withNioThreads(4)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hi"))
+            .start();
+        for (int i = 0; i < 3; i++) {
+            assertThat(get(), endsWith("Hi"));
+        }
+        assertThat(server.stats().acceptedConnections().keySet(), contains("http-0"));
+        MuAssert.assertEventually(() -> server.stats().acceptedConnections().get("http-0"), is(3L));
+    }
+
+    @Test
+    public void oneAcceptorPerNioThreadIsBoundWhenReusePortIsEnabledWithNio() throws IOException {
+        Assume.assumeTrue("SO_REUSEPORT is not supported", NettyTransport.create(Transport.NIO).supportsReusePort());
+        connectionsAreSpreadOverAcceptors(Transport.NIO);
+    }
+
+    @Test
+    public void oneAcceptorPerNioThreadIsBoundWhenReusePortIsEnabledWithEpoll() throws IOException {
+        Assume.assumeTrue("Epoll is not available on this platform", Epoll.isAvailable());
+        connectionsAreSpreadOverAcceptors(Transport.EPOLL);
+    }
+
+    private void connectionsAreSpreadOverAcceptors(Transport transport) throws IOException {
+        server = MuServerBuilder.muServer()
+            .withHttpPort(0)
+            .withHttpsPort(0)
+            .withTransport(transport)
+            .withReusePort(true)
+            .withNioThreads(4)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hi"))
+            .start();
+
+        int connections = 60;
+        for (int i = 0; i < connections; i++) {
+            assertThat(get(), endsWith("Hi"));
+        }
+
+        Map<String, Long> accepted = server.stats().acceptedConnections();
+        assertThat(accepted.keySet(), contains("http-0", "http-1", "http-2", "http-3", "https-0", "https-1", "https-2", "https-3"));
+        MuAssert.assertEventually(() -> server.stats().acceptedConnections().entrySet().stream()
+            .filter(e -> e.getKey().startsWith("http-")).mapToLong(Map.Entry::getValue).sum(), is((long) connections));
+        long acceptorsUsed = server.stats().acceptedConnections().entrySet().stream()
+            .filter(e -> e.getKey().startsWith("http-") && e.getValue() > 0).count();
+        assertThat(acceptorsUsed, greaterThan(1L));
+    }
+
+    private String get() throws IOException {
+        try (Socket socket = new Socket(server.httpUri().getHost(), server.httpUri().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes(UTF_8));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > -1) {
+                baos.write(buffer, 0, read);
+            }
+            return baos.toString("UTF-8");
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
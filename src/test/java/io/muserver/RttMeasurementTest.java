@@ -0,0 +1,106 @@
+package io.muserver;
+
+import io.netty.channel.epoll.Epoll;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import static io.muserver.MuServerBuilder.httpServer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class RttMeasurementTest {
+
+    private MuServer server;
+
+    private static long total(MuStats stats) {
+        return stats.rttHistogram().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Test
+    public void http2ConnectionsMeasureRttWithPings() throws Exception {
+        server = httpServer()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .withRttMeasurement(50, TimeUnit.MILLISECONDS)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write(request.connection().protocol()))
+            .start();
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            assertThat(client.get("/").get(10, TimeUnit.SECONDS).body, equalTo("HTTP/2"));
+            MuAssert.assertEventually(() -> server.activeConnections().iterator().next().smoothedRtt().isPresent(), is(true));
+            HttpConnection connection = server.activeConnections().iterator().next();
+            assertThat(connection.smoothedRtt().get().toMillis(), lessThan(1000L));
+            assertThat(connection.rttVariance().isPresent(), is(true));
+            assertThat(total(server.stats()), greaterThanOrEqualTo(1L));
+            assertThat(server.stats().rttVarianceHistogram().keySet(), equalTo(server.stats().rttHistogram().keySet()));
+        }
+    }
+
+    @Test
+    public void http1ConnectionsReportTheKernelRttWithEpoll() throws Exception {
+        Assume.assumeTrue("Epoll is not available on this platform", Epoll.isAvailable());
+        server = httpServer()
+            .withTransport(Transport.EPOLL)
+            .withRttMeasurement(50, TimeUnit.MILLISECONDS)
+            .addHandler(Method.GET, "/", (request, response, pathParams) ->
+                response.write("measured=" + request.connection().smoothedRtt().isPresent()))
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.body().string(), equalTo("measured=true"));
+        }
+        assertThat(total(server.stats()), greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    public void nothingIsMeasuredByDefault() throws Exception {
+        server = ServerUtils.httpsServerForTest()
+            .addHandler(Method.GET, "/", (request, response, pathParams) ->
+                response.write("measured=" + request.connection().smoothedRtt().isPresent()
+                    + " " + request.connection().rttVariance().isPresent()))
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.body().string(), equalTo("measured=false false"));
+        }
+        assertThat(total(server.stats()), is(0L));
+    }
+
+    @Test
+    public void http2ConnectionsThatDoNotAcknowledgePingsAreClosed() throws Exception {
+        server = httpServer()
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .withRttMeasurement(100, TimeUnit.MILLISECONDS)
+            .start();
+        try (Socket socket = new Socket(server.uri().getHost(), server.uri().getPort())) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write("PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(US_ASCII));
+            // an empty SETTINGS frame
+            out.write(new byte[]{0, 0, 0, 4, 0, 0, 0, 0, 0});
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[1024];
+            long start = System.currentTimeMillis();
+            while (in.read(buffer) != -1) {
+                // the server's frames are read but never acknowledged
+            }
+            assertThat(System.currentTimeMillis() - start, lessThan(5000L));
+        }
+        MuAssert.assertEventually(() -> server.stats().activeConnections(), is(0L));
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,175 @@
+package io.muserver;
+
+import io.netty.buffer.AdaptiveByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import scaffolding.ClientUtils;
+import scaffolding.MuAssert;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.muserver.SocketConfigBuilder.socketConfig;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class SocketConfigTest {
+    private MuServer server;
+
+    @Test
+    public void theDefaultsLeaveNettyDefaultsInPlace() {
+        SocketConfig config = socketConfig().build();
+        assertThat(config.tcpNoDelay, is(true));
+        assertThat(config.createAllocator(), is(nullValue()));
+        assertThat(config.createReadBufferAllocator(), is(nullValue()));
+        assertThat(config.hasNativeOnlyOptions(), is(false));
+        assertThat(MuServerBuilder.httpServer().socketConfig().toString(), is(config.toString()));
+    }
+
+    @Test
+    public void configsCanBeConvertedBackToBuilders() {
+        SocketConfig config = socketConfig()
+            .withTcpNoDelay(false)
+            .withBacklog(2048)
+            .withSocketSendBufferSize(65536)
+            .withSocketReceiveBufferSize(131072)
+            .withTcpFastOpen(256)
+            .withTcpDeferAccept(5)
+            .withTcpQuickAck(true)
+            .withAllocator(BufferAllocatorType.UNPOOLED)
+            .withPreferDirectBuffers(false)
+            .withAdaptiveReadBufferSize(512, 4096, 1024 * 1024)
+            .build();
+        assertThat(config.toBuilder().build().toString(), is(config.toString()));
+        assertThat(config.hasNativeOnlyOptions(), is(true));
+    }
+
+    @Test
+    public void readBufferSizesMustBeInOrder() {
+        SocketConfigBuilder builder = socketConfig();
+        assertThrows(IllegalArgumentException.class, () -> builder.withFixedReadBufferSize(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.withAdaptiveReadBufferSize(1024, 512, 2048));
+        assertThrows(IllegalArgumentException.class, () -> builder.withAdaptiveReadBufferSize(1024, 2048, 1536));
+        assertThrows(IllegalArgumentException.class, () -> builder.withBacklog(-1));
+        assertThrows(IllegalArgumentException.class, () -> builder.withSocketSendBufferSize(-1));
+    }
+
+    @Test
+    public void fixedAndAdaptiveReadBuffersCanBeUsed() {
+        assertThat(socketConfig().withFixedReadBufferSize(2048).build().createReadBufferAllocator(), instanceOf(FixedRecvByteBufAllocator.class));
+        assertThat(socketConfig().withAdaptiveReadBufferSize(64, 1024, 65536).build().createReadBufferAllocator(), instanceOf(AdaptiveRecvByteBufAllocator.class));
+    }
+
+    @Test
+    public void optionsAreAppliedToClientConnections() throws IOException {
+        AtomicReference<ChannelConfig> channelConfig = new AtomicReference<>();
+        server = MuServerBuilder.httpServer()
+            .withSocketConfig(socketConfig()
+                .withTcpNoDelay(false)
+                .withBacklog(64)
+                .withSocketSendBufferSize(32 * 1024)
+                .withSocketReceiveBufferSize(32 * 1024)
+                .withAllocator(BufferAllocatorType.UNPOOLED)
+                .withFixedReadBufferSize(4096))
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                channelConfig.set(((NettyRequestAdapter) request).ctx.channel().config());
+                response.write("Hello");
+            })
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.body().string(), is("Hello"));
+        }
+        ChannelConfig config = channelConfig.get();
+        assertThat(config.getOption(ChannelOption.TCP_NODELAY), is(false));
+        assertThat(config.getOption(ChannelOption.SO_SNDBUF), greaterThanOrEqualTo(32 * 1024));
+        assertThat(config.getOption(ChannelOption.SO_RCVBUF), greaterThanOrEqualTo(32 * 1024));
+        assertThat(config.getAllocator(), instanceOf(UnpooledByteBufAllocator.class));
+        assertThat(config.getRecvByteBufAllocator(), instanceOf(FixedRecvByteBufAllocator.class));
+    }
+
+    @Test
+    public void largeRequestsAndResponsesWorkWithEachAllocator() throws IOException {
+        for (BufferAllocatorType allocator : BufferAllocatorType.values()) {
+            for (boolean preferDirect : new boolean[]{true, false}) {
+                AtomicReference<ChannelConfig> channelConfig = new AtomicReference<>();
+                server = MuServerBuilder.httpsServer()
+                    .withSocketConfig(socketConfig()
+                        .withAllocator(allocator)
+                        .withPreferDirectBuffers(preferDirect)
+                        .withAdaptiveReadBufferSize(64, 512, 64 * 1024))
+                    .addHandler(Method.POST, "/", (request, response, pathParams) -> {
+                        channelConfig.set(((NettyRequestAdapter) request).ctx.channel().config());
+                        String body = request.readBodyAsString();
+                        response.write(body + body);
+                    })
+                    .start();
+                StringBuffer sent = new StringBuffer();
+                try (Response resp = call(request(server.uri()).post(ClientUtils.largeRequestBody(sent)))) {
+                    assertThat(resp.code(), is(200));
+                    assertThat(resp.body().string(), equalTo(sent.toString() + sent));
+                }
+                Class<?> expectedType = allocator == BufferAllocatorType.POOLED ? PooledByteBufAllocator.class
+                    : allocator == BufferAllocatorType.UNPOOLED ? UnpooledByteBufAllocator.class
+                    : allocator == BufferAllocatorType.ADAPTIVE ? AdaptiveByteBufAllocator.class
+                    : io.netty.buffer.ByteBufAllocator.DEFAULT.getClass();
+                assertThat(channelConfig.get().getAllocator(), instanceOf(expectedType));
+                MuAssert.stopAndCheck(server);
+            }
+        }
+    }
+
+    @Test
+    public void nativeOptionsAreAppliedWithEpoll() throws IOException {
+        Assume.assumeTrue("Epoll is not available on this platform", Epoll.isAvailable());
+        AtomicReference<ChannelConfig> channelConfig = new AtomicReference<>();
+        AtomicReference<ChannelConfig> serverChannelConfig = new AtomicReference<>();
+        server = MuServerBuilder.httpServer()
+            .withTransport(Transport.EPOLL)
+            .withSocketConfig(socketConfig()
+                .withTcpDeferAccept(3)
+                .withTcpQuickAck(true))
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                channelConfig.set(((NettyRequestAdapter) request).ctx.channel().config());
+                serverChannelConfig.set(((NettyRequestAdapter) request).ctx.channel().parent().config());
+                response.write("Hello");
+            })
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.body().string(), is("Hello"));
+        }
+        // TCP_QUICKACK is not checked as the kernel clears it again after acknowledging, so it cannot be reliably read back
+        assertThat(channelConfig.get().getOption(ChannelOption.TCP_NODELAY), is(true));
+        assertThat(serverChannelConfig.get().getOption(EpollChannelOption.TCP_DEFER_ACCEPT), greaterThan(0));
+    }
+
+    @Test
+    public void nativeOptionsAreIgnoredWithNio() throws IOException {
+        server = MuServerBuilder.httpServer()
+            .withTransport(Transport.NIO)
+            .withSocketConfig(socketConfig().withTcpFastOpen(16).withTcpDeferAccept(3).withTcpQuickAck(true))
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hello"))
+            .start();
+        try (Response resp = call(new Request.Builder().url(server.uri().toString()))) {
+            assertThat(resp.body().string(), is("Hello"));
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
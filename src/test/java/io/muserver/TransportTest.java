@@ -0,0 +1,70 @@
+package io.muserver;
+
+import io.netty.channel.epoll.Epoll;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class TransportTest {
+    private MuServer server;
+
+    @Test
+    public void nioCanBeExplicitlySelected() {
+        assertThat(NettyTransport.create(Transport.NIO).type(), is(Transport.NIO));
+    }
+
+    @Test
+    public void autoUsesEpollWhenAvailable() {
+        Transport expected = Epoll.isAvailable() ? Transport.EPOLL : Transport.NIO;
+        assertThat(NettyTransport.create(Transport.AUTO).type(), is(expected));
+        assertThat(NettyTransport.create(Transport.EPOLL).type(), is(expected));
+    }
+
+    @Test
+    public void ioUringFallsBackToNioWhenNotOnTheClasspath() {
+        assertThat(NettyTransport.create(Transport.IO_URING).type(), is(Transport.NIO));
+    }
+
+    @Test
+    public void http1RequestsCanBeServedWithEachTransport() throws IOException {
+        for (Transport transport : Transport.values()) {
+            server = MuServerBuilder.httpServer()
+                .withTransport(transport)
+                .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write("Hello from " + transport))
+                .start();
+            try (Response resp = call(request(server.uri()))) {
+                assertThat(resp.code(), is(200));
+                assertThat(resp.body().string(), is("Hello from " + transport));
+            }
+            MuAssert.stopAndCheck(server);
+        }
+    }
+
+    @Test
+    public void http2RequestsCanBeServedWithEpoll() throws IOException {
+        Assume.assumeTrue("Epoll is not available on this platform", Epoll.isAvailable());
+        server = ServerUtils.httpsServerForTest()
+            .withTransport(Transport.EPOLL)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write(request.connection().protocol()))
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), is(resp.protocol() == okhttp3.Protocol.HTTP_2 ? "HTTP/2" : "HTTP/1.1"));
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,164 @@
+package io.muserver;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Assume;
+import scaffolding.MuAssert;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class UnixSocketTest {
+    private MuServer server;
+    private Path socketPath;
+    private EpollEventLoopGroup clientGroup;
+
+    @Before
+    public void setup() throws Exception {
+        Assume.assumeTrue("Epoll is not available on this platform", Epoll.isAvailable());
+        socketPath = Files.createTempDirectory("mu-unix").resolve("mu.sock");
+        clientGroup = new EpollEventLoopGroup(1);
+    }
+
+    @Test
+    public void http1RequestsCanBeMadeOverAUnixSocket() throws Exception {
+        server = MuServerBuilder.httpServer()
+            .withTransport(Transport.EPOLL)
+            .withUnixSocket(socketPath)
+            .addHandler(Method.GET, "/hello", (request, response, pathParams) ->
+                response.write(request.connection().protocol() + " " + request.remoteAddress() + " " + request.connection().isHttps()))
+            .start();
+        assertThat(Files.exists(socketPath), is(true));
+
+        String response = http1Request("GET /hello HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+        assertThat(response, startsWith("HTTP/1.1 200 OK"));
+        assertThat(response, endsWith("HTTP/1.1 127.0.0.1 false"));
+        assertThat(server.stats().acceptedConnections().get("unix-0"), is(1L));
+    }
+
+    @Test
+    public void cleartextHttp2CanBeUsedWithPriorKnowledgeIfHttp2IsEnabled() throws Exception {
+        server = MuServerBuilder.httpServer()
+            .withTransport(Transport.EPOLL)
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled())
+            .withUnixSocket(socketPath)
+            .addHandler(Method.GET, "/hello", (request, response, pathParams) ->
+                response.write(request.connection().protocol() + " " + request.uri().getScheme() + " " + request.connection().isHttps()))
+            .start();
+
+        assertThat(http2Request("/hello"), is("HTTP/2 http false"));
+        assertThat(http1Request("GET /hello HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"), endsWith("HTTP/1.1 http false"));
+    }
+
+    @Test
+    public void theSocketFileIsDeletedWhenTheServerStops() throws Exception {
+        MuServer stopped = MuServerBuilder.httpServer()
+            .withTransport(Transport.EPOLL)
+            .withUnixSocket(socketPath)
+            .start();
+        assertThat(Files.exists(socketPath), is(true));
+        stopped.stop();
+        assertThat(Files.exists(socketPath), is(false));
+    }
+
+    @Test
+    public void startupFailsIfTheTransportDoesNotSupportUnixSockets() {
+        MuServerBuilder builder = MuServerBuilder.httpServer()
+            .withTransport(Transport.NIO)
+            .withUnixSocket(socketPath);
+        MuException ex = assertThrows(MuException.class, builder::start);
+        assertThat(ex.getMessage(), containsString("Unix domain sockets are not supported by the NIO transport"));
+    }
+
+    private String http1Request(String request) throws Exception {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        Channel channel = new Bootstrap()
+            .group(clientGroup)
+            .channel(EpollDomainSocketChannel.class)
+            .handler(new SimpleChannelInboundHandler<ByteBuf>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                    byte[] bytes = new byte[msg.readableBytes()];
+                    msg.readBytes(bytes);
+                    received.write(bytes, 0, bytes.length);
+                }
+            })
+            .connect(new DomainSocketAddress(socketPath.toFile())).sync().channel();
+        channel.writeAndFlush(Unpooled.copiedBuffer(request, UTF_8)).sync();
+        assertThat(channel.closeFuture().await(10, TimeUnit.SECONDS), is(true));
+        return received.toString("UTF-8");
+    }
+
+    private String http2Request(String path) throws Exception {
+        Channel channel = new Bootstrap()
+            .group(clientGroup)
+            .channel(EpollDomainSocketChannel.class)
+            .handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(Http2FrameCodecBuilder.forClient().build());
+                    ch.pipeline().addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+                }
+            })
+            .connect(new DomainSocketAddress(socketPath.toFile())).sync().channel();
+        try {
+            CompletableFuture<String> body = new CompletableFuture<>();
+            Http2StreamChannel stream = new Http2StreamChannelBootstrap(channel).open().sync().getNow();
+            stream.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false));
+            stream.pipeline().addLast(new HttpObjectAggregator(65536));
+            stream.pipeline().addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                    body.complete(msg.content().toString(UTF_8));
+                }
+
+                @Override
+                public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                    body.completeExceptionally(cause);
+                }
+            });
+            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path);
+            request.headers().set(HttpHeaderNames.HOST, "localhost");
+            request.headers().set("x-http2-scheme", "http");
+            stream.writeAndFlush(request).sync();
+            return body.get(10, TimeUnit.SECONDS);
+        } finally {
+            channel.close().sync();
+        }
+    }
+
+    @After
+    public void destroy() throws Exception {
+        MuAssert.stopAndCheck(server);
+        if (clientGroup != null) {
+            clientGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+        if (socketPath != null) {
+            Files.deleteIfExists(socketPath);
+            Files.deleteIfExists(socketPath.getParent());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.muserver;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+/**
+ * Runs blocking handlers on virtual threads where every request must be in progress at the same time for any of
+ * them to complete. If a blocked read or write pinned its carrier thread, the requests beyond the number of carrier
+ * threads would never start and the test would time out.
+ * <p>The surefire configuration limits the virtual thread scheduler to 2 carrier threads.</p>
+ */
+public class VirtualThreadBlockingTest {
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final int CHUNKS = 16;
+    private MuServer server;
+    private ExecutorService clientExecutor;
+
+    @Test(timeout = 120000)
+    public void blockingUploadsAndDownloadsDoNotPinCarrierThreads() throws Exception {
+        Assume.assumeTrue("Virtual threads are not supported by this JVM", VirtualThreads.isSupported());
+        int uploads = 50;
+        int downloads = 50;
+        CountDownLatch allInProgress = new CountDownLatch(uploads + downloads);
+        server = ServerUtils.httpsServerForTest()
+            .withVirtualThreads(true)
+            .addHandler(Method.POST, "/upload", (request, response, pathParams) -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.inputStream().get(), UTF_8))) {
+                    // the client only sends the rest of the body once every request is being handled
+                    String first = reader.readLine();
+                    allInProgress.countDown();
+                    long received = first.length() + 1;
+                    char[] buffer = new char[CHUNK_SIZE];
+                    int read;
+                    while ((read = reader.read(buffer)) != -1) {
+                        received += read;
+                    }
+                    response.write(String.valueOf(received));
+                }
+            })
+            .addHandler(Method.GET, "/download", (request, response, pathParams) -> {
+                byte[] chunk = new byte[CHUNK_SIZE];
+                try (OutputStream out = response.outputStream()) {
+                    out.write(chunk);
+                    out.flush();
+                    allInProgress.countDown();
+                    if (!allInProgress.await(100, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Not all requests were in progress at the same time");
+                    }
+                    for (int i = 1; i < CHUNKS; i++) {
+                        out.write(chunk);
+                        out.flush();
+                    }
+                }
+            })
+            .start();
+
+        clientExecutor = Executors.newFixedThreadPool(uploads + downloads);
+        List<Future<String>> uploadResults = new ArrayList<>();
+        List<Future<Integer>> downloadResults = new ArrayList<>();
+        for (int i = 0; i < uploads; i++) {
+            uploadResults.add(clientExecutor.submit(() -> {
+                try (Response resp = call(request(server.uri().resolve("/upload")).post(new WaitingBody(allInProgress)))) {
+                    assertThat(resp.code(), is(200));
+                    return resp.body().string();
+                }
+            }));
+        }
+        for (int i = 0; i < downloads; i++) {
+            downloadResults.add(clientExecutor.submit(() -> {
+                try (Response resp = call(request(server.uri().resolve("/download")))) {
+                    assertThat(resp.code(), is(200));
+                    return resp.body().bytes().length;
+                }
+            }));
+        }
+
+        String expectedUploadSize = String.valueOf("first line\n".length() + CHUNK_SIZE * CHUNKS);
+        for (Future<String> uploadResult : uploadResults) {
+            assertThat(uploadResult.get(110, TimeUnit.SECONDS), is(expectedUploadSize));
+        }
+        for (Future<Integer> downloadResult : downloadResults) {
+            assertThat(downloadResult.get(110, TimeUnit.SECONDS), is(CHUNK_SIZE * CHUNKS));
+        }
+        assertThat(server.stats().rejectedDueToOverload(), is(0L));
+    }
+
+    private static class WaitingBody extends RequestBody {
+        private final CountDownLatch allInProgress;
+
+        private WaitingBody(CountDownLatch allInProgress) {
+            this.allInProgress = allInProgress;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return MediaType.parse("text/plain");
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.writeUtf8("first line\n");
+            sink.flush();
+            try {
+                if (!allInProgress.await(100, TimeUnit.SECONDS)) {
+                    throw new IOException("Not all requests were in progress at the same time");
+                }
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            byte[] chunk = new byte[CHUNK_SIZE];
+            for (int i = 0; i < CHUNKS; i++) {
+                sink.write(chunk);
+                sink.flush();
+            }
+        }
+    }
+
+    @After
+    public void destroy() {
+        if (clientExecutor != null) {
+            clientExecutor.shutdownNow();
+        }
+        MuAssert.stopAndCheck(server);
+    }
+}
@@ -0,0 +1,110 @@
+package io.muserver;
+
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import scaffolding.Http2Client;
+import scaffolding.MuAssert;
+import scaffolding.ServerUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static scaffolding.ClientUtils.call;
+import static scaffolding.ClientUtils.request;
+
+public class VirtualThreadsTest {
+    private MuServer server;
+
+    @Test
+    public void handlersRunOnVirtualThreadsWhenSupported() throws Exception {
+        Assume.assumeTrue("Virtual threads are not supported by this JVM", VirtualThreads.isSupported());
+        server = ServerUtils.httpsServerForTest()
+            .withVirtualThreads(true)
+            .addHandler(Method.GET, "/", (request, response, pathParams) ->
+                response.write(isVirtual(Thread.currentThread()) + " " + Thread.currentThread().getName()))
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), startsWith("true muhandler-"));
+        }
+    }
+
+    @Test
+    public void platformThreadsAreUsedIfVirtualThreadsAreNotSupported() throws Exception {
+        Assume.assumeFalse("Virtual threads are supported by this JVM", VirtualThreads.isSupported());
+        server = ServerUtils.httpsServerForTest()
+            .withVirtualThreads(true)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write(Thread.currentThread().getName()))
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.code(), is(200));
+            assertThat(resp.body().string(), startsWith("muhandler-"));
+        }
+    }
+
+    @Test
+    public void aSpecifiedHandlerExecutorTakesPrecedence() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "custom-executor"));
+        server = ServerUtils.httpsServerForTest()
+            .withVirtualThreads(true)
+            .withHandlerExecutor(executor)
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> response.write(Thread.currentThread().getName()))
+            .start();
+        try (Response resp = call(request(server.uri()))) {
+            assertThat(resp.body().string(), is("custom-executor"));
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void tensOfThousandsOfConcurrentBlockingRequestsCompleteWithout503s() throws Exception {
+        Assume.assumeTrue("Virtual threads are not supported by this JVM", VirtualThreads.isSupported());
+        int requestCount = 10000;
+        CountDownLatch allRequestsInFlight = new CountDownLatch(requestCount);
+        server = ServerUtils.httpsServerForTest()
+            .withVirtualThreads(true)
+            .withHttp2Config(Http2ConfigBuilder.http2Enabled().withMaxConcurrentStreams(requestCount))
+            .addHandler(Method.GET, "/", (request, response, pathParams) -> {
+                // every handler blocks until all the requests are being handled at the same time
+                allRequestsInFlight.countDown();
+                boolean allArrived = allRequestsInFlight.await(100, TimeUnit.SECONDS);
+                response.write(allArrived ? "done" : "timed out");
+            })
+            .start();
+
+        try (Http2Client client = Http2Client.connect(server.uri())) {
+            List<CompletableFuture<Http2Client.Response>> responses = new ArrayList<>();
+            for (int i = 0; i < requestCount; i++) {
+                responses.add(client.get("/?i=" + i));
+            }
+            for (CompletableFuture<Http2Client.Response> future : responses) {
+                Http2Client.Response response = future.get(110, TimeUnit.SECONDS);
+                assertThat(response.status, is(200));
+                assertThat(response.body, is("done"));
+            }
+        }
+        MuAssert.assertEventually(() -> server.stats().completedRequests(), is((long) requestCount));
+        assertThat(server.stats().rejectedDueToOverload(), is(0L));
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    @After
+    public void destroy() {
+        MuAssert.stopAndCheck(server);
+    }
+}
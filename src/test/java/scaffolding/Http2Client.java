@@ -0,0 +1,226 @@
+package scaffolding;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.*;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+
+import javax.net.ssl.SSLException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A non-blocking HTTP2 client that sends all requests over a single connection, allowing many thousands of
+ * concurrent requests without needing a thread per request. HTTPS URIs use ALPN and HTTP URIs use cleartext HTTP2
+ * with prior knowledge.
+ */
+public class Http2Client implements AutoCloseable {
+
+    private final NioEventLoopGroup group;
+    private final Channel channel;
+    private final URI uri;
+    private final List<Http2Settings> settings;
+
+    private Http2Client(NioEventLoopGroup group, Channel channel, URI uri, List<Http2Settings> settings) {
+        this.group = group;
+        this.channel = channel;
+        this.uri = uri;
+        this.settings = settings;
+    }
+
+    public static Http2Client connect(URI uri) throws InterruptedException {
+        boolean https = "https".equals(uri.getScheme());
+        SslContext sslContext = https ? sslContext() : null;
+        CompletableFuture<Void> settingsReceived = new CompletableFuture<>();
+        List<Http2Settings> settings = new CopyOnWriteArrayList<>();
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        Channel channel = new Bootstrap()
+            .group(group)
+            .channel(NioSocketChannel.class)
+            .handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    if (sslContext != null) {
+                        ch.pipeline().addLast(sslContext.newHandler(ch.alloc(), uri.getHost(), uri.getPort()));
+                    }
+                    ch.pipeline().addLast(Http2FrameCodecBuilder.forClient().build());
+                    ch.pipeline().addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+                    ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            if (msg instanceof Http2SettingsFrame) {
+                                settings.add(((Http2SettingsFrame) msg).settings());
+                                settingsReceived.complete(null);
+                            }
+                            ctx.fireChannelRead(msg);
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            settingsReceived.completeExceptionally(cause);
+                        }
+                    });
+                }
+            })
+            .connect(uri.getHost(), uri.getPort()).sync().channel();
+        try {
+            // wait for the server's settings so that its max concurrent streams setting is known
+            settingsReceived.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            channel.close();
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+            throw new RuntimeException("Did not receive HTTP2 settings from server", e);
+        }
+        return new Http2Client(group, channel, uri, settings);
+    }
+
+    /**
+     * @return All the settings frames received from the server so far, in the order received
+     */
+    public List<Http2Settings> settingsReceived() {
+        return settings;
+    }
+
+    private static SslContext sslContext() {
+        try {
+            return SslContextBuilder.forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .applicationProtocolConfig(new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
+                    ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                    ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                    ApplicationProtocolNames.HTTP_2))
+                .build();
+        } catch (SSLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sends a GET request without waiting for the response
+     * @param path The path and querystring of the request
+     * @return A future that completes with the response
+     */
+    public CompletableFuture<Response> get(String path) {
+        return get(path, Collections.emptyMap());
+    }
+
+    /**
+     * Sends a GET request with extra headers without waiting for the response
+     * @param path The path and querystring of the request
+     * @param headers Headers to add to the request
+     * @return A future that completes with the response
+     */
+    public CompletableFuture<Response> get(String path, Map<String, String> headers) {
+        return send(HttpMethod.GET, path, headers, Unpooled.EMPTY_BUFFER);
+    }
+
+    /**
+     * Sends a POST request without waiting for the response
+     * @param path The path and querystring of the request
+     * @param body The request body
+     * @return A future that completes with the response
+     */
+    public CompletableFuture<Response> post(String path, byte[] body) {
+        return send(HttpMethod.POST, path, Collections.emptyMap(), Unpooled.wrappedBuffer(body));
+    }
+
+    private CompletableFuture<Response> send(HttpMethod method, String path, Map<String, String> headers, ByteBuf body) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        new Http2StreamChannelBootstrap(channel).open().addListener(future -> {
+            if (!future.isSuccess()) {
+                result.completeExceptionally(future.cause());
+                return;
+            }
+            Http2StreamChannel stream = (Http2StreamChannel) future.getNow();
+            List<Http2Headers> informational = new CopyOnWriteArrayList<>();
+            stream.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    if (msg instanceof Http2HeadersFrame) {
+                        Http2Headers headers = ((Http2HeadersFrame) msg).headers();
+                        if (headers.status() != null && headers.status().charAt(0) == '1') {
+                            informational.add(headers);
+                            return;
+                        }
+                    }
+                    ctx.fireChannelRead(msg);
+                }
+            });
+            stream.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false));
+            stream.pipeline().addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
+            stream.pipeline().addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                    result.complete(new Response(msg.status().code(), msg.content().toString(UTF_8), informational));
+                    ctx.close();
+                }
+
+                @Override
+                public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                    result.completeExceptionally(cause);
+                    ctx.close();
+                }
+
+                @Override
+                public void channelInactive(ChannelHandlerContext ctx) {
+                    result.completeExceptionally(new IllegalStateException("Stream closed before the response was received"));
+                }
+            });
+            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, path, body);
+            request.headers().set(HttpHeaderNames.HOST, uri.getAuthority());
+            headers.forEach((name, value) -> request.headers().set(name, value));
+            if (body.isReadable()) {
+                request.headers().set(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+            }
+            request.headers().set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), uri.getScheme());
+            stream.writeAndFlush(request).addListener(writeFuture -> {
+                if (!writeFuture.isSuccess()) {
+                    result.completeExceptionally(writeFuture.cause());
+                }
+            });
+        });
+        return result;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        channel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    public static class Response {
+        public final int status;
+        public final String body;
+        /**
+         * The headers of any 1xx responses received before the final response
+         */
+        public final List<Http2Headers> informational;
+
+        Response(int status, String body, List<Http2Headers> informational) {
+            this.status = status;
+            this.body = body;
+            this.informational = informational;
+        }
+
+        @Override
+        public String toString() {
+            return status + " " + body;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package scaffolding;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.concurrent.Future;
+
+import javax.net.ssl.TrustManagerFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP/3 client using Netty's HTTP/3 codec, which is loaded reflectively as its package depends on the Netty version
+ */
+public class Http3Client implements AutoCloseable {
+
+    private static final String QUIC_PACKAGE;
+    private static final String HTTP3_PACKAGE;
+
+    static {
+        if (isClassAvailable("io.netty.handler.codec.http3.Http3")) {
+            QUIC_PACKAGE = "io.netty.handler.codec.quic";
+            HTTP3_PACKAGE = "io.netty.handler.codec.http3";
+        } else {
+            QUIC_PACKAGE = "io.netty.incubator.codec.quic";
+            HTTP3_PACKAGE = "io.netty.incubator.codec.http3";
+        }
+    }
+
+    private final NioEventLoopGroup group;
+    private final Channel udpChannel;
+    private final Channel quicChannel;
+    private final String authority;
+
+    private Http3Client(NioEventLoopGroup group, Channel udpChannel, Channel quicChannel, String authority) {
+        this.group = group;
+        this.udpChannel = udpChannel;
+        this.quicChannel = quicChannel;
+        this.authority = authority;
+    }
+
+    /**
+     * @return <code>true</code> if the HTTP/3 codec and the native QUIC library are available
+     */
+    public static boolean isAvailable() {
+        try {
+            return Boolean.TRUE.equals(load(QUIC_PACKAGE + ".Quic").getMethod("isAvailable").invoke(null));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static boolean isClassAvailable(String className) {
+        try {
+            Class.forName(className, false, Http3Client.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static Class<?> load(String className) throws ClassNotFoundException {
+        return Class.forName(className, true, Http3Client.class.getClassLoader());
+    }
+
+    public static Http3Client connect(String host, int port) throws Exception {
+        Class<?> http3 = load(HTTP3_PACKAGE + ".Http3");
+
+        Class<?> sslBuilderClass = load(QUIC_PACKAGE + ".QuicSslContextBuilder");
+        Object sslBuilder = sslBuilderClass.getMethod("forClient").invoke(null);
+        sslBuilderClass.getMethod("trustManager", TrustManagerFactory.class).invoke(sslBuilder, InsecureTrustManagerFactory.INSTANCE);
+        sslBuilderClass.getMethod("applicationProtocols", String[].class).invoke(sslBuilder, http3.getMethod("supportedApplicationProtocols").invoke(null));
+        Object sslContext = sslBuilderClass.getMethod("build").invoke(sslBuilder);
+
+        Class<?> codecBuilderClass = load(QUIC_PACKAGE + ".QuicClientCodecBuilder");
+        Object codecBuilder = http3.getMethod("newQuicClientCodecBuilder").invoke(null);
+        codecBuilderClass.getMethod("sslContext", load(QUIC_PACKAGE + ".QuicSslContext")).invoke(codecBuilder, sslContext);
+        codecBuilderClass.getMethod("maxIdleTimeout", long.class, TimeUnit.class).invoke(codecBuilder, 30L, TimeUnit.SECONDS);
+        codecBuilderClass.getMethod("initialMaxData", long.class).invoke(codecBuilder, 10_000_000L);
+        codecBuilderClass.getMethod("initialMaxStreamDataBidirectionalLocal", long.class).invoke(codecBuilder, 1_000_000L);
+        ChannelHandler codec = (ChannelHandler) codecBuilderClass.getMethod("build").invoke(codecBuilder);
+
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            Channel udpChannel = new Bootstrap().group(group).channel(NioDatagramChannel.class).handler(codec).bind(0).sync().channel();
+            Class<?> quicChannelClass = load(QUIC_PACKAGE + ".QuicChannel");
+            Class<?> quicBootstrapClass = load(QUIC_PACKAGE + ".QuicChannelBootstrap");
+            Object quicBootstrap = quicChannelClass.getMethod("newBootstrap", Channel.class).invoke(null, udpChannel);
+            ChannelHandler connectionHandler = (ChannelHandler) load(HTTP3_PACKAGE + ".Http3ClientConnectionHandler").getConstructor().newInstance();
+            quicBootstrapClass.getMethod("handler", ChannelHandler.class).invoke(quicBootstrap, connectionHandler);
+            quicBootstrapClass.getMethod("remoteAddress", java.net.SocketAddress.class).invoke(quicBootstrap, new InetSocketAddress(host, port));
+            Future<?> connected = (Future<?>) quicBootstrapClass.getMethod("connect").invoke(quicBootstrap);
+            Channel quicChannel = (Channel) connected.get(10, TimeUnit.SECONDS);
+            return new Http3Client(group, udpChannel, quicChannel, host + ":" + port);
+        } catch (Exception e) {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+            throw e;
+        }
+    }
+
+    public Response get(String path) throws Exception {
+        return send(HttpMethod.GET, path, null).get(30, TimeUnit.SECONDS);
+    }
+
+    public Response post(String path, String body) throws Exception {
+        return send(HttpMethod.POST, path, body).get(30, TimeUnit.SECONDS);
+    }
+
+    public CompletableFuture<Response> send(HttpMethod method, String path, String body) throws Exception {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        ChannelHandler streamInitializer = new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                ch.pipeline().addLast((ChannelHandler) load(HTTP3_PACKAGE + ".Http3FrameToHttpObjectCodec").getConstructor(boolean.class).newInstance(false));
+                ch.pipeline().addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
+                ch.pipeline().addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+                        result.complete(new Response(msg.status().code(), msg.headers().copy(), msg.content().toString(StandardCharsets.UTF_8)));
+                    }
+
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        result.completeExceptionally(cause);
+                    }
+
+                    @Override
+                    public void channelInactive(ChannelHandlerContext ctx) {
+                        result.completeExceptionally(new IllegalStateException("Stream closed without a response"));
+                    }
+                });
+            }
+        };
+        Class<?> quicChannelClass = load(QUIC_PACKAGE + ".QuicChannel");
+        Future<?> created = (Future<?>) load(HTTP3_PACKAGE + ".Http3").getMethod("newRequestStream", quicChannelClass, ChannelHandler.class)
+            .invoke(null, quicChannel, streamInitializer);
+        Channel stream = (Channel) created.get(10, TimeUnit.SECONDS);
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, path,
+            body == null ? Unpooled.EMPTY_BUFFER : Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        request.headers().set(HttpHeaderNames.HOST, authority);
+        if (body != null) {
+            HttpUtil.setContentLength(request, request.content().readableBytes());
+        }
+        stream.writeAndFlush(request);
+        return result;
+    }
+
+    @Override
+    public void close() throws Exception {
+        quicChannel.close().sync();
+        udpChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    public static class Response {
+        public final int code;
+        public final HttpHeaders headers;
+        public final String body;
+
+        Response(int code, HttpHeaders headers, String body) {
+            this.code = code;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
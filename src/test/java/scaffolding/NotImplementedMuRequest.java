@@ -65,6 +65,11 @@ public class NotImplementedMuRequest implements MuRequest {
         return throwIt();
     }
 
+    @Override
+    public FormPartReader formPartReader() throws IOException {
+        return throwIt();
+    }
+
     @Override
     public RequestParameters query() {
         return throwIt();